@@ -4,17 +4,15 @@
 
 package net.soliddesign.bus;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Objects.requireNonNull;
-
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.time.LocalDate;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +22,7 @@ import org.etools.j1939_84.bus.Bus;
 import org.etools.j1939_84.bus.BusException;
 import org.etools.j1939_84.bus.MultiQueue;
 import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.TextLogReader;
 import org.etools.j1939_84.bus.j1939.J1939;
 import org.etools.j1939_84.bus.j1939.J1939DaRepository;
 import org.etools.j1939_84.bus.j1939.J1939TP;
@@ -41,6 +40,9 @@ import org.etools.j1939_84.resources.Resources;
  */
 public class FileBus implements Bus {
 
+    /** The text of the lines of the tool's log with the frames the adapter read and sent */
+    public static final String FRAME_LINES = "FINE   org.etools.j1939_84.bus.RP1210Bus lambda$decodeDataAndQueuePacket";
+
     public static void main(String... args) throws BusException {
         // If the source address is set to 0xF9, transmitted packets will NOT be replayed
         // Setting the source address to another value (such as 0xFA), will replay transmitted packets
@@ -84,20 +86,46 @@ public class FileBus implements Bus {
         // The packets can be out of order in the log files.
         // This reads them into memory to ensure they are played back in order
         System.out.println("Reading log files");
+        List<File> files = new ArrayList<>();
         for (int x = 20; x >= 0; x--) {
-            try {
-                readLogFile("j1939_84" + x + ".log");
-            } catch (NullPointerException ignored) {
-                // The file doesn't exist
-            } catch (IOException e) {
-                e.printStackTrace();
+            URL url = Resources.class.getResource("j1939_84" + x + ".log");
+            // The file doesn't exist
+            if (url != null) {
+                try {
+                    files.add(new File(url.toURI()));
+                } catch (URISyntaxException e) {
+                    e.printStackTrace();
+                }
             }
         }
-        packets.sort(Comparator.comparing(Packet::getTimestamp));
+        try {
+            packets.addAll(readLogFiles(files));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
         System.out.println("\nRead " + packets.size() + " packets");
     }
 
+    /**
+     * Reads the frames of the tool's log files, in the order they were read
+     * from the adapter.
+     *
+     * @param  files
+     *                         the log files
+     * @return             the frames, oldest first
+     * @throws IOException
+     *                         if a file cannot be read
+     */
+    public static List<Packet> readLogFiles(List<File> files) throws IOException {
+        List<Packet> packets = new ArrayList<>();
+        for (File file : files) {
+            readLogFile(file, packets);
+        }
+        packets.sort(Comparator.comparing(Packet::getTimestamp));
+        return packets;
+    }
+
     private void queuePackets() {
         long count = 0;
         System.out.println("Queuing Packets");
@@ -136,25 +164,22 @@ public class FileBus implements Bus {
         return LocalDateTime.now().toLocalTime().toNanoOfDay();
     }
 
-    private void readLogFile(String fileName) throws IOException {
-        System.out.print("\rReading: " + fileName);
-        try (BufferedReader reader = createReader(fileName)) {
-            String line = reader.readLine();
-            while (line != null) {
-                String[] splits = line.split("lambda\\$decodeDataAndQueuePacket");
-                if (splits.length == 2) {
-                    String substring = splits[1].substring(17);
-                    Packet packet = Packet.parse(substring);
-
-                    String time = splits[1].substring(3, 16);
-                    LocalTime localTime = LocalTime.parse(time);
-                    LocalDateTime localDateTime = LocalDate.now().atTime(localTime);
-                    requireNonNull(packet).setTimestamp(localDateTime);
-
-                    packets.add(packet);
+    private static void readLogFile(File file, List<Packet> packets) throws IOException {
+        try (TextLogReader reader = new TextLogReader(file)) {
+            reader.setLineFilter(FRAME_LINES);
+            reader.read((epochNanos, canId, transmitted, data, length) -> {
+                // a Packet has at least three bytes
+                if (length >= 3) {
+                    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos),
+                                                                 ZoneId.systemDefault());
+                    packets.add(Packet.create(time,
+                                              (canId >> 26) & 0x07,
+                                              (canId >> 8) & 0x3FFFF,
+                                              canId & 0xFF,
+                                              transmitted,
+                                              Arrays.copyOf(data, length)));
                 }
-                line = reader.readLine();
-            }
+            });
         }
     }
 
@@ -199,9 +224,4 @@ public class FileBus implements Bus {
     public boolean imposterDetected() {
         return false;
     }
-
-    private BufferedReader createReader(String fileName) {
-        InputStream inputStream = Resources.class.getResourceAsStream(fileName);
-        return new BufferedReader(new InputStreamReader(requireNonNull(inputStream), UTF_8));
-    }
 }
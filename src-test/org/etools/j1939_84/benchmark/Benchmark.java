@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * One benchmark run by the {@link BenchmarkRunner}.
+ *
+ * The setup is called once before the warmup, so threads and data the
+ * benchmark needs are not part of the measurement. The {@link Operation} it
+ * returns is called repeatedly and timed, then closed.
+ */
+public class Benchmark {
+
+    /** The code that is timed. */
+    @FunctionalInterface
+    public interface Operation extends AutoCloseable {
+        /**
+         * @return           a value that is consumed so the work is not
+         *                       optimized away
+         * @throws Exception
+         *                       if the operation fails, which stops the run
+         */
+        Object run() throws Exception;
+
+        /** Releases what the setup created, which must not fail. */
+        @Override
+        default void close() {
+        }
+    }
+
+    private final String name;
+
+    private final Map<String, String> params;
+
+    private final Callable<Operation> setup;
+
+    /**
+     * @param name
+     *                  the name of the benchmark
+     * @param setup
+     *                  creates the operation that is timed
+     */
+    public Benchmark(String name, Callable<Operation> setup) {
+        this(name, Map.of(), setup);
+    }
+
+    /**
+     * @param name
+     *                   the name of the benchmark
+     * @param params
+     *                   the parameters of this run of the benchmark, as in the
+     *                   results, in name order
+     * @param setup
+     *                   creates the operation that is timed
+     */
+    public Benchmark(String name, Map<String, String> params, Callable<Operation> setup) {
+        this.name = name;
+        this.params = Collections.unmodifiableMap(new TreeMap<>(params));
+        this.setup = setup;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    Operation setUp() throws Exception {
+        return setup.call();
+    }
+
+    @Override
+    public String toString() {
+        return params.isEmpty() ? name : name + params;
+    }
+}
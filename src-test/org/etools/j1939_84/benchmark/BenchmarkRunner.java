@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Runs the benchmarks of the bus and decode hot paths and writes the results
+ * as JSON.
+ *
+ * Each benchmark is warmed up, then timed for a fixed number of fixed length
+ * iterations in the same JVM. The score is the average time per operation.
+ * The JSON follows the layout of the JMH JSON results, so the files from each
+ * release can be compared with the same tools.
+ *
+ * Arguments: [--quick] [--filter regex] [results.json]
+ */
+public class BenchmarkRunner {
+
+    /** The timing of a run. */
+    public static class Settings {
+        /** The settings used for archived results. */
+        public static final Settings STANDARD = new Settings(5, 500, 10, 500);
+
+        /** Short settings to check the benchmarks work. */
+        public static final Settings QUICK = new Settings(1, 50, 2, 50);
+
+        private final int warmupIterations;
+        private final long warmupMillis;
+        private final int measurementIterations;
+        private final long measurementMillis;
+
+        public Settings(int warmupIterations,
+                        long warmupMillis,
+                        int measurementIterations,
+                        long measurementMillis) {
+            this.warmupIterations = warmupIterations;
+            this.warmupMillis = warmupMillis;
+            this.measurementIterations = measurementIterations;
+            this.measurementMillis = measurementMillis;
+        }
+    }
+
+    /** The result of one benchmark, in the JMH layout. */
+    public static class Result {
+        /** The score and its spread. */
+        public static class Metric {
+            private double score;
+            private double scoreError;
+            private double[] scoreConfidence;
+            private String scoreUnit = "ns/op";
+            private double[][] rawData;
+
+            public double getScore() {
+                return score;
+            }
+
+            public double getScoreError() {
+                return scoreError;
+            }
+        }
+
+        private String benchmark;
+        private String mode = "avgt";
+        private int threads = 1;
+        private int forks = 0;
+        private String jdkVersion = System.getProperty("java.version");
+        private String vmName = System.getProperty("java.vm.name");
+        private int warmupIterations;
+        private String warmupTime;
+        private int measurementIterations;
+        private String measurementTime;
+        private Map<String, String> params;
+        private final Metric primaryMetric = new Metric();
+
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+
+        public Metric getPrimaryMetric() {
+            return primaryMetric;
+        }
+    }
+
+    /** z for a two sided 99.9% confidence interval */
+    private static final double Z_999 = 3.291;
+
+    /** Consumes the results of the operations. */
+    private static volatile Object sink;
+
+    public static void main(String... args) throws Exception {
+        Settings settings = Settings.STANDARD;
+        Pattern filter = Pattern.compile(".*");
+        File output = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--quick")) {
+                settings = Settings.QUICK;
+            } else if (args[i].equals("--filter")) {
+                filter = Pattern.compile(args[++i]);
+            } else {
+                output = new File(args[i]);
+            }
+        }
+
+        Pattern f = filter;
+        List<Benchmark> benchmarks = getBenchmarks().stream()
+                                                    .filter(b -> f.matcher(b.getName()).find())
+                                                    .collect(Collectors.toList());
+        List<Result> results = run(benchmarks, settings);
+        if (output != null) {
+            write(results, output);
+            System.out.println("Results written to " + output.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return all the benchmarks
+     */
+    public static List<Benchmark> getBenchmarks() {
+        return Stream.of(PacketBenchmarks.benchmarks(),
+                         MultiQueueBenchmarks.benchmarks(),
+                         DecodeBenchmarks.benchmarks(),
+                         LogBenchmarks.benchmarks(),
+                         TransportBenchmarks.benchmarks(),
+                         ControllerBenchmarks.benchmarks())
+                     .flatMap(List::stream)
+                     .collect(Collectors.toList());
+    }
+
+    /**
+     * Runs the benchmarks one after another and prints a summary of each.
+     *
+     * @param  benchmarks
+     *                        the benchmarks to run
+     * @param  settings
+     *                        the timing of each run
+     * @return            the results
+     * @throws Exception
+     *                        if a benchmark fails
+     */
+    public static List<Result> run(List<Benchmark> benchmarks, Settings settings) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (Benchmark benchmark : benchmarks) {
+            Result result = run(benchmark, settings);
+            System.out.printf("%-45s %-25s %12.1f +- %8.1f ns/op%n",
+                              benchmark.getName(),
+                              benchmark.getParams().isEmpty() ? "" : benchmark.getParams().toString(),
+                              result.primaryMetric.score,
+                              result.primaryMetric.scoreError);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static Result run(Benchmark benchmark, Settings settings) throws Exception {
+        double[] scores = new double[settings.measurementIterations];
+        try (Benchmark.Operation operation = benchmark.setUp()) {
+            for (int i = 0; i < settings.warmupIterations; i++) {
+                iteration(operation, settings.warmupMillis);
+            }
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = iteration(operation, settings.measurementMillis);
+            }
+        }
+
+        Result result = new Result();
+        result.benchmark = benchmark.getName();
+        result.params = benchmark.getParams();
+        result.warmupIterations = settings.warmupIterations;
+        result.warmupTime = settings.warmupMillis + " ms";
+        result.measurementIterations = settings.measurementIterations;
+        result.measurementTime = settings.measurementMillis + " ms";
+
+        double mean = Arrays.stream(scores).average().orElse(0);
+        double variance = scores.length < 2 ? 0
+                : Arrays.stream(scores).map(s -> (s - mean) * (s - mean)).sum() / (scores.length - 1);
+        Result.Metric metric = result.primaryMetric;
+        metric.score = mean;
+        metric.scoreError = Z_999 * Math.sqrt(variance / scores.length);
+        metric.scoreConfidence = new double[] { mean - metric.scoreError, mean + metric.scoreError };
+        metric.rawData = new double[][] { scores };
+        return result;
+    }
+
+    /** @return the average nanoseconds per operation */
+    private static double iteration(Benchmark.Operation operation, long millis) throws Exception {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        long operations = 0;
+        long now;
+        do {
+            sink = operation.run();
+            operations++;
+        } while ((now = System.nanoTime()) < end);
+        return (double) (now - start) / operations;
+    }
+
+    /**
+     * Writes the results as JSON.
+     *
+     * @param  results
+     *                         the results to write
+     * @param  file
+     *                         the file to write
+     * @throws IOException
+     *                         if the file cannot be written
+     */
+    public static void write(List<Result> results, File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            gson.toJson(results, writer);
+        }
+    }
+}
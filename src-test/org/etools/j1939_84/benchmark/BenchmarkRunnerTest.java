@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Unit tests for the {@link BenchmarkRunner} class
+ */
+@TestDoc(description = "Verifies the benchmarks run and the results are written as JSON.")
+public class BenchmarkRunnerTest {
+
+    @Test(timeout = 10000)
+    public void testRun() throws Exception {
+        Benchmark benchmark = new Benchmark("test", Map.of("b", "2", "a", "1"), () -> () -> new int[10]);
+        List<BenchmarkRunner.Result> results = BenchmarkRunner.run(List.of(benchmark), BenchmarkRunner.Settings.QUICK);
+
+        assertEquals(1, results.size());
+        BenchmarkRunner.Result result = results.get(0);
+        assertEquals("test", result.getBenchmark());
+        assertEquals("[a, b]", result.getParams().keySet().toString());
+        assertTrue(result.getPrimaryMetric().getScore() > 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testWrite() throws Exception {
+        Benchmark benchmark = new Benchmark("test", () -> () -> "");
+        File file = File.createTempFile("benchmark", ".json");
+        try {
+            BenchmarkRunner.write(BenchmarkRunner.run(List.of(benchmark), BenchmarkRunner.Settings.QUICK), file);
+            try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+                BenchmarkRunner.Result[] results = new Gson().fromJson(reader, BenchmarkRunner.Result[].class);
+                assertEquals(1, results.length);
+                assertEquals("test", results[0].getBenchmark());
+                assertTrue(results[0].getPrimaryMetric().getScore() > 0);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify every benchmark has a unique name and parameters, so results can be compared.")
+    public void testBenchmarks() {
+        List<Benchmark> benchmarks = BenchmarkRunner.getBenchmarks();
+        assertEquals(benchmarks.size(), benchmarks.stream().map(Benchmark::toString).collect(Collectors.toSet()).size());
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.util.List;
+
+import org.etools.j1939_84.controllers.OverallController;
+
+/**
+ * Benchmarks of setting up the controllers when the application starts.
+ */
+public class ControllerBenchmarks {
+
+    public static List<Benchmark> benchmarks() {
+        return List.of(new Benchmark("OverallController.create", () -> OverallController::new));
+    }
+}
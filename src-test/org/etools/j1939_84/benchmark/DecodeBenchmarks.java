@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import static org.etools.j1939_84.bus.j1939.packets.LampStatus.OFF;
+import static org.etools.j1939_84.bus.j1939.packets.LampStatus.ON;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.J1939DaRepository;
+import org.etools.j1939_84.bus.j1939.packets.DM1ActiveDTCsPacket;
+import org.etools.j1939_84.bus.j1939.packets.DiagnosticTroubleCode;
+import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
+import org.etools.j1939_84.bus.j1939.packets.Slot;
+import org.etools.j1939_84.bus.j1939.packets.model.SpnDefinition;
+
+/**
+ * Benchmarks of decoding packets with the Digital Annex.
+ *
+ * The packets are created once and a new parsed packet is made for each
+ * operation, because parsed packets keep what they decode.
+ */
+public class DecodeBenchmarks {
+
+    /** Engine speed */
+    private static final int SPN = 190;
+
+    private static final int DTCS = 10;
+
+    public static List<Benchmark> benchmarks() {
+        J1939DaRepository repository = J1939DaRepository.getInstance();
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        Map<String, Packet> packets = new LinkedHashMap<>();
+        packets.put("EEC1", Packet.create(0xF004, 0x00, 0xF0, 0x7D, 0x7D, 0x20, 0x1C, 0x00, 0xF0, 0x7D));
+        packets.put("ET1", Packet.create(0xFEEE, 0x00, 0x5A, 0x50, 0x20, 0x4E, 0xFF, 0xFF, 0xFF, 0xFF));
+        for (var entry : packets.entrySet()) {
+            Packet packet = entry.getValue();
+            benchmarks.add(new Benchmark("GenericPacket.getSpns",
+                                         Map.of("pgn", entry.getKey()),
+                                         () -> () -> new GenericPacket(packet).getSpns()));
+        }
+
+        SpnDefinition definition = repository.findSpnDefinition(SPN);
+        Slot slot = repository.findSLOT(definition.getSlotNumber(), SPN);
+        byte[] data = { 0x20, 0x1C };
+        benchmarks.add(new Benchmark("Slot.asValue",
+                                     Map.of("slot", Integer.toString(slot.getId())),
+                                     () -> () -> slot.asValue(data)));
+
+        DiagnosticTroubleCode[] dtcs = new DiagnosticTroubleCode[DTCS];
+        for (int i = 0; i < dtcs.length; i++) {
+            dtcs[i] = DiagnosticTroubleCode.create(100 + i, i % 32, 0, i + 1);
+        }
+        Packet dm1 = DM1ActiveDTCsPacket.create(0x00, ON, OFF, OFF, OFF, dtcs).getPacket();
+        benchmarks.add(new Benchmark("DiagnosticTroubleCodePacket.getDtcs",
+                                     Map.of("dtcs", Integer.toString(DTCS)),
+                                     () -> () -> new DM1ActiveDTCsPacket(dm1).getDtcs()));
+
+        benchmarks.add(new Benchmark("J1939DaRepository.findPgnDefinition",
+                                     () -> () -> repository.findPgnDefinition(0xF004)));
+        benchmarks.add(new Benchmark("J1939DaRepository.findSpnDefinition",
+                                     () -> () -> repository.findSpnDefinition(SPN)));
+        benchmarks.add(new Benchmark("J1939DaRepository.findSLOT",
+                                     () -> () -> repository.findSLOT(definition.getSlotNumber(), SPN)));
+        benchmarks.add(new Benchmark("J1939DaRepository.getPgnForSpn", () -> () -> repository.getPgnForSpn(SPN)));
+        return benchmarks;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.TextLogReader;
+
+import net.soliddesign.bus.FileBus;
+
+/**
+ * Benchmarks of reading the frames of text logs with the {@link TextLogReader}
+ * and with the parsers of {@link Packet}, which read the lines of the file as
+ * Strings. Each operation reads {@link #LINES} lines, so the lines per second
+ * are {@link #LINES} divided by the time of an operation.
+ *
+ * The rotated logs are {@link #LINES} lines of the tool's log in
+ * {@link #FILES} files, which {@link FileBus#readLogFiles(List)} reads and
+ * sorts by time, as FileBus replays them, compared with the way FileBus read
+ * them before, splitting each line and parsing it with {@link Packet#parse}.
+ */
+public class LogBenchmarks {
+
+    private static final int LINES = 100000;
+
+    /** The number of rotated log files FileBus reads */
+    private static final int FILES = 21;
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 4, 1, 10, 0);
+
+    /** Reads a file of lines; the file is deleted when the benchmark is done */
+    private static abstract class LogFile implements Benchmark.Operation {
+        final File file;
+
+        LogFile(IntFunction<String> line) throws IOException {
+            file = File.createTempFile("benchmark", ".log");
+            try (PrintWriter writer = new PrintWriter(file, StandardCharsets.US_ASCII)) {
+                for (int i = 0; i < LINES; i++) {
+                    writer.println(line.apply(i));
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            file.delete();
+        }
+    }
+
+    private static String data(int i) {
+        return String.format("%02X %02X %02X %02X %02X %02X %02X %02X",
+                             i & 0xFF,
+                             i >> 8 & 0xFF,
+                             0x14,
+                             0x37,
+                             0xE0,
+                             0x1E,
+                             0xE0,
+                             0x1E);
+    }
+
+    private static String packetLine(int i) {
+        return String.format("18FE%02X%02X [8] %s", i & 0xFF, i % 7, data(i));
+    }
+
+    private static String logLine(int i) {
+        return String.format("2021-04-01 10:%02d:%02d.%03d %s$3 10:%02d:%02d.%04d %s",
+                             i / 6000 % 60,
+                             i / 100 % 60,
+                             i % 100 * 10,
+                             FileBus.FRAME_LINES,
+                             i / 6000 % 60,
+                             i / 100 % 60,
+                             i % 100 * 100,
+                             packetLine(i));
+    }
+
+    private static String ascLine(int i) {
+        return String.format("   %d.%06d 1  18FE%02X%02Xx       Rx   d 8 %s",
+                             i / 100,
+                             i % 100 * 10000,
+                             i & 0xFF,
+                             i % 7,
+                             data(i));
+    }
+
+    private static Benchmark reader(String format, IntFunction<String> line) {
+        return new Benchmark("TextLogReader.read", params(format), () -> new LogFile(line) {
+            @Override
+            public Object run() throws Exception {
+                long[] sum = new long[1];
+                try (TextLogReader reader = new TextLogReader(file, START)) {
+                    reader.read((epochNanos, canId, transmitted, data, length) -> sum[0] += canId + data[0]);
+                }
+                return sum[0];
+            }
+        });
+    }
+
+    private static Map<String, String> params(String format) {
+        return Map.of("format", format, "lines", Integer.toString(LINES));
+    }
+
+    /**
+     * The tool's log in {@link #FILES} files, the oldest in j1939_84
+     * {@link #FILES} - 1 and the newest in j1939_84 0, with every tenth pair
+     * of lines out of order, as the threads that log the frames leave them.
+     */
+    private static abstract class RotatedLogs implements Benchmark.Operation {
+        final List<File> files = new ArrayList<>();
+
+        RotatedLogs() throws IOException {
+            int linesPerFile = (LINES + FILES - 1) / FILES;
+            for (int x = FILES - 1; x >= 0; x--) {
+                File file = File.createTempFile("j1939_84" + x + "-", ".log");
+                files.add(file);
+                try (PrintWriter writer = new PrintWriter(file, StandardCharsets.US_ASCII)) {
+                    int first = (FILES - 1 - x) * linesPerFile;
+                    for (int i = first; i < Math.min(LINES, first + linesPerFile); i++) {
+                        writer.println(logLine(i % 10 == 0 ? i + 1 : i % 10 == 1 ? i - 1 : i));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            files.forEach(File::delete);
+        }
+    }
+
+    /** Reads the frames as FileBus.readLogFile did before it used the TextLogReader */
+    private static List<Packet> splitLogFiles(List<File> files) throws IOException {
+        List<Packet> packets = new ArrayList<>();
+        for (File file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                while (line != null) {
+                    String[] splits = line.split("lambda\\$decodeDataAndQueuePacket");
+                    if (splits.length == 2) {
+                        Packet packet = Packet.parse(splits[1].substring(17));
+                        LocalTime localTime = LocalTime.parse(splits[1].substring(3, 16));
+                        packet.setTimestamp(LocalDate.now().atTime(localTime));
+                        packets.add(packet);
+                    }
+                    line = reader.readLine();
+                }
+            }
+        }
+        packets.sort(Comparator.comparing(Packet::getTimestamp));
+        return packets;
+    }
+
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(reader("toString", LogBenchmarks::packetLine));
+        benchmarks.add(reader("log", LogBenchmarks::logLine));
+        benchmarks.add(reader("asc", LogBenchmarks::ascLine));
+
+        Map<String, String> rotated = Map.of("format", "log", "lines", Integer.toString(LINES), "files", "" + FILES);
+        benchmarks.add(new Benchmark("FileBus.readLogFiles", rotated, () -> new RotatedLogs() {
+            @Override
+            public Object run() throws Exception {
+                return FileBus.readLogFiles(files).size();
+            }
+        }));
+        benchmarks.add(new Benchmark("FileBus.readLogFile split", rotated, () -> new RotatedLogs() {
+            @Override
+            public Object run() throws Exception {
+                return splitLogFiles(files).size();
+            }
+        }));
+
+        benchmarks.add(new Benchmark("Packet.parse", params("toString"), () -> new LogFile(LogBenchmarks::packetLine) {
+            @Override
+            public Object run() throws Exception {
+                long sum = 0;
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII)) {
+                    sum += Packet.parse(line).getSource();
+                }
+                return sum;
+            }
+        }));
+        benchmarks.add(new Benchmark("Packet.parseVector", params("asc"), () -> new LogFile(LogBenchmarks::ascLine) {
+            @Override
+            public Object run() throws Exception {
+                long sum = 0;
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII)) {
+                    sum += Packet.parseVector(START, line).getSource();
+                }
+                return sum;
+            }
+        }));
+        return benchmarks;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.etools.j1939_84.bus.MultiQueue;
+
+/**
+ * Benchmarks of {@link MultiQueue} fan out to several readers.
+ *
+ * Each operation adds a batch of items and waits until every reader has read
+ * the whole batch.
+ */
+public class MultiQueueBenchmarks {
+
+    private static final int[] READERS = { 1, 8, 32 };
+
+    private static final int BATCH = 1000;
+
+    private static final Integer ITEM = 0;
+
+    private static final Integer LAST = 1;
+
+    /** A queue with reader threads. */
+    private static class FanOut implements Benchmark.Operation {
+        private final MultiQueue<Integer> queue = new MultiQueue<>();
+        private final AtomicReference<CountDownLatch> done = new AtomicReference<>();
+        private final List<Thread> threads = new ArrayList<>();
+
+        FanOut(int readers) {
+            for (int i = 0; i < readers; i++) {
+                var stream = queue.stream(365, TimeUnit.DAYS);
+                Thread thread = new Thread(() -> {
+                    try {
+                        stream.forEach(v -> {
+                            if (v == LAST) {
+                                done.get().countDown();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        // the queue was closed
+                    }
+                }, "MultiQueue Reader " + i);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        @Override
+        public Object run() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(threads.size());
+            done.set(latch);
+            for (int i = 1; i < BATCH; i++) {
+                queue.add(ITEM);
+            }
+            queue.add(LAST);
+            latch.await();
+            return latch;
+        }
+
+        @Override
+        public void close() {
+            queue.close();
+            threads.forEach(Thread::interrupt);
+        }
+    }
+
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int readers : READERS) {
+            benchmarks.add(new Benchmark("MultiQueue.fanOut",
+                                         Map.of("readers", Integer.toString(readers), "batch", Integer.toString(BATCH)),
+                                         () -> new FanOut(readers)));
+        }
+        return benchmarks;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
+
+/**
+ * Benchmarks of creating, parsing and formatting {@link Packet}s.
+ */
+public class PacketBenchmarks {
+
+    /** The data lengths: a single frame and a TP message. */
+    private static final int[] LENGTHS = { 8, 100 };
+
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int length : LENGTHS) {
+            Map<String, String> params = Map.of("length", Integer.toString(length));
+            int[] data = data(length);
+            benchmarks.add(new Benchmark("Packet.create", params, () -> () -> Packet.create(0xFECA, 0x00, data)));
+
+            Packet packet = Packet.create(0xFECA, 0x00, data);
+            String string = packet.toString();
+            benchmarks.add(new Benchmark("Packet.parse", params, () -> () -> Packet.parse(string)));
+            benchmarks.add(new Benchmark("Packet.toString", params, () -> packet::toString));
+            benchmarks.add(new Benchmark("Packet.toTimeString", params, () -> packet::toTimeString));
+        }
+
+        // Engine Hours, Revolutions
+        Packet hours = Packet.create(0xFEE5, 0x00, data(8));
+        benchmarks.add(new Benchmark("GenericPacket.toString", () -> () -> new GenericPacket(hours).toString()));
+        return benchmarks;
+    }
+
+    private static int[] data(int length) {
+        int[] data = new int[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = i * 31 & 0xFF;
+        }
+        return data;
+    }
+}
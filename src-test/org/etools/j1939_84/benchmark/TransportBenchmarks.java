@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.EchoBus;
+import org.etools.j1939_84.bus.MultiQueue;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+
+/**
+ * Benchmarks of {@link J1939TP} reassembling BAM and RTS/CTS messages.
+ *
+ * The BAM frames are put on the bus directly, without the 50 ms between data
+ * frames a module waits, so only the reassembly is timed. The RTS/CTS
+ * messages are sent by another {@link J1939TP}, which is part of the time.
+ */
+public class TransportBenchmarks {
+
+    private static final int[] LENGTHS = { 100, 1785 };
+
+    private static final int TOOL = 0xF9;
+
+    private static final int MODULE = 0x00;
+
+    /** A tool {@link J1939TP} and the messages it reassembles. */
+    private static abstract class Transport implements Benchmark.Operation {
+        final MultiQueue<Packet> queue = new MultiQueue<>();
+        final J1939TP tool;
+        final Iterator<Packet> messages;
+        final byte[] data;
+
+        Transport(int length) throws BusException {
+            tool = new J1939TP(new EchoBus(TOOL, queue));
+            messages = tool.read(365, TimeUnit.DAYS).iterator();
+            data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) i;
+            }
+        }
+
+        /** @return the next message once it is complete */
+        Packet receive() {
+            Packet packet = messages.next();
+            packet.getBytes();
+            return packet;
+        }
+
+        @Override
+        public void close() {
+            tool.close();
+        }
+    }
+
+    /** Puts the BAM frames on the bus. */
+    private static class Bam extends Transport {
+        private final List<Packet> frames = new ArrayList<>();
+        private final EchoBus module;
+
+        Bam(int length) throws BusException {
+            super(length);
+            module = new EchoBus(MODULE, queue);
+            int count = (length + 6) / 7;
+            frames.add(Packet.create(J1939TP.CM | 0xFF,
+                                     MODULE,
+                                     J1939TP.CM_BAM,
+                                     length,
+                                     length >> 8,
+                                     count,
+                                     0xFF,
+                                     0x00,
+                                     0xFF,
+                                     0x00));
+            for (int i = 0; i < count; i++) {
+                byte[] dt = new byte[8];
+                Arrays.fill(dt, (byte) 0xFF);
+                dt[0] = (byte) (i + 1);
+                System.arraycopy(data, i * 7, dt, 1, Math.min(7, length - i * 7));
+                frames.add(Packet.create(J1939TP.DT | 0xFF, MODULE, dt));
+            }
+        }
+
+        @Override
+        public Object run() {
+            frames.forEach(module::send);
+            return receive();
+        }
+    }
+
+    /** Sends the message with another {@link J1939TP}. */
+    private static class RtsCts extends Transport {
+        private final J1939TP module;
+
+        RtsCts(int length) throws BusException {
+            super(length);
+            module = new J1939TP(new EchoBus(MODULE, queue));
+        }
+
+        @Override
+        public Object run() throws BusException {
+            module.send(Packet.create(0xEF00 | TOOL, MODULE, data));
+            return receive();
+        }
+
+        @Override
+        public void close() {
+            module.close();
+            super.close();
+        }
+    }
+
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int length : LENGTHS) {
+            Map<String, String> params = Map.of("length", Integer.toString(length));
+            benchmarks.add(new Benchmark("J1939TP.bam", params, () -> new Bam(length)));
+            benchmarks.add(new Benchmark("J1939TP.rtsCts", params, () -> new RtsCts(length)));
+        }
+        return benchmarks;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.metrics.Management;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link BusMonitor} class
+ */
+@TestDoc(description = "Verifies the bus is visible through JMX.")
+public class BusMonitorTest {
+
+    /** The number of recent frames kept */
+    private static final int FRAMES = 1000;
+
+    private EchoBus bus;
+
+    private BusMonitor instance;
+
+    private MetricsRegistry metrics;
+
+    /** Waits for the monitor thread to catch up with the bus. */
+    private void waitForFrames(long count) throws InterruptedException {
+        long end = System.currentTimeMillis() + 2000;
+        while (instance.getFrameCount() < count && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, instance.getFrameCount());
+    }
+
+    @Before
+    public void setUp() {
+        bus = new EchoBus(0xF9);
+        metrics = new MetricsRegistry();
+        instance = new BusMonitor(new FlightRecorder(TimeUnit.MINUTES.toNanos(1), FRAMES), metrics);
+        instance.monitor("Test Adapter", bus, bus);
+    }
+
+    @After
+    public void tearDown() {
+        bus.close();
+    }
+
+    @Test
+    @TestDoc(description = "Verify the most recent frames are kept, oldest first.")
+    public void testDumpFrames() throws Exception {
+        for (int i = 0; i < FRAMES + 5; i++) {
+            bus.send(Packet.create(0xF004, 0x00, i, i >> 8));
+        }
+        waitForFrames(FRAMES + 5);
+
+        String[] frames = instance.dumpFrames(2);
+        assertEquals(2, frames.length);
+        assertTrue(frames[0], frames[0].endsWith("F00400 [2] EB 03"));
+        assertTrue(frames[1], frames[1].endsWith("F00400 [2] EC 03"));
+        assertEquals(FRAMES, instance.dumpFrames(Integer.MAX_VALUE).length);
+        assertEquals(0, instance.dumpFrames(-1).length);
+        assertTrue(instance.getFramesPerSecond() > 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify open streams are listed with how far behind they are.")
+    public void testStreams() throws Exception {
+        try (Stream<Packet> stream = bus.read(1, TimeUnit.MINUTES)) {
+            bus.send(Packet.create(0xF004, 0x00, 1));
+            bus.send(Packet.create(0xF004, 0x00, 2));
+            assertTrue(Arrays.toString(instance.getStreams()),
+                       Arrays.stream(instance.getStreams()).anyMatch(s -> s.contains("lag 2,")));
+            assertEquals(1, stream.findFirst().get().get(0));
+            assertTrue(Arrays.toString(instance.getStreams()),
+                       Arrays.stream(instance.getStreams()).anyMatch(s -> s.contains("lag 1,")));
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a transport session is listed while it is being sent.")
+    public void testTransportSessions() throws Exception {
+        try (J1939TP tp = new J1939TP(bus)) {
+            instance.monitor("Test Adapter", bus, tp);
+            assertArrayEquals(new String[0], instance.getTransportSessions());
+
+            CompletableFuture<Packet> send = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return tp.send(Packet.create(0xFEEC, 0xF9, new byte[20]));
+                } catch (BusException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            String[] sessions;
+            do {
+                sessions = instance.getTransportSessions();
+            } while (sessions.length == 0 && !send.isDone());
+            assertEquals(1, sessions.length);
+            assertTrue(sessions[0], sessions[0].startsWith("tx BAM F9 -> FF PGN 00FEEC 20 bytes"));
+            send.get();
+            assertArrayEquals(new String[0], instance.getTransportSessions());
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify the metrics are read without changing them.")
+    public void testMetrics() {
+        metrics.counter("tp.bam.completed").increment();
+        metrics.counter("tp.bam.completed").increment();
+        metrics.gauge("bus.queue.depth", () -> 3);
+
+        String[] values = instance.getMetrics();
+        assertEquals(2, values.length);
+        assertEquals("bus.queue.depth {value=3}", values[0]);
+        assertTrue(values[1], values[1].startsWith("tp.bam.completed {count=2, rate="));
+        // reading them again finds the same counts
+        assertTrue(instance.getMetrics()[1].startsWith("tp.bam.completed {count=2, rate="));
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        Management.register("BusMonitorTest", instance);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Management.DOMAIN, "type", "BusMonitorTest");
+        assertEquals("Test Adapter", server.getAttribute(name, "AdapterName"));
+        assertFalse((Boolean) server.getAttribute(name, "ImposterDetected"));
+        assertEquals(0, ((String[]) server.getAttribute(name, "Metrics")).length);
+
+        // registering again replaces the MBean
+        Management.register("BusMonitorTest", new BusMonitor(new FlightRecorder(), new MetricsRegistry()));
+        assertEquals("", server.getAttribute(name, "AdapterName"));
+        server.unregisterMBean(name);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.etools.j1939_84.bus.TestCapture.START;
+import static org.etools.j1939_84.bus.TestCapture.at;
+import static org.etools.j1939_84.bus.TestCapture.bytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CaptureWriter} and {@link CaptureReader} classes
+ */
+@TestDoc(description = "Verifies the binary capture file format.")
+public class CaptureWriterTest {
+
+    private File file;
+
+    /** 10 s of 3 PGNs from 2 sources at 100 frames/s each. */
+    private static void writeTenSeconds(CaptureWriter writer) {
+        for (int i = 0; i < 1000; i++) {
+            long nanos = at(10 * i);
+            byte[] data = { (byte) i, (byte) (i >> 8), 2, 3, 4, 5, 6, 7 };
+            writer.write(nanos, 0x18F00400, false, data, 8);
+            writer.write(nanos, 0x18FEEE00 | (i % 2), false, data, 8);
+            if (i % 100 == 0) {
+                writer.write(nanos, 0x18EA00F9, true, bytes(0xEC, 0xFE, 0), 3);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("test", CaptureWriter.EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    @TestDoc(description = "Verify packets written are read back with the same id, data, direction and time.")
+    public void testRoundTrip() throws Exception {
+        Packet packet = Packet.create(LocalDateTime.of(2021, 1, 2, 3, 4, 5, 6000),
+                                      3,
+                                      0xEA00,
+                                      0xF9,
+                                      true,
+                                      new byte[] { 1, 2, 3 });
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.write(packet);
+            writer.write(Packet.create(0xF004, 0x00, 1, 2, 3, 4, 5, 6, 7, 8));
+        }
+        try (CaptureReader reader = new CaptureReader(file)) {
+            List<Packet> packets = reader.read().collect(Collectors.toList());
+            assertEquals(2, packets.size());
+            Packet actual = packets.get(0);
+            assertEquals(packet, actual);
+            assertEquals(packet.getTimestamp(), actual.getTimestamp());
+            assertEquals(3, actual.getPriority());
+            assertTrue(actual.isTransmitted());
+            assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7, 8 }, packets.get(1).getData(0, 8));
+            assertEquals(2, reader.getFrameCount());
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify frames with fewer than three data bytes are kept, and only skipped as packets.")
+    public void testShortFrames() throws Exception {
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.write(START, 0x18FECA00, false, new byte[] { 1, 2, 3 }, 3);
+            writer.write(START + 1, 0x18FF0000, false, new byte[] { 9 }, 1);
+            writer.write(START + 2, 0x18FF0100, true, new byte[0], 0);
+        }
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertEquals(3, reader.getFrameCount());
+            List<CaptureReader.Frame> frames = reader.readFrames(START, CaptureReader.ANY, CaptureReader.ANY)
+                                                     .collect(Collectors.toList());
+            assertEquals(3, frames.size());
+            assertArrayEquals(new byte[] { 9 }, frames.get(1).getData());
+            assertEquals(0x18FF0000, frames.get(1).getCanId());
+            assertEquals(START + 2, frames.get(2).getEpochNanos());
+            assertTrue(frames.get(2).isTransmitted());
+            assertNull(frames.get(1).toPacket());
+
+            assertEquals(1, reader.read().count());
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify the oldest recordings are deleted to keep the number and size of them.")
+    public void testDeleteOldest() throws Exception {
+        File directory = Files.createTempDirectory("captures").toFile();
+        try {
+            for (int i = 0; i < 5; i++) {
+                File f = new File(directory, "j1939_84-2021010" + i + CaptureWriter.EXTENSION);
+                Files.write(f.toPath(), new byte[100]);
+                assertTrue(f.setLastModified(1_000_000_000_000L + i * 1000));
+            }
+            File other = new File(directory, "other" + CaptureWriter.EXTENSION);
+            Files.write(other.toPath(), new byte[100]);
+
+            CaptureWriter.deleteOldest(directory, n -> n.startsWith("j1939_84-"), 4, 1000);
+            assertFalse(new File(directory, "j1939_84-20210100" + CaptureWriter.EXTENSION).exists());
+            assertTrue(new File(directory, "j1939_84-20210101" + CaptureWriter.EXTENSION).exists());
+
+            CaptureWriter.deleteOldest(directory, n -> n.startsWith("j1939_84-"), 4, 250);
+            assertFalse(new File(directory, "j1939_84-20210102" + CaptureWriter.EXTENSION).exists());
+            assertTrue(new File(directory, "j1939_84-20210103" + CaptureWriter.EXTENSION).exists());
+            assertTrue(new File(directory, "j1939_84-20210104" + CaptureWriter.EXTENSION).exists());
+            assertTrue(other.exists());
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    f.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify the reader can seek by time and filter by PGN and SA using the index blocks.")
+    public void testSeekAndFilter() throws Exception {
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writeTenSeconds(writer);
+        }
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertEquals(2010, reader.getFrameCount());
+            assertEquals(10, reader.getBlockCount());
+            assertEquals(START, reader.getStartNanos());
+
+            long fiveSeconds = at(5000);
+            assertEquals(1005, reader.read(fiveSeconds).count());
+            assertTrue(reader.read(fiveSeconds).allMatch(p -> CaptureWriter.toEpochNanos(p.getTimestamp()) >= fiveSeconds));
+
+            assertEquals(250, reader.read(fiveSeconds, 0xFEEE, 0x01).count());
+            assertEquals(500, reader.read(fiveSeconds, 0xFEEE, CaptureReader.ANY).count());
+            assertEquals(5, reader.read(fiveSeconds, 0xEA00, 0xF9).count());
+            assertFalse(reader.read(START, 0xFEEE, 0x02).findAny().isPresent());
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify a file that was not closed, and so has no trailer, is still fully readable.")
+    public void testUnclosedFile() throws Exception {
+        CaptureWriter writer = new CaptureWriter(file);
+        writeTenSeconds(writer);
+        writer.flush();
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertEquals(2010, reader.getFrameCount());
+            assertEquals(250, reader.read(at(5000), 0xFEEE, 0x00).count());
+        }
+        writer.close();
+
+        // simulate a crash in the middle of a record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - CaptureWriter.TRAILER_LENGTH - 3);
+        }
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertEquals(2010, reader.read().count());
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify all packets from a bus are recorded.")
+    public void testRecord() throws Exception {
+        try (EchoBus bus = new EchoBus(0xF9)) {
+            CaptureWriter writer = CaptureWriter.record(bus, file);
+            for (int i = 0; i < 3000; i++) {
+                bus.send(Packet.create(0xFF00 | (i & 0xFF), 0x17, 1, 2, 3, i));
+            }
+            // wait for the writer to catch up
+            while (true) {
+                writer.flush();
+                try (CaptureReader reader = new CaptureReader(file)) {
+                    if (reader.read().count() == 3000) {
+                        break;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            writer.close();
+        }
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertEquals(3000, reader.getFrameCount());
+            assertEquals(12, reader.read(Long.MIN_VALUE, 0xFF05, 0x17).count());
+        }
+    }
+}
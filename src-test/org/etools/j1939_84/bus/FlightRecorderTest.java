@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link FlightRecorder} class
+ */
+@TestDoc(description = "Verifies the recent frames are kept in a fixed amount of memory and saved as a capture file.")
+public class FlightRecorderTest {
+
+    private File file;
+
+    private FlightRecorder instance;
+
+    private static Packet frame(int i) {
+        return Packet.create(0xFEF1, 0x00, i, i >> 8, 3, 4, 5, 6, 7, 8);
+    }
+
+    private static List<Packet> read(File file) throws Exception {
+        try (CaptureReader reader = new CaptureReader(file)) {
+            return reader.read().collect(Collectors.toList());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        instance = new FlightRecorder(TimeUnit.MINUTES.toNanos(1), 4);
+        file = File.createTempFile("flight", CaptureWriter.EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    @TestDoc(description = "Verify nothing is saved before any frames are recorded.")
+    public void testEmpty() throws Exception {
+        assertEquals(0, instance.getFrameCount());
+        assertEquals(4, instance.getCapacity());
+        assertNull(instance.dump(file));
+        assertNull(instance.trigger("Test"));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the frame rate is over the last few seconds and reading it changes nothing.")
+    public void testFramesPerSecond() {
+        AtomicLong clock = new AtomicLong(-TimeUnit.MILLISECONDS.toNanos(500));
+        instance = new FlightRecorder(TimeUnit.MINUTES.toNanos(1), 4, clock::get);
+        assertEquals(0, instance.getFramesPerSecond(), 0);
+
+        // 100 frames a second for 10 seconds
+        for (int i = 0; i < 1000; i++) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+            instance.add(frame(i));
+        }
+        assertEquals(100, instance.getFramesPerSecond(), 1);
+        assertEquals(100, instance.getFramesPerSecond(), 1);
+
+        // the rate falls as the frames leave the window
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals(100 * 2.5 / 5.5, instance.getFramesPerSecond(), 1);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals(0, instance.getFramesPerSecond(), 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the newest frames replace the oldest and are saved in order.")
+    public void testWrap() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            instance.add(frame(i));
+        }
+        instance.add(Packet.create(0xEA00, 0xF9, true, 0xEC, 0xFE, 0x00));
+        assertEquals(4, instance.getFrameCount());
+
+        List<Packet> packets = read(instance.dump(file));
+        assertEquals(4, packets.size());
+        assertEquals(List.of(3, 4, 5),
+                     packets.subList(0, 3).stream().map(p -> p.get(0)).collect(Collectors.toList()));
+        assertEquals(0xFEF1, packets.get(0).getPgn());
+        assertEquals(8, packets.get(0).getLength());
+
+        Packet request = packets.get(3);
+        assertTrue(request.isTransmitted());
+        assertEquals(0xF9, request.getSource());
+        assertEquals(3, request.getLength());
+        assertEquals(0xFEEC, request.get24(0));
+    }
+
+    @Test
+    @TestDoc(description = "Verify a frame whose data was overwritten by longer frames is not saved.")
+    public void testLongFrames() throws Exception {
+        instance.add(frame(1));
+        instance.add(frame(2));
+        // the data of four frames of eight bytes
+        instance.add(Packet.create(0xFECA, 0x00, new byte[20]));
+        assertEquals(2, instance.getFrameCount());
+
+        List<Packet> packets = read(instance.dump(file));
+        assertEquals(2, packets.get(0).get(0));
+        assertEquals(20, packets.get(1).getLength());
+
+        // longer than all of the data is ignored
+        instance.add(Packet.create(0xFECA, 0x00, new byte[40]));
+        assertEquals(2, instance.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify incomplete and failed frames are not recorded.")
+    public void testIncomplete() {
+        instance.add(Packet.create(0xFECA, 0x00, (int[]) null));
+        Packet failed = Packet.create(0xFECA, 0x00, (int[]) null);
+        failed.fail();
+        instance.add(failed);
+        assertEquals(0, instance.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify frames received longer before the newest than the window are not saved.")
+    public void testWindow() throws Exception {
+        instance = new FlightRecorder(TimeUnit.SECONDS.toNanos(10), 4);
+        LocalDateTime start = LocalDateTime.of(2021, 3, 4, 5, 6, 7);
+        for (int seconds : new int[] { 0, 5, 12 }) {
+            instance.add(Packet.create(start.plusSeconds(seconds), 6, 0xFEF1, 0x00, false, new byte[] { 1, 2, 3 }));
+        }
+        assertEquals(3, instance.getRecordedCount());
+        assertEquals(2, instance.getFrameCount());
+
+        List<Packet> packets = read(instance.dump(file));
+        assertEquals(2, packets.size());
+        assertEquals(start.plusSeconds(5), packets.get(0).getTimestamp());
+        assertEquals(start.plusSeconds(12), packets.get(1).getTimestamp());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the recent frames are read back from the arrays, oldest first.")
+    public void testGetRecentFrames() {
+        assertEquals(0, instance.getRecentFrames(Integer.MAX_VALUE).length);
+        for (int i = 0; i < 6; i++) {
+            instance.add(frame(i));
+        }
+        instance.add(Packet.create(0xEA00, 0xF9, true, 0xEC, 0xFE, 0x00));
+
+        Packet[] packets = instance.getRecentFrames(2);
+        assertEquals(2, packets.length);
+        assertEquals(5, packets[0].get(0));
+        assertEquals(0xFEF1, packets[0].getPgn());
+        assertTrue(packets[1].isTransmitted());
+        assertEquals(0xFEEC, packets[1].get24(0));
+        assertEquals(4, instance.getRecentFrames(Integer.MAX_VALUE).length);
+        assertEquals(0, instance.getRecentFrames(-1).length);
+    }
+
+    @Test
+    @TestDoc(description = "Verify only the newest saves are kept.")
+    public void testRotate() throws Exception {
+        File directory = Files.createTempDirectory("flight").toFile();
+        try {
+            File other = new File(directory, "j1939_84-20210101-000000" + CaptureWriter.EXTENSION);
+            assertTrue(other.createNewFile());
+            for (int i = 0; i < FlightRecorder.MAX_FILES + 2; i++) {
+                File save = FlightRecorder.createFile(directory);
+                assertTrue(save.getName(), save.getName().startsWith(FlightRecorder.PREFIX));
+                // a name of its own, and an older time, for each save
+                save = new File(directory, FlightRecorder.PREFIX + i + CaptureWriter.EXTENSION);
+                assertTrue(save.createNewFile());
+                assertTrue(save.setLastModified(1_000_000L * (i + 1)));
+            }
+            FlightRecorder.createFile(directory);
+
+            List<String> names = Arrays.stream(directory.list()).sorted().collect(Collectors.toList());
+            assertEquals(FlightRecorder.MAX_FILES, names.size());
+            // the capture files are not the recorder's to delete
+            assertTrue(names.contains(other.getName()));
+            int newest = FlightRecorder.MAX_FILES + 1;
+            assertTrue(names.contains(FlightRecorder.PREFIX + newest + CaptureWriter.EXTENSION));
+            assertFalse(names.contains(FlightRecorder.PREFIX + 2 + CaptureWriter.EXTENSION));
+        } finally {
+            Arrays.stream(directory.listFiles()).forEach(File::delete);
+            directory.delete();
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a failure saves the frames once, and not again right after.")
+    public void testTrigger() throws Exception {
+        instance.add(frame(1));
+        File dump = instance.trigger("Test");
+        assertNotNull(dump);
+        try {
+            assertNull(instance.trigger("Test"));
+            while (!dump.exists() || dump.length() == 0) {
+                Thread.sleep(10);
+            }
+            // wait for the file to be finished
+            synchronized (instance) {
+                assertEquals(1, read(dump).size());
+            }
+        } finally {
+            dump.delete();
+        }
+    }
+}
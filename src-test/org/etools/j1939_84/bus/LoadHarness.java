@@ -0,0 +1,811 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.bus.j1939.J1939DaRepository;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.bus.j1939.packets.EngineHoursPacket;
+import org.etools.j1939_84.bus.j1939.packets.model.PgnDefinition;
+import org.etools.j1939_84.bus.simulated.RecordedVehicle;
+import org.etools.j1939_84.bus.simulated.Sim;
+import org.etools.j1939_84.controllers.ResultsListener;
+
+/**
+ * Pushes a mix of vehicle traffic through an in-process bus and the same
+ * {@link J1939TP} and {@link J1939} stack the application uses, and measures
+ * what the application receives.
+ *
+ * The traffic is the broadcast PGNs from the {@link J1939DaRepository} at
+ * their Digital Annex rates, BAM bursts and RTS/CTS sessions from the
+ * simulated modules, and destination specific requests from the tool. The
+ * first four bytes of every generated message are a sequence number, which is
+ * used to find its delivery latency and whether it was delivered at all. The
+ * traffic is sent for the seconds of the {@link Mix}, and what was sent is
+ * then read until it has all been delivered, or nothing more is for
+ * {@link #DRAIN_MILLIS}, so a slow or busy machine sends less but does not
+ * lose what it sent.
+ *
+ * The number of modules is a parameter of the {@link Mix}. To measure how
+ * the throughput scales with it, {@link #sweep(Mix, int...)} records vehicles
+ * of a growing number of modules and simulates each with a
+ * {@link RecordedVehicle}, the simulator the tool uses for a capture file.
+ *
+ * The saturation run sends single frames back to back to find the most frames
+ * per second the stack can deliver. {@link #checkBaseline(double)} compares
+ * the best of {@link #SATURATION_RUNS} runs with the stored baseline. That is
+ * done by the load target, which runs this class, and not by the unit tests,
+ * as the result depends on the machine; the unit tests only check the gate
+ * against the stored values. The baseline file records the machine and JDK
+ * that produced it.
+ *
+ * Run from the command line to print a report. With --baseline the
+ * saturation result, machine and JDK are written to the baseline file given
+ * as the next argument.
+ */
+public class LoadHarness {
+
+    /** The traffic to generate. */
+    public static class Mix {
+        private int ecus = 5;
+        private int broadcastPgns = 40;
+        private double rateScale = 1;
+        private int bamsPerSecond = 4;
+        private int rtsPerSecond = 4;
+        private int requestsPerSecond = 20;
+        private int tpLength = 100;
+        private int seconds = 5;
+
+        /** The number of modules the traffic is sent from. */
+        public Mix ecus(int ecus) {
+            if (ecus < 1 || ecus > MAX_ECUS) {
+                throw new IllegalArgumentException("The number of modules must be from 1 to " + MAX_ECUS);
+            }
+            this.ecus = ecus;
+            return this;
+        }
+
+        /**
+         * The number of DA broadcast PGNs sent, shared by the modules, or by
+         * each module of a simulated vehicle.
+         */
+        public Mix broadcastPgns(int broadcastPgns) {
+            this.broadcastPgns = broadcastPgns;
+            return this;
+        }
+
+        /** Multiplies the DA broadcast rates. */
+        public Mix rateScale(double rateScale) {
+            this.rateScale = rateScale;
+            return this;
+        }
+
+        public Mix bamsPerSecond(int bamsPerSecond) {
+            this.bamsPerSecond = bamsPerSecond;
+            return this;
+        }
+
+        public Mix rtsPerSecond(int rtsPerSecond) {
+            this.rtsPerSecond = rtsPerSecond;
+            return this;
+        }
+
+        public Mix requestsPerSecond(int requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /** The length of the BAM and RTS/CTS messages. */
+        public Mix tpLength(int tpLength) {
+            this.tpLength = tpLength;
+            return this;
+        }
+
+        public Mix seconds(int seconds) {
+            this.seconds = seconds;
+            return this;
+        }
+    }
+
+    /** The measurements from one run. */
+    public static class Result {
+        private final Map<String, List<Long>> latencies = new TreeMap<>();
+        private final Map<String, Integer> sent = new TreeMap<>();
+        private final Map<String, Integer> lost = new TreeMap<>();
+        private final Set<Integer> sources = new ConcurrentSkipListSet<>();
+        private int ecus;
+        private int failedSessions;
+        private long frames;
+        private long cpuNanos;
+        private double seconds;
+        private int peakThreads;
+        private long heapBytes;
+
+        /** @return the number of messages of the kind that were not delivered */
+        public int getLost(String kind) {
+            return lost.getOrDefault(kind, 0);
+        }
+
+        /** @return the number of modules the traffic was sent from */
+        public int getEcus() {
+            return ecus;
+        }
+
+        /** @return the addresses the application received traffic from */
+        public Set<Integer> getSources() {
+            return Collections.unmodifiableSet(sources);
+        }
+
+        /** @return the number of TP sessions that failed on either end */
+        public int getFailedSessions() {
+            return failedSessions;
+        }
+
+        /** @return the frames on the bus per second */
+        public double getFramesPerSecond() {
+            return frames / seconds;
+        }
+
+        /** @return the most platform threads alive during the run */
+        public int getPeakThreads() {
+            return peakThreads;
+        }
+
+        /** @return the heap used at the end of the run, after a GC */
+        public long getHeapBytes() {
+            return heapBytes;
+        }
+
+        /** @return the process CPU time per frame on the bus in microseconds */
+        public double getCpuPerFrame() {
+            return frames == 0 ? 0 : cpuNanos / 1000.0 / frames;
+        }
+
+        /**
+         * @return the latency in milliseconds at the percentile for the kind,
+         *         or -1 if nothing was delivered
+         */
+        public double getLatency(String kind, double percentile) {
+            List<Long> list = latencies.getOrDefault(kind, List.of());
+            if (list.isEmpty()) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile * list.size()) - 1;
+            return list.get(Math.max(0, index)) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-10s %8s %6s %9s %9s %9s %9s%n",
+                                    "Kind",
+                                    "Sent",
+                                    "Lost",
+                                    "p50 ms",
+                                    "p95 ms",
+                                    "p99 ms",
+                                    "max ms"));
+            for (String kind : sent.keySet()) {
+                sb.append(String.format("%-10s %8d %6d %9.2f %9.2f %9.2f %9.2f%n",
+                                        kind,
+                                        sent.get(kind),
+                                        getLost(kind),
+                                        getLatency(kind, 0.50),
+                                        getLatency(kind, 0.95),
+                                        getLatency(kind, 0.99),
+                                        getLatency(kind, 1)));
+            }
+            sb.append(String.format("Modules: %d, received from %d%n", ecus, sources.size()));
+            sb.append(String.format("Failed TP sessions: %d%n", failedSessions));
+            sb.append(String.format("Bus load: %.0f frames/s, CPU %.1f us/frame%n",
+                                    getFramesPerSecond(),
+                                    getCpuPerFrame()));
+            sb.append(String.format("Threads: %s, peak %d platform threads, heap %.1f MB%n",
+                                    Threads.isVirtual() ? "virtual" : "platform",
+                                    peakThreads,
+                                    heapBytes / 1e6));
+            return sb.toString();
+        }
+    }
+
+    public static final String BROADCAST = "Broadcast";
+
+    public static final String BAM = "BAM";
+
+    public static final String RTS = "RTS/CTS";
+
+    public static final String REQUEST = "Request";
+
+    public static final String BASELINE_RESOURCE = "load-baseline.properties";
+
+    private static final String BASELINE_KEY = "saturation.framesPerSecond";
+
+    private static final String TOLERANCE_KEY = "tolerance";
+
+    private static final String MACHINE_KEY = "machine";
+
+    private static final String JDK_KEY = "jdk";
+
+    /** The number of saturation runs the best is compared with the baseline. */
+    private static final int SATURATION_RUNS = 3;
+
+    private static final int TOOL = 0xF9;
+
+    /** The addresses of the usual modules, which are used first. */
+    private static final int[] USUAL_ADDRESSES = { 0x00, 0x03, 0x0B, 0x17, 0x21, 0x3D, 0x01, 0x31, 0x33, 0x0F };
+
+    /** The most modules, one for every address but the tool, null and global. */
+    private static final int MAX_ECUS = 0xFD;
+
+    /** The module counts of the vehicle sweep run from the command line. */
+    private static final int[] SWEEP = { 1, 5, 10, 15, 20 };
+
+    /** The module that answers the requests. */
+    private static final int RESPONDER = 0x00;
+
+    /** How long the simulated vehicles are recorded for. */
+    private static final int RECORDED_MILLIS = 2000;
+
+    /** The PDU1 PGN sent with RTS/CTS to the tool. */
+    private static final int RTS_PGN = 0xEF00;
+
+    /** The PDU2 PGN sent with BAM. */
+    private static final int BAM_PGN = 0xFF00;
+
+    /** How long nothing is delivered before what is still in flight is lost. */
+    private static final int DRAIN_MILLIS = 3 * J1939TP.T2;
+
+    /** The most time to wait for the senders, and what they sent, at the end of a run. */
+    private static final long MAX_DRAIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final MultiQueue<Packet> queue = new MultiQueue<>();
+
+    private final LongAdder frames = new LongAdder();
+
+    /** The number of messages delivered, to tell when draining is done */
+    private final LongAdder deliveries = new LongAdder();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /** When each undelivered message was sent, by sequence number. */
+    private final Map<Integer, Long> inFlight = new ConcurrentHashMap<>();
+
+    /** The kind of each undelivered message, by sequence number. */
+    private final Map<Integer, String> kinds = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> sent = new ConcurrentHashMap<>();
+
+    private final AtomicInteger failedSessions = new AtomicInteger();
+
+    private final Set<Integer> sources = new ConcurrentSkipListSet<>();
+
+    public static void main(String... args) throws Exception {
+        System.out.println(run(new Mix()));
+        System.out.print(sweep(new Mix().broadcastPgns(10).seconds(3), SWEEP));
+        double saturation = 0;
+        for (int i = 0; i < SATURATION_RUNS; i++) {
+            saturation = Math.max(saturation, saturate(200_000));
+        }
+        System.out.printf("Saturation: %.0f frames/s%n", saturation);
+        if (args.length > 1 && args[0].equals("--baseline")) {
+            Properties properties = loadBaseline();
+            properties.setProperty(BASELINE_KEY, String.format("%.0f", saturation));
+            properties.setProperty(MACHINE_KEY,
+                                   String.format("%s %s, %d processors",
+                                                 System.getProperty("os.name"),
+                                                 System.getProperty("os.arch"),
+                                                 Runtime.getRuntime().availableProcessors()));
+            properties.setProperty(JDK_KEY,
+                                   System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+            try (OutputStream out = new FileOutputStream(new File(args[1]))) {
+                properties.store(out,
+                                 "Frames per second delivered to the application by the best of the LoadHarness.saturate() runs,"
+                                         + " the machine and JDK that measured them, and the fraction the throughput may fall"
+                                         + " below the baseline before the load target fails.");
+            }
+        } else {
+            checkBaseline(saturation);
+        }
+    }
+
+    /**
+     * Runs the traffic mix.
+     *
+     * @param  mix
+     *                       the traffic to generate
+     * @return           the measurements
+     * @throws Exception
+     *                       if the bus fails
+     */
+    public static Result run(Mix mix) throws Exception {
+        return new LoadHarness().execute(mix);
+    }
+
+    /**
+     * Simulates vehicles of a growing number of modules, each with
+     * {@link #simulate(Mix)}.
+     *
+     * @param  mix
+     *                       the traffic of each module
+     * @param  counts
+     *                       the numbers of modules
+     * @return           a table of the frames per second the application
+     *                   received for each number of modules
+     * @throws Exception
+     *                       if the bus fails
+     */
+    public static String sweep(Mix mix, int... counts) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%6s %10s %12s %8s %9s %9s%n",
+                                "ECUs",
+                                "frames/s",
+                                "CPU us/frame",
+                                "Requests",
+                                "Lost",
+                                "p95 ms"));
+        for (int count : counts) {
+            Result result = simulate(mix.ecus(count));
+            sb.append(String.format("%6d %10.0f %12.1f %8d %9d %9.2f%n",
+                                    count,
+                                    result.getFramesPerSecond(),
+                                    result.getCpuPerFrame(),
+                                    result.sent.getOrDefault(REQUEST, 0),
+                                    result.getLost(REQUEST),
+                                    result.getLatency(REQUEST, 0.95)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Records a vehicle of the number of modules in the mix to a capture file,
+     * each broadcasting the DA PGNs of the mix and answering a request for
+     * engine hours, then simulates it with a {@link RecordedVehicle} while
+     * the tool requests the engine hours from each module in turn.
+     *
+     * @param  mix
+     *                       the modules and the traffic of each
+     * @return           the measurements
+     * @throws Exception
+     *                       if the capture file cannot be written or the bus
+     *                       fails
+     */
+    public static Result simulate(Mix mix) throws Exception {
+        File file = File.createTempFile("load", CaptureWriter.EXTENSION);
+        try {
+            record(mix, file);
+            return new LoadHarness().execute(mix, file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Sends single frames from one module as fast as they can be queued.
+     *
+     * @param  count
+     *                       the number of frames to send
+     * @return           the frames per second received by the application
+     * @throws Exception
+     *                       if the bus fails
+     */
+    public static double saturate(int count) throws Exception {
+        LoadHarness harness = new LoadHarness();
+        try (J1939TP tool = new J1939TP(harness.createBus(TOOL))) {
+            EchoBus module = harness.createBus(RESPONDER);
+            J1939 j1939 = new J1939(tool);
+            try (Stream<Packet> stream = j1939.read(30, TimeUnit.SECONDS)) {
+                long start = System.nanoTime();
+                Thread sender = new Thread(() -> {
+                    for (int i = 0; i < count; i++) {
+                        module.send(Packet.create(0xFF11, RESPONDER, i, i >> 8, i >> 16, i >> 24, 5, 6, 7, 8));
+                    }
+                }, "Saturation Sender");
+                sender.start();
+                long received = stream.filter(p -> p.getSource() == RESPONDER).limit(count).count();
+                long nanos = System.nanoTime() - start;
+                sender.join();
+                return received * 1e9 / nanos;
+            }
+        }
+    }
+
+    /**
+     * Compares a saturation result with the stored baseline.
+     *
+     * @param  framesPerSecond
+     *                                  the saturation result
+     * @throws IllegalStateException
+     *                                  if the result is below the baseline less
+     *                                  the tolerance
+     */
+    public static void checkBaseline(double framesPerSecond) throws IOException {
+        Properties properties = loadBaseline();
+        double baseline = Double.parseDouble(properties.getProperty(BASELINE_KEY));
+        double tolerance = Double.parseDouble(properties.getProperty(TOLERANCE_KEY));
+        double minimum = getMinimum();
+        if (framesPerSecond < minimum) {
+            throw new IllegalStateException(String.format("Throughput regressed: %.0f frames/s is below %.0f frames/s (baseline %.0f less %.0f%%, measured on %s with %s)",
+                                                          framesPerSecond,
+                                                          minimum,
+                                                          baseline,
+                                                          tolerance * 100,
+                                                          properties.getProperty(MACHINE_KEY),
+                                                          properties.getProperty(JDK_KEY)));
+        }
+    }
+
+    /**
+     * @return the least saturation result that passes, the baseline less the
+     *         tolerance
+     */
+    static double getMinimum() throws IOException {
+        Properties properties = loadBaseline();
+        double baseline = Double.parseDouble(properties.getProperty(BASELINE_KEY));
+        double tolerance = Double.parseDouble(properties.getProperty(TOLERANCE_KEY));
+        return baseline * (1 - tolerance);
+    }
+
+    private static Properties loadBaseline() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = LoadHarness.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing " + BASELINE_RESOURCE);
+            }
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    /** @return the DA broadcast PGNs with their periods in milliseconds */
+    private static Map<Integer, Integer> getBroadcasts(Mix mix) {
+        return J1939DaRepository.getInstance()
+                                .getPgnDefinitions()
+                                .values()
+                                .stream()
+                                .filter(d -> !d.isOnRequest() && d.getBroadcastPeriod() > 0 && d.getId() >= 0xF000)
+                                .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                                .limit(mix.broadcastPgns)
+                                .collect(Collectors.toMap(PgnDefinition::getId,
+                                                          d -> (int) Math.max(1,
+                                                                              d.getBroadcastPeriod() / mix.rateScale),
+                                                          (a, b) -> a,
+                                                          TreeMap::new));
+    }
+
+    /**
+     * @return the addresses of the modules, the usual ones first and then the
+     *         lowest free ones
+     */
+    static int[] getAddresses(int count) {
+        return IntStream.concat(IntStream.of(USUAL_ADDRESSES), IntStream.range(0, 0xFE))
+                        .filter(a -> a != TOOL)
+                        .distinct()
+                        .limit(count)
+                        .toArray();
+    }
+
+    /**
+     * Writes the capture file of a vehicle: three broadcasts of each PGN, so
+     * the period is learned, and a request for engine hours to each module
+     * with its response.
+     */
+    private static void record(Mix mix, File file) throws IOException {
+        LocalDateTime start = LocalDateTime.now();
+        int[] addresses = getAddresses(mix.ecus);
+        Map<Integer, Integer> broadcasts = getBroadcasts(mix);
+        List<Packet> packets = new ArrayList<>();
+        for (int m = 0; m < addresses.length; m++) {
+            int address = addresses[m];
+            for (var entry : broadcasts.entrySet()) {
+                for (int i = 0; i < 3; i++) {
+                    LocalDateTime time = start.plus(entry.getValue() * i + m, ChronoUnit.MILLIS);
+                    packets.add(Packet.create(time, 6, entry.getKey(), address, false, m, i, 3, 4, 5, 6, 7, 8));
+                }
+            }
+            LocalDateTime time = start.plus(RECORDED_MILLIS + 100L * m, ChronoUnit.MILLIS);
+            int pgn = EngineHoursPacket.PGN;
+            packets.add(Packet.create(time, 6, 0xEA00 | address, TOOL, true, pgn, pgn >> 8, pgn >> 16));
+            packets.add(Packet.create(time.plus(5, ChronoUnit.MILLIS), 6, pgn, address, false, m, 2, 3, 4, 5, 6, 7, 8));
+        }
+        // in time order, for the requests to be matched with their responses
+        packets.sort(Comparator.comparing(Packet::getTimestamp));
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            packets.forEach(writer::write);
+        }
+    }
+
+    /** @return a raw bus connected to the in-process bus that counts frames */
+    private EchoBus createBus(int address) {
+        return new EchoBus(address, queue) {
+            @Override
+            public Packet send(Packet p) {
+                frames.increment();
+                return super.send(p);
+            }
+        };
+    }
+
+    /** @return the data for a message, starting with its sequence number */
+    private byte[] createData(String kind, int length) {
+        int seq = sequence.incrementAndGet();
+        byte[] data = new byte[length];
+        ByteBuffer.wrap(data).putInt(seq);
+        kinds.put(seq, kind);
+        sent.computeIfAbsent(kind, k -> new AtomicInteger()).incrementAndGet();
+        inFlight.put(seq, System.nanoTime());
+        return data;
+    }
+
+    private void delivered(Packet packet) {
+        // blocks until a TP message is complete
+        byte[] bytes = packet.getBytes();
+        long now = System.nanoTime();
+        int seq = ByteBuffer.wrap(bytes).getInt();
+        Long start = inFlight.remove(seq);
+        if (start != null) {
+            latencies.computeIfAbsent(kinds.get(seq), k -> Collections.synchronizedList(new ArrayList<>()))
+                     .add(now - start);
+            deliveries.increment();
+        }
+    }
+
+    /**
+     * Waits for the messages in flight until they have all been delivered, or
+     * none has been for {@link #DRAIN_MILLIS}.
+     */
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DRAIN_MILLIS);
+        long count = deliveries.sum();
+        long progress = System.nanoTime();
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline
+                && System.nanoTime() - progress < TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS)) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            if (deliveries.sum() != count) {
+                count = deliveries.sum();
+                progress = System.nanoTime();
+            }
+        }
+    }
+
+    private Result execute(Mix mix) throws Exception {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3 * mix.ecus);
+        ExecutorService completions = Threads.newCachedThreadPool("Load Completions");
+        List<J1939TP> modules = new ArrayList<>();
+        try (J1939TP tool = new J1939TP(createBus(TOOL))) {
+            for (int address : getAddresses(mix.ecus)) {
+                modules.add(new J1939TP(createBus(address)));
+            }
+            Sim responder = new Sim(createBus(RESPONDER));
+            responder.response(EngineHoursPacket.PGN,
+                               RESPONDER,
+                               () -> Packet.create(EngineHoursPacket.PGN, RESPONDER, 1, 2, 3, 4, 5, 6, 7, 8));
+            J1939 j1939 = new J1939(tool);
+            // closed once what was sent has been delivered
+            Stream<Packet> stream = j1939.read(mix.seconds * 1000L + MAX_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+            Future<?> reader = completions.submit(() -> stream.filter(p -> p.getSource() != TOOL)
+                                                                 .peek(p -> sources.add(p.getSource()))
+                                                                 .filter(p -> p.getPgn() != EngineHoursPacket.PGN)
+                                                                 .forEach(p -> {
+                                                                     if (p.isComplete()) {
+                                                                         delivered(p);
+                                                                     } else {
+                                                                         // wait for the TP session in another thread
+                                                                         completions.execute(() -> {
+                                                                             try {
+                                                                                 delivered(p);
+                                                                             } catch (Packet.PacketException e) {
+                                                                                 failedSessions.incrementAndGet();
+                                                                             }
+                                                                         });
+                                                                     }
+                                                                 }));
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long cpuStart = getProcessCpuTime();
+            long framesStart = frames.sum();
+            long start = System.nanoTime();
+
+            int i = 0;
+            for (var entry : getBroadcasts(mix).entrySet()) {
+                int pgn = entry.getKey();
+                Bus module = modules.get(i++ % modules.size());
+                scheduler.scheduleAtFixedRate(() -> {
+                    try {
+                        module.send(Packet.create(pgn, module.getAddress(), createData(BROADCAST, 8)));
+                    } catch (BusException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, 0, entry.getValue(), TimeUnit.MILLISECONDS);
+            }
+            // BAM and RTS/CTS sessions from every module, sent one at a time
+            // by each module as a real module would
+            for (int m = 0; m < modules.size(); m++) {
+                J1939TP module = modules.get(m);
+                // spread the sessions of the modules over the period
+                double offset = (double) m / modules.size();
+                if (mix.bamsPerSecond > 0) {
+                    scheduleSessions(scheduler,
+                                     module,
+                                     BAM,
+                                     BAM_PGN,
+                                     mix.tpLength,
+                                     mix.bamsPerSecond * 1.0 / modules.size(),
+                                     offset);
+                }
+                if (mix.rtsPerSecond > 0) {
+                    scheduleSessions(scheduler,
+                                     module,
+                                     RTS,
+                                     RTS_PGN | TOOL,
+                                     mix.tpLength,
+                                     mix.rtsPerSecond * 1.0 / modules.size(),
+                                     offset);
+                }
+            }
+            if (mix.requestsPerSecond > 0) {
+                scheduler.scheduleAtFixedRate(() -> {
+                    long requestStart = System.nanoTime();
+                    sent.computeIfAbsent(REQUEST, k -> new AtomicInteger()).incrementAndGet();
+                    var result = j1939.requestDS(null, EngineHoursPacket.class, RESPONDER, ResultsListener.NOOP);
+                    if (result.getPacket().isPresent()) {
+                        latencies.computeIfAbsent(REQUEST, k -> Collections.synchronizedList(new ArrayList<>()))
+                                 .add(System.nanoTime() - requestStart);
+                    }
+                }, 0, 1000 / mix.requestsPerSecond, TimeUnit.MILLISECONDS);
+            }
+
+            TimeUnit.SECONDS.sleep(mix.seconds);
+            scheduler.shutdown();
+            scheduler.awaitTermination(MAX_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+            long end = System.nanoTime();
+            drain();
+            stream.close();
+
+            Result result = new Result();
+            result.ecus = mix.ecus;
+            result.sources.addAll(sources);
+            result.frames = frames.sum() - framesStart;
+            result.cpuNanos = getProcessCpuTime() - cpuStart;
+            result.seconds = (end - start) / 1e9;
+            result.peakThreads = threads.getPeakThreadCount();
+
+            reader.get();
+            completions.shutdown();
+            completions.awaitTermination(DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+            responder.close();
+            System.gc();
+            result.heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+            result.failedSessions = failedSessions.get();
+            sent.forEach((kind, count) -> result.sent.put(kind, count.get()));
+            latencies.forEach((kind, list) -> {
+                List<Long> sorted = new ArrayList<>(list);
+                Collections.sort(sorted);
+                result.latencies.put(kind, sorted);
+            });
+            for (var entry : result.sent.entrySet()) {
+                int delivered = result.latencies.getOrDefault(entry.getKey(), List.of()).size();
+                result.lost.put(entry.getKey(), entry.getValue() - delivered);
+            }
+            return result;
+        } finally {
+            scheduler.shutdownNow();
+            completions.shutdownNow();
+            modules.forEach(J1939TP::close);
+        }
+    }
+
+    /** Simulates the capture file and requests from each of its modules. */
+    private Result execute(Mix mix, File capture) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try (J1939TP tool = new J1939TP(createBus(TOOL));
+             RecordedVehicle vehicle = new RecordedVehicle(createBus(RESPONDER), capture)) {
+            int[] addresses = vehicle.getAddresses().stream().mapToInt(Integer::intValue).sorted().toArray();
+            J1939 j1939 = new J1939(tool);
+            threads.resetPeakThreadCount();
+            long cpuStart = getProcessCpuTime();
+            long framesStart = frames.sum();
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(mix.seconds);
+            try (Stream<Packet> stream = j1939.read(mix.seconds * 1000L + DRAIN_MILLIS, TimeUnit.MILLISECONDS)) {
+                Thread reader = Threads.start("Load Reader", true, () -> stream.forEach(p -> {
+                    if (p.getSource() != TOOL) {
+                        sources.add(p.getSource());
+                    }
+                }));
+                long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, mix.requestsPerSecond);
+                for (int i = 0; System.nanoTime() < end; i++) {
+                    long requestStart = System.nanoTime();
+                    sent.computeIfAbsent(REQUEST, k -> new AtomicInteger()).incrementAndGet();
+                    var result = j1939.requestDS(null,
+                                                 EngineHoursPacket.class,
+                                                 addresses[i % addresses.length],
+                                                 ResultsListener.NOOP);
+                    long requestEnd = System.nanoTime();
+                    if (result.getPacket().isPresent()) {
+                        latencies.computeIfAbsent(REQUEST, k -> Collections.synchronizedList(new ArrayList<>()))
+                                 .add(requestEnd - requestStart);
+                    }
+                    TimeUnit.NANOSECONDS.sleep(Math.min(end - System.nanoTime(), requestStart + period - requestEnd));
+                }
+                long framesEnd = frames.sum();
+                Result result = new Result();
+                result.ecus = mix.ecus;
+                result.frames = framesEnd - framesStart;
+                result.cpuNanos = getProcessCpuTime() - cpuStart;
+                result.seconds = (System.nanoTime() - start) / 1e9;
+                result.peakThreads = threads.getPeakThreadCount();
+                reader.join();
+                result.sources.addAll(sources);
+                result.sent.put(REQUEST, sent.get(REQUEST).get());
+                List<Long> sorted = new ArrayList<>(latencies.getOrDefault(REQUEST, List.of()));
+                Collections.sort(sorted);
+                result.latencies.put(REQUEST, sorted);
+                result.lost.put(REQUEST, result.sent.get(REQUEST) - sorted.size());
+                System.gc();
+                result.heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                return result;
+            }
+        }
+    }
+
+    private void scheduleSessions(ScheduledExecutorService scheduler,
+                                  J1939TP module,
+                                  String kind,
+                                  int id,
+                                  int length,
+                                  double perSecond,
+                                  double offset) {
+        long period = (long) (1_000_000 / perSecond);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                module.send(Packet.create(id, module.getAddress(), createData(kind, length)));
+            } catch (BusException e) {
+                failedSessions.incrementAndGet();
+            }
+        }, (long) (period * offset), period, TimeUnit.MICROSECONDS);
+    }
+
+    private static long getProcessCpuTime() {
+        var os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+}
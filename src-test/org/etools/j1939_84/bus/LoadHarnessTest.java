@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Runs the {@link LoadHarness} as part of the unit tests. The measured
+ * throughput is compared with the baseline by the load target only, as it
+ * depends on the machine and what else it is running; these tests check the
+ * gate itself against the stored baseline.
+ */
+@TestDoc(description = "Verifies the bus stack delivers a vehicle traffic mix.")
+public class LoadHarnessTest {
+
+    @Test(timeout = 60000)
+    @TestDoc(description = "Verify broadcasts, BAM and RTS/CTS sessions and requests are all delivered while sent together.")
+    public void testMix() throws Exception {
+        LoadHarness.Result result = LoadHarness.run(new LoadHarness.Mix().seconds(3));
+        J1939_84.getLogger().log(Level.INFO, "Load harness:\n" + result);
+
+        assertEquals(0, result.getFailedSessions());
+        assertEquals(0, result.getLost(LoadHarness.BROADCAST));
+        assertEquals(0, result.getLost(LoadHarness.BAM));
+        assertEquals(0, result.getLost(LoadHarness.RTS));
+        assertEquals(0, result.getLost(LoadHarness.REQUEST));
+        assertTrue(result.getLatency(LoadHarness.BROADCAST, 0.5) >= 0);
+        assertEquals(5, result.getSources().size());
+    }
+
+    @Test(timeout = 60000)
+    @TestDoc(description = "Verify a recorded vehicle of a given number of modules is simulated and answers requests.")
+    public void testVehicle() throws Exception {
+        LoadHarness.Result result = LoadHarness.simulate(new LoadHarness.Mix().ecus(12).broadcastPgns(5).seconds(1));
+        J1939_84.getLogger().log(Level.INFO, "Recorded vehicle:\n" + result);
+
+        assertEquals(12, result.getEcus());
+        assertEquals(Arrays.stream(LoadHarness.getAddresses(12)).boxed().collect(Collectors.toSet()),
+                     result.getSources());
+        assertTrue(result.getLatency(LoadHarness.REQUEST, 0.5) >= 0);
+        assertEquals(0, result.getLost(LoadHarness.REQUEST));
+        assertTrue(result.getFramesPerSecond() > 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the modules have distinct addresses other than the tool's.")
+    public void testAddresses() {
+        int[] addresses = LoadHarness.getAddresses(253);
+        assertEquals(253, Arrays.stream(addresses).distinct().count());
+        assertTrue(Arrays.stream(addresses).allMatch(a -> a != 0xF9 && a < 0xFE));
+        assertEquals(0x00, addresses[0]);
+        try {
+            new LoadHarness.Mix().ecus(0);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 60000)
+    @TestDoc(description = "Verify the saturation run delivers every frame it sends.")
+    public void testSaturate() throws Exception {
+        assertTrue(LoadHarness.saturate(10_000) > 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify a throughput below the stored baseline less the tolerance fails the run.")
+    public void testRegression() throws Exception {
+        double minimum = LoadHarness.getMinimum();
+        LoadHarness.checkBaseline(minimum * 1.01);
+        try {
+            LoadHarness.checkBaseline(minimum * 0.99);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify the stored baseline fails a 1.5 times drop in throughput.")
+    public void testTolerance() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream in = LoadHarness.class.getResourceAsStream(LoadHarness.BASELINE_RESOURCE)) {
+            properties.load(in);
+        }
+        double baseline = Double.parseDouble(properties.getProperty("saturation.framesPerSecond"));
+        assertTrue(LoadHarness.getMinimum() > baseline / 1.5);
+        assertNotNull(properties.getProperty("machine"));
+        assertNotNull(properties.getProperty("jdk"));
+    }
+}
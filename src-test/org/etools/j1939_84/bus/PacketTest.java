@@ -8,6 +8,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import org.etools.j1939_84.modules.DateTimeModule;
 import org.etools.j1939_84.modules.TestDateTimeModule;
 import org.junit.After;
@@ -219,6 +222,30 @@ public class PacketTest {
         assertEquals(expected, instance);
     }
 
+    @Test
+    public void testToStringMatchesFormat() {
+        int[][] ids = { { 0, 0x0000, 0x00 }, { 7, 0xFFFF, 0xFF }, { 6, 0xEA00, 0x0F } };
+        for (int length : new int[] { 3, 8, 100 }) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) (i * 37);
+            }
+            for (int[] id : ids) {
+                boolean transmitted = id[0] == 7;
+                Packet instance = Packet.create(id[0], id[1], id[2], transmitted, bytes);
+                String data = IntStream.range(0, length)
+                                       .mapToObj(i -> String.format("%02X", bytes[i] & 0xFF))
+                                       .collect(Collectors.joining(" "));
+                String expected = String.format("%06X%02X [%s] %s",
+                                                id[0] << 18 | id[1],
+                                                id[2],
+                                                length,
+                                                data + (transmitted ? Packet.TX : ""));
+                assertEquals(expected, instance.toString());
+            }
+        }
+    }
+
     @Test
     public void testToStringWithFormatter() {
         new TestDateTimeModule();
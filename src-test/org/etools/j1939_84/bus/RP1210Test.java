@@ -8,18 +8,22 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.etools.j1939_84.J1939_84;
 import org.etools.j1939_84.bus.j1939.J1939;
 import org.etools.j1939_84.bus.j1939.J1939TP;
 import org.etools.j1939_84.bus.j1939.packets.DM29DtcCounts;
+import org.etools.j1939_84.bus.trace.TraceImporter;
 import org.etools.j1939_84.controllers.TestResultsListener;
 import org.ini4j.InvalidFileFormatException;
 import org.junit.After;
@@ -206,6 +210,39 @@ public class RP1210Test {
         }
     }
 
+    @Test
+    public void testGetReplayAdapters() throws Exception {
+        File directory = Files.createTempDirectory("traces").toFile();
+        try {
+            File capture = new File(directory, "run1" + CaptureWriter.EXTENSION);
+            new CaptureWriter(capture).close();
+            File trace = new File(directory, "run2.asc");
+            Files.write(trace.toPath(), List.of("base hex  timestamps absolute"));
+            File imported = new File(directory, "run3.asc");
+            Files.write(imported.toPath(), List.of("base hex  timestamps absolute"));
+            TraceImporter.toCapture(imported);
+            Files.write(new File(directory, "notes.txt").toPath(), List.of("not a trace"));
+
+            List<String> names = RP1210.getReplayAdapters(List.of(directory))
+                                       .stream()
+                                       .map(Adapter::getName)
+                                       .sorted()
+                                       .collect(Collectors.toList());
+            assertEquals(List.of("Replay - run1" + CaptureWriter.EXTENSION,
+                                 "Replay - run2.asc",
+                                 "Replay - run3.asc" + CaptureWriter.EXTENSION),
+                         names);
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    f.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
     @Test
     public void testSetAdapterWithLookBackAdapter() throws Exception {
         J1939_84.setTesting(true);
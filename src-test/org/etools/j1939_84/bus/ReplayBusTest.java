@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.etools.j1939_84.bus.TestCapture.TOOL;
+import static org.etools.j1939_84.bus.TestCapture.at;
+import static org.etools.j1939_84.bus.TestCapture.bytes;
+import static org.etools.j1939_84.bus.TestCapture.request;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ReplayBus} class
+ */
+@TestDoc(description = "Verifies replay of capture files.")
+public class ReplayBusTest {
+
+    private ReplayBus instance;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("test", CaptureWriter.EXTENSION);
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.write(at(0), 0x18FEF100, false, bytes(0, 0, 0, 0, 0, 0, 0, 0), 8);
+            for (int i = 0; i < 150; i++) {
+                writer.write(at(500 + 10 * i), 0x0CF00400, false, bytes(i, 1, 2, 3, 4, 5, 6, 7), 8);
+            }
+
+            writer.write(at(1000), 0x18EA00F9, true, bytes(0xDA, 0xFE, 0x00), 3);
+            writer.write(at(1020), 0x18FEDA00, false, bytes(1, 2, 3, 4, 5, 6, 7, 8), 8);
+            writer.write(at(1500), 0x18EA00F9, true, bytes(0xDA, 0xFE, 0x00), 3);
+            writer.write(at(1510), 0x18FEDA00, false, bytes(9, 9, 9, 9, 9, 9, 9, 9), 8);
+
+            writer.write(at(2000), 0x18EA00F9, true, bytes(0x00, 0xD3, 0x00), 3);
+            writer.write(at(2010), 0x1CECF900, false, bytes(16, 20, 0, 3, 0xFF, 0x00, 0xD3, 0x00), 8);
+            writer.write(at(2020), 0x1CEC00F9, true, bytes(17, 3, 1, 0xFF, 0xFF, 0x00, 0xD3, 0x00), 8);
+            for (int i = 1; i <= 3; i++) {
+                writer.write(at(2020 + 10 * i), 0x1CEBF900, false, bytes(i, i, i, i, i, i, i, i), 8);
+            }
+            writer.write(at(2060), 0x1CEC00F9, true, bytes(19, 20, 0, 3, 0xFF, 0x00, 0xD3, 0x00), 8);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (instance != null) {
+            instance.close();
+        }
+        file.delete();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify broadcast traffic is played back in order without the tool's frames or the responses to them.")
+    public void testPlayback() throws Exception {
+        instance = new ReplayBus(file, TOOL, 10);
+        List<Packet> packets = instance.read(500, TimeUnit.MILLISECONDS).collect(Collectors.toList());
+
+        List<Packet> engineSpeed = packets.stream().filter(p -> p.getPgn() == 0xF004).collect(Collectors.toList());
+        assertEquals(150, engineSpeed.size());
+        for (int i = 0; i < engineSpeed.size(); i++) {
+            assertEquals(i, engineSpeed.get(i).get(0));
+        }
+        assertFalse(packets.stream().anyMatch(p -> p.getSource() == TOOL));
+        assertFalse(packets.stream().anyMatch(p -> p.getPgn() == 0xFEDA));
+        assertFalse(packets.stream().anyMatch(p -> p.getPgn() == J1939TP.CM || p.getPgn() == J1939TP.DT));
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify at full speed the last frame of each broadcast is repeated at its period once"
+            + " the recording has been played.")
+    public void testRepeatAtMaxSpeed() throws Exception {
+        instance = new ReplayBus(file, TOOL, ReplayBus.MAX_SPEED);
+        // the recording is played at once
+        Thread.sleep(100);
+        List<Packet> packets = instance.read(200, TimeUnit.MILLISECONDS).collect(Collectors.toList());
+
+        List<Packet> engineSpeed = packets.stream().filter(p -> p.getPgn() == 0xF004).collect(Collectors.toList());
+        assertTrue("F004 count " + engineSpeed.size(), engineSpeed.size() >= 5 && engineSpeed.size() <= 25);
+        assertTrue(engineSpeed.stream().allMatch(p -> p.get(0) == 149 && p.getSource() == 0x00));
+        // recorded once, so it has no period
+        assertFalse(packets.stream().anyMatch(p -> p.getPgn() == 0xFEF1));
+        assertFalse(packets.stream().anyMatch(p -> p.getPgn() == 0xFEDA));
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify repeated requests are answered with the responses to each recorded request in turn.")
+    public void testRequest() throws Exception {
+        instance = new ReplayBus(file, TOOL, ReplayBus.MAX_SPEED);
+        int[][] expected = { { 1, 2, 3, 4, 5, 6, 7, 8 }, { 9, 9, 9, 9, 9, 9, 9, 9 }, { 1, 2, 3, 4, 5, 6, 7, 8 } };
+        for (int[] data : expected) {
+            try (Stream<Packet> stream = instance.read(1, TimeUnit.SECONDS)) {
+                Packet echo = instance.send(request(0xFEDA, 0x00));
+                assertEquals(TOOL, echo.getSource());
+                Packet response = stream.filter(p -> p.getPgn() == 0xFEDA).findFirst().orElseThrow();
+                assertEquals(0x00, response.getSource());
+                assertArrayEquals(data, response.getData(0, 8));
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a request recorded again within T2 is answered only with the responses recorded"
+            + " before the next occurrence.")
+    public void testRequestRepeatedWithinT2() throws Exception {
+        instance = new ReplayBus(file, TOOL, 10);
+        // at 10x the T2 window of the request at 1000 ms covers the one at 1500 ms
+        try (Stream<Packet> stream = instance.read(200, TimeUnit.MILLISECONDS)) {
+            instance.send(request(0xFEDA, 0x00));
+            List<Packet> responses = stream.filter(p -> p.getPgn() == 0xFEDA).collect(Collectors.toList());
+            assertEquals(1, responses.size());
+            assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7, 8 }, responses.get(0).getData(0, 8));
+        }
+        try (Stream<Packet> stream = instance.read(200, TimeUnit.MILLISECONDS)) {
+            instance.send(request(0xFEDA, 0x00));
+            List<Packet> responses = stream.filter(p -> p.getPgn() == 0xFEDA).collect(Collectors.toList());
+            assertEquals(1, responses.size());
+            assertArrayEquals(new int[] { 9, 9, 9, 9, 9, 9, 9, 9 }, responses.get(0).getData(0, 8));
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a destination specific TP response is released as the tool sends CTS.")
+    public void testTransportProtocol() throws Exception {
+        instance = new ReplayBus(file, TOOL, 1);
+        J1939TP tp = new J1939TP(instance);
+        try (Stream<Packet> stream = tp.read(3, TimeUnit.SECONDS)) {
+            tp.send(request(0xD300, 0x00));
+            Packet response = stream.filter(p -> p.getPgn() == 0xD300).findFirst().orElseThrow();
+            assertArrayEquals(new int[] { 1, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3 },
+                              response.getData(0, 20));
+        }
+        tp.close();
+    }
+
+    @Test
+    public void testParseSpeed() {
+        assertEquals(1, ReplayBus.parseSpeed("Speed=1"), 0);
+        assertEquals(100, ReplayBus.parseSpeed("Speed=100"), 0);
+        assertEquals(ReplayBus.MAX_SPEED, ReplayBus.parseSpeed("Speed=Max"), 0);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fixtures the tests use to write capture files with a
+ * {@link CaptureWriter} and to request from what replays them.
+ */
+public class TestCapture {
+
+    /** The address of the tool */
+    public static final int TOOL = 0xF9;
+
+    /** The time of the start of the captures */
+    public static final long START = CaptureWriter.toEpochNanos(LocalDateTime.of(2021, 3, 4, 5, 6, 7));
+
+    private TestCapture() {
+    }
+
+    /**
+     * @param  millis
+     *                    the milliseconds since {@link #START}
+     * @return        the time in nanoseconds since the epoch
+     */
+    public static long at(int millis) {
+        return START + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * @param  values
+     *                    the values of the bytes
+     * @return        the bytes
+     */
+    public static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * @param  pgn
+     *                         the requested PGN
+     * @param  destination
+     *                         the address the request is sent to
+     * @return             a request from the {@link #TOOL}
+     */
+    public static Packet request(int pgn, int destination) {
+        return Packet.create(0xEA00 | destination, TOOL, pgn, pgn >> 8, pgn >> 16);
+    }
+}
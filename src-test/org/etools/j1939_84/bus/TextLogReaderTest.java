@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link TextLogReader} class
+ */
+@TestDoc(description = "Verifies the frames of text logs are read without regular expressions.")
+public class TextLogReaderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 4, 1, 0, 0);
+
+    private File file;
+
+    private final List<String> frames = new ArrayList<>();
+
+    private static long nanos(LocalDateTime time) {
+        return CaptureWriter.toEpochNanos(time);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("test", ".log");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /** Writes the lines and reads them, recording each frame as a string */
+    private TextLogReader read(String... lines) throws IOException {
+        return readChannel(null, lines);
+    }
+
+    /** Writes the lines and reads the frames of the channel */
+    private TextLogReader readChannel(String channel, String... lines) throws IOException {
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+        TextLogReader reader = new TextLogReader(file, START);
+        reader.setChannel(channel);
+        try {
+            reader.read((epochNanos, canId, transmitted, data, length) -> {
+                StringBuilder sb = new StringBuilder();
+                sb.append(epochNanos).append(' ').append(String.format("%08X", canId));
+                for (int i = 0; i < length; i++) {
+                    sb.append(String.format(" %02X", data[i]));
+                }
+                frames.add(sb.append(transmitted ? " TX" : "").toString());
+            });
+        } finally {
+            reader.close();
+        }
+        return reader;
+    }
+
+    @Test
+    @TestDoc(description = "Verify the lines of Packet.toString() and Packet.parsePacket are read.")
+    public void testPacketLines() throws Exception {
+        TextLogReader reader = read("18FECA00 [8] 11 22 33 44 55 66 77 88 (TX)",
+                                    "0CF00400 01 02 03",
+                                    "18EA00F9, EC, FE, 00");
+        long start = nanos(START);
+        assertEquals(List.of(start + " 18FECA00 11 22 33 44 55 66 77 88 TX",
+                             start + " 0CF00400 01 02 03",
+                             start + " 18EA00F9 EC FE 00"),
+                     frames);
+        assertEquals(3, reader.getLineCount());
+        assertEquals(3, reader.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify Packet.toString() reads back as it was written.")
+    public void testToString() throws Exception {
+        Packet packet = Packet.create(6, 0xFECA, 0x17, true, new byte[] { 1, 2, 3, (byte) 0xFF });
+        read(packet.toString());
+        assertEquals(List.of(nanos(START) + " 18FECA17 01 02 03 FF TX"), frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify report lines are read with their time and roll over to the next day at midnight.")
+    public void testReportLines() throws Exception {
+        read("",
+             "10:15:30.1234 Sending Request for DM5 to Engine #1 (0)",
+             "23:59:59.5000 18EA00F9 [3] CE FE 00 (TX)",
+             "00:00:00.2500 18FECE00 [8] 00 FF 14 37 E0 1E E0 1E");
+        assertEquals(List.of(nanos(LocalDateTime.of(2021, 4, 1, 23, 59, 59, 500000000)) + " 18EA00F9 CE FE 00 TX",
+                             nanos(LocalDateTime.of(2021, 4, 2, 0, 0, 0, 250000000))
+                                     + " 18FECE00 00 FF 14 37 E0 1E E0 1E"),
+                     frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the packets in the tool's log are read with the date of the log line.")
+    public void testToolLog() throws Exception {
+        TextLogReader reader = read("2021-05-06 10:15:30.130 FINE   org.etools.j1939_84.bus.RP1210Bus lambda$0 10:15:30.1234 18FECA00 [8] 11 22 33 44 55 66 77 88",
+                                    "2021-05-06 10:15:30.131 INFO   org.etools.j1939_84.controllers.PartResultRepository addOutcome FAIL: 6.1.2.3 [a]",
+                                    "2021-05-06 10:15:31.000 WARNING org.etools.j1939_84.bus.RP1210Bus lambda$0 Another ECU is using this address: 18FECAF9 [3] 01 02 03",
+                                    "java.lang.IllegalStateException: at 18FECA00");
+        assertEquals(List.of(nanos(LocalDateTime.of(2021, 5, 6, 10, 15, 30, 123400000))
+                + " 18FECA00 11 22 33 44 55 66 77 88",
+                             nanos(LocalDateTime.of(2021, 5, 6, 10, 15, 31)) + " 18FECAF9 01 02 03"),
+                     frames);
+        assertEquals(4, reader.getLineCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify only the lines with the text of the filter are read.")
+    public void testLineFilter() throws Exception {
+        Files.write(file.toPath(),
+                    List.of("2021-05-06 10:15:30.130 FINE   org.etools.j1939_84.bus.RP1210Bus"
+                            + " lambda$decodeDataAndQueuePacket$3 10:15:30.1234 18FECA00 [3] 11 22 33",
+                            "2021-05-06 10:15:30.200 FINE   org.etools.j1939_84.bus.simulated.Sim"
+                                    + " lambda$new$0 10:15:30.2000 18FECA01 [3] 44 55 66",
+                            "2021-05-06 10:15:31.000 WARNING org.etools.j1939_84.bus.RP1210Bus"
+                                    + " lambda$decodeDataAndQueuePacket$3 Another ECU is using this address:"
+                                    + " 18FECAF9 [3] 01 02 03"),
+                    StandardCharsets.US_ASCII);
+        List<Integer> ids = new ArrayList<>();
+        try (TextLogReader reader = new TextLogReader(file, START)) {
+            // the warning repeats a frame of the adapter
+            reader.setLineFilter("FINE   org.etools.j1939_84.bus.RP1210Bus lambda$decodeDataAndQueuePacket");
+            reader.read((epochNanos, canId, transmitted, data, length) -> ids.add(canId));
+            assertEquals(3, reader.getLineCount());
+        }
+        assertEquals(List.of(0x18FECA00), ids);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the frames of a Vector ASC file are read from the start in its header.")
+    public void testAsc() throws Exception {
+        read("date Thu Apr 1 01:02:03.456 pm 2021",
+             "base hex  timestamps absolute",
+             "internal events logged",
+             "// version 9.0.0",
+             "Begin Triggerblock Thu Apr 1 01:02:03.456 pm 2021",
+             "   0.000000 Start of measurement",
+             "   1.500000 1  18FECA00x       Rx   d 8 11 22 33 44 55 66 77 88  Length = 0 BitCount = 0",
+             "   1.600000 1  123             Rx   d 2 01 02",
+             "   1.700000 2  18EA00F9x       Tx   d 3 EC FE 00",
+             "   1.800000 1  ErrorFrame",
+             "End TriggerBlock");
+        long start = nanos(LocalDateTime.of(2021, 4, 1, 13, 2, 3, 456000000));
+        assertEquals(List.of((start + TimeUnit.MILLISECONDS.toNanos(1500)) + " 18FECA00 11 22 33 44 55 66 77 88",
+                             (start + TimeUnit.MILLISECONDS.toNanos(1700)) + " 18EA00F9 EC FE 00 TX"),
+                     frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the numbers of an ASC file in decimal are read.")
+    public void testAscDecimal() throws Exception {
+        read("base dec  timestamps absolute", "   0.250000 1  419351040x Rx d 3 236 254 0");
+        assertEquals(List.of((nanos(START) + TimeUnit.MILLISECONDS.toNanos(250)) + " 18FECA00 EC FE 00"), frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify only the frames of the selected channel of an ASC file are read.")
+    public void testAscChannel() throws Exception {
+        readChannel("2",
+                    "   1.500000 1  18FECA00x       Rx   d 3 11 22 33",
+                    "   1.700000 2  18EA00F9x       Tx   d 3 EC FE 00");
+        assertEquals(List.of((nanos(START) + TimeUnit.MILLISECONDS.toNanos(1700)) + " 18EA00F9 EC FE 00 TX"), frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the frames of a PEAK TRC 1.1 file are read from the start given.")
+    public void testTrc11() throws Exception {
+        read(";$FILEVERSION=1.1",
+             ";   Start time: 4/1/2021 00:00:00.000.0",
+             ";   Message Number",
+             ";   |         Time Offset (ms)",
+             ";---+--   ----+----  --+--  ----+---  +  -+ -- -- -- -- -- -- --",
+             "     1)      1059.9  Rx     18FECA00  8  11 22 33 44 55 66 77 88",
+             "     2)      1060.1  Tx     18EA00F9  3  EC FE 00",
+             "     3)      1061.0  Rx         0123  2  01 02",
+             "     4)      1062.0  Warng  FFFFFFFF  4  00 00 00 08  BUSHEAVY");
+        long start = nanos(START);
+        assertEquals(List.of((start + TimeUnit.MICROSECONDS.toNanos(1059900)) + " 18FECA00 11 22 33 44 55 66 77 88",
+                             (start + TimeUnit.MICROSECONDS.toNanos(1060100)) + " 18EA00F9 EC FE 00 TX"),
+                     frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the frames of a PEAK TRC 2.1 file are read from the start in its header, by bus.")
+    public void testTrc21() throws Exception {
+        TextLogReader reader = readChannel("2",
+                                           ";$FILEVERSION=2.1",
+                                           ";$STARTTIME=44287.5",
+                                           ";$COLUMNS=N,O,T,B,I,d,R,L,D",
+                                           "      1      1059.900 DT 1      18FECA00 Rx - 3    11 22 33",
+                                           "      2      1060.100 DT 2      18EA00F9 Tx - 3    EC FE 00",
+                                           "      3      1061.000 ST 2      Rx - 4    00 00 00 08");
+        long start = nanos(LocalDateTime.of(2021, 4, 1, 12, 0));
+        assertEquals(List.of((start + TimeUnit.MICROSECONDS.toNanos(1060100)) + " 18EA00F9 EC FE 00 TX"), frames);
+        assertEquals(1, reader.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the frames of candump logs and printed candump output are read, by interface.")
+    public void testCandump() throws Exception {
+        readChannel("can1",
+                    "(1617271200.123456) can1 18FECA00#1122334455667788",
+                    "(1617271200.223456) can0 18FECA01#112233",
+                    "(1617271200.323456) can1 123#0102",
+                    "(1617271200.423456) can1 18EA00F9#R",
+                    " (000.250000)  can1  18EA00F9   [3]  EC FE 00");
+        long time = TimeUnit.SECONDS.toNanos(1617271200L);
+        assertEquals(List.of((time + TimeUnit.MICROSECONDS.toNanos(123456)) + " 18FECA00 11 22 33 44 55 66 77 88",
+                             (nanos(START) + TimeUnit.MILLISECONDS.toNanos(250)) + " 18EA00F9 EC FE 00"),
+                     frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify incomplete and malformed lines are skipped.")
+    public void testMalformed() throws Exception {
+        TextLogReader reader = read("10:15:30.1234 Failed Packet: 10:15:30.1234 18FECA00 [?] ...",
+                                    "18FECA00 [8] 11 22 333",
+                                    "18FECA00 [8] 11 ZZ",
+                                    "18FECA0 [8] 11 22 33",
+                                    "18FECA00",
+                                    "   1.5 1  18FECA00x Rx d 8 11 22",
+                                    "18FECA00 [3] 01 02 03\r");
+        assertEquals(List.of(nanos(START) + " 18FECA00 01 02 03"), frames);
+        assertEquals(7, reader.getLineCount());
+        assertEquals(1, reader.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify a line whose length in brackets is not the number of data bytes is skipped.")
+    public void testLengthMismatch() throws Exception {
+        TextLogReader reader = read("10:15:30.1234 18FECA00 [8] 11 22 33",
+                                    "18FECA00 [2] 11 22 33 (TX)",
+                                    "18FECA00 [10] 11 22 33 44 55 66 77 88 99 AA",
+                                    "18FECA00 [] 11 22 33");
+        assertEquals(List.of(nanos(START) + " 18FECA00 11 22 33 44 55 66 77 88 99 AA"), frames);
+        assertEquals(2, reader.getLengthMismatchCount());
+        assertEquals(1, reader.getFrameCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the lines of a file larger than the buffer are all read.")
+    public void testLargeFile() throws Exception {
+        String[] lines = new String[3 * TextLogReader.BUFFER_SIZE / 40];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = String.format("18FECA%02X [%d] 01 02 03", i & 0xFF, 3);
+        }
+        TextLogReader reader = read(lines);
+        assertEquals(lines.length, reader.getFrameCount());
+        assertEquals(lines.length, frames.size());
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(String.format("%d 18FECA%02X 01 02 03", nanos(START), i & 0xFF), frames.get(i));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.testdoc.TestDoc;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link Threads} class
+ */
+@TestDoc(description = "Verifies the threads of the communication stack are created as configured.")
+public class ThreadsTest {
+
+    /** The number of blocked threads {@link #main(String[])} starts. */
+    private static final int BLOCKED_THREADS = 10_000;
+
+    /**
+     * Starts {@link #BLOCKED_THREADS} threads from {@link Threads} that block
+     * until all are started, and logs the kind of the threads and how long
+     * it took. Run in a JVM of its own, as the kind is chosen once.
+     *
+     * @param  args
+     *                       not used
+     * @throws Throwable
+     *                       if the threads could not be created
+     */
+    public static void main(String[] args) throws Throwable {
+        MethodHandle isVirtual = MethodHandles.publicLookup()
+                .findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        ThreadFactory factory = Threads.factory("Blocked", true);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Runtime runtime = Runtime.getRuntime();
+        long memory = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < BLOCKED_THREADS; i++) {
+            Thread thread = factory.newThread(blocked);
+            thread.start();
+            threads.add(thread);
+        }
+        long started = System.nanoTime();
+        long used = runtime.totalMemory() - runtime.freeMemory() - memory;
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long ended = System.nanoTime();
+
+        Thread thread = Threads.start("Started", true, () -> {
+        });
+        thread.join();
+        ExecutorService executor = Threads.newCachedThreadPool("Pool");
+        boolean pooled = (boolean) isVirtual.invoke(executor.submit(Thread::currentThread).get());
+        executor.shutdown();
+        boolean virtual = (boolean) isVirtual.invoke(threads.get(0));
+        if (virtual != Threads.isVirtual() || virtual != (boolean) isVirtual.invoke(thread) || virtual != pooled
+                || !threads.get(0).getName().equals("Blocked-1")) {
+            throw new IllegalStateException("The threads are not all of the same kind");
+        }
+        J1939_84.getLogger()
+                .log(Level.INFO,
+                     String.format("%s: %,d blocked threads started in %,d ms using %,d KB of heap; ended in %,d ms",
+                                   virtual ? Threads.VIRTUAL : "platform",
+                                   BLOCKED_THREADS,
+                                   TimeUnit.NANOSECONDS.toMillis(started - start),
+                                   used / 1024,
+                                   TimeUnit.NANOSECONDS.toMillis(ended - started)));
+    }
+
+    private static String run(String threads) throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                                             "-D" + Threads.PROPERTY + "=" + threads,
+                                             "-cp",
+                                             System.getProperty("java.class.path"),
+                                             ThreadsTest.class.getName()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), UTF_8).trim();
+        assertEquals(output, 0, process.waitFor());
+        // the measurement logged last, without the prefix of the log
+        int index = output.lastIndexOf(threads + ": ");
+        assertTrue(output, index >= 0);
+        return output.substring(index);
+    }
+
+    @Test
+    @TestDoc(description = "Verify platform threads are used unless virtual threads are selected.")
+    public void testMode() {
+        assertEquals(Threads.VIRTUAL.equals(System.getProperty(Threads.PROPERTY))
+                && Runtime.version().feature() >= 21, Threads.isVirtual());
+    }
+
+    @Test(timeout = 120000)
+    @TestDoc(description = "Verify virtual threads are created when selected on Java 21 or later, "
+            + "and report what blocked threads of each kind cost.")
+    public void testVirtualThreads() throws Exception {
+        Assume.assumeTrue("Virtual threads need Java 21", Runtime.version().feature() >= 21);
+
+        String platform = run("platform");
+        assertTrue(platform, platform.startsWith("platform: "));
+        String virtual = run(Threads.VIRTUAL);
+        assertTrue(virtual, virtual.startsWith(Threads.VIRTUAL + ": "));
+        J1939_84.getLogger().log(Level.INFO, "Blocked threads:\n" + platform + "\n" + virtual);
+    }
+
+    @Test
+    public void testFactory() {
+        ThreadFactory factory = Threads.factory("Test", true);
+        Thread first = factory.newThread(() -> {
+        });
+        Thread second = factory.newThread(() -> {
+        });
+        assertEquals("Test-1", first.getName());
+        assertEquals("Test-2", second.getName());
+        assertTrue(first.isDaemon());
+        if (!Threads.isVirtual()) {
+            assertFalse(Threads.factory("Test", false).newThread(() -> {
+            }).isDaemon());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testStart() throws Exception {
+        StringBuilder name = new StringBuilder();
+        Thread thread = Threads.start("Started", false, () -> name.append(Thread.currentThread().getName()));
+        thread.join();
+        assertEquals("Started", name.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void testCachedThreadPool() throws Exception {
+        ExecutorService executor = Threads.newCachedThreadPool("Pool");
+        try {
+            assertEquals("Pool-1", executor.submit(() -> Thread.currentThread().getName()).get());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        }
+    }
+}
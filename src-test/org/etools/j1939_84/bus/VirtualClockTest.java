@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.bus.j1939.packets.VehicleIdentificationPacket;
+import org.etools.j1939_84.bus.simulated.Engine;
+import org.etools.j1939_84.bus.simulated.Sim;
+import org.etools.j1939_84.controllers.ResultsListener;
+import org.etools.j1939_84.modules.DateTimeModule;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link VirtualClock} class
+ */
+@TestDoc(description = "Verifies that virtual time runs faster than real time.")
+public class VirtualClockTest {
+
+    @Before
+    public void setUp() {
+        VirtualClock.enable();
+    }
+
+    @After
+    public void tearDown() {
+        VirtualClock.disable();
+        DateTimeModule.setInstance(null);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a 10 minute pause completes in virtual time.")
+    public void testSleep() throws Exception {
+        long start = VirtualClock.currentTimeMillis();
+        DateTimeModule.getInstance().pauseFor(TimeUnit.MINUTES.toMillis(10));
+        assertTrue(VirtualClock.currentTimeMillis() - start >= TimeUnit.MINUTES.toMillis(10));
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify stream timeouts are in virtual time.")
+    public void testStreamTimeout() {
+        MultiQueue<Packet> queue = new MultiQueue<>();
+        long start = VirtualClock.currentTimeMillis();
+        assertFalse(queue.stream(2, TimeUnit.MINUTES).findAny().isPresent());
+        long elapsed = VirtualClock.currentTimeMillis() - start;
+        assertTrue(elapsed >= TimeUnit.MINUTES.toMillis(2));
+        assertTrue(elapsed < TimeUnit.MINUTES.toMillis(2) + 100);
+    }
+
+    @Test(timeout = 10000)
+    @TestDoc(description = "Verify simulated broadcasts are sent at their period in virtual time.")
+    public void testSimSchedule() throws Exception {
+        try (EchoBus bus = new EchoBus(0xF9); Sim sim = new Sim(bus)) {
+            Stream<Packet> stream = bus.read(60, TimeUnit.SECONDS);
+            sim.schedule(100, TimeUnit.MILLISECONDS, () -> Packet.create(0xF004, 0x00, 1, 2, 3, 4, 5, 6, 7, 8));
+            List<Packet> packets = stream.collect(Collectors.toList());
+
+            assertEquals(600, packets.size(), 2);
+            for (int i = 1; i < packets.size(); i++) {
+                Duration delta = Duration.between(packets.get(i - 1).getTimestamp(), packets.get(i).getTimestamp());
+                assertEquals(100, delta.toMillis());
+            }
+        }
+    }
+
+    @Test(timeout = 20000)
+    @TestDoc(description = "Verify requests to the simulated engine are answered in virtual time.")
+    public void testEngine() throws Exception {
+        try (EchoBus bus = new EchoBus(0xF9)) {
+            Engine engine = new Engine(bus);
+            try {
+                J1939 j1939 = new J1939(bus);
+                long start = VirtualClock.currentTimeMillis();
+                for (int i = 0; i < 100; i++) {
+                    var result = j1939.requestGlobal(null, VehicleIdentificationPacket.class, ResultsListener.NOOP);
+                    assertEquals(1, result.getPackets().size());
+                }
+                // each global request waits for the full timeout
+                assertTrue(VirtualClock.currentTimeMillis() - start >= 100 * 600);
+            } finally {
+                engine.close();
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testDisabled() throws Exception {
+        VirtualClock.disable();
+        assertFalse(VirtualClock.isEnabled());
+        long start = System.currentTimeMillis();
+        VirtualClock.sleep(20);
+        assertTrue(System.currentTimeMillis() - start >= 20);
+        assertEquals(System.currentTimeMillis(), VirtualClock.currentTimeMillis(), 50);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify clocks of their own run apart from each other and the system clock, and the"
+            + " threads started on one use it.")
+    public void testClocksOfTheirOwn() throws Exception {
+        VirtualClock.disable();
+        VirtualClock a = new VirtualClock();
+        VirtualClock b = new VirtualClock();
+        VirtualClock previous = VirtualClock.bind(a);
+        try {
+            assertTrue(VirtualClock.isEnabled());
+            long start = VirtualClock.currentTimeMillis();
+            VirtualClock.sleep(TimeUnit.HOURS.toMillis(1));
+            long[] woke = new long[1];
+            Thread thread = Threads.start("Bound", true, () -> {
+                try {
+                    VirtualClock.sleep(TimeUnit.HOURS.toMillis(1));
+                    woke[0] = VirtualClock.currentTimeMillis();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.join();
+            assertTrue(woke[0] - start >= TimeUnit.HOURS.toMillis(2));
+
+            // the other clock did not move
+            VirtualClock.bind(b);
+            assertEquals(System.currentTimeMillis(), VirtualClock.currentTimeMillis(), 1000);
+            VirtualClock.bind(a);
+            assertEquals(TimeUnit.HOURS.toMillis(2),
+                         VirtualClock.currentTimeMillis() - System.currentTimeMillis(),
+                         1000);
+
+            // once closed, it is the system clock
+            a.close();
+            assertFalse(VirtualClock.isEnabled());
+            assertEquals(System.currentTimeMillis(), VirtualClock.currentTimeMillis(), 50);
+        } finally {
+            VirtualClock.bind(previous);
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a time read in virtual time is not kept once the clock is disabled.")
+    public void testDisableForgetsVirtualTime() throws Exception {
+        DateTimeModule dateTimeModule = new DateTimeModule();
+        dateTimeModule.pauseFor(TimeUnit.HOURS.toMillis(2));
+        long dayMillis = TimeUnit.DAYS.toMillis(1);
+        long ahead = Math.floorMod(dateTimeModule.getTimeAsLong() - LocalTime.now().toNanoOfDay() / 1000000,
+                                   dayMillis);
+        assertEquals(TimeUnit.HOURS.toMillis(2), ahead, 1000);
+
+        VirtualClock.disable();
+        long offset = Math.floorMod(dateTimeModule.getTimeAsLong() - LocalTime.now().toNanoOfDay() / 1000000
+                + 1000, dayMillis) - 1000;
+        assertEquals(0, offset, 1000);
+    }
+}
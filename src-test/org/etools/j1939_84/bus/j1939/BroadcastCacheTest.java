@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.j1939;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.bus.EchoBus;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.BroadcastCache.Entry;
+import org.etools.j1939_84.bus.j1939.packets.DM11ClearActiveDTCsPacket;
+import org.etools.j1939_84.bus.j1939.packets.DM1ActiveDTCsPacket;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link BroadcastCache} class
+ */
+@TestDoc(description = "Verifies the latest broadcast packets are kept and read instead of listening to the bus.")
+public class BroadcastCacheTest {
+
+    private static final int PGN = DM1ActiveDTCsPacket.PGN;
+
+    /** The time of the cache in nanoseconds */
+    private final AtomicLong nanos = new AtomicLong();
+
+    private BroadcastCache instance;
+
+    private static Packet dm1(int source, int value) {
+        return Packet.create(PGN, source, 0x00, 0xFF, 0, 0, 0, value, 0xFF, 0xFF);
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Before
+    public void setUp() {
+        instance = new BroadcastCache(nanos::get);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the latest packet from each source is kept with the time between packets.")
+    public void testLatest() {
+        assertFalse(instance.get(PGN, 0x00).isPresent());
+
+        instance.add(dm1(0x00, 1));
+        instance.add(dm1(0x17, 2));
+        advance(20);
+        instance.add(dm1(0x00, 3));
+
+        Entry entry = instance.get(PGN, 0x00).orElseThrow();
+        assertEquals(3, entry.getPacket().get(5));
+        assertEquals(20, entry.getPeriod(TimeUnit.MILLISECONDS));
+        assertEquals(-1, instance.get(PGN, 0x17).orElseThrow().getPeriod(TimeUnit.MILLISECONDS));
+
+        List<Integer> values = instance.getLatest(PGN, 1, TimeUnit.SECONDS)
+                                       .stream()
+                                       .map(p -> p.get(5))
+                                       .collect(Collectors.toList());
+        assertEquals(List.of(2, 3), values);
+        assertTrue(instance.getLatest(0xFEF1, 1, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    @TestDoc(description = "Verify packets older than the maximum age are not returned.")
+    public void testMaxAge() {
+        instance.add(dm1(0x00, 1));
+        advance(50);
+        instance.add(dm1(0x17, 2));
+
+        assertEquals(Optional.empty(), instance.getLatest(PGN, 0x00, 30, TimeUnit.MILLISECONDS));
+        assertTrue(instance.getLatest(PGN, 0x17, 30, TimeUnit.MILLISECONDS).isPresent());
+        assertEquals(1, instance.getLatest(PGN, 30, TimeUnit.MILLISECONDS).size());
+        assertEquals(50, instance.get(PGN, 0x00).orElseThrow().getAge(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @TestDoc(description = "Verify packets received before diagnostic data was cleared are not returned.")
+    public void testClear() {
+        instance.add(dm1(0x00, 1));
+        advance(1);
+        int pgn = DM11ClearActiveDTCsPacket.PGN;
+        instance.add(Packet.create(0xEAFF, 0xF9, true, pgn, pgn >> 8, pgn >> 16));
+
+        assertTrue(instance.getLatest(PGN, 1, TimeUnit.SECONDS).isEmpty());
+        assertTrue(instance.get(PGN, 0x00).isPresent());
+
+        instance.add(dm1(0x00, 2));
+        assertEquals(2, instance.getLatest(PGN, 0x00, 1, TimeUnit.SECONDS).orElseThrow().get(5));
+    }
+
+    @Test
+    @TestDoc(description = "Verify packets received before the cache was reset are not returned.")
+    public void testReset() {
+        instance.add(dm1(0x00, 1));
+        advance(1);
+        instance.reset();
+
+        assertTrue(instance.getLatest(PGN, 1, TimeUnit.SECONDS).isEmpty());
+        assertTrue(instance.get(PGN, 0x00).isPresent());
+
+        instance.add(dm1(0x00, 2));
+        assertEquals(2, instance.getLatest(PGN, 0x00, 1, TimeUnit.SECONDS).orElseThrow().get(5));
+    }
+
+    @Test
+    @TestDoc(description = "Verify a packet still being received by TP replaces the latest when it is complete.")
+    public void testTransport() {
+        instance.add(dm1(0x00, 1));
+        Packet pending = Packet.create(PGN, 0x00, (int[]) null);
+        instance.add(pending);
+        assertEquals(1, instance.get(PGN, 0x00).orElseThrow().getPacket().get(5));
+
+        pending.setData(new byte[] { 0, (byte) 0xFF, 0, 0, 0, 4, (byte) 0xFF, (byte) 0xFF, 0, 0 });
+        assertEquals(4, instance.get(PGN, 0x00).orElseThrow().getPacket().get(5));
+
+        // a failed transfer leaves the last complete packet
+        Packet failed = Packet.create(PGN, 0x00, (int[]) null);
+        instance.add(failed);
+        failed.fail();
+        instance.add(dm1(0x17, 5));
+        assertEquals(4, instance.get(PGN, 0x00).orElseThrow().getPacket().get(5));
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a broadcast read takes the packets from the cache when it covers the period, "
+            + "and reads the bus only for the rest of a longer period.")
+    public void testReadBroadcast() throws Exception {
+        EchoBus bus = new EchoBus(0xF9);
+        MetricsRegistry metrics = new MetricsRegistry();
+        J1939 j1939 = new J1939(bus, metrics, instance);
+        try {
+            instance.monitor(bus);
+            assertEquals(0, instance.getCoverage(new EchoBus(0xF9), TimeUnit.MILLISECONDS));
+            advance(150);
+            instance.add(dm1(0x00, 1));
+            advance(20);
+            assertEquals(170, instance.getCoverage(bus, TimeUnit.MILLISECONDS));
+
+            List<DM1ActiveDTCsPacket> packets = j1939.readBroadcast(DM1ActiveDTCsPacket.class,
+                                                                    100,
+                                                                    TimeUnit.MILLISECONDS)
+                                                     .flatMap(e -> e.left.stream())
+                                                     .collect(Collectors.toList());
+            assertEquals(1, packets.size());
+            assertEquals(0x00, packets.get(0).getSourceAddress());
+            assertEquals(1, metrics.counter("j1939.broadcast.cached").getCount());
+
+            // older than the period
+            advance(100);
+            assertEquals(0, j1939.readBroadcast(DM1ActiveDTCsPacket.class, 50, TimeUnit.MILLISECONDS).count());
+            assertEquals(2, metrics.counter("j1939.broadcast.cached").getCount());
+
+            // the rest of a longer period is read from the bus
+            long period = instance.getCoverage(bus, TimeUnit.MILLISECONDS) + 20;
+            assertEquals(1, j1939.readBroadcast(DM1ActiveDTCsPacket.class, period, TimeUnit.MILLISECONDS).count());
+            assertEquals(2, metrics.counter("j1939.broadcast.cached").getCount());
+        } finally {
+            instance.stop();
+            assertEquals(0, instance.getCoverage(bus, TimeUnit.MILLISECONDS));
+        }
+    }
+}
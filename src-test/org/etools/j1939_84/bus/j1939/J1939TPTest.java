@@ -23,6 +23,7 @@ import org.etools.j1939_84.bus.BusException;
 import org.etools.j1939_84.bus.EchoBus;
 import org.etools.j1939_84.bus.Packet;
 import org.etools.j1939_84.bus.j1939.J1939TP.CtsBusException;
+import org.etools.j1939_84.metrics.MetricsRegistry;
 import org.etools.testdoc.TestDoc;
 import org.etools.testdoc.TestItem;
 import org.junit.Assert;
@@ -271,8 +272,9 @@ public class J1939TPTest {
                 "18EBFF00 04 01 02 03 04 05 06 07\n" +
                 "18EBFF00 05 08 09 00 01 02 03 04\n" +
                 "18EBFF00 06 05 06 07 08 09 FF FF");
+        MetricsRegistry metrics = new MetricsRegistry();
         try (EchoBus bus = new EchoBus(0);
-             J1939TP tp = new J1939TP(bus, 0xF9)) {
+             J1939TP tp = new J1939TP(bus, 0xF9, metrics)) {
             Stream<Packet> in = tp.read(1, TimeUnit.SECONDS);
             rawPackets.forEach(p -> {
                 sleep(50);
@@ -280,6 +282,7 @@ public class J1939TPTest {
             });
             assertPacketsEquals(Collections.emptyList(), in.filter(VALID_FILTER).collect(Collectors.toList()));
         }
+        assertEquals(1, metrics.counter("tp.rx.bam.failed").getCount());
     }
 
     /** Verify that missing BAM data does not result in a packet. */
@@ -21,6 +21,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,7 +40,9 @@ import org.etools.j1939_84.bus.j1939.packets.EngineHoursPacket;
 import org.etools.j1939_84.bus.j1939.packets.EngineSpeedPacket;
 import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
 import org.etools.j1939_84.bus.j1939.packets.VehicleIdentificationPacket;
+import org.etools.j1939_84.bus.simulated.Sim;
 import org.etools.j1939_84.controllers.TestResultsListener;
+import org.etools.j1939_84.metrics.MetricsRegistry;
 import org.etools.j1939_84.model.RequestResult;
 import org.etools.testdoc.TestDoc;
 import org.junit.Before;
@@ -701,6 +704,28 @@ public class J1939Test {
         assertEquals(0, response.count());
     }
 
+    @Test
+    @TestDoc(description = "Verify a DS request repeated after BUSY NACKs is counted once for each repeat sent.")
+    public void testBusyRetriesCounted() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        AtomicInteger requests = new AtomicInteger();
+        try (EchoBus echoBus = new EchoBus(0xF9);
+             Sim sim = new Sim(echoBus)) {
+            int pgn = EngineHoursPacket.PGN;
+            sim.response(p -> p.getId(0xFFFF) == (0xEA00 | ENGINE_ADDR) && p.get24(0) == pgn, () -> {
+                requests.incrementAndGet();
+                return Packet.create(0xE8FF, ENGINE_ADDR, 3, 0xFF, 0xFF, 0xFF, 0xF9, pgn, pgn >> 8, pgn >> 16);
+            });
+            BusResult<EngineHoursPacket> result = new J1939(echoBus, metrics).requestDS(null,
+                                                                                       EngineHoursPacket.class,
+                                                                                       ENGINE_ADDR,
+                                                                                       NOOP);
+            assertTrue(result.isRetryUsed());
+        }
+        assertTrue(requests.get() > 1);
+        assertEquals(requests.get() - 1, metrics.counter("j1939.busy.retries").getCount());
+    }
+
     /** FIXME What is this? Looks like a DS test to 0, but sends to global. */
     @Test
     public void testRequestMultipleHandlesDSRequests() throws Exception {
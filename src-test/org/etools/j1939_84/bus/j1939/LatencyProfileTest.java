@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.j1939;
+
+import static org.etools.j1939_84.J1939_84.NL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.LatencyProfile.Kind;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LatencyProfile} class
+ */
+@TestDoc(description = "Verifies the response times are summarized against the J1939-21 limits.")
+public class LatencyProfileTest {
+
+    private LatencyProfile instance;
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Before
+    public void setUp() {
+        MetricsRegistry.getInstance().reset();
+        instance = new LatencyProfile(MetricsRegistry.getInstance());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals("RESPONSE TIMES (ms)" + NL + "No responses were timed" + NL, instance.generateReport());
+    }
+
+    @Test
+    @TestDoc(description = "Verify each ECU and PGN has its percentiles and the late responses are listed worst first.")
+    public void testReport() {
+        for (int i = 1; i <= 100; i++) {
+            instance.record(Kind.RESPONSE, 0x00, 65259, millis(i));
+        }
+        instance.record(Kind.RESPONSE, 0x00, 65259, millis(250));
+        instance.record(Kind.RESPONSE, 0x03, 65259, millis(5));
+        instance.record(Kind.RESPONSE, 0x03, 65226, millis(900));
+        instance.record(Kind.DT_GAP, 0x03, 65226, millis(800));
+
+        String expected = "RESPONSE TIMES (ms)" + NL
+                + "Timing        SA    PGN   Count      p50      p95      p99      max   Late Timeouts" + NL
+                + "Response       0  65259     101     52.4     96.5    100.7    250.0      1        0" + NL
+                + "Response       3  65226       1    900.0    900.0    900.0    900.0      1        0" + NL
+                + "Response       3  65259       1      5.0      5.0      5.0      5.0      0        0" + NL
+                + "DT Gap         3  65226       1    800.0    800.0    800.0    800.0      1        0" + NL
+                + NL
+                + "Worst against J1939-21 timing" + NL
+                + "    Response from Transmission #1 (3) for PGN 65226: max 900.0 ms > 200 ms in 1 of 1" + NL
+                + "    DT Gap from Transmission #1 (3) for PGN 65226: max 800.0 ms > 750 ms in 1 of 1" + NL
+                + "    Response from Engine #1 (0) for PGN 65259: max 250.0 ms > 200 ms in 1 of 101" + NL;
+        assertEquals(expected, instance.generateReport());
+
+        MetricsRegistry.getInstance().reset();
+        assertTrue(instance.generateReport().contains("No responses were timed"));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the T2, T3 and T4 waits that ended without a frame are reported as timeouts.")
+    public void testTimeouts() {
+        instance.recordTimeout(Kind.CTS_TO_DT, 0x03, 65226);
+        instance.recordTimeout(Kind.CTS_TO_DT, 0x03, 65226);
+        instance.record(Kind.HOLD, 0x00, 58112, millis(1100));
+        instance.recordTimeout(Kind.HOLD, 0x00, 58112);
+        instance.recordTimeout(Kind.CTS, 0x00, 58112);
+
+        String expected = "RESPONSE TIMES (ms)" + NL
+                + "Timing        SA    PGN   Count      p50      p95      p99      max   Late Timeouts" + NL
+                + "CTS to DT      3  65226       0      0.0      0.0      0.0      0.0      0        2" + NL
+                + "CTS/EOM        0  58112       0      0.0      0.0      0.0      0.0      0        1" + NL
+                + "Hold to CTS    0  58112       1   1100.0   1100.0   1100.0   1100.0      1        1" + NL
+                + NL
+                + "Worst against J1939-21 timing" + NL
+                + "    CTS to DT from Transmission #1 (3) for PGN 65226: no frame in 1250 ms 2 times" + NL
+                + "    Hold to CTS from Engine #1 (0) for PGN 58112: max 1100.0 ms > 1050 ms in 1 of 1, no frame in"
+                + " 1050 ms 1 times" + NL
+                + "    CTS/EOM from Engine #1 (0) for PGN 58112: no frame in 1250 ms 1 times" + NL;
+        assertEquals(expected, instance.generateReport());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the gaps between the data frames of a TP message are recorded.")
+    public void testRecordSession() {
+        LocalDateTime start = LocalDateTime.of(2021, 3, 4, 5, 6, 7);
+        Packet packet = Packet.create(0xFEEC, 0x00, new byte[20]);
+        List<Packet> fragments = new ArrayList<>();
+        int[] offsets = { 0, 50, 100, 1000 };
+        for (int offset : offsets) {
+            Packet fragment = Packet.create(0xEBFF, 0x00, new byte[8]);
+            fragment.setTimestamp(start.plusNanos(millis(offset)));
+            fragments.add(fragment);
+        }
+        packet.setFragments(fragments);
+
+        instance.recordSession(packet);
+
+        String report = instance.generateReport();
+        assertTrue(report, report.contains("DT Gap         0  65260       2     50.3    900.0    900.0    900.0      1"));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.simulated;
+
+import static org.etools.j1939_84.bus.TestCapture.TOOL;
+import static org.etools.j1939_84.bus.TestCapture.at;
+import static org.etools.j1939_84.bus.TestCapture.bytes;
+import static org.etools.j1939_84.bus.TestCapture.request;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.EchoBus;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link RecordedVehicle} class
+ */
+@TestDoc(description = "Verifies the modules in a capture file are simulated.")
+public class RecordedVehicleTest {
+
+    private static final byte[] VIN = "3HAMKSTN0FL575012*".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DM20 = bytes(0x0A, 0x00, 0x14, 0x00, 0xCA, 0x14, 0xF8, 0x01, 0x02, 0x03, 0x04,
+                                             0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D);
+
+    private EchoBus bus;
+
+    private File file;
+
+    private RecordedVehicle instance;
+
+    private J1939TP tool;
+
+    private static byte[] dt(byte[] data, int sequence) {
+        byte[] dt = new byte[8];
+        Arrays.fill(dt, (byte) 0xFF);
+        dt[0] = (byte) sequence;
+        int offset = (sequence - 1) * 7;
+        System.arraycopy(data, offset, dt, 1, Math.min(7, data.length - offset));
+        return dt;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("test", CaptureWriter.EXTENSION);
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            for (int i = 0; i < 200; i++) {
+                writer.write(at(10 * i), 0x0CF00400, false, bytes(i, 1, 2, 3, 4, 5, 6, 7), 8);
+                if (i % 10 == 0) {
+                    writer.write(at(10 * i + 1), 0x18F00503, false, bytes(7, 6, 5, 4, 3, 2, 1, 0), 8);
+                }
+            }
+
+            // DS request answered with a single frame
+            writer.write(at(500), 0x18EA00F9, true, bytes(0xDA, 0xFE, 0x00), 3);
+            writer.write(at(510), 0x18FEDA00, false, bytes(1, 2, 3, 4, 5, 6, 7, 8), 8);
+
+            // global request answered with a BAM and a NACK
+            writer.write(at(800), 0x18EAFFF9, true, bytes(0xEC, 0xFE, 0x00), 3);
+            writer.write(at(805), 0x1CECFF00, false, bytes(0x20, VIN.length, 0, 3, 0xFF, 0xEC, 0xFE, 0x00), 8);
+            writer.write(at(810), 0x18E8FF03, false, bytes(0x01, 0xFF, 0xFF, 0xFF, TOOL, 0xEC, 0xFE, 0x00), 8);
+            for (int i = 0; i < 3; i++) {
+                writer.write(at(855 + 50 * i), 0x1CEBFF00, false, dt(VIN, i + 1), 8);
+            }
+
+            // DS request answered with RTS/CTS
+            writer.write(at(1000), 0x18EA00F9, true, bytes(0x00, 0xC2, 0x00), 3);
+            writer.write(at(1005), 0x1CECF900, false, bytes(0x10, DM20.length, 0, 3, 0xFF, 0x00, 0xC2, 0x00), 8);
+            writer.write(at(1010), 0x1CEC00F9, true, bytes(0x11, 3, 1, 0xFF, 0xFF, 0x00, 0xC2, 0x00), 8);
+            for (int i = 0; i < 3; i++) {
+                writer.write(at(1015 + i), 0x1CEBF900, false, dt(DM20, i + 1), 8);
+            }
+            writer.write(at(1020), 0x1CEC00F9, true, bytes(0x13, DM20.length, 0, 3, 0xFF, 0x00, 0xC2, 0x00), 8);
+
+            // DM7 command answered with DM30
+            writer.write(at(1200), 0x18E300F9, true, bytes(0xF7, 0x64, 0x00, 0x1F, 0xFF, 0xFF, 0xFF, 0xFF), 8);
+            writer.write(at(1210), 0x18A4F900, false, bytes(0xF7, 0x64, 0x00, 0x1F, 0x00, 0x01, 0x02, 0x03), 8);
+        }
+        bus = new EchoBus(TOOL);
+        instance = new RecordedVehicle(bus, file);
+        tool = new J1939TP(bus);
+    }
+
+    @After
+    public void tearDown() {
+        instance.close();
+        tool.close();
+        file.delete();
+    }
+
+    @Test
+    public void testAddresses() {
+        assertEquals(Set.of(0x00, 0x03), instance.getAddresses());
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify broadcasts are sent at their recorded period.")
+    public void testBroadcasts() throws Exception {
+        List<Packet> packets = bus.read(500, TimeUnit.MILLISECONDS).collect(Collectors.toList());
+        long engineSpeed = packets.stream().filter(p -> p.getPgn() == 0xF004 && p.getSource() == 0x00).count();
+        long transmission = packets.stream().filter(p -> p.getPgn() == 0xF005 && p.getSource() == 0x03).count();
+        assertTrue("F004 count " + engineSpeed, engineSpeed >= 25 && engineSpeed <= 55);
+        assertTrue("F005 count " + transmission, transmission >= 3 && transmission <= 6);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify requests are answered by each module with its recorded response.")
+    public void testRequests() throws Exception {
+        try (Stream<Packet> stream = tool.read(300, TimeUnit.MILLISECONDS)) {
+            tool.send(request(0xFEDA, 0x00));
+            Packet response = stream.filter(p -> p.getPgn() == 0xFEDA).findFirst().orElseThrow();
+            assertEquals(0x00, response.getSource());
+            assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7, 8 }, response.getData(0, 8));
+        }
+        try (Stream<Packet> stream = tool.read(1000, TimeUnit.MILLISECONDS)) {
+            tool.send(request(0xFEEC, 0xFF));
+            List<Packet> responses = stream.filter(p -> p.getPgn() == 0xFEEC || p.getPgn() == 0xE800)
+                                           .limit(2)
+                                           .collect(Collectors.toList());
+            assertEquals(2, responses.size());
+            Packet vin = responses.stream().filter(p -> p.getSource() == 0x00).findFirst().orElseThrow();
+            assertEquals(0xFEEC, vin.getPgn());
+            assertArrayEquals(VIN, vin.getBytes());
+            Packet nack = responses.stream().filter(p -> p.getSource() == 0x03).findFirst().orElseThrow();
+            assertEquals(0xE800, nack.getPgn());
+            assertEquals(0xFEEC, nack.get24(5));
+        }
+        try (Stream<Packet> stream = tool.read(300, TimeUnit.MILLISECONDS)) {
+            tool.send(Packet.create(0xE300, TOOL, 0xF7, 0x64, 0x00, 0x1F, 0xFF, 0xFF, 0xFF, 0xFF));
+            Packet dm30 = stream.filter(p -> p.getPgn() == 0xA400).findFirst().orElseThrow();
+            assertEquals(0x00, dm30.getSource());
+            assertEquals(TOOL, dm30.getDestination());
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify multi-frame responses are sent on the bus as BAM and as RTS/CTS.")
+    public void testTransportProtocol() throws Exception {
+        try (Stream<Packet> frames = bus.read(1000, TimeUnit.MILLISECONDS);
+             Stream<Packet> stream = tool.read(1000, TimeUnit.MILLISECONDS)) {
+            tool.send(request(0xFEEC, 0x00));
+            Packet vin = stream.filter(p -> p.getPgn() == 0xFEEC).findFirst().orElseThrow();
+            assertArrayEquals(VIN, vin.getBytes());
+
+            List<Packet> sent = frames.filter(p -> p.getPgn() == J1939TP.CM || p.getPgn() == J1939TP.DT)
+                                      .limit(4)
+                                      .collect(Collectors.toList());
+            assertEquals(J1939TP.CM_BAM, sent.get(0).get(0));
+            assertEquals(0x00, sent.get(0).getSource());
+            assertEquals(0xFF, sent.get(0).getDestination());
+            assertEquals(0xFEEC, sent.get(0).get24(5));
+            for (int i = 1; i <= 3; i++) {
+                assertEquals(J1939TP.DT, sent.get(i).getPgn());
+                assertEquals(0x00, sent.get(i).getSource());
+                assertEquals(i, sent.get(i).get(0));
+            }
+        }
+
+        try (Stream<Packet> frames = bus.read(1000, TimeUnit.MILLISECONDS);
+             Stream<Packet> stream = tool.read(1000, TimeUnit.MILLISECONDS)) {
+            tool.send(request(0xC200, 0x00));
+            Packet dm20 = stream.filter(p -> p.getPgn() == 0xC200).findFirst().orElseThrow();
+            assertEquals(0x00, dm20.getSource());
+            assertEquals(TOOL, dm20.getDestination());
+            assertArrayEquals(DM20, dm20.getBytes());
+
+            List<Packet> sent = frames.filter(p -> p.getPgn() == J1939TP.CM || p.getPgn() == J1939TP.DT)
+                                      .limit(6)
+                                      .collect(Collectors.toList());
+            List<Integer> kinds = sent.stream()
+                                      .map(p -> p.getPgn() == J1939TP.DT ? J1939TP.DT : p.get(0))
+                                      .collect(Collectors.toList());
+            assertEquals(List.of(J1939TP.CM_RTS,
+                                 J1939TP.CM_CTS,
+                                 J1939TP.DT,
+                                 J1939TP.DT,
+                                 J1939TP.DT,
+                                 J1939TP.CM_EndOfMessageACK),
+                         kinds);
+            assertEquals(0x00, sent.get(0).getSource());
+            assertEquals(TOOL, sent.get(0).getDestination());
+            assertEquals(TOOL, sent.get(1).getSource());
+            assertEquals(0x00, sent.get(1).getDestination());
+            assertEquals(0xC200, sent.get(0).get24(5));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.simulated;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.EchoBus;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link Sim} class
+ */
+@TestDoc(description = "Verifies the simulator responds to requests in order.")
+public class SimTest {
+
+    private static final int ADDR = 0x00;
+
+    private static final int TOOL = 0xF9;
+
+    /** PGNs answered by the simulated module */
+    private static final int FIRST_PGN = 0xFD00;
+
+    private static final int PGN_COUNT = 40;
+
+    private EchoBus bus;
+
+    private Sim instance;
+
+    private static Packet request(int pgn, int address) {
+        return Packet.create(0xEA00 | address, TOOL, pgn, pgn >> 8, pgn >> 16);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        bus = new EchoBus(TOOL);
+        instance = new Sim(bus);
+        for (int i = 0; i < PGN_COUNT; i++) {
+            int pgn = FIRST_PGN + i;
+            instance.response(pgn, ADDR, p -> Packet.create(pgn, ADDR, p.getData(0, 3)));
+        }
+        // an unindexed response, to be tested after the indexed ones
+        instance.response(p -> p.getPgn() == 0xE300 && p.getDestination() == ADDR,
+                          () -> Packet.create(0xA400 | TOOL, ADDR, 1, 2, 3, 4, 5, 6, 7, 8));
+    }
+
+    @After
+    public void tearDown() {
+        instance.close();
+        bus.close();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify requests are answered when sent to the module or to global, but not to another module.")
+    public void testIndexedResponse() throws Exception {
+        try (Stream<Packet> stream = bus.read(500, TimeUnit.MILLISECONDS)) {
+            bus.send(request(FIRST_PGN + 3, ADDR));
+            bus.send(request(FIRST_PGN + 4, 0xFF));
+            bus.send(request(FIRST_PGN + 5, 0x17));
+            bus.send(Packet.create(0xE300 | ADDR, TOOL, 0xF7, 0x64, 0, 0x1F, 0xFF, 0xFF, 0xFF, 0xFF));
+            List<Packet> responses = stream.filter(p -> p.getSource() == ADDR).collect(Collectors.toList());
+
+            assertEquals(3, responses.size());
+            assertEquals(FIRST_PGN + 3, responses.get(0).getPgn());
+            assertEquals(FIRST_PGN + 4, responses.get(1).getPgn());
+            assertEquals(0xA400, responses.get(2).getPgn());
+            assertFalse(responses.stream().anyMatch(p -> p.getPgn() == FIRST_PGN + 5));
+        }
+    }
+
+    @Test(timeout = 30000)
+    @TestDoc(description = "Verify responses are sent in request order with 2000 frames/s of background traffic and report the response latency.")
+    public void testOrderUnderLoad() throws Exception {
+        final int requests = 1000;
+        Thread background = new Thread(() -> {
+            long next = System.nanoTime();
+            int i = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                // 2000 frames/s in bursts of 10
+                for (int j = 0; j < 10; j++) {
+                    bus.send(Packet.create(0xF004, 0x01, i++, 2, 3, 4, 5, 6, 7, 8));
+                }
+                next += TimeUnit.MILLISECONDS.toNanos(5);
+                long delay = next - System.nanoTime();
+                if (delay > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        background.start();
+
+        List<Packet> sent = new ArrayList<>();
+        List<Packet> responses;
+        try (Stream<Packet> stream = bus.read(2, TimeUnit.SECONDS)) {
+            for (int i = 0; i < requests; i++) {
+                sent.add(bus.send(request(FIRST_PGN + i % PGN_COUNT, i % 2 == 0 ? ADDR : 0xFF)));
+                if (i % 10 == 0) {
+                    Thread.sleep(1);
+                }
+            }
+            responses = stream.filter(p -> p.getSource() == ADDR).limit(requests).collect(Collectors.toList());
+        } finally {
+            background.interrupt();
+        }
+
+        assertEquals(requests, responses.size());
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            assertEquals(sent.get(i).getData(0, 3)[0], responses.get(i).get(0));
+            assertEquals(sent.get(i).get24(0), responses.get(i).getPgn());
+            latencies.add(Duration.between(sent.get(i).getTimestamp(), responses.get(i).getTimestamp()).toNanos());
+        }
+        latencies.sort(null);
+        long p50 = percentile(latencies, 0.50);
+        long p95 = percentile(latencies, 0.95);
+        long p99 = percentile(latencies, 0.99);
+        J1939_84.getLogger()
+                .log(Level.INFO,
+                     String.format("Sim response latency p50 %d us, p95 %d us, p99 %d us, max %d us",
+                                   p50 / 1000,
+                                   p95 / 1000,
+                                   p99 / 1000,
+                                   latencies.get(latencies.size() - 1) / 1000));
+        assertTrue("p99 response latency " + p99 / 1000 + " us", p99 < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link BlfReader} class
+ */
+@TestDoc(description = "Verifies the CAN frames of Vector BLF files are read.")
+public class BlfReaderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 4, 1, 10, 15, 30, 250000000);
+
+    private File file;
+
+    private final List<String> frames = new ArrayList<>();
+
+    /** Returns a CAN_MESSAGE object with a version 1 header */
+    static byte[] message(int type, long time, boolean tenMicros, int channel, boolean tx, int id, int... data) {
+        ByteBuffer buffer = ByteBuffer.allocate(48).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(BlfReader.OBJECT_SIGNATURE).putShort((short) 32).putShort((short) 1).putInt(48).putInt(type);
+        buffer.putInt(tenMicros ? BlfReader.TIME_TEN_MICS : 2).putShort((short) 0).putShort((short) 0).putLong(time);
+        buffer.putShort((short) channel).put((byte) (tx ? 1 : 0)).put((byte) data.length).putInt(id);
+        for (int b : data) {
+            buffer.put((byte) b);
+        }
+        return buffer.array();
+    }
+
+    /** Returns a container of the objects, with padding */
+    static byte[] container(byte[] objects, boolean compress) {
+        byte[] body = objects;
+        if (compress) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(objects);
+            deflater.finish();
+            byte[] out = new byte[objects.length + 64];
+            int length = deflater.deflate(out);
+            deflater.end();
+            body = Arrays.copyOf(out, length);
+        }
+        int size = 32 + body.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size + size % 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(BlfReader.OBJECT_SIGNATURE)
+              .putShort((short) 16)
+              .putShort((short) 1)
+              .putInt(size)
+              .putInt(BlfReader.LOG_CONTAINER);
+        buffer.putShort((short) (compress ? BlfReader.ZLIB_DEFLATE : BlfReader.NO_COMPRESSION))
+              .put(new byte[6])
+              .putInt(objects.length)
+              .put(new byte[4]);
+        buffer.put(body);
+        return buffer.array();
+    }
+
+    /** Writes a BLF file of the containers */
+    static void write(File file, byte[]... containers) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BlfReader.FILE_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(BlfReader.FILE_SIGNATURE).putInt(BlfReader.FILE_HEADER_LENGTH);
+        header.position(40);
+        header.putShort((short) START.getYear())
+              .putShort((short) START.getMonthValue())
+              .putShort((short) 4)
+              .putShort((short) START.getDayOfMonth())
+              .putShort((short) START.getHour())
+              .putShort((short) START.getMinute())
+              .putShort((short) START.getSecond())
+              .putShort((short) (START.getNano() / 1000000));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(header.array());
+            for (byte[] container : containers) {
+                out.write(container);
+            }
+        }
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.writeBytes(array);
+        }
+        return out.toByteArray();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("test", ".blf");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private long read(BlfReader reader) throws IOException {
+        return reader.read((epochNanos, canId, transmitted, data, length) -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append(epochNanos - CaptureWriter.toEpochNanos(START)).append(String.format(" %08X", canId));
+            for (int i = 0; i < length; i++) {
+                sb.append(String.format(" %02X", data[i]));
+            }
+            frames.add(sb.append(transmitted ? " TX" : "").toString());
+        });
+    }
+
+    @Test
+    @TestDoc(description = "Verify messages are read from compressed and stored containers, across containers.")
+    public void testRead() throws Exception {
+        byte[] first = message(BlfReader.CAN_MESSAGE, 1000, false, 1, false, 0x98FECA00, 1, 2, 3, 4, 5, 6, 7, 8);
+        byte[] second = message(BlfReader.CAN_MESSAGE2, 200, true, 1, true, 0x98EA00F9, 0xEC, 0xFE, 0);
+        byte[] standard = message(BlfReader.CAN_MESSAGE, 300, true, 1, false, 0x123, 1, 2);
+        byte[] third = message(BlfReader.CAN_MESSAGE, 400, true, 1, false, 0x8CF00400, 9, 8, 7);
+        byte[] objects = concat(first, second, standard, third);
+        // the second container starts in the middle of the second message
+        write(file,
+              container(Arrays.copyOfRange(objects, 0, 60), true),
+              container(Arrays.copyOfRange(objects, 60, 100), false),
+              container(Arrays.copyOfRange(objects, 100, objects.length), true));
+
+        try (BlfReader reader = new BlfReader(file, 2)) {
+            assertEquals(CaptureWriter.toEpochNanos(START), reader.getStartNanos());
+            assertEquals(3, read(reader));
+        }
+        assertEquals(List.of("1000 18FECA00 01 02 03 04 05 06 07 08",
+                             "2000000 18EA00F9 EC FE 00 TX",
+                             "4000000 0CF00400 09 08 07"),
+                     frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify only the messages of the selected channel are read.")
+    public void testChannel() throws Exception {
+        write(file,
+              container(concat(message(BlfReader.CAN_MESSAGE, 1, false, 1, false, 0x98FECA00, 1, 2, 3),
+                               message(BlfReader.CAN_MESSAGE, 2, false, 2, false, 0x98FECA01, 4, 5, 6)),
+                        true));
+        try (BlfReader reader = new BlfReader(file)) {
+            reader.setChannel(2);
+            read(reader);
+        }
+        assertEquals(List.of("2 18FECA01 04 05 06"), frames);
+    }
+
+    @Test
+    @TestDoc(description = "Verify a file that is not a BLF file is not read.")
+    public void testNotBlf() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[200]);
+        }
+        try {
+            new BlfReader(file).close();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals(file + " is not a BLF file.", e.getMessage());
+        }
+    }
+}
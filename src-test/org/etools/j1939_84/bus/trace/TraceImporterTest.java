@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.bus.CaptureReader;
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link TraceImporter} class
+ */
+@TestDoc(description = "Verifies the traces of other tools are imported for replay.")
+public class TraceImporterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 4, 1, 10, 0);
+
+    private final List<File> files = new ArrayList<>();
+
+    private File file(String suffix) throws IOException {
+        File file = File.createTempFile("test", suffix);
+        files.add(file);
+        return file;
+    }
+
+    private File asc() throws IOException {
+        File file = file(".asc");
+        Files.write(file.toPath(),
+                    List.of("base hex  timestamps absolute",
+                            "   1.500000 1  18FECA00x       Rx   d 8 11 22 33 44 55 66 77 88",
+                            "   1.600000 1  18EA00F9x       Tx   d 3 EC FE 00",
+                            "   1.650000 1  18FECA01x       Rx   d 2 01 02",
+                            "   1.700000 2  0CF00400x       Rx   d 3 01 02 03"),
+                    StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    @After
+    public void tearDown() {
+        files.forEach(File::delete);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the traces offered for replay are recognized by name.")
+    public void testIsTrace() {
+        assertTrue(TraceImporter.isTrace(new File("run.ASC")));
+        assertTrue(TraceImporter.isTrace(new File("run.blf")));
+        assertTrue(TraceImporter.isTrace(new File("run.trc")));
+        assertTrue(TraceImporter.isTrace(new File("candump-2021-04-01_100000.log")));
+        assertFalse(TraceImporter.isTrace(new File("j1939_84.log")));
+        assertFalse(TraceImporter.isTrace(new File("run" + CaptureWriter.EXTENSION)));
+    }
+
+    @Test
+    @TestDoc(description = "Verify an ASC trace is imported to a capture file that reads back the same frames.")
+    public void testImportTo() throws Exception {
+        File capture = file(CaptureWriter.EXTENSION);
+        assertEquals(4, new TraceImporter(asc()).setStart(START).importTo(capture));
+
+        try (CaptureReader reader = new CaptureReader(capture)) {
+            assertEquals(4, reader.getFrameCount());
+            assertEquals(List.of("10:00:01.5000 18FECA00 [8] 11 22 33 44 55 66 77 88",
+                                 "10:00:01.6000 18EA00F9 [3] EC FE 00 (TX)",
+                                 "10:00:01.7000 0CF00400 [3] 01 02 03"),
+                         reader.read().map(Packet::toTimeString).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify a trace is imported next to itself, once, and offered for replay as its capture.")
+    public void testToCapture() throws Exception {
+        File trace = asc();
+        File capture = TraceImporter.getCaptureFile(trace);
+        files.add(capture);
+        assertEquals(trace.getParentFile(), capture.getParentFile());
+        assertEquals(trace.getName() + CaptureWriter.EXTENSION, capture.getName());
+
+        assertEquals(capture, TraceImporter.toCapture(trace));
+        assertTrue(capture.exists());
+        long imported = capture.lastModified();
+        assertEquals(capture, TraceImporter.toCapture(trace));
+        assertEquals(imported, capture.lastModified());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the packets of the selected channel are read, without frames too short for a packet.")
+    public void testReadPackets() throws Exception {
+        List<String> packets = new ArrayList<>();
+        assertEquals(2,
+                     new TraceImporter(asc()).setStart(START)
+                                             .setChannel("1")
+                                             .readPackets(p -> packets.add(p.toTimeString())));
+        assertEquals(List.of("10:00:01.5000 18FECA00 [8] 11 22 33 44 55 66 77 88",
+                             "10:00:01.6000 18EA00F9 [3] EC FE 00 (TX)"),
+                     packets);
+    }
+
+    @Test
+    @TestDoc(description = "Verify a BLF trace is recognized by its signature, whatever its name.")
+    public void testBlf() throws Exception {
+        File blf = file(".bin");
+        BlfReaderTest.write(blf,
+                            BlfReaderTest.container(BlfReaderTest.message(BlfReader.CAN_MESSAGE,
+                                                                          100,
+                                                                          true,
+                                                                          1,
+                                                                          false,
+                                                                          0x98FECA00,
+                                                                          1,
+                                                                          2,
+                                                                          3),
+                                                    true));
+        List<String> packets = new ArrayList<>();
+        assertEquals(1, new TraceImporter(blf).readPackets(p -> packets.add(p.toString())));
+        assertEquals(List.of("18FECA00 [3] 01 02 03"), packets);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.controllers.ResultsListener.MessageType;
+import org.etools.j1939_84.model.Outcome;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link AsyncResultsListener} class
+ */
+@TestDoc(description = "Verifies the results are passed to a listener in order on a thread of its own.")
+public class AsyncResultsListenerTest {
+
+    /** Records the calls, after the gate is opened */
+    private static class SlowListener implements ResultsListener {
+
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
+            record(outcome + ": " + message);
+        }
+
+        @Override
+        public void onComplete(boolean success) {
+            record("Complete");
+        }
+
+        @Override
+        public void onProgress(String message) {
+            record("Progress " + message);
+        }
+
+        @Override
+        public void onResult(String result) {
+            record(result);
+        }
+
+        @Override
+        public void onUrgentMessage(String message, String title, MessageType type) {
+            record("Urgent " + message);
+        }
+
+        private void record(String call) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            threads.add(Thread.currentThread());
+            calls.add(call);
+        }
+    }
+
+    private SlowListener listener;
+
+    private AsyncResultsListener instance;
+
+    @Before
+    public void setUp() {
+        listener = new SlowListener();
+        instance = new AsyncResultsListener(listener, 4);
+        instance.begin();
+    }
+
+    @After
+    public void tearDown() {
+        listener.gate.countDown();
+        instance.end();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify the calls do not wait for the listener and are made in order.")
+    public void testOrder() {
+        instance.onResult("First");
+        instance.addOutcome(1, 1, Outcome.FAIL, "Second");
+        instance.onResult("Third");
+        assertTrue(listener.calls.isEmpty());
+
+        listener.gate.countDown();
+        instance.end();
+        assertEquals(List.of("First", "FAIL: Second", "Third"), listener.calls);
+        assertNotSame(Thread.currentThread(), listener.threads.get(0));
+        instance.begin();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify progress is dropped when the ring is full and results wait for room.")
+    public void testFull() throws Exception {
+        // the ring holds four calls, including the one being made
+        for (int i = 1; i <= 4; i++) {
+            instance.onResult("Result " + i);
+        }
+        instance.onProgress("Dropped");
+
+        Thread producer = new Thread(() -> instance.onResult("Result 5"));
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive());
+
+        listener.gate.countDown();
+        producer.join();
+        instance.flush();
+        assertEquals(List.of("Result 1", "Result 2", "Result 3", "Result 4", "Result 5"), listener.calls);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify an urgent message is made on the caller's thread after the calls before it.")
+    public void testUrgentMessage() throws Exception {
+        instance.onResult("Before");
+        Thread opener = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            listener.gate.countDown();
+        });
+        opener.start();
+
+        instance.onUrgentMessage("Question", "Title", MessageType.QUESTION);
+        assertEquals(List.of("Before", "Urgent Question"), listener.calls);
+        assertSame(Thread.currentThread(), listener.threads.get(1));
+        opener.join();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify one thread waits for the calls of a run, and ends with the run.")
+    public void testOneThreadPerRun() throws Exception {
+        listener.gate.countDown();
+        instance.onResult("First");
+        instance.flush();
+        Thread thread = listener.threads.get(0);
+        assertTrue(thread.isAlive());
+
+        instance.onResult("Second");
+        instance.flush();
+        assertSame(thread, listener.threads.get(1));
+
+        instance.end();
+        thread.join();
+        instance.begin();
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify calls are made on the caller's thread when no controller is running.")
+    public void testNotRunning() {
+        listener.gate.countDown();
+        instance.onResult("Running");
+        instance.end();
+
+        instance.onResult("After");
+        assertEquals(List.of("Running", "After"), listener.calls);
+        assertSame(Thread.currentThread(), listener.threads.get(1));
+        instance.begin();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ControllerRuntime} class
+ */
+@TestDoc(description = "Verifies the controllers share threads without waiting for each other.")
+public class ControllerRuntimeTest {
+
+    private ControllerRuntime instance;
+
+    @Before
+    public void setUp() {
+        instance = new ControllerRuntime(2, ControllerRuntime.MAX_THREADS);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify more blocking tasks than timer threads, each waiting for the next, all finish.")
+    public void testBlockingTasksDoNotWaitForThreads() throws Exception {
+        int count = 10 * ControllerRuntime.TIMER_THREADS;
+        CountDownLatch[] latches = new CountDownLatch[count + 1];
+        for (int i = 0; i <= count; i++) {
+            latches[i] = new CountDownLatch(1);
+        }
+        ScheduledExecutorService executor = instance.borrow();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            // each task waits for the one submitted after it, and for a timer
+            futures.add(executor.submit(() -> {
+                latches[index + 1].await();
+                executor.schedule(() -> null, 1, TimeUnit.MILLISECONDS).get();
+                latches[index].countDown();
+                return null;
+            }));
+        }
+        latches[count].countDown();
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertTrue(instance.getLargestTimerCount() <= 2);
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify the timers run on the same bounded threads.")
+    public void testTimersBounded() throws Exception {
+        ScheduledExecutorService executor = instance.borrow();
+        List<ScheduledFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.schedule(() -> Thread.currentThread().getName(), 1, TimeUnit.MILLISECONDS));
+        }
+        for (ScheduledFuture<String> future : futures) {
+            assertTrue(future.get().startsWith("Controller Timer"));
+        }
+        assertEquals(2, instance.getLargestTimerCount());
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify returning an executor cancels its tasks and not the tasks of the others.")
+    public void testShutdownNow() throws Exception {
+        ScheduledExecutorService first = instance.borrow();
+        ScheduledExecutorService second = instance.borrow();
+        ScheduledFuture<?> periodic = first.scheduleAtFixedRate(() -> {
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        ScheduledFuture<String> other = second.schedule(() -> "other", 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(first.shutdownNow().isEmpty());
+        assertTrue(first.isShutdown());
+        assertTrue(periodic.isCancelled());
+        assertTrue(first.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(first.isTerminated());
+
+        assertFalse(second.isShutdown());
+        assertEquals("other", other.get());
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify a task given while every thread is busy is rejected rather than queued.")
+    public void testRunnerBounded() throws Exception {
+        instance = new ControllerRuntime(2, 2);
+        ScheduledExecutorService executor = instance.borrow();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> {
+                release.await();
+                return null;
+            }));
+        }
+        try {
+            executor.submit(() -> null);
+            fail("Expected a RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            // expected
+        } finally {
+            release.countDown();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertEquals(2, instance.getThreadCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectedAfterShutdown() {
+        ScheduledExecutorService executor = instance.borrow();
+        executor.shutdown();
+        executor.execute(() -> {
+        });
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify shutdown lets the running tasks finish.")
+    public void testShutdown() throws Exception {
+        ScheduledExecutorService executor = instance.borrow();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> future = executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        executor.shutdown();
+        assertFalse(executor.isTerminated());
+        assertFalse(executor.awaitTermination(10, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+    }
+}
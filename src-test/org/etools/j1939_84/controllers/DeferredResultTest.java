@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import static org.etools.j1939_84.bus.j1939.packets.LampStatus.OFF;
+import static org.etools.j1939_84.bus.j1939.packets.LampStatus.ON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.packets.DM1ActiveDTCsPacket;
+import org.etools.j1939_84.bus.j1939.packets.DM25ExpandedFreezeFrame;
+import org.etools.j1939_84.bus.j1939.packets.DM5DiagnosticReadinessPacket;
+import org.etools.j1939_84.bus.j1939.packets.DiagnosticTroubleCode;
+import org.etools.j1939_84.bus.j1939.packets.FreezeFrame;
+import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
+import org.etools.j1939_84.bus.j1939.packets.model.Spn;
+import org.etools.j1939_84.modules.DateTimeModule;
+import org.etools.j1939_84.modules.TestDateTimeModule;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link DeferredResult} class
+ */
+@TestDoc(description = "Verifies results are written once, when they are needed.")
+public class DeferredResultTest {
+
+    @Before
+    public void setUp() {
+        DateTimeModule.setInstance(new TestDateTimeModule());
+    }
+
+    @After
+    public void tearDown() {
+        DateTimeModule.setInstance(null);
+    }
+
+    @Test
+    public void testWrittenOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        DeferredResult instance = new DeferredResult(() -> "Result " + calls.incrementAndGet());
+        assertEquals(0, calls.get());
+
+        String first = instance.get();
+        assertEquals("Result 1", first);
+        assertSame(first, instance.get());
+        assertSame(first, instance.toString());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testWrittenOnceByManyThreads() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DeferredResult instance = new DeferredResult(() -> "Result " + calls.incrementAndGet());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(instance::get);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("Result 1", instance.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testPacket() {
+        Packet packet = Packet.create(0xFECA, 0x00, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertEquals(packet.toTimeString(), DeferredResult.of(packet).get());
+    }
+
+    @Test
+    public void testParsedPackets() {
+        GenericPacket generic = new GenericPacket(Packet.create(0xFEE5, 0x00, 1, 2, 3, 4, 5, 6, 7, 8));
+        assertEquals(generic.toString(), DeferredResult.of(generic).get());
+
+        DM5DiagnosticReadinessPacket dm5 = new DM5DiagnosticReadinessPacket(Packet.create(DM5DiagnosticReadinessPacket.PGN,
+                                                                                          0x00,
+                                                                                          0, 0, 0x14, 0x37, 0xE0, 0x1E, 0xE0, 0x1E));
+        assertEquals(dm5.toString(), DeferredResult.of(dm5).get());
+    }
+
+    @Test
+    @TestDoc(description = "Verify a DM packet is written on another thread with the values it parses there.")
+    public void testParsedPacketOnAnotherThread() throws Exception {
+        DiagnosticTroubleCode dtc = DiagnosticTroubleCode.create(609, 19, 0, 1);
+        DM1ActiveDTCsPacket dm1 = DM1ActiveDTCsPacket.create(0x00, ON, OFF, OFF, OFF, dtc);
+        DeferredResult result = DeferredResult.of(dm1);
+
+        String[] text = new String[1];
+        Thread thread = new Thread(() -> text[0] = result.get());
+        thread.start();
+        thread.join();
+
+        assertEquals(List.of(dtc), dm1.getDtcs());
+        assertEquals(dm1.toString(), text[0]);
+    }
+
+    @Test
+    @TestDoc(description = "Verify a DM25 is written when it is reported, before its freeze frames are changed.")
+    public void testFreezeFrameWrittenNow() {
+        DiagnosticTroubleCode dtc = DiagnosticTroubleCode.create(609, 19, 0, 1);
+        DM25ExpandedFreezeFrame dm25 = DM25ExpandedFreezeFrame.create(0x00,
+                                                                      new FreezeFrame(dtc, Spn.create(91, 10)));
+        String expected = dm25.toString();
+        DeferredResult result = DeferredResult.of(dm25);
+
+        dm25.getFreezeFrames().get(0).setSPNs(List.of(Spn.create(91, 10)));
+
+        assertNotEquals(expected, dm25.toString());
+        assertEquals(expected, result.get());
+    }
+
+    @Test
+    public void testListener() {
+        List<String> results = new ArrayList<>();
+        ResultsListener listener = new ResultsListener() {
+            @Override
+            public void onResult(String result) {
+                results.add(result);
+            }
+        };
+        listener.onResult(new DeferredResult(() -> "Result"));
+        assertEquals(List.of("Result"), results);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.bus.Bus;
+import org.etools.j1939_84.bus.BusMonitor;
+import org.etools.j1939_84.bus.FlightRecorder;
+import org.etools.j1939_84.bus.RP1210;
+import org.etools.j1939_84.bus.j1939.BroadcastCache;
+import org.etools.j1939_84.bus.j1939.LatencyProfile;
+import org.etools.j1939_84.controllers.Controller.Ending;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.modules.DateTimeModule;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link SessionContext} class
+ */
+@TestDoc(description = "Verifies the controllers of a session only see the state of their session.")
+public class SessionContextTest {
+
+    private SessionContext instance;
+
+    @Before
+    public void setUp() {
+        instance = new SessionContext("test");
+    }
+
+    @After
+    public void tearDown() {
+        instance.close();
+    }
+
+    @Test
+    @TestDoc(description = "Verify the instances of the session are returned while the thread is bound to it.")
+    public void testGetInstance() throws Exception {
+        instance.call(() -> {
+            assertSame(instance, SessionContext.current());
+            assertSame(instance.getDataRepository(), DataRepository.getInstance());
+            assertSame(instance.getDateTimeModule(), DateTimeModule.getInstance());
+            assertSame(instance.getPartResultRepository(), PartResultRepository.getInstance());
+            assertSame(instance.getStepProfiler(), StepProfiler.getInstance());
+            assertSame(instance.getControllerRuntime(), ControllerRuntime.getInstance());
+            assertSame(instance.getMetricsRegistry(), MetricsRegistry.getInstance());
+            assertSame(instance.getBusMonitor(), BusMonitor.getInstance());
+            assertSame(instance.getFlightRecorder(), FlightRecorder.getInstance());
+            assertSame(instance.getBroadcastCache(), BroadcastCache.getInstance());
+            assertSame(instance.getLatencyProfile(), LatencyProfile.getInstance());
+            return null;
+        });
+
+        assertNull(SessionContext.current());
+        assertNotSame(instance.getDataRepository(), DataRepository.getInstance());
+        assertNotSame(instance.getDateTimeModule(), DateTimeModule.getInstance());
+        assertNotSame(instance.getPartResultRepository(), PartResultRepository.getInstance());
+        assertNotSame(instance.getStepProfiler(), StepProfiler.getInstance());
+        assertNotSame(instance.getControllerRuntime(), ControllerRuntime.getInstance());
+        assertNotSame(instance.getMetricsRegistry(), MetricsRegistry.getInstance());
+        assertSame(MetricsRegistry.getApplicationInstance(), MetricsRegistry.getInstance());
+        assertNotSame(instance.getBusMonitor(), BusMonitor.getInstance());
+        assertNotSame(instance.getFlightRecorder(), FlightRecorder.getInstance());
+        assertNotSame(instance.getBroadcastCache(), BroadcastCache.getInstance());
+        assertNotSame(instance.getLatencyProfile(), LatencyProfile.getInstance());
+    }
+
+    @Test(timeout = 30000)
+    @TestDoc(description = "Verify an adapter connected in one session does not reset the metrics of another, nor"
+            + " take the place of its bus in its monitors.")
+    public void testAdaptersIsolated() throws Exception {
+        String applicationAdapter = BusMonitor.getInstance().getAdapterName();
+        Bus bus = instance.call(() -> new RP1210().setAdapter(RP1210.getLoopBackAdapter(), null, 0xA5));
+        try (SessionContext other = new SessionContext("other")) {
+            instance.getMetricsRegistry().counter("test").increment();
+
+            Bus otherBus = other.call(() -> new RP1210().setAdapter(RP1210.getLoopBackAdapter(), null, 0xA5));
+            try {
+                assertEquals(1, instance.getMetricsRegistry().counter("test").getCount());
+                assertEquals(RP1210.getLoopBackAdapter().getName(), instance.getBusMonitor().getAdapterName());
+                assertEquals(RP1210.getLoopBackAdapter().getName(), other.getBusMonitor().getAdapterName());
+                assertEquals(applicationAdapter, BusMonitor.getInstance().getAdapterName());
+
+                Thread.sleep(10);
+                assertTrue(instance.getBroadcastCache().getCoverage(bus, TimeUnit.NANOSECONDS) > 0);
+                assertTrue(other.getBroadcastCache().getCoverage(otherBus, TimeUnit.NANOSECONDS) > 0);
+                assertEquals(0, instance.getBroadcastCache().getCoverage(otherBus, TimeUnit.NANOSECONDS));
+            } finally {
+                otherBus.close();
+            }
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    @TestDoc(description = "Verify the threads of the runtime of the session, and those wrapped, are bound to it.")
+    public void testThreadsBound() throws Exception {
+        assertSame(instance, instance.getControllerRuntime().borrow().submit(SessionContext::current).get());
+
+        SessionContext[] bound = new SessionContext[1];
+        Thread thread = new Thread(SessionContext.wrap(instance, () -> bound[0] = SessionContext.current()));
+        thread.start();
+        thread.join();
+        assertSame(instance, bound[0]);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the ending of the controllers of one session is not seen by another.")
+    public void testRunStateIsolated() throws Exception {
+        try (SessionContext other = new SessionContext("other")) {
+            instance.getRunState().ending = Ending.STOPPED;
+            assertEquals(Ending.STOPPED, instance.call(Controller::getEnding));
+            assertNull(other.call(Controller::getEnding));
+            assertNull(other.getEnding());
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify a controller created in a session is stopped from a thread that is not bound.")
+    public void testStopFromOtherThread() throws Exception {
+        OverallController controller = instance.call(OverallController::new);
+        assertNull(SessionContext.current());
+
+        controller.stop();
+        assertFalse(controller.isActive());
+        assertEquals(Ending.STOPPED, instance.getEnding());
+    }
+}
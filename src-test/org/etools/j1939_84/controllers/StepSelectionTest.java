@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StepSelection} class
+ */
+@TestDoc(description = "Verifies the parts and steps of a run are selected.")
+public class StepSelectionTest {
+
+    @Test
+    @TestDoc(description = "Verify parts, steps and ranges of either are selected.")
+    public void testParse() {
+        StepSelection instance = StepSelection.parse("1, 2.3-2.7,3.9-5");
+        assertTrue(instance.includes(1));
+        assertTrue(instance.includes(1, 1));
+        assertTrue(instance.includes(1, 26));
+        assertFalse(instance.includes(2, 2));
+        assertTrue(instance.includes(2, 3));
+        assertTrue(instance.includes(2, 7));
+        assertFalse(instance.includes(2, 8));
+        assertFalse(instance.includes(3, 8));
+        assertTrue(instance.includes(3, 9));
+        assertTrue(instance.includes(4));
+        assertTrue(instance.includes(5, 20));
+        assertFalse(instance.includes(6));
+        assertTrue(instance.includes(2));
+        assertEquals("1, 2.3-2.7,3.9-5", instance.toString());
+    }
+
+    @Test
+    @TestDoc(description = "Verify all the steps are selected by default.")
+    public void testAll() {
+        assertTrue(StepSelection.ALL.includes(1, 1));
+        assertTrue(StepSelection.ALL.includes(12));
+        assertTrue(StepSelection.ALL.includes(12, 14));
+    }
+
+    @Test
+    @TestDoc(description = "Verify text that is not a selection is rejected.")
+    public void testInvalid() {
+        for (String text : new String[] { "", "a", "1.", "1.2.3", "1-2-3", "3-2", "1.5-1.2", "1.1000" }) {
+            try {
+                StepSelection.parse(text);
+                throw new AssertionError("Expected " + text + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
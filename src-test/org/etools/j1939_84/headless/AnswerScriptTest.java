@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.etools.j1939_84.controllers.QuestionListener.AnswerType;
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link AnswerScript} class
+ */
+@TestDoc(description = "Verifies the questions of the controllers are answered from a script.")
+public class AnswerScriptTest {
+
+    @Test
+    @TestDoc(description = "Verify the answer of the first line whose text is in the question is given.")
+    public void testAnswer() {
+        AnswerScript instance = AnswerScript.parse(List.of("# comment",
+                                                           "",
+                                                           "turn the key = no",
+                                                           "Step 6.1.4=CANCEL",
+                                                           "* = YES"));
+        assertEquals(AnswerType.NO, instance.answer("Step 6.1.4", "Please Turn the Key to the OFF position"));
+        assertEquals(AnswerType.CANCEL, instance.answer("Step 6.1.4", "Continue?"));
+        assertEquals(AnswerType.YES, instance.answer("Step 6.2.1", "Continue?"));
+    }
+
+    @Test
+    @TestDoc(description = "Verify questions that are in no line are answered yes.")
+    public void testDefault() {
+        assertEquals(AnswerType.YES, AnswerScript.YES.answer("Question", "Continue?"));
+        assertEquals(AnswerType.YES, AnswerScript.parse(List.of("abort = NO")).answer("Question", "Continue?"));
+    }
+
+    @Test
+    @TestDoc(description = "Verify a line that is not an answer is rejected.")
+    public void testInvalid() {
+        for (String line : new String[] { "continue", "continue = MAYBE", "= NO" }) {
+            try {
+                AnswerScript.parse(List.of("* = YES", line));
+                fail("Expected " + line + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertEquals("Line 2 is not text = YES, NO or CANCEL: " + line, e.getMessage());
+            }
+        }
+    }
+}
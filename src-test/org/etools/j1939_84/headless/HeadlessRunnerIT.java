@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Integration tests for the {@link HeadlessRunner} class, which run every part
+ * against the simulated engine. They are run by the run.integration.tests
+ * target rather than with the unit tests.
+ */
+@TestDoc(description = "Verifies all the tests run from the command line against the simulated engine.")
+public class HeadlessRunnerIT {
+
+    @Test(timeout = 10 * 60 * 1000)
+    @TestDoc(description = "Verify all twelve parts run to the end against the simulated engine in virtual time,"
+            + " and the clock and test mode are put back after.")
+    public void testAllPartsInVirtualTime() throws Exception {
+        File report = File.createTempFile("headless", ".j1939-84");
+        try {
+            HeadlessRunner runner = new HeadlessRunner();
+            runner.parse(new String[] { "-a", "sim", "-x", "-t", "600", "-r", report.getPath() });
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            runner.run(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+            long realMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            String output = bytes.toString(StandardCharsets.UTF_8);
+            assertTrue(output, output.contains("Ending: Completed"));
+            for (int part = 1; part <= 12; part++) {
+                assertTrue("Part " + part + " did not run", output.contains("] Test " + part + ".1 - "));
+            }
+            assertFalse(VirtualClock.isEnabled());
+            assertFalse(J1939_84.isTesting());
+
+            // the report is stamped with virtual time, which ran well ahead of
+            // real time
+            List<String> lines = Files.readAllLines(report.toPath());
+            LocalTime first = lines.stream()
+                                   .filter(l -> l.matches("\\d\\d:\\d\\d:\\d\\d\\.\\d{4} .*"))
+                                   .map(l -> LocalTime.parse(l.substring(0, 13)))
+                                   .findFirst()
+                                   .orElseThrow();
+            // the summary is written once the log has ended
+            assertTrue(lines.contains("TEST SUMMARY REPORT"));
+            String last = lines.stream().filter(l -> !l.isBlank()).reduce((a, b) -> b).orElseThrow();
+            assertEquals("END TEST LOG REPORT", last);
+            String end = lines.stream()
+                              .filter(l -> l.endsWith(" End of J1939-84 Tool Execution"))
+                              .findFirst()
+                              .orElseThrow();
+            long virtualMillis = Math.floorMod(Duration.between(first, LocalTime.parse(end.substring(0, 13)))
+                                                       .toMillis(),
+                                               TimeUnit.DAYS.toMillis(1));
+            assertTrue(virtualMillis + " ms of virtual time in " + realMillis + " ms",
+                       virtualMillis > 10 * realMillis);
+        } finally {
+            report.delete();
+            new File(report + ".timing.json").delete();
+        }
+    }
+}
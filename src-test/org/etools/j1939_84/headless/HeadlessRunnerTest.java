@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.etools.j1939_84.bus.Adapter;
+import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.RP1210;
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link HeadlessRunner} class
+ */
+@TestDoc(description = "Verifies the tests are run from the command line.")
+public class HeadlessRunnerTest {
+
+    @Test
+    @TestDoc(description = "Verify the simulated engine and capture files are selected as adapters.")
+    public void testFindAdapter() throws Exception {
+        assertSame(RP1210.getLoopBackAdapter(), HeadlessRunner.findAdapter(new RP1210(), "SIM"));
+
+        File file = File.createTempFile("session", ".j1939cap");
+        try {
+            Adapter adapter = HeadlessRunner.findAdapter(new RP1210(), file.getPath());
+            assertEquals(RP1210.REPLAY_DEV_ID, adapter.getDeviceId());
+            assertEquals(file.getAbsolutePath(), adapter.getDLLName());
+            assertEquals("Speed=1", adapter.getConnectionStrings().get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify an adapter that does not exist is reported.")
+    public void testNoAdapter() {
+        try {
+            HeadlessRunner.findAdapter(new RP1210(), "No Such Adapter");
+            fail("Expected a BusException");
+        } catch (BusException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("No adapter is named No Such Adapter"));
+        }
+    }
+
+    @Test
+    @TestDoc(description = "Verify the arguments are checked.")
+    public void testParse() {
+        new HeadlessRunner().parse(new String[] { "-a", "sim", "-x", "-p", "1.1-1.3", "-t", "5" });
+        new HeadlessRunner().parse(new String[] { "-l" });
+        for (String[] args : new String[][] { {}, { "-a" }, { "-a", "sim", "-p", "x" }, { "-a", "sim", "-t", "x" },
+                { "-a", "sim", "-z", "1" } }) {
+            try {
+                new HeadlessRunner().parse(args);
+                fail("Expected " + String.join(" ", args) + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.ReplayBus;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.controllers.Controller.Ending;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.controllers.StepSelection;
+import org.etools.j1939_84.model.FuelType;
+import org.etools.j1939_84.model.VehicleInformation;
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link RegressionRunner} class
+ */
+@TestDoc(description = "Verifies the outcomes of recorded sessions are compared with a baseline.")
+public class RegressionRunnerTest {
+
+    /** What is left of a session once it has run */
+    private static class Run {
+        private final SessionContext session;
+        private final List<String> outcomes;
+
+        Run(SessionContext session, List<String> outcomes) {
+            this.session = session;
+            this.outcomes = outcomes;
+        }
+    }
+
+    private static final long START = CaptureWriter.toEpochNanos(LocalDateTime.of(2021, 3, 4, 5, 6, 7));
+
+    private static final StepSelection STEPS = StepSelection.parse("1.1-1.3");
+
+    private File directory;
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /** Writes two seconds of an engine that answers DM5 */
+    private static File writeCapture(File file) throws Exception {
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            for (int i = 0; i < 200; i++) {
+                long nanos = START + TimeUnit.MILLISECONDS.toNanos(10 * i);
+                writer.write(nanos, 0x0CF00400, false, bytes(i, 1, 2, 3, 4, 5, 6, 7), 8);
+            }
+            long nanos = START + TimeUnit.MILLISECONDS.toNanos(500);
+            writer.write(nanos, 0x18EAFFF9, true, bytes(0xCE, 0xFE, 0x00), 3);
+            writer.write(nanos + 1000000, 0x18FECE00, false, bytes(0, 0, 0x14, 0, 0, 0, 0, 0), 8);
+        }
+        return file;
+    }
+
+    private static VehicleInformation vehicle(String vin) {
+        VehicleInformation info = new VehicleInformation();
+        info.setVin(vin);
+        info.setVehicleModelYear(2014);
+        info.setEngineModelYear(2015);
+        info.setFuelType(FuelType.DSL);
+        info.setEmissionUnits(1);
+        info.setNumberOfTripsForFaultBImplant(1);
+        return info;
+    }
+
+    /** Replays the capture at full speed through the selected steps */
+    private static Run run(String name, File capture, String vin) throws Exception {
+        return run(name, capture, vin, false);
+    }
+
+    /** Replays the capture at full speed through the selected steps, on a clock of its own or not */
+    private static Run run(String name, File capture, String vin, boolean virtualTime) throws Exception {
+        SessionContext session = new SessionContext(name, virtualTime);
+        try (J1939TP bus = session.call(() -> new J1939TP(new ReplayBus(capture, 0xF9, ReplayBus.MAX_SPEED)))) {
+            SessionRunner runner = new SessionRunner(session, session.call(() -> new J1939(bus)));
+            runner.setSelection(STEPS);
+            runner.setVehicleInformation(vehicle(vin));
+            Ending ending = runner.run(2, TimeUnit.MINUTES);
+            List<String> outcomes = runner.getOutcomes();
+            Collections.sort(outcomes);
+            outcomes.add("Ending: " + ending);
+            return new Run(session, outcomes);
+        } finally {
+            session.close();
+        }
+    }
+
+    /** Runs each of the sessions at once and returns them in order */
+    private static List<Run> runAll(File capture, List<String> vins) throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(vins.size());
+        try {
+            List<Future<Run>> futures = new ArrayList<>();
+            for (String vin : vins) {
+                futures.add(exec.submit(() -> run(vin, capture, vin)));
+            }
+            List<Run> runs = new ArrayList<>();
+            for (Future<Run> future : futures) {
+                runs.add(future.get());
+            }
+            return runs;
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sessions").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    @TestDoc(description = "Verify the outcomes are compared as a multiset, ignoring their order.")
+    public void testDiff() {
+        assertEquals(Collections.emptyList(),
+                     RegressionRunner.diff(List.of("1.1 PASS: a", "1.2 WARN: b"),
+                                           List.of("1.2 WARN: b", "1.1 PASS: a")));
+        assertEquals(List.of("- 1.2 WARN: b", "- 1.3 FAIL: c", "+ 1.2 FAIL: b", "+ 1.4 INFO: d"),
+                     RegressionRunner.diff(List.of("1.3 FAIL: c", "1.2 WARN: b", "1.2 WARN: b"),
+                                           List.of("1.4 INFO: d", "1.2 WARN: b", "1.2 FAIL: b")));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the capture files and traces of the directory are the sessions, by name.")
+    public void testFindSessions() throws Exception {
+        // a.asc.j1939cap is the import of a.asc
+        for (String name : List.of("b.j1939cap", "a.asc", "a.asc.j1939cap", "a.json", "notes.txt",
+                                   "candump-1.log")) {
+            new File(directory, name).createNewFile();
+        }
+        List<File> sessions = RegressionRunner.findSessions(directory);
+        assertEquals(List.of("a.asc", "b.j1939cap", "candump-1.log"),
+                     sessions.stream().map(File::getName).collect(Collectors.toList()));
+        assertEquals(List.of("a", "b", "candump-1"),
+                     sessions.stream().map(RegressionRunner::getName).collect(Collectors.toList()));
+        assertTrue(RegressionRunner.findSessions(new File(directory, "missing")).isEmpty());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the vehicle information of a session is read from its JSON file.")
+    public void testReadVehicleInformation() throws Exception {
+        File file = new File(directory, "truck.json");
+        Files.write(file.toPath(),
+                    List.of("{ \"vin\": \"2G1WB5E37E1110567\", \"vehicleModelYear\": 2014,",
+                            "  \"engineModelYear\": 2015, \"fuelType\": \"DSL\", \"emissionUnits\": 2,",
+                            "  \"calIds\": 3, \"numberOfTripsForFaultBImplant\": 1 }"),
+                    StandardCharsets.UTF_8);
+        VehicleInformation info = SessionRunner.readVehicleInformation(file);
+        assertEquals("2G1WB5E37E1110567", info.getVin());
+        assertEquals(2014, info.getVehicleModelYear());
+        assertEquals(2015, info.getEngineModelYear());
+        assertEquals(FuelType.DSL, info.getFuelType());
+        assertEquals(2, info.getEmissionUnits());
+        assertEquals(3, info.getCalIds());
+        assertEquals(1, info.getNumberOfTripsForFaultBImplant());
+    }
+
+    @Test(timeout = 5 * 60 * 1000)
+    @TestDoc(description = "Verify a session on a clock of its own has the verdicts it has on the system clock, in"
+            + " less time.")
+    public void testVirtualTime() throws Exception {
+        File capture = writeCapture(new File(directory, "truck" + CaptureWriter.EXTENSION));
+        String vin = "2G1WB5E37E1110567";
+
+        long start = System.nanoTime();
+        Run wall = run("wall", capture, vin, false);
+        long wallNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Run virtual = run("virtual", capture, vin, true);
+        long virtualNanos = System.nanoTime() - start;
+
+        assertFalse(wall.session.isVirtualTime());
+        assertTrue(virtual.session.isVirtualTime());
+        assertTrue(virtual.outcomes.toString(), virtual.outcomes.contains("Ending: " + Ending.COMPLETED));
+        assertEquals(wall.outcomes, virtual.outcomes);
+        // the thread is back on the system clock
+        assertFalse(VirtualClock.isEnabled());
+        assertTrue(virtualNanos + " ns on virtual time, " + wallNanos + " ns on the system clock",
+                   virtualNanos < wallNanos);
+
+        J1939_84.getLogger()
+                .log(Level.INFO,
+                     String.format("Regression runner: 1 session in %d ms on the system clock, %d ms on virtual time",
+                                   TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                                   TimeUnit.NANOSECONDS.toMillis(virtualNanos)));
+    }
+
+    @Test(timeout = 5 * 60 * 1000)
+    @TestDoc(description = "Verify sessions replayed at once each keep their own repositories and verdicts, which"
+            + " are the same on every run at full speed.")
+    public void testParallelSessions() throws Exception {
+        File capture = writeCapture(new File(directory, "truck" + CaptureWriter.EXTENSION));
+        String vin1 = "2G1WB5E37E1110567";
+        String vin2 = "1HGCM82633A004352";
+
+        long start = System.nanoTime();
+        Run alone = run("alone", capture, vin1);
+        long aloneNanos = System.nanoTime() - start;
+        assertTrue(alone.outcomes.toString(), alone.outcomes.contains("Ending: " + Ending.COMPLETED));
+
+        start = System.nanoTime();
+        List<Run> first = runAll(capture, List.of(vin1, vin2));
+        long parallelNanos = System.nanoTime() - start;
+        List<Run> second = runAll(capture, List.of(vin1, vin2));
+
+        for (List<Run> runs : List.of(first, second)) {
+            Run a = runs.get(0);
+            Run b = runs.get(1);
+            assertNotSame(a.session.getDataRepository(), b.session.getDataRepository());
+            assertNotSame(a.session.getPartResultRepository(), b.session.getPartResultRepository());
+            assertNotSame(a.session.getDateTimeModule(), b.session.getDateTimeModule());
+            // each counted the traffic of its own bus
+            assertNotSame(a.session.getMetricsRegistry(), b.session.getMetricsRegistry());
+            assertTrue(a.session.getMetricsRegistry().counter("multiqueue.streams").getCount() > 0);
+            assertTrue(b.session.getMetricsRegistry().counter("multiqueue.streams").getCount() > 0);
+            // each session kept the vehicle it was given
+            assertEquals(vin1, a.session.getDataRepository().getVehicleInformation().getVin());
+            assertEquals(vin2, b.session.getDataRepository().getVehicleInformation().getVin());
+            for (int step = 1; step <= 3; step++) {
+                assertEquals(a.session.getPartResultRepository().getStepResult(1, step).getOutcome(),
+                             b.session.getPartResultRepository().getStepResult(1, step).getOutcome());
+                assertNotSame(a.session.getPartResultRepository().getStepResult(1, step),
+                              b.session.getPartResultRepository().getStepResult(1, step));
+            }
+            // the verdicts are those of the session run alone
+            assertEquals(alone.outcomes, a.outcomes);
+            assertFalse(b.outcomes.isEmpty());
+        }
+        assertEquals(first.get(0).outcomes, second.get(0).outcomes);
+        assertEquals(first.get(1).outcomes, second.get(1).outcomes);
+        assertSame(Ending.COMPLETED, first.get(1).session.getEnding());
+
+        J1939_84.getLogger()
+                .log(Level.INFO,
+                     String.format("Regression runner: 1 session in %d ms, 2 sessions at once in %d ms (%.2fx)",
+                                   TimeUnit.NANOSECONDS.toMillis(aloneNanos),
+                                   TimeUnit.NANOSECONDS.toMillis(parallelNanos),
+                                   2.0 * aloneNanos / parallelNanos));
+    }
+}
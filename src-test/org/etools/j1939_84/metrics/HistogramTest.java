@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link Histogram} class
+ */
+@TestDoc(description = "Verifies the histogram percentiles are within the bucket precision.")
+public class HistogramTest {
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(expected + " != " + actual, Math.abs(expected - actual) <= expected / 16 + 1);
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE }) {
+            int index = Histogram.index(value);
+            assertTrue(value + " above bucket", value <= Histogram.highestValue(index));
+            if (index > 0) {
+                assertTrue(value + " below bucket", value > Histogram.highestValue(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        Histogram instance = new Histogram();
+        assertEquals(0, instance.getCount());
+        assertEquals(0, instance.getValueAtPercentile(0.99));
+        assertEquals(0, instance.getMean(), 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify percentiles of 1 to 100,000 are within 1/16 of the exact value.")
+    public void testPercentiles() {
+        Histogram instance = new Histogram();
+        for (long i = 1; i <= 100_000; i++) {
+            instance.record(i);
+        }
+        assertEquals(100_000, instance.getCount());
+        assertEquals(100_000, instance.getMax());
+        assertEquals(50_000.5, instance.getMean(), 0.001);
+        assertNear(50_000, instance.getValueAtPercentile(0.50));
+        assertNear(95_000, instance.getValueAtPercentile(0.95));
+        assertNear(99_000, instance.getValueAtPercentile(0.99));
+        assertEquals(100_000, instance.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void testReset() {
+        Histogram instance = new Histogram();
+        instance.record(-5);
+        instance.record(42);
+        assertEquals(2, instance.getCount());
+        assertEquals(0, instance.getValueAtPercentile(0.5));
+
+        instance.reset();
+        assertEquals(0, instance.getCount());
+        assertEquals(0, instance.getMax());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * Unit tests for the {@link MetricsRegistry} class
+ */
+@TestDoc(description = "Verifies the metrics are reported in snapshots and dumped as JSON lines.")
+public class MetricsRegistryTest {
+
+    private File file;
+
+    private MetricsRegistry instance;
+
+    @Before
+    public void setUp() throws Exception {
+        instance = new MetricsRegistry();
+        file = File.createTempFile("metrics", ".json");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    @TestDoc(description = "Verify a snapshot reads the counters, gauges and histograms without changing them.")
+    public void testSnapshot() {
+        Counter counter = instance.counter("test.counter");
+        assertSame(counter, instance.counter("test.counter"));
+        counter.add(3);
+        instance.histogram("test.histogram").record(10);
+        instance.gauge("test.gauge", () -> 7);
+
+        Map<String, Map<String, Number>> snapshot = instance.snapshot();
+        assertEquals(List.of("test.counter", "test.gauge", "test.histogram"), List.copyOf(snapshot.keySet()));
+        assertEquals(3L, snapshot.get("test.counter").get("count"));
+        assertTrue(snapshot.get("test.counter").get("rate").doubleValue() > 0);
+        assertEquals(7L, snapshot.get("test.gauge").get("value"));
+        assertEquals(1L, snapshot.get("test.histogram").get("count"));
+        assertEquals(10L, snapshot.get("test.histogram").get("p99"));
+
+        // reading changes nothing; the rate is still since the reset
+        snapshot = instance.snapshot();
+        assertEquals(3L, snapshot.get("test.counter").get("count"));
+        assertTrue(snapshot.get("test.counter").get("rate").doubleValue() > 0);
+
+        instance.reset();
+        snapshot = instance.snapshot();
+        assertEquals(0L, snapshot.get("test.counter").get("count"));
+        assertEquals(0L, snapshot.get("test.histogram").get("count"));
+        assertEquals(7L, snapshot.get("test.gauge").get("value"));
+    }
+
+    @Test
+    @TestDoc(description = "Verify each dump appends one line of JSON with the label and metrics.")
+    public void testDump() throws Exception {
+        instance.dump("not written");
+        instance.setFile(file);
+        instance.counter("tp.rx.bam.completed").increment();
+        instance.dump("Step 1.1");
+        instance.counter("tp.rx.bam.completed").increment();
+        instance.dump("Step 1.2");
+
+        instance.dump("Step 1.3");
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        JsonObject second = new Gson().fromJson(lines.get(1), JsonObject.class);
+        assertEquals("Step 1.2", second.get("label").getAsString());
+        JsonObject completed = second.getAsJsonObject("metrics").getAsJsonObject("tp.rx.bam.completed");
+        assertEquals(2, completed.get("count").getAsInt());
+        assertTrue(completed.get("rate").getAsDouble() > 0);
+
+        // the rate of a dump is since the previous dump
+        JsonObject third = new Gson().fromJson(lines.get(2), JsonObject.class);
+        completed = third.getAsJsonObject("metrics").getAsJsonObject("tp.rx.bam.completed");
+        assertEquals(2, completed.get("count").getAsInt());
+        assertEquals(0, completed.get("rate").getAsDouble(), 0);
+        // and not changed by a snapshot
+        assertTrue(instance.snapshot().get("tp.rx.bam.completed").get("rate").doubleValue() > 0);
+    }
+}
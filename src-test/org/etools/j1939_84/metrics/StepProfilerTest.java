@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.metrics.StepProfiler.Category;
+import org.etools.j1939_84.metrics.StepProfiler.StepTime;
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Unit tests for the {@link StepProfiler} class
+ */
+@TestDoc(description = "Verifies the wall time of each step is split into where it was spent.")
+public class StepProfilerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private StepProfiler instance;
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        instance = new StepProfiler();
+    }
+
+    @Test
+    @TestDoc(description = "Verify time in a nested category counts for the outer category.")
+    public void testNested() {
+        instance.startStep("Test 1.2 - Nested");
+        long outer = instance.begin();
+        sleep(20);
+        long inner = instance.begin();
+        sleep(20);
+        instance.end(Category.PAUSE, inner);
+        instance.end(Category.OPERATOR, outer);
+        sleep(20);
+        instance.endStep();
+
+        StepTime step = instance.getSteps().get(0);
+        assertEquals("Test 1.2 - Nested", step.getStep());
+        assertEquals(0, step.getTime(Category.PAUSE));
+        assertTrue(step.getTime(Category.OPERATOR) >= 40 * MILLIS);
+        assertTrue(step.getTotal() >= 60 * MILLIS);
+        assertTrue(step.getOther() >= 20 * MILLIS);
+    }
+
+    @Test
+    @TestDoc(description = "Verify time on other threads and outside of a step is not recorded.")
+    public void testOtherThread() throws Exception {
+        long start = instance.begin();
+        instance.end(Category.DS, start);
+
+        instance.startStep("Test 1.3 - Threads");
+        Thread thread = new Thread(() -> {
+            long s = instance.begin();
+            sleep(20);
+            instance.end(Category.DS, s);
+        });
+        thread.start();
+        thread.join();
+        instance.endStep();
+
+        assertEquals(0, instance.getSteps().get(0).getTime(Category.DS));
+    }
+
+    @Test
+    @TestDoc(description = "Verify a request is split into the request and waiting for TP.")
+    public void testSplit() {
+        instance.startStep("Test 1.4 - Split");
+        long start = instance.begin();
+        sleep(20);
+        long split = System.nanoTime();
+        sleep(30);
+        instance.end(Category.GLOBAL, start, Category.TP, split);
+
+        // without a split all of the time is the first category
+        start = instance.begin();
+        sleep(10);
+        instance.end(Category.DS, start, Category.TP, -1);
+        instance.endStep();
+
+        StepTime step = instance.getSteps().get(0);
+        assertTrue(step.getTime(Category.GLOBAL) >= 20 * MILLIS);
+        assertTrue(step.getTime(Category.GLOBAL) < 30 * MILLIS);
+        assertTrue(step.getTime(Category.TP) >= 30 * MILLIS);
+        assertTrue(step.getTime(Category.DS) >= 10 * MILLIS);
+    }
+
+    @Test
+    @TestDoc(description = "Verify reading a stream is timed until it is exhausted or closed.")
+    public void testTime() {
+        instance.startStep("Test 1.5 - Stream");
+        assertEquals(List.of(1, 2, 3),
+                     instance.time(Category.BUS_READ, Stream.of(1, 2, 3).peek(i -> sleep(10)))
+                             .collect(Collectors.toList()));
+
+        // a stream that is not read to the end is timed until closed
+        try (Stream<Integer> stream = instance.time(Category.BUS_READ, Stream.of(1, 2, 3))) {
+            assertEquals(1, (int) stream.findFirst().orElseThrow());
+        }
+        long start = instance.begin();
+        sleep(10);
+        instance.end(Category.PAUSE, start);
+        instance.endStep();
+
+        StepTime step = instance.getSteps().get(0);
+        assertTrue(step.getTime(Category.BUS_READ) >= 30 * MILLIS);
+        assertTrue(step.getTime(Category.PAUSE) >= 10 * MILLIS);
+    }
+
+    @Test
+    @TestDoc(description = "Verify the report has a row for each step and the total.")
+    public void testReport() {
+        assertTrue(instance.generateReport().contains("No steps were timed"));
+
+        instance.startStep("Test 1.1 - First");
+        instance.endStep();
+        instance.startStep("Test 1.10 - Second");
+        instance.endStep();
+
+        String[] lines = instance.generateReport().split("\\R");
+        assertEquals("STEP TIMES (s)", lines[0]);
+        assertEquals("Step       Total        DS    Global        TP     Pause  Operator  Bus Read     Other",
+                     lines[1]);
+        assertTrue(lines[2].startsWith("1.1          0.0"));
+        assertTrue(lines[3].startsWith("1.10         0.0"));
+        assertTrue(lines[4].startsWith("Total        0.0"));
+        assertEquals(5, lines.length);
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        instance.startStep("Test 2.1 - Write");
+        long start = instance.begin();
+        sleep(20);
+        instance.end(Category.OPERATOR, start);
+        instance.endStep();
+
+        File file = File.createTempFile("timing", ".json");
+        try {
+            instance.write(file);
+            String json = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+            JsonArray array = new Gson().fromJson(json, JsonArray.class);
+            assertEquals(1, array.size());
+            JsonObject step = array.get(0).getAsJsonObject();
+            assertEquals("Test 2.1 - Write", step.get("step").getAsString());
+            assertTrue(step.get("operator").getAsLong() >= 20);
+            assertEquals(0, step.get("ds").getAsLong());
+            assertTrue(step.has("bus_read"));
+            assertTrue(step.has("other"));
+        } finally {
+            file.delete();
+        }
+    }
+}
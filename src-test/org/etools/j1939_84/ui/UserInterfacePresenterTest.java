@@ -638,6 +638,13 @@ public class UserInterfacePresenterTest {
         inOrder.verify(view).setSelectFileButtonEnabled(true);
     }
 
+    @Test
+    public void testOnSaveTrafficButtonClicked() {
+        instance.onSaveTrafficButtonClicked();
+        executor.run();
+        verify(view).displayDialog(any(), eq("Bus Traffic"), eq(JOptionPane.INFORMATION_MESSAGE), eq(false));
+    }
+
     @Test
     public void testOnSelectFileButtonClicked() {
         instance.onSelectFileButtonClicked();
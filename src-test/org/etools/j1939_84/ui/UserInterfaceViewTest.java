@@ -19,13 +19,13 @@ import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JProgressBar;
-import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.etools.j1939_84.BuildNumber;
 import org.etools.j1939_84.bus.Adapter;
+import org.etools.j1939_84.ui.widgets.ReportView;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -83,9 +83,10 @@ public class UserInterfaceViewTest {
         JComboBox<Adapter> adapterComboBox = instance.getAdapterComboBox();
         assertTrue(adapterComboBox.isEnabled());
         assertNull(adapterComboBox.getSelectedItem());
-        assertEquals(2, adapterComboBox.getItemCount());
+        assertEquals(3, adapterComboBox.getItemCount());
         assertEquals("Adapter1", adapterComboBox.getItemAt(0).getName());
         assertEquals("Adapter2", adapterComboBox.getItemAt(1).getName());
+        assertEquals("Replay a File...", adapterComboBox.getItemAt(2).getName());
 
         adapterComboBox.setSelectedIndex(1);
         verify(controller).onAdapterComboBoxItemSelected(adapter2, "J1939:Baud=Auto");
@@ -156,11 +157,12 @@ public class UserInterfaceViewTest {
     }
 
     @Test
-    public void testReportTextArea() {
-        JTextArea reportTextArea = instance.getReportTextArea();
-        assertEquals("", reportTextArea.getText());
-        instance.appendResults("This is a result");
-        assertEquals("This is a result", reportTextArea.getText());
+    public void testReportView() {
+        ReportView reportView = instance.getReportView();
+        assertEquals(0, reportView.getLineCount());
+        instance.appendResults("This is a result" + System.lineSeparator());
+        assertEquals(1, reportView.getLineCount());
+        assertEquals("This is a result", reportView.getLine(0));
     }
 
     @Test
@@ -200,6 +202,15 @@ public class UserInterfaceViewTest {
         assertEquals(expected, instance.getVinTextField().getText());
     }
 
+    @Test
+    public void testSaveTrafficButton() {
+        JButton button = instance.getSaveTrafficButton();
+        assertEquals("Save Traffic", button.getText());
+        assertTrue(button.isEnabled());
+        button.doClick();
+        verify(controller).onSaveTrafficButtonClicked();
+    }
+
     /**
      * Verifies the title, that it's disabled by default, can be enabled and the
      * onClick behavior
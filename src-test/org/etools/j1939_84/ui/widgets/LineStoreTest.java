@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import static org.junit.Assert.assertEquals;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LineStore} class
+ */
+@TestDoc(description = "Verifies lines are kept in chunks, in a file once full, and read back as they were added.")
+public class LineStoreTest {
+
+    private LineStore instance;
+
+    @Before
+    public void setUp() {
+        instance = new LineStore();
+    }
+
+    @Test
+    @TestDoc(description = "Verify lines across many chunks are read back, including empty and non-ASCII lines.")
+    public void testAddGet() {
+        assertEquals(0, instance.size());
+        for (int i = 0; i < 20000; i++) {
+            instance.add("Line " + i + " of the report");
+        }
+        instance.add("");
+        instance.add("Temp \u00B0C");
+        assertEquals(20002, instance.size());
+        assertEquals("Line 0 of the report", instance.get(0));
+        assertEquals("Line 19999 of the report", instance.get(19999));
+        assertEquals("", instance.get(20000));
+        assertEquals("Temp \u00B0C", instance.get(20001));
+    }
+
+    @Test
+    @TestDoc(description = "Verify a line longer than a chunk is kept whole.")
+    public void testLongLine() {
+        instance.add("First");
+        String line = "x".repeat(LineStore.CHUNK_BYTES + 10);
+        instance.add(line);
+        instance.add("Last");
+        assertEquals(line, instance.get(1));
+        assertEquals("Last", instance.get(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    @TestDoc(description = "Verify a line that was not added cannot be read.")
+    public void testGetOutOfBounds() {
+        instance.add("Line");
+        instance.get(1);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.etools.j1939_84.model.Outcome;
+import org.etools.j1939_84.ui.widgets.ReportIndex.Postings;
+import org.etools.j1939_84.ui.widgets.ReportIndex.Query;
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ReportIndex} class
+ */
+@TestDoc(description = "Verifies the lines of the report are found by part, step, outcome, source, PGN and words.")
+public class ReportIndexTest {
+
+    private ReportIndex instance;
+
+    @Before
+    public void setUp() {
+        instance = new ReportIndex();
+        instance.add("Start Part 1 - KOEO Data Collection");                         // 0
+        instance.add("Start Test 1.1 - Verify engine off operation");               // 1
+        instance.add("FAIL: 6.1.1.1.a - Engine #1 (0) did not respond");             // 2
+        instance.add("Start Part 9 - Part 9 Key Off Data");                          // 3
+        instance.add("Start Test 9.2 - DM12: Emissions related active DTCs");        // 4
+        instance.add("10:15:30.1234 18FECA3D [8] 00 FF 00 00 00 00 FF FF");          // 5
+        instance.add("DM1 from Retarder - Driveline (61): MIL: off");                // 6
+        instance.add("FAIL: 6.9.2.2.c - Retarder - Driveline (61) reported MIL on"); // 7
+        instance.add("WARN: 6.9.2.3.a - Engine #1 (0) reported > 1 active DTC");     // 8
+        instance.add("Start Test 9.3 - DM22");                                       // 9
+        instance.add("FAIL: 6.9.3.1.a - Retarder - Driveline (61) NACK for PGN 49920"); // 10
+        instance.add("10:15:31.0000 18EA3DF9 [3] 00 C3 00 (TX)");                    // 11
+    }
+
+    @Test
+    @TestDoc(description = "Verify all FAILs from 0x3D in Part 9 are found.")
+    public void testFailsFromSourceInPart() {
+        Query query = new Query().setOutcome(Outcome.FAIL).setSource(0x3D).setPart(9);
+        assertArrayEquals(new int[] { 7, 10 }, instance.search(query));
+        assertArrayEquals(new int[] { 10 }, instance.search(query.setStep(3)));
+        assertArrayEquals(new int[] { 2 }, instance.search(new Query().setOutcome(Outcome.FAIL).setPart(1)));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the lines of a part or step are found.")
+    public void testSections() {
+        assertArrayEquals(new int[] { 0, 1, 2 }, instance.search(new Query().setPart(1)));
+        assertArrayEquals(new int[] { 3, 4, 5, 6, 7, 8, 9, 10, 11 }, instance.search(new Query().setPart(9)));
+        assertArrayEquals(new int[] { 9, 10, 11 }, instance.search(new Query().setPart(9).setStep(3)));
+        assertArrayEquals(new int[] { 10, 11 }, instance.search(new Query().setPart(9).setStep(3), 10));
+        assertEquals(12, instance.search(new Query()).length);
+    }
+
+    @Test
+    @TestDoc(description = "Verify packets are found by source address and PGN, and their data is not indexed.")
+    public void testPackets() {
+        assertArrayEquals(new int[] { 5, 6, 7, 10 }, instance.search(new Query().setSource(0x3D)));
+        assertArrayEquals(new int[] { 11 }, instance.search(new Query().setSource(0xF9)));
+        assertArrayEquals(new int[] { 5 }, instance.search(new Query().setPgn(0xFECA)));
+        // a PDU1 PGN is without the destination
+        assertArrayEquals(new int[] { 11 }, instance.search(new Query().setPgn(0xEA00)));
+        // a PGN named in the text
+        assertArrayEquals(new int[] { 10 }, instance.search(new Query().setPgn(49920)));
+        assertArrayEquals(new int[0], instance.search(new Query().setText("FF")));
+    }
+
+    @Test
+    @TestDoc(description = "Verify lines with all of the words are found, regardless of case.")
+    public void testText() {
+        assertArrayEquals(new int[] { 7, 8 }, instance.search(new Query().setText("reported")));
+        assertArrayEquals(new int[] { 8 }, instance.search(new Query().setText("ENGINE #1 reported")));
+        assertArrayEquals(new int[] { 7 }, instance.search(new Query().setText("6.9.2.2.c")));
+        assertArrayEquals(new int[0], instance.search(new Query().setText("reported nothing")));
+        assertEquals(List.of("dm1", "from", "engine", "#1", "0"), ReportIndex.split("DM1 from Engine #1 (0)."));
+        // the numbers are not words
+        assertArrayEquals(new int[] { 8 }, instance.search(new Query().setText("Engine 1 reported")));
+        assertArrayEquals(new int[0], instance.search(new Query().setText("61")));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the next and previous outcomes are found.")
+    public void testNextPrevious() {
+        assertEquals(2, instance.next(Outcome.FAIL, -1));
+        assertEquals(7, instance.next(Outcome.FAIL, 2));
+        assertEquals(-1, instance.next(Outcome.FAIL, 10));
+        assertEquals(7, instance.previous(Outcome.FAIL, 10));
+        assertEquals(-1, instance.previous(Outcome.WARN, 8));
+        assertEquals(-1, instance.next(Outcome.ABORT, -1));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the lines of a key in blocks in the file are found as those in memory.")
+    public void testPostingsInFile() {
+        Postings inFile = new Postings(new SpillFile("test postings"));
+        Postings inMemory = new Postings(null);
+        int count = 3 * Postings.BLOCK + 10;
+        for (int i = 0; i < count; i++) {
+            inFile.add(3 * i + 1);
+            inMemory.add(3 * i + 1);
+        }
+        // added again is not added
+        inFile.add(3 * count - 2);
+        assertEquals(count, inFile.size());
+        assertArrayEquals(inMemory.toArray(), inFile.toArray());
+
+        for (int line = 0; line <= 3 * count + 1; line++) {
+            assertEquals("Line " + line, inMemory.indexOf(line), inFile.indexOf(line));
+            assertEquals("Line " + line, inMemory.contains(line), inFile.contains(line));
+        }
+        int first = 3 * Postings.BLOCK + 1;
+        assertEquals(Postings.BLOCK, inFile.indexOf(first));
+        assertEquals(first, inFile.get(Postings.BLOCK));
+        assertEquals(3 * (count - 1) + 1, inFile.get(count - 1));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the times and values of a large report are not kept as words.")
+    public void testDistinctTimestamps() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long memory = runtime.totalMemory() - runtime.freeMemory();
+
+        instance = new ReportIndex();
+        int count = 600000;
+        for (int line = 0; line < count; line++) {
+            long millis = 36930000L + line;
+            instance.add(String.format("%02d:%02d:%02d.%04d Engine #1 (0) reported %d.%d kPa after %d ms",
+                                       millis / 3600000,
+                                       millis / 60000 % 60,
+                                       millis / 1000 % 60,
+                                       millis % 1000 * 10,
+                                       line / 10,
+                                       line % 10,
+                                       line));
+        }
+        System.gc();
+        long used = runtime.totalMemory() - runtime.freeMemory() - memory;
+
+        assertEquals(6, instance.getWordCount());
+        assertEquals(count, instance.search(new Query().setText("engine #1 kPa")).length);
+        // about 4 bytes for each word of a line, most of them in the file
+        assertTrue("Used " + used / count + " B/line", used < 20L * count);
+    }
+
+    @Test
+    @TestDoc(description = "Verify a query on a large report takes milliseconds.")
+    public void testLarge() {
+        instance = new ReportIndex();
+        for (int part = 1; part <= 12; part++) {
+            instance.add("Start Part " + part + " - Part " + part);
+            for (int line = 0; line < 40000; line++) {
+                int source = line % 20;
+                if (line % 1000 == 0) {
+                    instance.add("Start Test " + part + "." + (line / 1000 + 1) + " - Step");
+                } else if (line % 97 == 0) {
+                    instance.add("FAIL: 6." + part + ".1.1.a - Module (" + source + ") did not respond");
+                } else {
+                    instance.add(String.format("10:15:30.1234 18FECA%02X [8] 00 FF 00 00 00 00 FF FF", source));
+                }
+            }
+        }
+        Query query = new Query().setOutcome(Outcome.FAIL).setSource(0x0D).setPart(9);
+        long start = System.nanoTime();
+        int[] lines = instance.search(query);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(lines.length > 0);
+        assertTrue("Took " + millis + " ms", millis < 100);
+    }
+}
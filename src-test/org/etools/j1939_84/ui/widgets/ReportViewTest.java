@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.etools.j1939_84.model.Outcome;
+import org.etools.testdoc.TestDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ReportView} class
+ */
+@TestDoc(description = "Verifies the report is added in batches and can be navigated by step and outcome.")
+public class ReportViewTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private ReportView instance;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        instance = new ReportView(tasks::add, 0);
+    }
+
+    @Test
+    @TestDoc(description = "Verify many appends are added to the list in one task.")
+    public void testCoalesce() throws Exception {
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                instance.append("Line " + i + NL);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(1, tasks.size());
+        assertEquals(0, instance.getLineCount());
+        runTasks();
+        assertEquals(5000, instance.getLineCount());
+        assertEquals("Line 0", instance.getLine(0));
+        assertEquals("Line 4999", instance.getLine(4999));
+        assertEquals(5000, instance.getList().getModel().getSize());
+    }
+
+    @Test
+    @TestDoc(description = "Verify an update within a frame of the last one is put off.")
+    public void testFrame() {
+        instance = new ReportView(tasks::add, 60000);
+        instance.append("First" + NL);
+        runTasks();
+        assertEquals(1, instance.getLineCount());
+
+        instance.append("Second" + NL);
+        runTasks();
+        assertEquals(1, instance.getLineCount());
+    }
+
+    @Test
+    @TestDoc(description = "Verify a line is shown before its line separator is appended and completed after.")
+    public void testPartialLine() {
+        instance.append("Start of");
+        runTasks();
+        assertEquals(1, instance.getLineCount());
+        assertEquals("Start of", instance.getLine(0));
+
+        instance.append(" the line\r");
+        instance.append("\nNext" + NL);
+        runTasks();
+        assertEquals(2, instance.getLineCount());
+        assertEquals("Start of the line", instance.getLine(0));
+        assertEquals("Next", instance.getLine(1));
+    }
+
+    @Test
+    @TestDoc(description = "Verify the steps are listed and selecting one shows its first line.")
+    public void testSteps() {
+        instance.append("Start Part 1" + NL);
+        instance.append("Start Test 1.1 - Description" + NL);
+        instance.append("Some data" + NL);
+        instance.append("Start Test 1.2 - Description" + NL);
+        runTasks();
+
+        assertEquals(2, instance.getStepComboBox().getItemCount());
+        assertEquals("Test 1.2 - Description", instance.getStepComboBox().getItemAt(1));
+        assertEquals(-1, instance.getList().getSelectedIndex());
+
+        instance.getStepComboBox().setSelectedIndex(1);
+        assertEquals(3, instance.getList().getSelectedIndex());
+    }
+
+    @Test
+    @TestDoc(description = "Verify next and previous go through the lines with the outcome.")
+    public void testOutcomes() {
+        instance.append("Start Test 1.1 - Description" + NL);
+        instance.append("FAIL: 6.1.1.1.a - First" + NL);
+        instance.append("WARN: 6.1.1.1.b - Warning" + NL);
+        instance.append("Data with FAIL: in it" + NL);
+        instance.append("FAIL: 6.1.1.1.c - Second" + NL);
+        runTasks();
+
+        assertEquals(1, instance.next(Outcome.FAIL));
+        assertEquals(4, instance.next(Outcome.FAIL));
+        assertEquals(-1, instance.next(Outcome.FAIL));
+        assertEquals(1, instance.previous(Outcome.FAIL));
+        assertEquals(-1, instance.previous(Outcome.FAIL));
+        assertEquals(2, instance.next(Outcome.WARN));
+        assertEquals(-1, instance.next(Outcome.INFO));
+
+        instance.getList().clearSelection();
+        assertEquals(4, instance.previous(Outcome.FAIL));
+    }
+
+    @Test
+    @TestDoc(description = "Verify only the lines found are shown, including lines appended later.")
+    public void testFind() {
+        instance.append("Start Part 9 - Part 9" + NL);
+        instance.append("Start Test 9.2 - Description" + NL);
+        instance.append("FAIL: 6.9.2.2.c - Retarder - Driveline (61) reported MIL on" + NL);
+        instance.append("FAIL: 6.9.2.2.c - Engine #1 (0) reported MIL on" + NL);
+        runTasks();
+
+        instance.getStepField().setText("9");
+        instance.getFilterOutcomeComboBox().setSelectedItem("FAIL");
+        instance.getSourceField().setText("0x3D");
+        instance.find();
+        assertEquals(1, instance.getLineCount());
+        assertEquals("1 of 4 lines", instance.getFoundLabel().getText());
+
+        instance.append("FAIL: 6.9.2.3.a - Retarder - Driveline (61) reported a DTC" + NL);
+        instance.append("WARN: 6.9.2.3.b - Retarder - Driveline (61) reported a DTC" + NL);
+        runTasks();
+        assertEquals(2, instance.getLineCount());
+        assertEquals("FAIL: 6.9.2.3.a - Retarder - Driveline (61) reported a DTC", instance.getLine(1));
+
+        // the line is shown among the others
+        instance.getList().setSelectedIndex(1);
+        assertEquals(5, instance.next(Outcome.WARN));
+        assertEquals(6, instance.getLineCount());
+
+        instance.getPgnField().setText("PGN");
+        instance.find();
+        assertEquals(6, instance.getLineCount());
+        assertEquals("Not a number: For input string: \"PGN\"", instance.getFoundLabel().getText());
+
+        instance.getPgnField().setText("");
+        instance.getSourceField().setText("");
+        instance.getTextField().setText("engine");
+        instance.find();
+        assertEquals(1, instance.getLineCount());
+        instance.clearQuery();
+        assertEquals(6, instance.getLineCount());
+    }
+}
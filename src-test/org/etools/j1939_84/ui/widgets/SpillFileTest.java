@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link SpillFile} class
+ */
+@TestDoc(description = "Verifies blocks written to the temporary file are read back.")
+public class SpillFileTest {
+
+    @Test
+    @TestDoc(description = "Verify each block is appended after the last and read back at its position.")
+    public void testAppendRead() {
+        SpillFile instance = new SpillFile("test blocks");
+        byte[] first = "first block".getBytes(UTF_8);
+        byte[] second = "xxsecond blockxx".getBytes(UTF_8);
+
+        assertEquals(0, instance.append(first, 0, first.length));
+        assertEquals(first.length, instance.append(second, 2, 12));
+
+        byte[] bytes = new byte[14];
+        instance.read(first.length, bytes, 1, 12);
+        assertEquals("\0second block\0", new String(bytes, UTF_8));
+        instance.read(6, bytes, 0, 5);
+        assertEquals("block", new String(bytes, 0, 5, UTF_8));
+    }
+}
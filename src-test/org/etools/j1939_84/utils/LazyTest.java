@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.etools.testdoc.TestDoc;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link Lazy} class
+ */
+@TestDoc(description = "Verifies a value is loaded once, at startup or by its first user.")
+public class LazyTest {
+
+    @Test
+    @TestDoc(description = "Verify a value that was not started is loaded by the first caller, once.")
+    public void testGetLoadsOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Lazy<String> instance = new Lazy<>("test", () -> "value " + loads.incrementAndGet());
+        assertFalse(instance.isDone());
+
+        assertEquals("value 1", instance.get());
+        assertEquals("value 1", instance.get());
+        assertEquals(1, loads.get());
+        assertTrue(instance.isDone());
+        assertEquals("test", instance.toString());
+    }
+
+    @Test
+    @TestDoc(description = "Verify a caller waits for a value loading in the background instead of loading it again.")
+    public void testStartThenGet() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+        Lazy<Object> instance = new Lazy<>("test", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return value;
+        });
+
+        assertSame(instance, instance.start());
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        assertFalse(instance.getFuture().isDone());
+        release.countDown();
+
+        assertSame(value, instance.get());
+        assertSame(value, instance.getFuture().get());
+        // a loaded value is not loaded again
+        instance.start();
+        assertSame(value, instance.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @TestDoc(description = "Verify the unchecked exceptions of the loader are thrown and the checked ones wrapped.")
+    public void testExceptions() {
+        IllegalArgumentException unchecked = new IllegalArgumentException();
+        try {
+            new Lazy<String>("test", () -> {
+                throw unchecked;
+            }).get();
+            fail("The exception was not thrown");
+        } catch (IllegalArgumentException e) {
+            assertSame(unchecked, e);
+        }
+
+        IOException checked = new IOException();
+        try {
+            new Lazy<String>("test", () -> {
+                throw checked;
+            }).get();
+            fail("The exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertSame(checked, e.getCause());
+            assertEquals("Unable to load test", e.getMessage());
+        }
+    }
+}
@@ -3,15 +3,16 @@
  */
 package org.etools.j1939_84;
 
-import java.awt.EventQueue;
 import java.util.Arrays;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.swing.UIManager;
-
+import org.etools.j1939_84.bus.BusMonitor;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.controllers.TestRunMonitor;
+import org.etools.j1939_84.headless.HeadlessRunner;
 import org.etools.j1939_84.ui.UserInterfaceView;
 
 /**
@@ -41,6 +42,18 @@ public class J1939_84 {
      */
     public static final String DEV_PROPERTY_NAME = "DEV";
 
+    /**
+     * The name of the argument that runs the application in virtual time
+     * against the simulated engine
+     */
+    public static final String VIRTUAL_TIME_PROPERTY_NAME = "VIRTUAL_TIME";
+
+    /**
+     * The first argument that runs the tests from the command line, without
+     * the user interface, see {@link HeadlessRunner}
+     */
+    public static final String HEADLESS_ARGUMENT = "HEADLESS";
+
     private static final Logger logger = Logger.getGlobal();
 
     static {
@@ -118,26 +131,24 @@ public class J1939_84 {
      *                 The arguments used to start the application
      */
     public static void main(String[] args) {
+        StartupLoader.start();
+        if (args.length > 0 && args[0].equals(HEADLESS_ARGUMENT)) {
+            // the user interface classes are not loaded
+            HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         getLogger().info("J1939_84 starting");
         setTesting(argAsBoolean(args, TESTING_PROPERTY_NAME));
         setDevEnv(argAsBoolean(args, DEV_PROPERTY_NAME));
         getLogger().info("testing = " + isTesting());
         getLogger().info("development = " + isDevEnv());
-
-        try {
-            // Set System L&F
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            getLogger().log(Level.INFO, "Unable to set Look and Feel");
+        if (argAsBoolean(args, VIRTUAL_TIME_PROPERTY_NAME)) {
+            VirtualClock.enable();
         }
+        BusMonitor.register();
+        TestRunMonitor.register();
 
-        EventQueue.invokeLater(() -> {
-            try {
-                new UserInterfaceView().getFrame().setVisible(true);
-            } catch (Exception e) {
-                getLogger().log(Level.SEVERE, "Error showing frame", e);
-            }
-        });
+        UserInterfaceView.show();
     }
 
     private static Boolean argAsBoolean(String[] args, String argName) {
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84;
+
+import org.etools.j1939_84.bus.RP1210;
+import org.etools.j1939_84.bus.j1939.J1939DaRepository;
+import org.etools.j1939_84.bus.j1939.Lookup;
+import org.etools.j1939_84.bus.j1939.packets.AddressClaimPacket;
+
+/**
+ * Starts reading the tables the application needs, each on a daemon thread of
+ * its own, as soon as it starts, so they are read while the window opens or
+ * the adapter connects rather than by the first step or packet to use them.
+ *
+ * Each table is read once: the first to use one that is still being read waits
+ * for it, and one that was not started is read by its first user. The names of
+ * the steps and the outcomes of the SPNs are only read when first used, as a
+ * run seldom needs them all.
+ */
+public class StartupLoader {
+
+    private StartupLoader() {
+    }
+
+    /**
+     * Starts reading the address, FMI, manufacturer and part names, the
+     * Address Claim names, the J1939DA and the RP1210 adapters.
+     */
+    public static void start() {
+        J1939DaRepository.preload();
+        RP1210.preload();
+        Lookup.preload();
+        AddressClaimPacket.preload();
+    }
+}
@@ -45,9 +45,9 @@ public interface Bus extends AutoCloseable {
     @SuppressFBWarnings(value = { "UW_UNCOND_WAIT", "WA_NOT_IN_LOOP" }, justification = "Wait for stream open.")
     default AutoCloseable log(Function<Packet, String> prefix) throws BusException {
         Stream<Packet> stream = read(999, TimeUnit.DAYS);
-        new Thread(() -> stream.forEach(p -> {
+        Threads.start("Bus Log", false, () -> stream.forEach(p -> {
             System.err.println(prefix.apply(p));
-        })).start();
+        }));
         return () -> stream.close();
     }
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.metrics.Management;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+
+/**
+ * Watches the bus selected in {@link RP1210} for the {@link BusMonitorMBean}.
+ * The recent frames are those the {@link FlightRecorder} keeps, and the
+ * metrics are a snapshot of the {@link MetricsRegistry}.
+ */
+public class BusMonitor implements BusMonitorMBean {
+
+    private static final BusMonitor instance = new BusMonitor(FlightRecorder.getApplicationInstance(),
+                                                              MetricsRegistry.getApplicationInstance());
+
+    private final FlightRecorder recorder;
+
+    private final MetricsRegistry metrics;
+
+    private String adapterName = "";
+
+    private Bus bus;
+
+    private Bus tpBus;
+
+    /**
+     * Creates a monitor of its own, apart from the one of the application,
+     * such as for a {@link SessionContext}.
+     *
+     * @param recorder
+     *                     the recorder of the frames of the bus
+     * @param metrics
+     *                     the metrics of the communication stack
+     */
+    public BusMonitor(FlightRecorder recorder, MetricsRegistry metrics) {
+        this.recorder = recorder;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the monitor of the {@link SessionContext} of the current thread,
+     *         or of the application
+     */
+    public static BusMonitor getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getBusMonitor();
+    }
+
+    /**
+     * Registers the MBean with the platform MBean server.
+     */
+    public static void register() {
+        Management.register("Bus", instance);
+    }
+
+    /**
+     * Starts watching a bus, replacing the previous bus, and records its
+     * frames.
+     *
+     * @param adapterName
+     *                        the name of the adapter
+     * @param bus
+     *                        the bus of individual frames
+     * @param tpBus
+     *                        the bus the application uses, which may be a
+     *                        {@link J1939TP} on top of bus
+     */
+    public synchronized void monitor(String adapterName, Bus bus, Bus tpBus) {
+        this.adapterName = adapterName;
+        this.bus = bus;
+        this.tpBus = tpBus;
+        recorder.record(bus);
+    }
+
+    @Override
+    public synchronized String getAdapterName() {
+        return adapterName;
+    }
+
+    @Override
+    public int getConnectionSpeed() {
+        Bus bus;
+        synchronized (this) {
+            bus = this.bus;
+        }
+        try {
+            return bus == null ? -1 : bus.getConnectionSpeed();
+        } catch (BusException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public long getFrameCount() {
+        return recorder.getRecordedCount();
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        return recorder.getFramesPerSecond();
+    }
+
+    @Override
+    public synchronized boolean isImposterDetected() {
+        return bus != null && bus.imposterDetected();
+    }
+
+    @Override
+    public String[] getTransportSessions() {
+        Bus tpBus;
+        synchronized (this) {
+            tpBus = this.tpBus;
+        }
+        if (tpBus instanceof J1939TP) {
+            return ((J1939TP) tpBus).getSessions().toArray(new String[0]);
+        }
+        return new String[0];
+    }
+
+    @Override
+    public String[] getStreams() {
+        return MultiQueue.getStreams().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getMetrics() {
+        return metrics.snapshot()
+                      .entrySet()
+                      .stream()
+                      .map(e -> e.getKey() + " " + e.getValue())
+                      .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] dumpFrames(int count) {
+        // format outside the lock of the recorder so the bus is not held up
+        Packet[] packets = recorder.getRecentFrames(count);
+        String[] result = new String[packets.length];
+        for (int i = 0; i < packets.length; i++) {
+            result[i] = packets[i].toTimeString();
+        }
+        return result;
+    }
+}
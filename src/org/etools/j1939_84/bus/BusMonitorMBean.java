@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+/**
+ * The JMX view of the vehicle bus in use.
+ */
+public interface BusMonitorMBean {
+
+    String getAdapterName();
+
+    /** @return the bus speed in bits per second or -1 if it is unknown */
+    int getConnectionSpeed();
+
+    /** @return the frames read since the adapter was selected */
+    long getFrameCount();
+
+    /** @return the frames per second over the last few seconds */
+    double getFramesPerSecond();
+
+    boolean isImposterDetected();
+
+    /** @return the transport protocol sessions in progress */
+    String[] getTransportSessions();
+
+    /** @return the streams open on the bus queues with their lag */
+    String[] getStreams();
+
+    /**
+     * @return the metrics of the communication stack in name order, like
+     *         "tp.bam.completed {count=12, rate=0.5}"
+     */
+    String[] getMetrics();
+
+    /**
+     * @param  count
+     *                   the number of frames
+     * @return       the most recent frames, oldest first
+     */
+    String[] dumpFrames(int count);
+}
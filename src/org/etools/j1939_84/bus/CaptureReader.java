@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.etools.j1939_84.bus.CaptureWriter.END_MAGIC;
+import static org.etools.j1939_84.bus.CaptureWriter.FLAG_TX;
+import static org.etools.j1939_84.bus.CaptureWriter.HEADER_LENGTH;
+import static org.etools.j1939_84.bus.CaptureWriter.MAGIC;
+import static org.etools.j1939_84.bus.CaptureWriter.MAX_RECORD_LENGTH;
+import static org.etools.j1939_84.bus.CaptureWriter.TRAILER_LENGTH;
+import static org.etools.j1939_84.bus.CaptureWriter.TYPE_FRAME;
+import static org.etools.j1939_84.bus.CaptureWriter.TYPE_INDEX;
+import static org.etools.j1939_84.bus.CaptureWriter.TYPE_TRAILER;
+import static org.etools.j1939_84.bus.CaptureWriter.VERSION;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a capture file written by {@link CaptureWriter}.
+ *
+ * The file is memory mapped, so only the blocks that are actually read are
+ * paged in. The block index is loaded from the trailer when the file was
+ * closed cleanly, otherwise it is rebuilt by walking the record lengths.
+ */
+public class CaptureReader implements AutoCloseable {
+
+    /** Used as a PGN or source address to match any value. */
+    public static final int ANY = -1;
+
+    /**
+     * Each segment maps this many bytes plus the largest record, so a record
+     * never spans two segments.
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final long GIGA = 1000000000;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long size;
+
+    private final long createdNanos;
+
+    private final List<Block> blocks;
+
+    /**
+     * Opens a capture file for reading.
+     *
+     * @param  file
+     *                         the capture file
+     * @throws IOException
+     *                         if the file cannot be read or is not a capture file
+     */
+    public CaptureReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) (size / SEGMENT_SIZE) + 1];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(SEGMENT_SIZE + MAX_RECORD_LENGTH, size - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            if (size < HEADER_LENGTH) {
+                throw new IOException(file + " is not a capture file.");
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (get(i) != MAGIC[i]) {
+                    throw new IOException(file + " is not a capture file.");
+                }
+            }
+            short version = getShort(MAGIC.length);
+            if (version != VERSION) {
+                throw new IOException("Unsupported capture file version " + version);
+            }
+            createdNanos = getLong(MAGIC.length + 2);
+
+            long lastIndex = readTrailer();
+            blocks = Collections.unmodifiableList(lastIndex < -1 ? scanBlocks() : loadBlocks(lastIndex));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int key(int pgn, int sourceAddress) {
+        return pgn << 8 | sourceAddress;
+    }
+
+    /** Same rules as {@link Packet#getPgn()} applied to a 29 bit id. */
+    static int pgnOf(int canId) {
+        int id = (canId >> 8) & 0x3FFFF;
+        if (id < 0xF000) {
+            id &= 0xFF00;
+        }
+        return id;
+    }
+
+    /** Converts nanoseconds since the epoch to the local time. */
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochNanos / GIGA, epochNanos % GIGA),
+                                       ZoneId.systemDefault());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Time the file was created in nanoseconds since the epoch. */
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    /** Time of the earliest frame in nanoseconds since the epoch. */
+    public long getStartNanos() {
+        return blocks.stream().mapToLong(b -> b.minNanos).min().orElse(createdNanos);
+    }
+
+    /** Time of the latest frame in nanoseconds since the epoch. */
+    public long getEndNanos() {
+        return blocks.stream().mapToLong(b -> b.maxNanos).max().orElse(createdNanos);
+    }
+
+    public long getFrameCount() {
+        return blocks.stream().mapToLong(b -> b.frames).sum();
+    }
+
+    /** Returns the number of index blocks in the file. */
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns every frame in the file in file order. Frames with fewer than the
+     * three data bytes of a {@link Packet} are skipped; see
+     * {@link #readFrames(long, int, int)}.
+     */
+    public Stream<Packet> read() {
+        return read(Long.MIN_VALUE, ANY, ANY);
+    }
+
+    /**
+     * Returns the frames received at or after the given time.
+     *
+     * @param fromEpochNanos
+     *                           the time to seek to
+     */
+    public Stream<Packet> read(long fromEpochNanos) {
+        return read(fromEpochNanos, ANY, ANY);
+    }
+
+    /**
+     * Returns the frames received at or after the given time that match the
+     * PGN and source address. Blocks whose index shows they do not contain the
+     * PGN/SA are skipped without being read.
+     *
+     * @param fromEpochNanos
+     *                           the time to seek to
+     * @param pgn
+     *                           the PGN to match or {@link #ANY}
+     * @param sourceAddress
+     *                           the source address to match or {@link #ANY}
+     */
+    public Stream<Packet> read(long fromEpochNanos, int pgn, int sourceAddress) {
+        return readFrames(fromEpochNanos, pgn, sourceAddress).map(Frame::toPacket).filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the frames as they were recorded, including those with fewer
+     * than the three data bytes of a {@link Packet}, which are legal on the
+     * bus.
+     *
+     * @param fromEpochNanos
+     *                           the time to seek to
+     * @param pgn
+     *                           the PGN to match or {@link #ANY}
+     * @param sourceAddress
+     *                           the source address to match or {@link #ANY}
+     */
+    public Stream<Frame> readFrames(long fromEpochNanos, int pgn, int sourceAddress) {
+        return StreamSupport.stream(new FrameSpliterator(fromEpochNanos, pgn, sourceAddress), false);
+    }
+
+    private byte get(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+    }
+
+    private short getShort(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].getShort((int) (position % SEGMENT_SIZE));
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].getInt((int) (position % SEGMENT_SIZE));
+    }
+
+    private long getLong(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    private int getLength(long position) {
+        return getShort(position) & 0xFFFF;
+    }
+
+    /**
+     * @return the offset of the last index, -1 if there are none or -2 if
+     *         there is no trailer
+     */
+    private long readTrailer() {
+        long trailer = size - TRAILER_LENGTH;
+        if (trailer < HEADER_LENGTH || getLength(trailer) != TRAILER_LENGTH - 2
+                || get(trailer + 2) != TYPE_TRAILER) {
+            return -2;
+        }
+        for (int i = 0; i < END_MAGIC.length; i++) {
+            if (get(trailer + 11 + i) != END_MAGIC[i]) {
+                return -2;
+            }
+        }
+        return getLong(trailer + 3);
+    }
+
+    /** Follows the index chain back from the trailer. */
+    private List<Block> loadBlocks(long lastIndex) {
+        List<Block> list = new ArrayList<>();
+        for (long index = lastIndex; index >= HEADER_LENGTH; index = getLong(index + 11)) {
+            list.add(readIndex(index));
+        }
+        Collections.reverse(list);
+        return list;
+    }
+
+    /** Rebuilds the index of a file that was not closed. */
+    private List<Block> scanBlocks() {
+        List<Block> list = new ArrayList<>();
+        Block pending = null;
+        TreeSet<Integer> keys = new TreeSet<>();
+        long position = HEADER_LENGTH;
+        while (position + 3 <= size) {
+            int length = getLength(position);
+            long end = position + 2 + length;
+            if (length == 0 || end > size) {
+                // truncated record
+                break;
+            }
+            byte type = get(position + 2);
+            if (type == TYPE_INDEX) {
+                list.add(readIndex(position));
+                pending = null;
+                keys.clear();
+            } else if (type == TYPE_FRAME) {
+                long nanos = getLong(position + 3);
+                int canId = getInt(position + 11);
+                if (pending == null) {
+                    pending = new Block(position, position, nanos, nanos, 0, null);
+                }
+                pending.end = end;
+                pending.minNanos = Math.min(pending.minNanos, nanos);
+                pending.maxNanos = Math.max(pending.maxNanos, nanos);
+                pending.frames++;
+                keys.add(key(pgnOf(canId), canId & 0xFF));
+            }
+            position = end;
+        }
+        if (pending != null) {
+            pending.keys = keys.stream().mapToInt(k -> k).toArray();
+            list.add(pending);
+        }
+        return list;
+    }
+
+    private Block readIndex(long index) {
+        long start = getLong(index + 3);
+        long minNanos = getLong(index + 19);
+        long maxNanos = getLong(index + 27);
+        int frames = getInt(index + 35);
+        int keyCount = getShort(index + 39) & 0xFFFF;
+        int[] keys = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = getInt(index + 41 + 4L * i);
+        }
+        return new Block(start, index, minNanos, maxNanos, frames, keys);
+    }
+
+    /** One frame of the file. */
+    public static class Frame {
+        private final long epochNanos;
+        private final int canId;
+        private final boolean transmitted;
+        private final byte[] data;
+
+        Frame(long epochNanos, int canId, boolean transmitted, byte[] data) {
+            this.epochNanos = epochNanos;
+            this.canId = canId;
+            this.transmitted = transmitted;
+            this.data = data;
+        }
+
+        /** Receive time in nanoseconds since the epoch. */
+        public long getEpochNanos() {
+            return epochNanos;
+        }
+
+        /** The 29 bit CAN id. */
+        public int getCanId() {
+            return canId;
+        }
+
+        public boolean isTransmitted() {
+            return transmitted;
+        }
+
+        public byte[] getData() {
+            return data.clone();
+        }
+
+        /**
+         * @return the frame as a {@link Packet}, or null if it has fewer than
+         *         the three data bytes of one
+         */
+        public Packet toPacket() {
+            if (data.length < 3) {
+                return null;
+            }
+            return Packet.create(toLocalDateTime(epochNanos),
+                                 (canId >> 26) & 0x07,
+                                 (canId >> 8) & 0x3FFFF,
+                                 canId & 0xFF,
+                                 transmitted,
+                                 data);
+        }
+    }
+
+    /** The frames between two index records. */
+    private static class Block {
+        final long start;
+        long end;
+        long minNanos;
+        long maxNanos;
+        int frames;
+        /** sorted PGN/SA keys */
+        int[] keys;
+
+        Block(long start, long end, long minNanos, long maxNanos, int frames, int[] keys) {
+            this.start = start;
+            this.end = end;
+            this.minNanos = minNanos;
+            this.maxNanos = maxNanos;
+            this.frames = frames;
+            this.keys = keys;
+        }
+
+        boolean contains(int pgn, int sourceAddress) {
+            if (pgn == ANY && sourceAddress == ANY) {
+                return true;
+            }
+            if (pgn != ANY && sourceAddress != ANY) {
+                return Arrays.binarySearch(keys, key(pgn, sourceAddress)) >= 0;
+            }
+            for (int key : keys) {
+                if ((pgn == ANY || key >>> 8 == pgn) && (sourceAddress == ANY || (key & 0xFF) == sourceAddress)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private class FrameSpliterator implements Spliterator<Frame> {
+        private final long fromNanos;
+        private final int pgn;
+        private final int sourceAddress;
+        private int blockIndex = -1;
+        private long position;
+        private long end;
+
+        FrameSpliterator(long fromNanos, int pgn, int sourceAddress) {
+            this.fromNanos = fromNanos;
+            this.pgn = pgn;
+            this.sourceAddress = sourceAddress;
+        }
+
+        private boolean nextBlock() {
+            while (++blockIndex < blocks.size()) {
+                Block block = blocks.get(blockIndex);
+                if (block.maxNanos >= fromNanos && block.contains(pgn, sourceAddress)) {
+                    position = block.start;
+                    end = block.end;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Frame> action) {
+            while (position < end || nextBlock()) {
+                long record = position;
+                int length = getLength(record);
+                position = record + 2 + length;
+                if (get(record + 2) != TYPE_FRAME) {
+                    continue;
+                }
+                long nanos = getLong(record + 3);
+                int canId = getInt(record + 11);
+                int dlc = getShort(record + 16) & 0xFFFF;
+                if (nanos < fromNanos
+                        || (pgn != ANY && pgnOf(canId) != pgn)
+                        || (sourceAddress != ANY && (canId & 0xFF) != sourceAddress)) {
+                    continue;
+                }
+                byte[] data = new byte[dlc];
+                for (int i = 0; i < dlc; i++) {
+                    data[i] = get(record + 18 + i);
+                }
+                action.accept(new Frame(nanos, canId, (get(record + 15) & FLAG_TX) != 0, data));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Frame> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
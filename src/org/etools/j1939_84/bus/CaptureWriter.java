@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * Writes frames to a compact, append-only binary capture file.
+ *
+ * The file starts with a header (magic, version and creation time) followed by
+ * length prefixed records. Each record is a two byte length, a one byte type
+ * and a body:
+ *
+ * <pre>
+ * FRAME   epoch nanos (8), 29 bit id (4), flags (1), DLC (2), data (DLC)
+ * INDEX   block start offset (8), previous index offset (8), min nanos (8),
+ *         max nanos (8), frame count (4), key count (2), PGN/SA keys (4 each)
+ * TRAILER last index offset (8), end magic (8)
+ * </pre>
+ *
+ * An INDEX record follows every block of frames and covers the frames since
+ * the previous INDEX, so a {@link CaptureReader} can seek by time and skip
+ * blocks that do not contain a PGN/SA without reading the frames. The TRAILER
+ * is only written on {@link #close()}; files without one are still readable.
+ */
+public class CaptureWriter implements AutoCloseable {
+
+    /** Capture file extension. */
+    public static final String EXTENSION = ".j1939cap";
+
+    static final byte[] MAGIC = "J1939CAP".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] END_MAGIC = "J1939END".getBytes(StandardCharsets.US_ASCII);
+    static final short VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + 2 + 8;
+
+    static final byte TYPE_FRAME = 1;
+    static final byte TYPE_INDEX = 2;
+    static final byte TYPE_TRAILER = 3;
+
+    /** length (2) + type (1) + last index (8) + end magic (8) */
+    static final int TRAILER_LENGTH = 2 + 1 + 8 + END_MAGIC.length;
+
+    /** Largest frame data; a full TP message is 1785 bytes. */
+    static final int MAX_DATA_LENGTH = 1785;
+
+    /** Largest record of any type, including the length prefix. */
+    static final int MAX_RECORD_LENGTH = 2 + 0xFFFF;
+
+    static final int FLAG_TX = 0x01;
+
+    /** The system property with the most recordings kept. */
+    public static final String MAX_FILES_PROPERTY = "j1939.captures.files";
+
+    /** The system property with the most megabytes of recordings kept. */
+    public static final String MAX_MEGABYTES_PROPERTY = "j1939.captures.megabytes";
+
+    /** The start of the names of the recordings of the bus. */
+    static final String PREFIX = "j1939_84-";
+
+    /** Close the current index block after this many frames. */
+    private static final int INDEX_FRAMES = 4096;
+
+    /** Close the current index block after this much capture time. */
+    private static final long INDEX_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long GIGA = 1000000000;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private final Set<Integer> blockKeys = new TreeSet<>();
+
+    private long position;
+
+    private long blockStart;
+
+    private long blockMinNanos;
+
+    private long blockMaxNanos;
+
+    private int blockFrames;
+
+    private long lastIndex = -1;
+
+    private boolean closed;
+
+    /**
+     * Creates a new capture file, replacing any existing file.
+     *
+     * @param  file
+     *                         the file to write
+     * @throws IOException
+     *                         if the file cannot be created
+     */
+    public CaptureWriter(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(),
+                                   StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.put(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putLong(toEpochNanos(LocalDateTime.now()));
+        position = HEADER_LENGTH;
+        blockStart = position;
+    }
+
+    /**
+     * Records every packet read from the bus on a background thread until the
+     * bus is closed or the returned writer is closed.
+     *
+     * @param  bus
+     *                         the raw {@link Bus} to record
+     * @param  file
+     *                         the capture file
+     * @return             the writer; close it to stop recording
+     * @throws IOException
+     *                         if the file cannot be created
+     * @throws BusException
+     *                         if the bus cannot be read
+     */
+    public static CaptureWriter record(Bus bus, File file) throws IOException, BusException {
+        CaptureWriter writer = new CaptureWriter(file);
+        // open the stream on this thread so no packets are missed during thread start up
+        Stream<Packet> stream = bus.read(365, TimeUnit.DAYS);
+        Threads.start("Capture Writer", true, () -> {
+            try {
+                stream.takeWhile(p -> !writer.isClosed()).forEach(writer::write);
+            } finally {
+                stream.close();
+                writer.close();
+            }
+        });
+        J1939_84.getLogger().log(Level.INFO, "Recording bus traffic to " + file.getAbsolutePath());
+        return writer;
+    }
+
+    /**
+     * Returns a new capture file in the same directory as the application log
+     * files. The oldest recordings are deleted first, so no more than
+     * {@link #MAX_FILES_PROPERTY} of them (20 by default), and no more than
+     * {@link #MAX_MEGABYTES_PROPERTY} (2048 by default), are kept with the new
+     * one.
+     */
+    public static File createDefaultFile() {
+        File directory = getCaptureDirectory();
+        deleteOldest(directory,
+                     name -> name.startsWith(PREFIX) && name.length() > PREFIX.length()
+                             && Character.isDigit(name.charAt(PREFIX.length())) && name.endsWith(EXTENSION),
+                     Integer.getInteger(MAX_FILES_PROPERTY, 20) - 1,
+                     Long.getLong(MAX_MEGABYTES_PROPERTY, 2048) << 20);
+        String name = PREFIX + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now());
+        return new File(directory, name + EXTENSION);
+    }
+
+    /**
+     * @return the directory of the recordings of the bus
+     */
+    public static File getCaptureDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Deletes the oldest of the files of a directory until no more than a
+     * number of them, and of bytes, are left.
+     *
+     * @param directory
+     *                      the directory
+     * @param names
+     *                      selects the files by name
+     * @param maxFiles
+     *                      the most files kept
+     * @param maxBytes
+     *                      the most bytes kept
+     */
+    public static void deleteOldest(File directory, Predicate<String> names, int maxFiles, long maxBytes) {
+        File[] files = directory.listFiles(f -> f.isFile() && names.test(f.getName()));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        long bytes = 0;
+        for (int i = 0; i < files.length; i++) {
+            bytes += files[i].length();
+            if (i >= maxFiles || bytes > maxBytes) {
+                if (!files[i].delete()) {
+                    J1939_84.getLogger().log(Level.WARNING, "Unable to delete " + files[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the time in nanoseconds since the epoch
+     */
+    public static long toEpochNanos(LocalDateTime time) {
+        var instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * GIGA + instant.getNano();
+    }
+
+    static int toCanId(Packet packet) {
+        return (packet.getPriority() & 0x07) << 26 | packet.getId(0x3FFFF) << 8 | packet.getSource();
+    }
+
+    /**
+     * Appends the packet to the capture. Incomplete and failed packets are
+     * ignored.
+     */
+    public synchronized void write(Packet packet) {
+        byte[] data;
+        try {
+            data = packet.getBytes();
+        } catch (Packet.PacketException e) {
+            return;
+        }
+        write(toEpochNanos(packet.getTimestamp()), toCanId(packet), packet.isTransmitted(), data, data.length);
+    }
+
+    /**
+     * Appends one frame to the capture.
+     *
+     * @param epochNanos
+     *                       receive time in nanoseconds since the epoch
+     * @param canId
+     *                       the 29 bit CAN id
+     * @param transmitted
+     *                       true if the frame was sent by this tool
+     * @param data
+     *                       the frame data
+     * @param length
+     *                       the number of bytes of data to record
+     */
+    public synchronized void write(long epochNanos, int canId, boolean transmitted, byte[] data, int length) {
+        if (closed) {
+            return;
+        }
+        if (length > MAX_DATA_LENGTH) {
+            throw new IllegalArgumentException("Frames are limited to " + MAX_DATA_LENGTH + " bytes.");
+        }
+        try {
+            if (blockFrames > 0 && (blockFrames >= INDEX_FRAMES || epochNanos - blockMinNanos >= INDEX_NANOS)) {
+                writeIndex();
+            }
+            int bodyLength = 1 + 8 + 4 + 1 + 2 + length;
+            ensureCapacity(2 + bodyLength);
+            buffer.putShort((short) bodyLength);
+            buffer.put(TYPE_FRAME);
+            buffer.putLong(epochNanos);
+            buffer.putInt(canId & 0x1FFFFFFF);
+            buffer.put((byte) (transmitted ? FLAG_TX : 0));
+            buffer.putShort((short) length);
+            buffer.put(data, 0, length);
+            position += 2 + bodyLength;
+
+            if (blockFrames++ == 0) {
+                blockMinNanos = epochNanos;
+                blockMaxNanos = epochNanos;
+            } else {
+                blockMinNanos = Math.min(blockMinNanos, epochNanos);
+                blockMaxNanos = Math.max(blockMaxNanos, epochNanos);
+            }
+            blockKeys.add(CaptureReader.key(CaptureReader.pgnOf(canId), canId & 0xFF));
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.SEVERE, "Unable to write capture file.", e);
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Writes any buffered frames to disk.
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            drain();
+            channel.force(false);
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (blockFrames > 0) {
+                writeIndex();
+            }
+            ensureCapacity(TRAILER_LENGTH);
+            buffer.putShort((short) (TRAILER_LENGTH - 2));
+            buffer.put(TYPE_TRAILER);
+            buffer.putLong(lastIndex);
+            buffer.put(END_MAGIC);
+            drain();
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.SEVERE, "Unable to close capture file.", e);
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.WARNING, "Unable to close capture file.", e);
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        int bodyLength = 1 + 8 + 8 + 8 + 8 + 4 + 2 + 4 * blockKeys.size();
+        ensureCapacity(2 + bodyLength);
+        long indexPosition = position;
+        buffer.putShort((short) bodyLength);
+        buffer.put(TYPE_INDEX);
+        buffer.putLong(blockStart);
+        buffer.putLong(lastIndex);
+        buffer.putLong(blockMinNanos);
+        buffer.putLong(blockMaxNanos);
+        buffer.putInt(blockFrames);
+        buffer.putShort((short) blockKeys.size());
+        for (int key : blockKeys) {
+            buffer.putInt(key);
+        }
+        position += 2 + bodyLength;
+
+        lastIndex = indexPosition;
+        blockStart = position;
+        blockFrames = 0;
+        blockKeys.clear();
+        // make the completed block visible to readers
+        drain();
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
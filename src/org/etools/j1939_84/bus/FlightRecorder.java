@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.controllers.SessionContext;
+
+/**
+ * Keeps the frames of the last few minutes on the bus selected in
+ * {@link RP1210}, so the traffic around an intermittent failure can be saved
+ * after the fact. The {@link BusMonitor} reads the recent frames from it.
+ *
+ * The frames are kept in parallel arrays, so there is no object for each
+ * frame. The arrays are allocated when the first frame arrives, so the
+ * recorder costs nothing until a bus is used, and do not grow after that.
+ * They hold {@link #PROPERTY} seconds at {@link #FRAMES_PER_SECOND}, with an
+ * average of eight data bytes a frame, which is 30 bytes a frame or about 11
+ * MB for the default two minutes. At a higher rate, or with longer frames,
+ * they hold less time; frames older than that many seconds before the newest
+ * are not saved.
+ *
+ * The recorder also counts the frames of each of the last
+ * {@link #RATE_SECONDS} seconds, as it receives them, for the frame rate of
+ * the {@link BusMonitor}.
+ *
+ * The frames are saved in the {@link CaptureWriter} format when a test fails,
+ * when a TP session is aborted, and when the user asks. Only the newest
+ * {@link #MAX_FILES} saves are kept.
+ */
+public class FlightRecorder {
+
+    /** The system property with the number of seconds of frames kept. */
+    public static final String PROPERTY = "j1939.recorder.seconds";
+
+    /** The busiest bus the recorder is sized for. */
+    static final int FRAMES_PER_SECOND = 3000;
+
+    /** The start of the names of the saved files. */
+    static final String PREFIX = "j1939_84-flight-";
+
+    /** The number of saved files kept. */
+    static final int MAX_FILES = 10;
+
+    /** The number of seconds the frame rate is averaged over. */
+    static final int RATE_SECONDS = 5;
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** The number of seconds of frames kept at {@link #FRAMES_PER_SECOND} */
+    private static final int SECONDS = Integer.getInteger(PROPERTY, 120);
+
+    /** The data bytes kept for each frame, on average. */
+    private static final int BYTES_PER_FRAME = 8;
+
+    /** The least time between saves that were not asked for by the user. */
+    private static final long TRIGGER_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int TX = 1 << 31;
+
+    private static final FlightRecorder instance = new FlightRecorder();
+
+    /** The most frames kept */
+    private final int capacity;
+
+    /** How long before the newest frame the frames are kept */
+    private final long windowNanos;
+
+    /** The receive time of each frame in nanoseconds since the epoch */
+    private long[] times;
+
+    /** The CAN id of each frame, with {@link #TX} set if it was transmitted */
+    private int[] ids;
+
+    /** Where the data of each frame starts in the total data written */
+    private long[] offsets;
+
+    private short[] lengths;
+
+    private byte[] data;
+
+    /** The number of frames written */
+    private long frameCount;
+
+    /** The number of data bytes written */
+    private long dataCount;
+
+    private long lastTrigger = System.nanoTime() - TRIGGER_INTERVAL;
+
+    /** The time in nanoseconds, System.nanoTime() but for tests */
+    private final LongSupplier clock;
+
+    /** When the bus was selected, from the clock */
+    private long startNanos;
+
+    /**
+     * The frames received in each of the seconds of the rate, and in the
+     * current one, indexed by the second modulo their number
+     */
+    private final long[] secondCounts = new long[RATE_SECONDS + 1];
+
+    /** The second of the clock each count is of */
+    private final long[] seconds = new long[RATE_SECONDS + 1];
+
+    private Stream<Packet> stream;
+
+    /**
+     * Creates a recorder of its own, apart from the one of the application,
+     * such as for a {@link SessionContext}. It keeps {@link #PROPERTY}
+     * seconds of frames.
+     */
+    public FlightRecorder() {
+        this(TimeUnit.SECONDS.toNanos(SECONDS), SECONDS * FRAMES_PER_SECOND);
+    }
+
+    /**
+     * @param windowNanos
+     *                        how long before the newest frame the frames are
+     *                        kept
+     * @param frames
+     *                        the most frames kept
+     */
+    FlightRecorder(long windowNanos, int frames) {
+        this(windowNanos, frames, System::nanoTime);
+    }
+
+    /**
+     * @param windowNanos
+     *                        how long before the newest frame the frames are
+     *                        kept
+     * @param frames
+     *                        the most frames kept
+     * @param clock
+     *                        the time in nanoseconds, for the frame rate
+     */
+    FlightRecorder(long windowNanos, int frames, LongSupplier clock) {
+        this.windowNanos = windowNanos;
+        capacity = frames;
+        this.clock = clock;
+        startNanos = clock.getAsLong();
+    }
+
+    /**
+     * @return the recorder of the {@link SessionContext} of the current
+     *         thread, or of the application
+     */
+    public static FlightRecorder getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getFlightRecorder();
+    }
+
+    /**
+     * @return the recorder of the application, whatever thread asks
+     */
+    static FlightRecorder getApplicationInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts recording a bus, replacing the previous bus and its frames.
+     *
+     * @param bus
+     *                the bus of individual frames
+     */
+    synchronized void record(Bus bus) {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+        frameCount = 0;
+        dataCount = 0;
+        startNanos = clock.getAsLong();
+        Arrays.fill(secondCounts, 0);
+
+        // virtual time would advance to the end of a stream that never ends
+        if (!VirtualClock.isEnabled()) {
+            try {
+                Stream<Packet> s = bus.read(365, TimeUnit.DAYS);
+                stream = s;
+                Threads.start("Flight Recorder", true, () -> {
+                    try {
+                        s.forEach(this::add);
+                    } finally {
+                        s.close();
+                    }
+                });
+            } catch (BusException e) {
+                J1939_84.getLogger().log(Level.WARNING, "Unable to record bus.", e);
+            }
+        }
+    }
+
+    /**
+     * Adds a frame, replacing the oldest. Frames longer than the data kept
+     * are ignored, as are incomplete and failed frames.
+     */
+    void add(Packet packet) {
+        if (!packet.isComplete() || packet.isFailed()) {
+            return;
+        }
+        int length = packet.getLength();
+        if (length > capacity * BYTES_PER_FRAME) {
+            return;
+        }
+        long time = CaptureWriter.toEpochNanos(packet.getTimestamp());
+        int id = CaptureWriter.toCanId(packet) | (packet.isTransmitted() ? TX : 0);
+        long second = Math.floorDiv(clock.getAsLong(), SECOND);
+        synchronized (this) {
+            int bucket = (int) Math.floorMod(second, (long) seconds.length);
+            if (seconds[bucket] != second) {
+                seconds[bucket] = second;
+                secondCounts[bucket] = 0;
+            }
+            secondCounts[bucket]++;
+
+            if (times == null) {
+                times = new long[capacity];
+                ids = new int[capacity];
+                offsets = new long[capacity];
+                lengths = new short[capacity];
+                data = new byte[capacity * BYTES_PER_FRAME];
+            }
+            int frame = (int) (frameCount++ % capacity);
+            times[frame] = time;
+            ids[frame] = id;
+            offsets[frame] = dataCount;
+            lengths[frame] = (short) length;
+            for (int i = 0; i < length; i++) {
+                data[(int) (dataCount++ % data.length)] = (byte) packet.get(i);
+            }
+        }
+    }
+
+    /**
+     * @return the number of frames recorded since the bus was selected,
+     *         including those no longer kept
+     */
+    public synchronized long getRecordedCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the frames per second received over the last
+     * {@link #RATE_SECONDS} seconds and the current one so far, or since the
+     * bus was selected if that is less. Reading it changes nothing.
+     *
+     * @return the frames per second
+     */
+    public synchronized double getFramesPerSecond() {
+        long now = clock.getAsLong();
+        long second = Math.floorDiv(now, SECOND);
+        long count = 0;
+        for (int i = 0; i < seconds.length; i++) {
+            if (second - seconds[i] <= RATE_SECONDS) {
+                count += secondCounts[i];
+            }
+        }
+        long nanos = Math.min(RATE_SECONDS * SECOND + Math.floorMod(now, SECOND), now - startNanos);
+        return count / ((double) Math.max(1, nanos) / SECOND);
+    }
+
+    /**
+     * @return the number of frames kept now
+     */
+    public synchronized int getFrameCount() {
+        return (int) (frameCount - getFirstFrame());
+    }
+
+    /**
+     * Returns the oldest frame with all of its data still kept, and received
+     * within the window before the newest.
+     */
+    private long getFirstFrame() {
+        if (frameCount == 0) {
+            return 0;
+        }
+        long first = Math.max(0, frameCount - capacity);
+        long oldest = times[(int) ((frameCount - 1) % capacity)] - windowNanos;
+        while (first < frameCount && (offsets[(int) (first % capacity)] < dataCount - data.length
+                || times[(int) (first % capacity)] < oldest)) {
+            first++;
+        }
+        return first;
+    }
+
+    /**
+     * @return the most frames that are kept
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param  count
+     *                   the most frames returned
+     * @return       the most recent frames kept, oldest first
+     */
+    synchronized Packet[] getRecentFrames(int count) {
+        long first = Math.max(getFirstFrame(), frameCount - Math.max(0, count));
+        Packet[] packets = new Packet[(int) (frameCount - first)];
+        for (long f = first; f < frameCount; f++) {
+            int frame = (int) (f % capacity);
+            int[] bytes = new int[lengths[frame]];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = data[(int) ((offsets[frame] + i) % data.length)] & 0xFF;
+            }
+            int id = ids[frame];
+            packets[(int) (f - first)] = Packet.createFrame(CaptureReader.toLocalDateTime(times[frame]),
+                                                            (id >> 26) & 0x07,
+                                                            (id >> 8) & 0x3FFFF,
+                                                            id & 0xFF,
+                                                            id < 0,
+                                                            bytes);
+        }
+        return packets;
+    }
+
+    /**
+     * Saves the frames kept to a file next to the capture files.
+     *
+     * @return             the file, or null if there are no frames
+     * @throws IOException
+     *                         if the file cannot be written
+     */
+    public File dump() throws IOException {
+        return dump(createFile(CaptureWriter.getCaptureDirectory()));
+    }
+
+    /**
+     * Saves the frames kept to a file. The frames are copied while the
+     * recorder is locked and written after, so the bus is not held up while
+     * the file is written.
+     *
+     * @param  file
+     *                         the file to write
+     * @return             the file, or null if there are no frames
+     * @throws IOException
+     *                         if the file cannot be written
+     */
+    public File dump(File file) throws IOException {
+        long[] frameTimes;
+        int[] frameIds;
+        short[] frameLengths;
+        byte[] frameData;
+        synchronized (this) {
+            long first = getFirstFrame();
+            int count = (int) (frameCount - first);
+            if (count == 0) {
+                return null;
+            }
+            frameTimes = new long[count];
+            frameIds = new int[count];
+            frameLengths = new short[count];
+            copy(times, first, frameTimes, count);
+            copy(ids, first, frameIds, count);
+            copy(lengths, first, frameLengths, count);
+            // the data of the frames is contiguous, from the first to the end
+            long start = offsets[(int) (first % capacity)];
+            frameData = new byte[(int) (dataCount - start)];
+            copy(data, start, frameData, frameData.length);
+        }
+        byte[] bytes = new byte[CaptureWriter.MAX_DATA_LENGTH];
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            int offset = 0;
+            for (int f = 0; f < frameTimes.length; f++) {
+                int length = frameLengths[f];
+                System.arraycopy(frameData, offset, bytes, 0, length);
+                offset += length;
+                writer.write(frameTimes[f], frameIds[f] & ~TX, frameIds[f] < 0, bytes, length);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Copies elements of one of the ring arrays, in order.
+     *
+     * @param ring
+     *                  the ring array
+     * @param from
+     *                  the count of the first element copied, which wraps
+     * @param to
+     *                  the array copied to, from its start
+     * @param count
+     *                  the number of elements copied
+     */
+    private static void copy(Object ring, long from, Object to, int count) {
+        int size = Array.getLength(ring);
+        int start = (int) (from % size);
+        int head = Math.min(count, size - start);
+        System.arraycopy(ring, start, to, 0, head);
+        System.arraycopy(ring, 0, to, head, count - head);
+    }
+
+    /**
+     * Saves the frames kept on a background thread because something went
+     * wrong, unless it was done a short time ago.
+     *
+     * @param  reason
+     *                    what went wrong, for the log
+     * @return        the file the frames will be saved in, or null if they
+     *                will not be saved
+     */
+    public File trigger(String reason) {
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (getFrameCount() == 0 || now - lastTrigger < TRIGGER_INTERVAL) {
+                return null;
+            }
+            lastTrigger = now;
+        }
+        File file = createFile(CaptureWriter.getCaptureDirectory());
+        Threads.start("Flight Recorder Dump", false, () -> {
+            try {
+                dump(file);
+                J1939_84.getLogger().log(Level.INFO, "Saved recent bus traffic to " + file + " after " + reason);
+            } catch (IOException e) {
+                J1939_84.getLogger().log(Level.WARNING, "Unable to save recent bus traffic to " + file, e);
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Returns a new file for a save, deleting the oldest saves so no more
+     * than {@link #MAX_FILES} are left with it.
+     *
+     * @param  directory
+     *                       the directory of the saves
+     * @return           the file
+     */
+    static File createFile(File directory) {
+        CaptureWriter.deleteOldest(directory,
+                                   name -> name.startsWith(PREFIX) && name.endsWith(CaptureWriter.EXTENSION),
+                                   MAX_FILES - 1,
+                                   Long.MAX_VALUE);
+        String name = PREFIX + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").format(LocalDateTime.now());
+        return new File(directory, name + CaptureWriter.EXTENSION);
+    }
+}
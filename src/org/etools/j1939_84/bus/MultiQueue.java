@@ -3,13 +3,23 @@
  */
 package org.etools.j1939_84.bus;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.Histogram;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+
 /**
  * The multiqueue is a linked list that multiple visitors can traverse
  * concurrently. Adding items only adds them to open streams. The MultiQueue is
@@ -24,15 +34,104 @@ import java.util.stream.StreamSupport;
  */
 public class MultiQueue<T> implements AutoCloseable {
 
+    /** Every queue, so the open streams can be listed for monitoring */
+    private static final Set<MultiQueue<?>> QUEUES = Collections.synchronizedSet(
+                                                                              Collections.newSetFromMap(new WeakHashMap<>()));
+
     private final WeakHashMap<Stream<T>, SpliteratorImplementation<T>> spliterators = new WeakHashMap<>();
-    private MultiQueue.Item<T> list = new MultiQueue.Item<>(null);
+    private volatile MultiQueue.Item<T> list = new MultiQueue.Item<>(null, 0);
+
+    /**
+     * Signals the readers at the tail that an item was added. A lock rather
+     * than the monitors of the items, so virtual threads waiting for packets
+     * do not pin their carrier threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition added = lock.newCondition();
+
+    /**
+     * The number of streams opened on the queues of the registry of the
+     * thread that created the queue
+     */
+    private final Counter streams = MetricsRegistry.getInstance().counter("multiqueue.streams");
+
+    /** How many items a stream is behind the tail when it reads an item */
+    private final Histogram lag = MetricsRegistry.getInstance().histogram("multiqueue.lag");
+
+    public MultiQueue() {
+        QUEUES.add(this);
+    }
+
+    /**
+     * Describes the streams that are open on all of the queues with how many
+     * items each is behind and how long until it times out.
+     *
+     * @return one line for each open stream
+     */
+    public static List<String> getStreams() {
+        List<MultiQueue<?>> queues;
+        synchronized (QUEUES) {
+            queues = new ArrayList<>(QUEUES);
+        }
+        List<String> result = new ArrayList<>();
+        long now = VirtualClock.currentTimeMillis();
+        for (MultiQueue<?> queue : queues) {
+            synchronized (queue) {
+                for (SpliteratorImplementation<?> spliterator : queue.spliterators.values()) {
+                    Item<?> item = spliterator.item;
+                    long end = spliterator.end;
+                    if (item != null && end > now) {
+                        result.add(String.format("queue %08X: lag %d, %d ms left",
+                                                 System.identityHashCode(queue),
+                                                 queue.list.index - item.index,
+                                                 end - now));
+                    }
+                }
+            }
+        }
+        return result;
+    }
 
     synchronized public void add(T v) {
         list = list.add(v);
+        lock.lock();
+        try {
+            added.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        VirtualClock.activity();
+    }
+
+    /**
+     * Waits for the item after the given item.
+     *
+     * @param  item
+     *                   the item that has been read
+     * @param  delay
+     *                   the most milliseconds to wait
+     * @return       the next item or null if none was added in time
+     */
+    private Item<T> next(Item<T> item, long delay) {
+        Item<T> next = item.next;
+        if (next == null) {
+            lock.lock();
+            try {
+                if (item.next == null) {
+                    added.await(delay, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                // no problem
+            } finally {
+                lock.unlock();
+            }
+            next = item.next;
+        }
+        return next;
     }
 
     @Override
-    public void close() {
+    synchronized public void close() {
         // close all of the spliterators.
         spliterators.values().forEach(SpliteratorImplementation<T>::close);
     }
@@ -47,7 +146,7 @@ public class MultiQueue<T> implements AutoCloseable {
      * @return        The new stream, independent of the original, but starting at the same
      *                location the original is right now.
      */
-    public Stream<T> duplicate(Stream<T> stream, int time, TimeUnit unit) {
+    synchronized public Stream<T> duplicate(Stream<T> stream, int time, TimeUnit unit) {
         SpliteratorImplementation<T> oldSpliterator = spliterators.get(stream);
         if (oldSpliterator.item == null) {
             throw new IllegalStateException("stream has already been closed.");
@@ -69,7 +168,7 @@ public class MultiQueue<T> implements AutoCloseable {
      * @param time
      * @param unit
      */
-    public void resetTimeout(Stream<T> stream, int time, TimeUnit unit) {
+    synchronized public void resetTimeout(Stream<T> stream, int time, TimeUnit unit) {
         MultiQueue.SpliteratorImplementation<T> spliterator = spliterators.get(stream);
         if (spliterator == null) {
             throw new IllegalArgumentException("Invalid stream.");
@@ -87,7 +186,7 @@ public class MultiQueue<T> implements AutoCloseable {
      * @return         the stream
      */
     synchronized public Stream<T> stream(long timeout, TimeUnit unit) {
-        SpliteratorImplementation<T> spliterator = new SpliteratorImplementation<>(list, timeout, unit);
+        SpliteratorImplementation<T> spliterator = new SpliteratorImplementation<>(this, list, timeout, unit);
         Stream<T> stream = StreamSupport.stream(spliterator, false);
         spliterators.put(stream, spliterator);
         stream.onClose(spliterator::close);
@@ -96,26 +195,17 @@ public class MultiQueue<T> implements AutoCloseable {
 
     static private class Item<T> {
         final T value;
-        MultiQueue.Item<T> next;
+        // position in the queue, to measure how far behind a stream is
+        final long index;
+        volatile MultiQueue.Item<T> next;
 
-        Item(T v) {
+        Item(T v, long index) {
             value = v;
+            this.index = index;
         }
 
-        synchronized MultiQueue.Item<T> add(T v) {
-            next = new MultiQueue.Item<>(v);
-            notifyAll();
-            return next;
-        }
-
-        synchronized MultiQueue.Item<T> next(long delay) {
-            if (next == null) {
-                try {
-                    wait(delay);
-                } catch (InterruptedException e) {
-                    // no problem
-                }
-            }
+        MultiQueue.Item<T> add(T v) {
+            next = new MultiQueue.Item<>(v, index + 1);
             return next;
         }
     }
@@ -127,10 +217,14 @@ public class MultiQueue<T> implements AutoCloseable {
         private long end;
         // reference to tail
         private Item<T> item;
+        // queue being read, to wait for items and for the lag metric
+        private final MultiQueue<T> queue;
 
-        private SpliteratorImplementation(Item<T> list, long timeout, TimeUnit unit) {
+        private SpliteratorImplementation(MultiQueue<T> queue, Item<T> list, long timeout, TimeUnit unit) {
+            this.queue = queue;
             item = list;
             setTimeout(timeout, unit);
+            queue.streams.increment();
         }
 
         public void close() {
@@ -139,12 +233,14 @@ public class MultiQueue<T> implements AutoCloseable {
         }
 
         public SpliteratorImplementation(MultiQueue.SpliteratorImplementation<T> that) {
+            queue = that.queue;
             item = that.item;
             end = that.end;
+            queue.streams.increment();
         }
 
         public void setTimeout(long timeout, TimeUnit unit) {
-            end = System.currentTimeMillis() + unit.toMillis(timeout);
+            end = VirtualClock.currentTimeMillis() + unit.toMillis(timeout);
         }
 
         @Override
@@ -153,10 +249,12 @@ public class MultiQueue<T> implements AutoCloseable {
              * While not timed out, wait up to POLLING_PERIOD ms for next packet, then loop.
              * This allows us to check for timeout and next packet in same thread.
              */
-            while (System.currentTimeMillis() < end) {
-                Item<T> n = item.next(POLLING_PERIOD);
+            while (VirtualClock.currentTimeMillis() < end) {
+                Item<T> current = item;
+                Item<T> n = VirtualClock.waitUntil(end, () -> queue.next(current, POLLING_PERIOD));
                 if (n != null) {
                     item = n;
+                    queue.lag.record(queue.list.index - n.index);
                     action.accept(n.value);
                     return true;
                 }
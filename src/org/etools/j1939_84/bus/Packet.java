@@ -10,6 +10,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -32,11 +33,20 @@ public class Packet {
      * The indication that a packet was transmitted
      */
     public static final String TX = " (TX)";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
     private final int id;
     private final int priority;
     private final int source;
     private final boolean transmitted;
-    private int[] data;
+    /** The data, or null until a TP message is complete */
+    private volatile int[] data;
+    /**
+     * Released when the data of a TP message arrives or it fails. A lock
+     * rather than the monitor, so a virtual thread waiting for the data does
+     * not pin its carrier thread.
+     */
+    private final CountDownLatch complete;
     private List<Packet> fragments = Collections.singletonList(this);
     private LocalDateTime timestamp;
 
@@ -60,16 +70,17 @@ public class Packet {
         this.id = id;
         this.source = source;
         this.transmitted = transmitted;
-        this.data = data;
         if (data != null) {
             for (int i = 0; i < data.length; i++) {
                 data[i] &= 0xFF;
             }
         }
+        this.data = data;
+        complete = data == null ? new CountDownLatch(1) : null;
     }
 
     public static Packet create(int id, int source, boolean transmitted, int... data) {
-        return new Packet(LocalDateTime.now(), 6, id, source, transmitted, data);
+        return new Packet(VirtualClock.now(), 6, id, source, transmitted, data);
     }
 
     /**
@@ -118,7 +129,7 @@ public class Packet {
      * @return             Packet
      */
     public static Packet create(int priority, int id, int source, boolean transmitted, byte... bytes) {
-        return create(LocalDateTime.now(), priority, id, source, transmitted, bytes);
+        return create(VirtualClock.now(), priority, id, source, transmitted, bytes);
     }
 
     public static Packet create(LocalDateTime time,
@@ -151,6 +162,19 @@ public class Packet {
         return new Packet(time, priority, id, source, transmitted, data);
     }
 
+    /**
+     * Creates a Packet of a frame as it was read from the bus, which may have
+     * fewer than the three data bytes the other factories require.
+     */
+    static Packet createFrame(LocalDateTime time,
+                              int priority,
+                              int id,
+                              int source,
+                              boolean transmitted,
+                              int... data) {
+        return new Packet(time, priority, id, source, transmitted, data);
+    }
+
     /**
      * Converts the value produced by Packet.toString() back into a Packet
      *
@@ -217,7 +241,9 @@ public class Packet {
 
     synchronized public void fail() {
         data = new int[0];
-        notifyAll();
+        if (complete != null) {
+            complete.countDown();
+        }
     }
 
     /**
@@ -321,13 +347,15 @@ public class Packet {
         return bytes;
     }
 
-    synchronized private int[] getData() {
+    private int[] getData() {
+        int[] data = this.data;
         while (data == null) {
             try {
-                wait();
+                complete.await();
             } catch (InterruptedException e) {
                 // No worries
             }
+            data = this.data;
         }
         if (data.length == 0) {
             throw new PacketException(String.format("Failed Packet: %s %06X%02X [?] ...",
@@ -342,11 +370,12 @@ public class Packet {
         if (isComplete()) {
             throw new PacketException("Packet already initialized.");
         }
-        this.data = new int[data.length];
+        int[] values = new int[data.length];
         for (int i = 0; i < data.length; i++) {
-            this.data[i] = (0xFF & data[i]);
+            values[i] = (0xFF & data[i]);
         }
-        notifyAll();
+        this.data = values;
+        complete.countDown();
     }
 
     /**
@@ -458,22 +487,55 @@ public class Packet {
                 && Objects.deepEquals(getData(), that.getData());
     }
 
+    /**
+     * Appends the value in upper case hex, with at least the number of digits.
+     */
+    static StringBuilder appendHex(StringBuilder sb, int value, int digits) {
+        int needed = Math.max(digits, (Integer.SIZE - Integer.numberOfLeadingZeros(value) + 3) / 4);
+        for (int shift = (needed - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX_DIGITS[(value >>> shift) & 0xF]);
+        }
+        return sb;
+    }
+
     @Override
     public String toString() {
-        return String.format("%06X%02X [%s] %s",
-                             priority << 18 | id,
-                             source,
-                             getLength(),
-                             Arrays.stream(getData())
-                                   .mapToObj(x -> String.format("%02X", x))
-                                   .collect(Collectors.joining(" "))
-                                     + (transmitted ? TX : RX));
+        int[] data = getData();
+        return appendTo(new StringBuilder(16 + data.length * 3 + TX.length()), data).toString();
+    }
+
+    /**
+     * Appends the id, length and data like "18FECA00 [8] 00 FF ..." without
+     * String.format, which would take most of the time of a request that is
+     * reported.
+     */
+    private StringBuilder appendTo(StringBuilder sb, int[] data) {
+        appendHex(sb, priority << 18 | id, 6);
+        appendHex(sb, source, 2);
+        sb.append(" [").append(data.length).append("] ");
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            appendHex(sb, data[i], 2);
+        }
+        return sb.append(transmitted ? TX : RX);
     }
 
     public boolean isComplete() {
         return data != null;
     }
 
+    /**
+     * Returns true if the transport of this packet failed
+     *
+     * @return boolean
+     */
+    public boolean isFailed() {
+        int[] data = this.data;
+        return data != null && data.length == 0;
+    }
+
     /**
      * Returns true if this packet was transmitted by the application
      *
@@ -495,8 +557,10 @@ public class Packet {
          * Collect data first, because timestamp is dynamic until the data is collected. This will block on the data. We
          * want to report the timestamp of final packet.
          */
-        String dataString = toString();
-        return DateTimeModule.getInstance().getTimeFormatter().format(timestamp) + " " + dataString;
+        int[] data = getData();
+        StringBuilder sb = new StringBuilder(32 + data.length * 3 + TX.length());
+        DateTimeModule.getInstance().getTimeFormatter().formatTo(timestamp, sb);
+        return appendTo(sb.append(' '), data).toString();
     }
 
     static public class PacketException extends RuntimeException {
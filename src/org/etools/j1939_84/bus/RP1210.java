@@ -10,13 +10,20 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.j1939.BroadcastCache;
 import org.etools.j1939_84.bus.j1939.J1939TP;
 import org.etools.j1939_84.bus.simulated.Engine;
+import org.etools.j1939_84.bus.simulated.RecordedVehicle;
+import org.etools.j1939_84.bus.trace.TraceImporter;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.utils.Lazy;
 import org.ini4j.Ini;
 import org.ini4j.Profile.Section;
 
@@ -33,6 +40,22 @@ public class RP1210 {
      */
     public static final short FAKE_DEV_ID = (short) -1;
 
+    /**
+     * The device Id used to indicate the adapter replays a capture file
+     */
+    public static final short REPLAY_DEV_ID = (short) -2;
+
+    /**
+     * The system property with a directory of traces and capture files that
+     * are offered for replay, whether testing or not
+     */
+    public static final String TRACES_PROPERTY = "j1939.traces";
+
+    /**
+     * The number of recent capture files offered as replay adapters
+     */
+    private static final int REPLAY_ADAPTERS = 10;
+
     static final String WINDOWS_PATH = System.getenv("WINDIR");
 
     /**
@@ -40,17 +63,29 @@ public class RP1210 {
      */
     private static final Adapter LOOP_BACK_ADAPTER = new Adapter("Loop Back Adapter", "Simulated", FAKE_DEV_ID);
 
+    /**
+     * The adapters of the default path, read at startup for the first
+     * {@link RP1210} to use them; later ones read them again
+     */
+    private static final AtomicReference<Lazy<List<Adapter>>> preloaded = new AtomicReference<>();
+
     private final File base;
 
+    /** True if the base is the default path, whose adapters may be preloaded */
+    private boolean defaultPath;
+
     private List<Adapter> adapters;
 
     private AutoCloseable engine;
 
+    private CaptureWriter capture;
+
     /**
      * Default Constructor
      */
     public RP1210() {
         this(WINDOWS_PATH);
+        defaultPath = true;
     }
 
     /**
@@ -75,20 +110,94 @@ public class RP1210 {
         if (adapters == null) {
             adapters = new ArrayList<>();
             adapters.addAll(getSyntheticAdapters());
-            adapters.addAll(parseAdapters());
+            adapters.addAll(readAdapters());
             adapters.sort(Comparator.comparing(Adapter::getName));
         }
         return adapters;
     }
 
+    /**
+     * Starts reading the adapters of the default path on a thread of their
+     * own, for the first {@link RP1210} created with {@link #RP1210()}.
+     */
+    public static void preload() {
+        preloaded.set(new Lazy<>("RP1210 Adapters", () -> new RP1210().parseAdapters()).start());
+    }
+
+    private List<Adapter> readAdapters() throws BusException {
+        Lazy<List<Adapter>> preload = defaultPath ? preloaded.getAndSet(null) : null;
+        if (preload != null) {
+            try {
+                return preload.get();
+            } catch (IllegalStateException e) {
+                // read again below, to report why
+            }
+        }
+        return parseAdapters();
+    }
+
     private Collection<? extends Adapter> getSyntheticAdapters() {
         List<Adapter> adapters = new ArrayList<>();
         if (J1939_84.isTesting()) {
             adapters.add(LOOP_BACK_ADAPTER);
         }
+        List<File> directories = new ArrayList<>();
+        if (J1939_84.isTesting() || J1939_84.isDevEnv()) {
+            directories.add(CaptureWriter.getCaptureDirectory());
+        }
+        String traces = System.getProperty(TRACES_PROPERTY);
+        if (traces != null) {
+            directories.add(new File(traces));
+        }
+        adapters.addAll(getReplayAdapters(directories));
         return adapters;
     }
 
+    /**
+     * Returns an {@link Adapter} for each of the most recent capture files and
+     * traces of other tools in the directories, see {@link TraceImporter}. The
+     * connection strings are the replay speeds and simulation of the recorded
+     * modules. Any other file is replayed with {@link #getReplayAdapter(File)}.
+     */
+    static List<Adapter> getReplayAdapters(List<File> directories) {
+        return directories.stream()
+                          .map(d -> d.listFiles(f -> f.isFile() && (f.getName().endsWith(CaptureWriter.EXTENSION)
+                                  || TraceImporter.isTrace(f))))
+                          .filter(Objects::nonNull)
+                          .flatMap(Stream::of)
+                          // a trace imported next to itself is offered as its capture file
+                          .filter(f -> !TraceImporter.isTrace(f) || !isImportedNextTo(f))
+                          .distinct()
+                          .sorted(Comparator.comparing(File::lastModified).reversed())
+                          .limit(REPLAY_ADAPTERS)
+                          .map(RP1210::getReplayAdapter)
+                          .collect(Collectors.toList());
+    }
+
+    private static boolean isImportedNextTo(File trace) {
+        File capture = TraceImporter.getCaptureFile(trace);
+        return capture.exists() && capture.getParentFile().equals(trace.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * @param  file
+     *                  a capture file or a trace
+     * @return      the {@link Adapter} that replays it
+     */
+    public static Adapter getReplayAdapter(File file) {
+        List<String> connectionStrings = new ArrayList<>(ReplayBus.SPEEDS);
+        connectionStrings.add(RecordedVehicle.CONNECTION_STRING);
+        return new Adapter("Replay - " + file.getName(), file.getAbsolutePath(), REPLAY_DEV_ID, 1, connectionStrings);
+    }
+
+    /**
+     * @return the {@link Adapter} of the simulated engine, which is otherwise
+     *         only offered when testing
+     */
+    public static Adapter getLoopBackAdapter() {
+        return LOOP_BACK_ADAPTER;
+    }
+
     /**
      * Parses the RP121032.ini file in the base location to determine the
      * {@link List} of {@link Adapter}s that can be used for vehicle
@@ -146,6 +255,12 @@ public class RP1210 {
      * vehicle. A {@link Bus} is returned which will be used to send and read
      * {@link Packet}s
      *
+     * The metrics are reset and the bus is watched by the {@link BusMonitor}
+     * and {@link BroadcastCache} of the
+     * {@link org.etools.j1939_84.controllers.SessionContext} of the current
+     * thread, or of the application, so the adapters connected in different
+     * sessions do not replace each other's.
+     *
      * @param  adapter
      *                          the {@link Adapter} to use for communications
      * @param  address
@@ -163,16 +278,57 @@ public class RP1210 {
             }
             engine = null;
         }
+        if (capture != null) {
+            capture.close();
+            capture = null;
+        }
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.reset();
+        metrics.setFile(null);
 
         if (adapter.getDeviceId() == FAKE_DEV_ID) {
             EchoBus bus = new EchoBus(address);
             engine = new Engine(bus);
-            return bus;
+            return monitor(adapter, bus, bus);
+        } else if (adapter.getDeviceId() == REPLAY_DEV_ID) {
+            File file = new File(adapter.getDLLName());
+            try {
+                if (TraceImporter.isTrace(file)) {
+                    file = TraceImporter.toCapture(file);
+                }
+                if (RecordedVehicle.CONNECTION_STRING.equals(connectionString)) {
+                    EchoBus bus = new EchoBus(address);
+                    engine = new RecordedVehicle(bus, file);
+                    return monitor(adapter, bus, new J1939TP(bus));
+                }
+                ReplayBus rawBus = new ReplayBus(file, address, ReplayBus.parseSpeed(connectionString));
+                return monitor(adapter, rawBus, new J1939TP(rawBus));
+            } catch (IOException e) {
+                throw new BusException("Unable to replay " + file, e);
+            }
         } else {
-            return new J1939TP(new RP1210Bus(adapter, connectionString, address, true));
+            if (VirtualClock.isEnabled()) {
+                throw new BusException("Virtual time can only be used with the " + LOOP_BACK_ADAPTER.getName());
+            }
+            RP1210Bus rawBus = new RP1210Bus(adapter, connectionString, address, true);
+            try {
+                File file = CaptureWriter.createDefaultFile();
+                capture = CaptureWriter.record(rawBus, file);
+                metrics.setFile(new File(file.getParentFile(),
+                                         file.getName().replace(CaptureWriter.EXTENSION, ".metrics.json")));
+            } catch (IOException e) {
+                J1939_84.getLogger().log(Level.WARNING, "Unable to record bus traffic.", e);
+            }
+            return monitor(adapter, rawBus, new J1939TP(rawBus));
         }
     }
 
+    private static Bus monitor(Adapter adapter, Bus rawBus, Bus bus) {
+        BusMonitor.getInstance().monitor(adapter.getName(), rawBus, bus);
+        BroadcastCache.getInstance().monitor(bus);
+        return bus;
+    }
+
     private Ini getDriverIni(String id) throws IOException {
         return new Ini(new File(base, id + ".INI"));
     }
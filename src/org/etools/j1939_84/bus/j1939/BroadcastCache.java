@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.j1939;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.Bus;
+import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.bus.j1939.packets.DM11ClearActiveDTCsPacket;
+import org.etools.j1939_84.bus.j1939.packets.DM22IndividualClearPacket;
+import org.etools.j1939_84.bus.j1939.packets.DM3DiagnosticDataClearPacket;
+import org.etools.j1939_84.controllers.SessionContext;
+
+/**
+ * Keeps the latest complete packet of each PGN from each source address seen
+ * on the bus selected in the RP1210, with when it was received and the time
+ * since the one before it.
+ *
+ * Rather than listening for a whole broadcast period each time, a reader can
+ * take the packets the cache has already seen, and listen only for the part of
+ * the period the cache does not cover. The cache covers the time since it
+ * started, or since the application last cleared diagnostic data or the
+ * operator last changed the key state, as the packets from before no longer
+ * describe the vehicle.
+ */
+public class BroadcastCache {
+
+    /** The PGNs that clear diagnostic data when the application requests them */
+    private static final Set<Integer> CLEARS = Set.of(DM3DiagnosticDataClearPacket.PGN, DM11ClearActiveDTCsPacket.PGN);
+
+    private static final int REQUEST_PGN = 0xEA00;
+
+    private static final BroadcastCache instance = new BroadcastCache();
+
+    /**
+     * The latest packet from a source, and the packet still being received
+     * by TP
+     */
+    public static class Entry {
+
+        private final LongSupplier clock;
+
+        private final Packet packet;
+
+        private final long nanos;
+
+        private final long period;
+
+        private final Packet pending;
+
+        private final long pendingNanos;
+
+        private Entry(LongSupplier clock, Packet packet, long nanos, long period, Packet pending, long pendingNanos) {
+            this.clock = clock;
+            this.packet = packet;
+            this.nanos = nanos;
+            this.period = period;
+            this.pending = pending;
+            this.pendingNanos = pendingNanos;
+        }
+
+        /** Returns the entry with the pending packet if it has arrived. */
+        private Entry resolve() {
+            if (pending == null || !pending.isComplete()) {
+                return this;
+            }
+            if (pending.isFailed()) {
+                return new Entry(clock, packet, nanos, period, null, 0);
+            }
+            return new Entry(clock, pending, pendingNanos, packet == null ? -1 : pendingNanos - nanos, null, 0);
+        }
+
+        private Entry next(Packet next, long now) {
+            if (next.isComplete()) {
+                return new Entry(clock, next, now, packet == null ? -1 : now - nanos, null, 0);
+            }
+            return new Entry(clock, packet, nanos, period, next, now);
+        }
+
+        /**
+         * @return the latest complete packet
+         */
+        public Packet getPacket() {
+            return packet;
+        }
+
+        /**
+         * @param  unit
+         *                  the unit of the result
+         * @return      the time since the packet was received
+         */
+        public long getAge(TimeUnit unit) {
+            return unit.convert(clock.getAsLong() - nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param  unit
+         *                  the unit of the result
+         * @return      the time between the packet and the one before it, or
+         *              -1 if there has been only one
+         */
+        public long getPeriod(TimeUnit unit) {
+            return period < 0 ? -1 : unit.convert(period, TimeUnit.NANOSECONDS);
+        }
+
+        private boolean isSince(long since) {
+            return packet != null && nanos - since >= 0;
+        }
+    }
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The time in nanoseconds, System.nanoTime() but for tests */
+    private final LongSupplier clock;
+
+    /** The start of the time the cache covers, from the clock */
+    private volatile long since;
+
+    private volatile boolean running;
+
+    private Bus bus;
+
+    private Stream<Packet> stream;
+
+    /**
+     * Creates a cache of its own, apart from the one of the application, such
+     * as for a {@link SessionContext}.
+     */
+    public BroadcastCache() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param clock
+     *                  the time in nanoseconds the packets are received at
+     */
+    BroadcastCache(LongSupplier clock) {
+        this.clock = clock;
+        since = clock.getAsLong();
+    }
+
+    /**
+     * @return the cache of the {@link SessionContext} of the current thread,
+     *         or of the application
+     */
+    public static BroadcastCache getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getBroadcastCache();
+    }
+
+    private static int key(int pgn, int source) {
+        return pgn << 8 | source;
+    }
+
+    private static boolean isClear(Packet packet) {
+        int pgn = packet.getPgn();
+        return pgn == DM22IndividualClearPacket.PGN
+                || (pgn == REQUEST_PGN && packet.getLength() >= 3 && CLEARS.contains(packet.get24(0)));
+    }
+
+    /**
+     * Starts caching the packets of a bus, replacing the previous bus.
+     *
+     * @param bus
+     *                the bus the application uses
+     */
+    public synchronized void monitor(Bus bus) {
+        stop();
+        this.bus = bus;
+        entries.clear();
+
+        // virtual time would advance to the end of a stream that never ends
+        if (!VirtualClock.isEnabled()) {
+            try {
+                Stream<Packet> s = bus.read(365, TimeUnit.DAYS);
+                stream = s;
+                since = clock.getAsLong();
+                running = true;
+                Threads.start("Broadcast Cache", true, () -> {
+                    try {
+                        s.forEach(this::add);
+                    } finally {
+                        s.close();
+                        synchronized (this) {
+                            if (stream == s) {
+                                running = false;
+                            }
+                        }
+                    }
+                });
+            } catch (BusException e) {
+                J1939_84.getLogger().log(Level.WARNING, "Unable to cache broadcast packets.", e);
+            }
+        }
+    }
+
+    /**
+     * Stops caching the packets of the bus.
+     */
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+        running = false;
+    }
+
+    /**
+     * Starts the time the cache covers over, as when the key state of the
+     * vehicle has been changed.
+     */
+    public void reset() {
+        since = clock.getAsLong();
+    }
+
+    void add(Packet packet) {
+        long now = clock.getAsLong();
+        if (packet.isTransmitted()) {
+            if (isClear(packet)) {
+                since = now;
+            }
+        } else {
+            entries.compute(key(packet.getPgn(), packet.getSource()),
+                            (k, e) -> e == null ? new Entry(clock, null, 0, -1, null, 0).next(packet, now)
+                                    : e.resolve().next(packet, now));
+        }
+    }
+
+    /**
+     * Returns how much of the recent past the cache has seen on a bus: the
+     * time since it started caching, since diagnostic data was cleared, or
+     * since it was {@link #reset()}.
+     *
+     * @param  bus
+     *                  the bus of interest
+     * @param  unit
+     *                  the unit of the result
+     * @return      the time covered, or 0 if the cache is not caching the bus
+     */
+    public long getCoverage(Bus bus, TimeUnit unit) {
+        synchronized (this) {
+            if (!running || bus == null || bus != this.bus) {
+                return 0;
+            }
+        }
+        return unit.convert(clock.getAsLong() - since, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param  pgn
+     *                    the PGN of interest
+     * @param  source
+     *                    the source address of interest
+     * @return        the latest entry, whatever its age
+     */
+    public Optional<Entry> get(int pgn, int source) {
+        return Optional.ofNullable(entries.get(key(pgn, source)))
+                       .map(Entry::resolve)
+                       .filter(e -> e.packet != null);
+    }
+
+    /**
+     * Returns the latest packet of the PGN from the source, if it was received
+     * within the maximum age and after diagnostic data was last cleared.
+     *
+     * @param  pgn
+     *                    the PGN of interest
+     * @param  source
+     *                    the source address of interest
+     * @param  maxAge
+     *                    the oldest the packet may be
+     * @param  unit
+     *                    the unit of maxAge
+     * @return        the packet, or empty if there is none fresh enough
+     */
+    public Optional<Packet> getLatest(int pgn, int source, long maxAge, TimeUnit unit) {
+        long oldest = oldest(maxAge, unit);
+        return get(pgn, source).filter(e -> e.isSince(oldest)).map(Entry::getPacket);
+    }
+
+    /**
+     * Returns the latest packet of the PGN from each source that sent one
+     * within the maximum age and after diagnostic data was last cleared.
+     *
+     * @param  pgn
+     *                    the PGN of interest
+     * @param  maxAge
+     *                    the oldest a packet may be
+     * @param  unit
+     *                    the unit of maxAge
+     * @return        the packets in the order they were received
+     */
+    public List<Packet> getLatest(int pgn, long maxAge, TimeUnit unit) {
+        long oldest = oldest(maxAge, unit);
+        return entries.values()
+                      .stream()
+                      .map(Entry::resolve)
+                      .filter(e -> e.isSince(oldest) && e.packet.getPgn() == pgn)
+                      .sorted(Comparator.comparingLong(e -> e.nanos - oldest))
+                      .map(Entry::getPacket)
+                      .collect(Collectors.toList());
+    }
+
+    private long oldest(long maxAge, TimeUnit unit) {
+        long oldest = clock.getAsLong() - unit.toNanos(maxAge);
+        long s = since;
+        return oldest - s > 0 ? oldest : s;
+    }
+}
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -65,7 +67,13 @@ import org.etools.j1939_84.bus.j1939.packets.HighResVehicleDistancePacket;
 import org.etools.j1939_84.bus.j1939.packets.ParsedPacket;
 import org.etools.j1939_84.bus.j1939.packets.TotalVehicleDistancePacket;
 import org.etools.j1939_84.bus.j1939.packets.VehicleIdentificationPacket;
+import org.etools.j1939_84.controllers.DeferredResult;
 import org.etools.j1939_84.controllers.ResultsListener;
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.Histogram;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.metrics.StepProfiler.Category;
 import org.etools.j1939_84.model.RequestResult;
 import org.etools.j1939_84.modules.DateTimeModule;
 
@@ -111,6 +119,21 @@ public class J1939 {
 
     private final Bus bus;
 
+    /** The broadcasts already seen on the bus */
+    private final BroadcastCache broadcastCache;
+
+    /** Requests repeated because of a BUSY NACK, counted as they are sent */
+    private final Counter busyRetries;
+
+    /** Records the times of the responses */
+    private final LatencyProfile latencyProfile = LatencyProfile.getInstance();
+
+    /** Broadcasts read entirely from the {@link BroadcastCache} */
+    private final Counter broadcastsCached;
+
+    /** Time to create the parsed packet for a received packet */
+    private final Histogram decode;
+
     private int warnings;
 
     public J1939() {
@@ -124,7 +147,36 @@ public class J1939 {
      *                the {@link Bus} used to communicate with the vehicle
      */
     public J1939(Bus bus) {
+        this(bus, MetricsRegistry.getInstance());
+    }
+
+    /**
+     * @param bus
+     *                    the {@link Bus} used to communicate with the vehicle
+     * @param metrics
+     *                    the registry the retries and decode times are
+     *                    counted in
+     */
+    public J1939(Bus bus, MetricsRegistry metrics) {
+        this(bus, metrics, BroadcastCache.getInstance());
+    }
+
+    /**
+     * @param bus
+     *                           the {@link Bus} used to communicate with the
+     *                           vehicle
+     * @param metrics
+     *                           the registry the retries and decode times are
+     *                           counted in
+     * @param broadcastCache
+     *                           the cache broadcasts are read from
+     */
+    J1939(Bus bus, MetricsRegistry metrics, BroadcastCache broadcastCache) {
         this.bus = bus;
+        this.broadcastCache = broadcastCache;
+        busyRetries = metrics.counter("j1939.busy.retries");
+        broadcastsCached = metrics.counter("j1939.broadcast.cached");
+        decode = metrics.histogram("j1939.decode");
     }
 
     /**
@@ -238,6 +290,35 @@ public class J1939 {
         return DateTimeModule.getInstance();
     }
 
+    /**
+     * Records the time from the request to the first frame of the response.
+     */
+    private void recordResponse(int pgn, Packet request, Packet response) {
+        if (request != null) {
+            List<Packet> fragments = response.getFragments();
+            LocalDateTime start = fragments.isEmpty() ? response.getTimestamp() : fragments.get(0).getTimestamp();
+            latencyProfile.record(LatencyProfile.Kind.RESPONSE,
+                                  response.getSource(),
+                                  pgn,
+                                  request.getTimestamp(),
+                                  start);
+        }
+    }
+
+    /**
+     * Records the time from the request to the last frame of a TP response.
+     * The response must be complete.
+     */
+    private void recordComplete(int pgn, Packet request, Packet response) {
+        if (request != null && response.getFragments().size() > 1) {
+            latencyProfile.record(LatencyProfile.Kind.COMPLETE,
+                                  response.getSource(),
+                                  pgn,
+                                  request.getTimestamp(),
+                                  response.getTimestamp());
+        }
+    }
+
     /** Count of warnings detected in J1939 and J1939TP. */
     public int getWarnings() {
         return warnings;
@@ -264,7 +345,9 @@ public class J1939 {
      */
     @SuppressWarnings("unchecked")
     private <T extends GenericPacket> Either<T, AcknowledgmentPacket> process(Packet packet) {
+        long start = System.nanoTime();
         ParsedPacket pp = processRaw(packet.getPgn(), packet);
+        decode.record(System.nanoTime() - start);
         if (pp instanceof AcknowledgmentPacket) {
             return new Either<>(null, (AcknowledgmentPacket) pp);
         } else {
@@ -468,6 +551,41 @@ public class J1939 {
         return Stream.empty();
     }
 
+    /**
+     * Returns the packets broadcast with the PGN in the given class over a
+     * period ending now, with at most one packet from each source address from
+     * the part of the period the {@link BroadcastCache} has seen. The bus is
+     * read only for the rest of the period.
+     *
+     * @param  <T>
+     *                     the Type of Packet to expect back
+     * @param  T
+     *                     the class of interest
+     * @param  period
+     *                     how long the bus must be watched for the packets
+     * @param  unit
+     *                     the {@link TimeUnit} for the period
+     * @return         the cached packets followed by those read from the bus
+     */
+    public <T extends GenericPacket> Stream<Either<T, AcknowledgmentPacket>> readBroadcast(Class<T> T,
+                                                                                           long period,
+                                                                                           TimeUnit unit) {
+        long millis = unit.toMillis(period);
+        long covered = Math.min(millis, broadcastCache.getCoverage(bus, TimeUnit.MILLISECONDS));
+        if (covered <= 0) {
+            return read(T, period, unit);
+        }
+        Stream<Either<T, AcknowledgmentPacket>> cached = broadcastCache
+                .getLatest(getPgn(T), covered, TimeUnit.MILLISECONDS)
+                .stream()
+                .map(this::process);
+        if (covered == millis) {
+            broadcastsCached.increment();
+            return cached;
+        }
+        return Stream.concat(cached, read(T, millis - covered, TimeUnit.MILLISECONDS));
+    }
+
     public Stream<Packet> read(long timeout, TimeUnit unit) throws BusException {
         return bus.read(timeout, unit);
     }
@@ -494,6 +612,10 @@ public class J1939 {
         long end = getDateTimeModule().getTimeAsLong() + 1200;
         boolean retry = false;
         for (int noResponse = 0; getDateTimeModule().getTimeAsLong() < end; noResponse++) {
+            if (retry) {
+                // counted here, as the time may run out before the retry
+                busyRetries.increment();
+            }
             Optional<Either<T, AcknowledgmentPacket>> result = requestDSOnce(pgn, request, listener);
             if (result.isPresent()) {
                 if (result.get().right.map(a -> a.getResponse() == BUSY).orElse(false)) {
@@ -522,6 +644,9 @@ public class J1939 {
             throw new IllegalArgumentException("Request to global.");
         }
 
+        long start = StepProfiler.getInstance().begin();
+        // when the response started, after which the time is waiting for TP
+        long responseStart = -1;
         try {
             Stream<Either<T, AcknowledgmentPacket>> stream = read(DS_TIMEOUT, MILLISECONDS)
                                                                                            .filter(dsFilter(pgn,
@@ -531,17 +656,20 @@ public class J1939 {
             Packet sent = bus.send(request);
             LocalDateTime lateTime;
             if (sent != null) {
-                listener.onResult(sent.toTimeString());
+                listener.onResult(DeferredResult.of(sent));
                 lateTime = sent.getTimestamp().plus(GLOBAL_WARN_TIMEOUT, ChronoUnit.MILLIS);
             } else {
                 logWarning(listener, FAILED_TO_SEND + request);
                 lateTime = null;
             }
             Optional<Either<T, AcknowledgmentPacket>> result = stream.findFirst();
+            responseStart = System.nanoTime();
             result.ifPresentOrElse(p -> {
                 ParsedPacket pp = p.resolve();
-                listener.onResult(pp.getPacket().toTimeString());
-                listener.onResult(pp.toString());
+                recordResponse(pgn, sent, pp.getPacket());
+                listener.onResult(DeferredResult.of(pp.getPacket()));
+                recordComplete(pgn, sent, pp.getPacket());
+                listener.onResult(DeferredResult.of(pp));
 
                 if (lateTime != null && pp.getPacket().getFragments().get(0).getTimestamp().isAfter(lateTime)) {
                     logTiming(listener, LATE_RESPONSE + " " + pp.getPacket().getFragments().get(0).toTimeString());
@@ -553,6 +681,8 @@ public class J1939 {
         } catch (BusException e) {
             severe("Error requesting DS packet", e);
             return Optional.empty();
+        } finally {
+            StepProfiler.getInstance().end(Category.DS, start, Category.TP, responseStart);
         }
     }
 
@@ -599,6 +729,7 @@ public class J1939 {
 
         if (results.stream().anyMatch(J1939::isBusy)) {
             retry = true;
+            busyRetries.increment();
 
             // use map to collate by address
             Map<Integer, Either<T, AcknowledgmentPacket>> map = results.stream()
@@ -619,6 +750,7 @@ public class J1939 {
         results = results.stream()
                          .map(e -> {
                              if (isBusy(e)) {
+                                 busyRetries.increment();
                                  Packet dsRequest = createRequestPacket(pgn,
                                                                         ((ParsedPacket) e.resolve()).getSourceAddress());
                                  Optional<Either<T, AcknowledgmentPacket>> response = requestDSOnce(pgn,
@@ -630,6 +762,7 @@ public class J1939 {
                                      logInfo(
                                              "first DS request after global busy NACK: " + dsRequest + " -> "
                                                      + response);
+                                     busyRetries.increment();
                                      response = requestDSOnce(pgn, dsRequest, listener);
                                      if (response.map(J1939::isBusy).orElse(true)) {
                                          logInfo(
@@ -662,21 +795,28 @@ public class J1939 {
         }
 
         List<Either<T, AcknowledgmentPacket>> result;
+        long start = StepProfiler.getInstance().begin();
+        // when the responses stopped, after which the time is waiting for TP
+        long responsesEnd = -1;
         try {
             Stream<Packet> stream = read(GLOBAL_TIMEOUT, MILLISECONDS);
             Packet sent = bus.send(request);
             LocalDateTime lateTime;
             if (sent != null) {
-                listener.onResult(sent.toTimeString());
+                listener.onResult(DeferredResult.of(sent));
                 lateTime = sent.getTimestamp().plus(GLOBAL_WARN_TIMEOUT, ChronoUnit.MILLIS);
             } else {
                 logWarning(listener, FAILED_TO_SEND + request);
                 lateTime = null;
             }
             List<Packet> lateBam = new ArrayList<>();
-            result = stream
+            Set<Integer> responded = new TreeSet<>();
+            List<Packet> packets = stream
                            .filter(globalFilter(pgn))
                            .peek(p -> {
+                               if (responded.add(p.getSource())) {
+                                   recordResponse(pgn, sent, p);
+                               }
                                /*
                                 * If the first fragment arrived after lateBam, then it
                                 * is late.
@@ -688,13 +828,17 @@ public class J1939 {
                            })
                            // Collect all of the packet, even though they are not
                            // complete. They were all announced in time.
-                           .collect(Collectors.toList())
-                           .stream()
+                           .collect(Collectors.toList());
+            responsesEnd = System.nanoTime();
+            result = packets.stream()
                            .map(rawPacket -> {
                                try {
-                                   listener.onResult(rawPacket.toTimeString());
+                                   // an incomplete packet throws here, not when it is written
+                                   rawPacket.getLength();
+                                   listener.onResult(DeferredResult.of(rawPacket));
+                                   recordComplete(pgn, sent, rawPacket);
                                    Either<T, AcknowledgmentPacket> pp = process(rawPacket);
-                                   listener.onResult(pp.resolve().toString());
+                                   listener.onResult(DeferredResult.of(pp.<ParsedPacket> resolve()));
                                    return pp;
                                } catch (PacketException e) {
                                    // This is not a complete packet. Should be logged
@@ -715,6 +859,8 @@ public class J1939 {
         } catch (BusException e) {
             severe("Error requesting packet", e);
             result = Collections.emptyList();
+        } finally {
+            StepProfiler.getInstance().end(Category.GLOBAL, start, Category.TP, responsesEnd);
         }
         return result;
     }
@@ -734,6 +880,7 @@ public class J1939 {
         String title = "Sending DM7 for DM30 to " + Lookup.getAddressName(address) + " for SPN " + spn;
         listener.onResult(getDateTimeModule().getTime() + " " + title);
 
+        long start = StepProfiler.getInstance().begin();
         try {
             BusResult<DM30ScaledTestResultsPacket> result;
             for (int i = 0; true; i++) {
@@ -745,7 +892,7 @@ public class J1939 {
                                                                                                              .map(this::process);
                 Packet sent = bus.send(request);
                 if (sent != null) {
-                    listener.onResult(sent.toTimeString());
+                    listener.onResult(DeferredResult.of(sent));
                 } else {
                     logWarning(listener, FAILED_TO_SEND + request);
                 }
@@ -754,8 +901,8 @@ public class J1939 {
                 result.getPacket().ifPresentOrElse(p -> {
                     GenericPacket response = p.resolve();
                     Packet packet = response.getPacket();
-                    listener.onResult(packet.toTimeString());
-                    listener.onResult(response.toString());
+                    listener.onResult(DeferredResult.of(packet));
+                    listener.onResult(DeferredResult.of(response));
                 },
                                                    () -> listener.onResult(getDateTimeModule().getTime() + " "
                                                            + TIMEOUT_MESSAGE));
@@ -773,6 +920,8 @@ public class J1939 {
         } catch (BusException e) {
             severe("Error requesting DS packet", e);
             return new BusResult<>(true);
+        } finally {
+            StepProfiler.getInstance().end(Category.DS, start);
         }
     }
 
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,6 +28,7 @@ import org.etools.j1939_84.bus.j1939.packets.Slot;
 import org.etools.j1939_84.bus.j1939.packets.model.PgnDefinition;
 import org.etools.j1939_84.bus.j1939.packets.model.SpnDefinition;
 import org.etools.j1939_84.resources.Resources;
+import org.etools.j1939_84.utils.Lazy;
 
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
@@ -43,13 +45,26 @@ public class J1939DaRepository {
 
     private static final J1939DaRepository instance = new J1939DaRepository();
 
-    private Map<Integer, Slot> slots;
+    /** Reads the tables and the SLOTs of the instance */
+    private static final Lazy<J1939DaRepository> loader = new Lazy<>("J1939DA", () -> {
+        instance.loadLookUpTables();
+        instance.getSlots();
+        return instance;
+    });
+
+    // the tables are read once and never changed, so all the sessions share
+    // them and only the loading is synchronized
+    private volatile Map<Integer, Slot> slots;
 
     private Map<Integer, PgnDefinition> pgnLut;
 
+    /** Set after the lookup tables are read */
+    private volatile boolean loaded;
+
     public Slot findSLOT(int id, int spn) {
+        Map<Integer, Slot> slots = this.slots;
         if (slots == null) {
-            slots = loadSlots();
+            slots = getSlots();
         }
 
         Slot slot = slots.get(id);
@@ -76,15 +91,38 @@ public class J1939DaRepository {
         return instance;
     }
 
+    /**
+     * Starts reading the tables on a thread of their own, so they are read
+     * before a step needs them. A step that needs them sooner waits for them.
+     *
+     * @return the load of the tables
+     */
+    public static Future<J1939DaRepository> preload() {
+        return loader.start().getFuture();
+    }
+
     public static Slot findSlot(int slotId, int spn) {
         return getInstance().findSLOT(slotId, spn);
     }
 
+    private synchronized Map<Integer, Slot> getSlots() {
+        if (slots == null) {
+            slots = loadSlots();
+        }
+        return slots;
+    }
+
+    private void loadLookUpTables() {
+        if (!loaded) {
+            loadTables();
+        }
+    }
+
     @SuppressFBWarnings(value = {
             "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE",
             "REC_CATCH_EXCEPTION" }, justification = "Several places in the calls down the stack can return null")
-    private synchronized void loadLookUpTables() {
-        if (pgnLut == null) {
+    private synchronized void loadTables() {
+        if (!loaded) {
             // parse the selected columns from J1939DA. The source data is
             // unaltered, so some processing is required to convert byte.bit
             // specifications into ints.
@@ -204,6 +242,7 @@ public class J1939DaRepository {
                         spnToPgnMap.put(spnDefinition.getSpnId(), pgns);
                     }
                 }
+                loaded = true;
             } catch (Exception e) {
                 logError("Error loading J1939DA data.", e);
                 throw new RuntimeException("Unable to load J1939DA", e);
@@ -5,8 +5,11 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -14,13 +17,19 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.etools.j1939_84.bus.Bus;
 import org.etools.j1939_84.bus.BusException;
 import org.etools.j1939_84.bus.EchoBus;
+import org.etools.j1939_84.bus.FlightRecorder;
 import org.etools.j1939_84.bus.Packet;
 import org.etools.j1939_84.bus.Packet.PacketException;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.MetricsRegistry;
 
 public class J1939TP implements Bus {
 
@@ -63,25 +72,65 @@ public class J1939TP implements Bus {
     /**
      * Support up to 255 concurrent TP sessions plus main kickoff thread, but we
      * only expect there to normally be 5, so shut down idle threads after 1 s.
+     * With virtual threads each session has its own thread.
      */
-    private final ExecutorService exec = new ThreadPoolExecutor(5 + 1,
-                                                                255 + 1,
-                                                                1L,
-                                                                TimeUnit.SECONDS,
-                                                                new LinkedBlockingQueue<>());
+    private final ExecutorService exec = Threads.isVirtual() ? Threads.newCachedThreadPool("J1939TP")
+            : new ThreadPoolExecutor(5 + 1,
+                                     255 + 1,
+                                     1L,
+                                     TimeUnit.SECONDS,
+                                     new LinkedBlockingQueue<>());
     /** Application side bus. */
     private final EchoBus inbound;
     /**
      * The inbound stream that RTS and BAM announcements will be detected on.
      */
     private final Stream<Packet> stream;
+    /** The sessions in progress, for monitoring. */
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    /** The registry the session counts and aborts are counted in. */
+    private final MetricsRegistry metrics;
+
+    /** Saves the traffic when a session is aborted */
+    private final FlightRecorder flightRecorder = FlightRecorder.getInstance();
+
+    /** Records the times of the sessions */
+    private final LatencyProfile latencyProfile = LatencyProfile.getInstance();
+
+    /** Session counts, by direction and kind */
+    private final Counter rxBamOpened;
+    private final Counter rxBamCompleted;
+    private final Counter rxBamFailed;
+    private final Counter rxRtsOpened;
+    private final Counter rxRtsCompleted;
+    private final Counter rxRtsFailed;
+    private final Counter txBam;
+    private final Counter txRtsOpened;
+    private final Counter txRtsCompleted;
+    private final Counter txRtsFailed;
 
     public J1939TP(Bus bus) throws BusException {
         this(bus, bus.getAddress());
     }
 
     public J1939TP(Bus bus, int address) throws BusException {
+        this(bus, address, MetricsRegistry.getInstance());
+    }
+
+    public J1939TP(Bus bus, int address, MetricsRegistry metrics) throws BusException {
         this.bus = bus;
+        this.metrics = metrics;
+        rxBamOpened = metrics.counter("tp.rx.bam.opened");
+        rxBamCompleted = metrics.counter("tp.rx.bam.completed");
+        rxBamFailed = metrics.counter("tp.rx.bam.failed");
+        rxRtsOpened = metrics.counter("tp.rx.rts.opened");
+        rxRtsCompleted = metrics.counter("tp.rx.rts.completed");
+        rxRtsFailed = metrics.counter("tp.rx.rts.failed");
+        txBam = metrics.counter("tp.tx.bam");
+        txRtsOpened = metrics.counter("tp.tx.rts.opened");
+        txRtsCompleted = metrics.counter("tp.tx.rts.completed");
+        txRtsFailed = metrics.counter("tp.tx.rts.failed");
         stream = bus.read(9999, TimeUnit.DAYS);
         inbound = new EchoBus(address);
         // start processing
@@ -92,10 +141,16 @@ public class J1939TP implements Bus {
         return table7.getOrDefault(code, "Unknown");
     }
 
+    /** Counts a connection abort by its reason code and saves the traffic. */
+    private void countAbort(int code) {
+        metrics.counter("tp.abort." + code).increment();
+        flightRecorder.trigger("TP abort: " + getAbortError(code));
+    }
+
     /** We do not care about interruptions. */
     static private void sleep(int duration) {
         try {
-            Thread.sleep(duration);
+            VirtualClock.sleep(duration);
         } catch (InterruptedException e) {
         }
     }
@@ -140,11 +195,30 @@ public class J1939TP implements Bus {
     public Packet send(Packet packet) throws BusException {
         if (packet.getLength() <= 8) {
             return bus.send(packet);
-        } else if (packet.getPgn() >= 0xF000) {
-            return sendBam(packet);
-        } else {
-            return sendDestinationSpecific(packet.getDestination(), packet);
         }
+        Session session = open("tx", packet);
+        try {
+            if (packet.getPgn() >= 0xF000) {
+                return sendBam(packet);
+            } else {
+                return sendDestinationSpecific(packet.getDestination(), packet);
+            }
+        } finally {
+            sessions.remove(session);
+        }
+    }
+
+    /**
+     * @return a description of each transport session in progress
+     */
+    public List<String> getSessions() {
+        return sessions.stream().map(Session::toString).sorted().collect(Collectors.toList());
+    }
+
+    private Session open(String direction, Packet packet) {
+        Session session = new Session(direction, packet);
+        sessions.add(session);
+        return session;
     }
 
     /** Record an error, which is more than just a warning. */
@@ -169,10 +243,13 @@ public class J1939TP implements Bus {
                             case CM_RTS: { // Request to send
                                 if (packet.getDestination() == getAddress()) {
                                     exec.execute(() -> {
+                                        Session session = open("rx", packet);
                                         try {
                                             receiveDestinationSpecific(packet);
                                         } catch (BusException e) {
                                             error("Failed to receive destination specific TP:" + packet, e);
+                                        } finally {
+                                            sessions.remove(session);
                                         }
                                     });
                                 }
@@ -188,11 +265,13 @@ public class J1939TP implements Bus {
                                  */
                                 Stream<Packet> bamStream = bus.duplicate(stream, T2, TimeUnit.MILLISECONDS);
                                 exec.execute(() -> {
+                                    Session session = open("rx", packet);
                                     try {
                                         receiveBam(packet, bamStream);
                                     } catch (Throwable t) {
                                         error("Failed to process packet:" + packet, t);
                                     } finally {
+                                        sessions.remove(session);
                                         bamStream.close();
                                     }
                                 });
@@ -216,6 +295,7 @@ public class J1939TP implements Bus {
 
     private void receiveBam(Packet bam, Stream<Packet> stream) {
         fine("rx BAM", bam);
+        rxBamOpened.increment();
 
         int numberOfPackets = bam.get(3);
 
@@ -231,44 +311,46 @@ public class J1939TP implements Bus {
         packet.setFragments(new ArrayList<>());
         packet.getFragments().add(bam);
         packet.setTimestamp(bam.getTimestamp());
-        synchronized (packet) {
-            inbound.send(packet);
-
-            bus.resetTimeout(stream, T2, TimeUnit.MILLISECONDS);
-            if (stream
-                      .filter(p -> {
-                          int id = p.getId(0xFFFF);
-                          return p.getSource() == source && (id == dataId || id == controlId);
-                      })
-                      .peek(p -> bus.resetTimeout(stream, T1, TimeUnit.MILLISECONDS))
-                      .map(p -> {
-                          if (p.getId(0xFFFF) == controlId) {
-                              packet.fail();
-                              warn("BAM canceled or aborted: " + bam + " -> " + p);
-                              return true;
-                          }
-                          fine("rx DT", p);
-                          packet.getFragments().add(p);
-                          received.set(p.get(0));
-                          int offset = (p.get(0) - 1) * 7;
-                          System.arraycopy(p.getBytes(), 1, data, offset, Math.min(offset + 7, data.length) - offset);
-                          packet.setTimestamp(p.getTimestamp());
-                          return received.cardinality() == numberOfPackets;
-                      })
-                      .filter(b -> b)
-                      .findFirst()
-                      .orElse(false)
-                    && received.cardinality() == numberOfPackets) {
-                packet.setData(data);
-            } else {
-                warn("BAM missing DT %d != %d", received.cardinality(), numberOfPackets);
-                packet.fail();
-            }
+        inbound.send(packet);
+
+        bus.resetTimeout(stream, T2, TimeUnit.MILLISECONDS);
+        if (stream
+                  .filter(p -> {
+                      int id = p.getId(0xFFFF);
+                      return p.getSource() == source && (id == dataId || id == controlId);
+                  })
+                  .peek(p -> bus.resetTimeout(stream, T1, TimeUnit.MILLISECONDS))
+                  .map(p -> {
+                      if (p.getId(0xFFFF) == controlId) {
+                          packet.fail();
+                          warn("BAM canceled or aborted: " + bam + " -> " + p);
+                          return true;
+                      }
+                      fine("rx DT", p);
+                      packet.getFragments().add(p);
+                      received.set(p.get(0));
+                      int offset = (p.get(0) - 1) * 7;
+                      System.arraycopy(p.getBytes(), 1, data, offset, Math.min(offset + 7, data.length) - offset);
+                      packet.setTimestamp(p.getTimestamp());
+                      return received.cardinality() == numberOfPackets;
+                  })
+                  .filter(b -> b)
+                  .findFirst()
+                  .orElse(false)
+                && received.cardinality() == numberOfPackets) {
+            packet.setData(data);
+            rxBamCompleted.increment();
+            latencyProfile.recordSession(packet);
+        } else {
+            warn("BAM missing DT %d != %d", received.cardinality(), numberOfPackets);
+            packet.fail();
+            rxBamFailed.increment();
         }
     }
 
     public void receiveDestinationSpecific(Packet rts) throws BusException {
         fine("rx RTS", rts);
+        rxRtsOpened.increment();
         int numberOfPackets = rts.get(3);
         int maxResponsePackets = rts.get(4);
 
@@ -284,86 +366,105 @@ public class J1939TP implements Bus {
         Packet packet = Packet.create(id, source, (int[]) null);
         packet.setFragments(new ArrayList<>());
         packet.getFragments().add(rts);
-        synchronized (packet) {
-            inbound.send(packet);
-            while ((cardinality = received.cardinality()) < numberOfPackets) {
-                if (cardinality == lastCardinality) {
-                    if (receivedNone++ > 3) {
-                        throw new BusException("Failed to receive DT");
-                    }
-                } else {
-                    lastCardinality = cardinality;
-                    receivedNone = 0;
-                }
-                int nextPacket = received.nextClearBit(1);
-                int packetCount = received.nextSetBit(nextPacket) - nextPacket;
-                if (packetCount < 0) {
-                    packetCount = numberOfPackets - nextPacket + 1;
-                }
-                if (packetCount > maxResponsePackets) {
-                    packetCount = maxResponsePackets;
-                }
-                Stream<Packet> dataStream = bus.read(T2, TimeUnit.MILLISECONDS);
-                Stream<Packet> stream = dataStream
-                                                  .filter(p -> p.getSource() == source)
-                                                  .peek(p -> {
-                                                      if (p.getId(0xFFFF) == (CM | rts.getId(0xFF))) {
-                                                          if (p.get(0) == CM_ConnAbort) {
-                                                              warn(getAbortError(p.get(1)), p);
-                                                          }
-                                                          warn("TP canceled", p);
-                                                          packet.fail();
-                                                          throw new PacketException("TP canceled");
-                                                      }
-                                                  })
-                                                  // only consider DT packet that are part of this
-                                                  // connection
-                                                  .filter(p -> p.getId(0xFFFF) == (DT | rts.getId(0xFF)))
-                                                  // After every TP.DT, reset timeout to T1 from now.
-                                                  .peek(p -> bus.resetTimeout(dataStream, T1, TimeUnit.MILLISECONDS))
-                                                  .limit(packetCount);
-                Packet cts = Packet.create(CM | source,
-                                           getAddress(),
-                                           CM_CTS,
-                                           packetCount,
-                                           nextPacket,
-                                           0xFF,
-                                           0xFF,
-                                           rts.get(5),
-                                           rts.get(6),
-                                           rts.get(7));
-                fine("tx CTS", cts);
-
-                bus.send(cts);
-                try {
-                    stream.forEach(p -> {
-                        packet.getFragments().add(p);
-                        fine("rx DT", rts);
-                        received.set(p.get(0));
-                        packet.setTimestamp(p.getTimestamp());
-                        int offset = (p.get(0) - 1) * 7;
-                        System.arraycopy(p.getBytes(), 1, data, offset, Math.min(offset + 7, data.length) - offset);
-                    });
-                } catch (PacketException e) {
-                    // TP failed.
-                    return;
+        inbound.send(packet);
+        while ((cardinality = received.cardinality()) < numberOfPackets) {
+            if (cardinality == lastCardinality) {
+                if (receivedNone++ > 3) {
+                    rxRtsFailed.increment();
+                    // release the readers waiting for the data
+                    packet.fail();
+                    flightRecorder.trigger("TP failed to receive DT");
+                    throw new BusException("Failed to receive DT");
                 }
+            } else {
+                lastCardinality = cardinality;
+                receivedNone = 0;
+            }
+            int nextPacket = received.nextClearBit(1);
+            int packetCount = received.nextSetBit(nextPacket) - nextPacket;
+            if (packetCount < 0) {
+                packetCount = numberOfPackets - nextPacket + 1;
+            }
+            if (packetCount > maxResponsePackets) {
+                packetCount = maxResponsePackets;
             }
-            Packet eom = Packet.create(CM | source,
+            Stream<Packet> dataStream = bus.read(T2, TimeUnit.MILLISECONDS);
+            Stream<Packet> stream = dataStream
+                                              .filter(p -> p.getSource() == source)
+                                              .peek(p -> {
+                                                  if (p.getId(0xFFFF) == (CM | rts.getId(0xFF))) {
+                                                      if (p.get(0) == CM_ConnAbort) {
+                                                          warn(getAbortError(p.get(1)), p);
+                                                          countAbort(p.get(1));
+                                                      }
+                                                      warn("TP canceled", p);
+                                                      packet.fail();
+                                                      throw new PacketException("TP canceled");
+                                                  }
+                                              })
+                                              // only consider DT packet that are part of this
+                                              // connection
+                                              .filter(p -> p.getId(0xFFFF) == (DT | rts.getId(0xFF)))
+                                              // After every TP.DT, reset timeout to T1 from now.
+                                              .peek(p -> bus.resetTimeout(dataStream, T1, TimeUnit.MILLISECONDS))
+                                              .limit(packetCount);
+            Packet cts = Packet.create(CM | source,
                                        getAddress(),
-                                       CM_EndOfMessageACK,
-                                       rts.get(1),
-                                       rts.get(2),
-                                       rts.get(3),
+                                       CM_CTS,
+                                       packetCount,
+                                       nextPacket,
+                                       0xFF,
                                        0xFF,
                                        rts.get(5),
                                        rts.get(6),
                                        rts.get(7));
-            fine("tx EOM", eom);
-            bus.send(eom);
-            // signal done collecting packet data
-            packet.setData(data);
+            fine("tx CTS", cts);
+
+            Packet sentCts = bus.send(cts);
+            int[] count = { 0 };
+            try {
+                stream.forEach(p -> {
+                    if (count[0]++ == 0 && sentCts != null) {
+                        latencyProfile.record(LatencyProfile.Kind.CTS_TO_DT,
+                                              source,
+                                              pgn,
+                                              sentCts.getTimestamp(),
+                                              p.getTimestamp());
+                    }
+                    packet.getFragments().add(p);
+                    fine("rx DT", rts);
+                    received.set(p.get(0));
+                    packet.setTimestamp(p.getTimestamp());
+                    int offset = (p.get(0) - 1) * 7;
+                    System.arraycopy(p.getBytes(), 1, data, offset, Math.min(offset + 7, data.length) - offset);
+                });
+            } catch (PacketException e) {
+                // TP failed.
+                rxRtsFailed.increment();
+                return;
+            }
+            if (count[0] == 0) {
+                latencyProfile.recordTimeout(LatencyProfile.Kind.CTS_TO_DT, source, pgn);
+            } else if (count[0] < packetCount) {
+                latencyProfile.recordTimeout(LatencyProfile.Kind.DT_GAP, source, pgn);
+            }
         }
+        Packet eom = Packet.create(CM | source,
+                                   getAddress(),
+                                   CM_EndOfMessageACK,
+                                   rts.get(1),
+                                   rts.get(2),
+                                   rts.get(3),
+                                   0xFF,
+                                   rts.get(5),
+                                   rts.get(6),
+                                   rts.get(7));
+        fine("tx EOM", eom);
+        bus.send(eom);
+        // signal done collecting packet data
+        packet.setData(data);
+        rxRtsCompleted.increment();
+        latencyProfile.recordSession(packet);
     }
 
     private Packet sendBam(Packet packet) throws BusException {
@@ -381,6 +482,7 @@ public class J1939TP implements Bus {
                                    0xFF & (pgn >> 8),
                                    (0b111 & (pgn >> 16)));
         fine("tx BAM", bam);
+        txBam.increment();
 
         Packet response = bus.send(bam);
         // send data
@@ -424,6 +526,7 @@ public class J1939TP implements Bus {
                                    0xFF & (pgn >> 8),
                                    0xFF & (pgn >> 16));
         fine("tx RTS", rts);
+        txRtsOpened.increment();
 
         Stream<Packet> ctsStream = bus.read(T3, TimeUnit.MILLISECONDS)
                                       .filter(controlMessageFilter);
@@ -431,6 +534,7 @@ public class J1939TP implements Bus {
 
         // wait for CTS
         Optional<Packet> ctsOptional = ctsStream.findFirst();
+        recordCts(destinationAddress, pgn, response, ctsOptional);
         while (ctsOptional.map(p -> p.get(0) == CM_CTS).orElse(false)) {
             Packet cts = ctsOptional.get();
             fine("rx CTS", cts);
@@ -444,6 +548,15 @@ public class J1939TP implements Bus {
                 }
                 // wait for CTS
                 ctsOptional = bus.read(T4, TimeUnit.MILLISECONDS).filter(controlMessageFilter).findFirst();
+                if (ctsOptional.isPresent()) {
+                    latencyProfile.record(LatencyProfile.Kind.HOLD,
+                                          destinationAddress,
+                                          pgn,
+                                          cts.getTimestamp(),
+                                          ctsOptional.get().getTimestamp());
+                } else {
+                    latencyProfile.recordTimeout(LatencyProfile.Kind.HOLD, destinationAddress, pgn);
+                }
             } else {
                 int offset = cts.get(2);
                 if (cts.get16(3) != 0xFFFF) {
@@ -452,6 +565,9 @@ public class J1939TP implements Bus {
                 if (cts.get24(5) != pgn) {
                     warn("TP.CM_CTS bytes 6-8 should be the PGN: %04X  %s", cts.get24(5), cts.toString());
                 }
+                // read for the CTS or EOM before sending the data, so a fast
+                // response is not missed
+                Stream<Packet> responseStream = bus.read(T3, TimeUnit.MILLISECONDS).filter(controlMessageFilter);
                 // send data
                 for (int i = 0; i < packetsToSend; i++) {
                     byte[] buf = new byte[8];
@@ -467,7 +583,8 @@ public class J1939TP implements Bus {
                     response = bus.send(dp);
                 }
                 // wait for CTS or EOM
-                ctsOptional = bus.read(T3, TimeUnit.MILLISECONDS).filter(controlMessageFilter).findFirst();
+                ctsOptional = responseStream.findFirst();
+                recordCts(destinationAddress, pgn, response, ctsOptional);
             }
         }
         ctsOptional.ifPresent(eom -> fine("rx EOM", eom));
@@ -475,19 +592,72 @@ public class J1939TP implements Bus {
         if (ctsOptional.map(p -> p.get(0) == CM_ConnAbort).orElse(false)) {
             // FAIL
             warn("Abort received: " + getAbortError(ctsOptional.get().get(1)));
+            countAbort(ctsOptional.get().get(1));
+            txRtsFailed.increment();
         } else if (ctsOptional.map(p -> p.get(0) != CM_EndOfMessageACK).orElse(true)) {
             // verify EOM
             warn((ctsOptional.isPresent() ? "CTS" : "EOM") + " not received.");
+            txRtsFailed.increment();
             throw ctsOptional.map(p -> (BusException) new EomBusException())
                              .orElse(new CtsBusException());
+        } else {
+            txRtsCompleted.increment();
         }
         return response;
     }
 
+    /** Records the time the receiver took to send the CTS or EOM. */
+    private void recordCts(int destination, int pgn, Packet sent, Optional<Packet> cts) {
+        if (cts.isEmpty()) {
+            latencyProfile.recordTimeout(LatencyProfile.Kind.CTS, destination, pgn);
+        } else if (sent != null) {
+            latencyProfile.record(LatencyProfile.Kind.CTS,
+                                  destination,
+                                  pgn,
+                                  sent.getTimestamp(),
+                                  cts.get().getTimestamp());
+        }
+    }
+
     public void warn(String msg, Object... a) {
         logger.warning(String.format(msg, a));
     }
 
+    /** A transport session in progress, described by its first packet. */
+    static private class Session {
+        private final String direction;
+        private final Packet packet;
+        private final long start = System.currentTimeMillis();
+
+        private Session(String direction, Packet packet) {
+            this.direction = direction;
+            this.packet = packet;
+        }
+
+        @Override
+        public String toString() {
+            long age = System.currentTimeMillis() - start;
+            if (direction.equals("rx")) {
+                String kind = packet.get(0) == CM_BAM ? "BAM" : "RTS";
+                return String.format("rx %s %02X -> %02X PGN %06X %d bytes, %d ms",
+                                     kind,
+                                     packet.getSource(),
+                                     packet.getDestination(),
+                                     packet.get24(5),
+                                     packet.get16(1),
+                                     age);
+            }
+            String kind = packet.getPgn() >= 0xF000 ? "BAM" : "RTS";
+            return String.format("tx %s %02X -> %02X PGN %06X %d bytes, %d ms",
+                                 kind,
+                                 packet.getSource(),
+                                 packet.getDestination(),
+                                 packet.getPgn(),
+                                 packet.getLength(),
+                                 age);
+        }
+    }
+
     static public class CtsBusException extends BusException {
         private static final long serialVersionUID = 425016130552597972L;
 
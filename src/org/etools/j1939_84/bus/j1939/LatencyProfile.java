@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.j1939;
+
+import static org.etools.j1939_84.J1939_84.NL;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.Histogram;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+
+/**
+ * The response times of each ECU by PGN, compared to the J1939-21 timing
+ * requirements, for the final report.
+ *
+ * The histograms are kept in the {@link MetricsRegistry} as
+ * "latency.<i>kind</i>.<i>SA</i>.<i>PGN</i>" so they are also in the metrics
+ * dumps. A wait that ended at its limit without the frame is a timeout; it is
+ * counted with the late times, as it has no time of its own to record.
+ */
+public class LatencyProfile {
+
+    /** What is being timed */
+    public enum Kind {
+        /** From the request to the first frame of the response */
+        RESPONSE("Response", "response", J1939TP.Tr),
+        /** From the request to the last frame of a TP response */
+        COMPLETE("TP Complete", "complete", 0),
+        /** Between the data frames of a received TP message */
+        DT_GAP("DT Gap", "dt", J1939TP.T1),
+        /** From a CTS sent to the first data frame it asked for */
+        CTS_TO_DT("CTS to DT", "ctsdt", J1939TP.T2),
+        /** From the RTS or last data frame sent to the CTS or EOM */
+        CTS("CTS/EOM", "cts", J1939TP.T3),
+        /** From a CTS holding the connection open to the next CTS */
+        HOLD("Hold to CTS", "hold", J1939TP.T4);
+
+        private final String label;
+        private final String name;
+        private final long limitMillis;
+
+        Kind(String label, String name, long limitMillis) {
+            this.label = label;
+            this.name = name;
+            this.limitMillis = limitMillis;
+        }
+
+        /** @return the J1939-21 limit in milliseconds or 0 if there is none */
+        public long getLimitMillis() {
+            return limitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final LatencyProfile instance = new LatencyProfile();
+
+    /** The number of entries listed as the worst against the limits */
+    private static final int WORST = 10;
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final MetricsRegistry metrics;
+
+    /**
+     * @param metrics
+     *                    the registry the times are recorded in too
+     */
+    public LatencyProfile(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    private LatencyProfile() {
+        this(MetricsRegistry.getApplicationInstance());
+    }
+
+    /**
+     * @return the profile of the {@link SessionContext} of the current thread,
+     *         or of the application
+     */
+    public static LatencyProfile getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getLatencyProfile();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Records one time.
+     *
+     * @param kind
+     *                   what was timed
+     * @param source
+     *                   the source address of the ECU
+     * @param pgn
+     *                   the PGN requested or sent
+     * @param nanos
+     *                   the time in nanoseconds
+     */
+    public void record(Kind kind, int source, int pgn, long nanos) {
+        entries.computeIfAbsent(new Key(kind, source, pgn), this::createEntry).record(nanos);
+    }
+
+    /**
+     * Records the time between two packets.
+     */
+    public void record(Kind kind, int source, int pgn, LocalDateTime from, LocalDateTime to) {
+        record(kind, source, pgn, Duration.between(from, to).toNanos());
+    }
+
+    /**
+     * Records a wait for a frame from the ECU that ended at the limit of the
+     * kind without it.
+     */
+    public void recordTimeout(Kind kind, int source, int pgn) {
+        entries.computeIfAbsent(new Key(kind, source, pgn), this::createEntry).timeouts.increment();
+    }
+
+    /**
+     * Records the gaps between the data frames of a received TP message.
+     *
+     * @param packet
+     *                   the TP message with its fragments, the first being the
+     *                   BAM or RTS
+     */
+    public void recordSession(Packet packet) {
+        List<Packet> fragments = packet.getFragments();
+        for (int i = 2; i < fragments.size(); i++) {
+            record(Kind.DT_GAP,
+                   packet.getSource(),
+                   packet.getPgn(),
+                   fragments.get(i - 1).getTimestamp(),
+                   fragments.get(i).getTimestamp());
+        }
+    }
+
+    private Entry createEntry(Key key) {
+        String name = String.format("latency.%s.%02X.%04X", key.kind.name, key.source, key.pgn);
+        return new Entry(key,
+                         metrics.histogram(name),
+                         metrics.counter(name + ".late"),
+                         metrics.counter(name + ".timeout"));
+    }
+
+    /**
+     * @return the section of the final report with the percentiles for each
+     *         ECU and PGN and the worst against the J1939-21 limits
+     */
+    public String generateReport() {
+        List<Entry> list = entries.values()
+                                  .stream()
+                                  .filter(e -> e.histogram.getCount() > 0 || e.timeouts.getCount() > 0)
+                                  .sorted(Comparator.comparing((Entry e) -> e.key.kind)
+                                                    .thenComparing(e -> e.key.source)
+                                                    .thenComparing(e -> e.key.pgn))
+                                  .collect(Collectors.toList());
+        StringBuilder sb = new StringBuilder();
+        sb.append("RESPONSE TIMES (ms)").append(NL);
+        if (list.isEmpty()) {
+            sb.append("No responses were timed").append(NL);
+            return sb.toString();
+        }
+        sb.append(String.format("%-12s %3s %6s %7s %8s %8s %8s %8s %6s %8s",
+                                "Timing",
+                                "SA",
+                                "PGN",
+                                "Count",
+                                "p50",
+                                "p95",
+                                "p99",
+                                "max",
+                                "Late",
+                                "Timeouts"))
+          .append(NL);
+        for (Entry e : list) {
+            Histogram h = e.histogram;
+            sb.append(String.format("%-12s %3d %6d %7d %8.1f %8.1f %8.1f %8.1f %6d %8d",
+                                    e.key.kind,
+                                    e.key.source,
+                                    e.key.pgn,
+                                    h.getCount(),
+                                    millis(h.getValueAtPercentile(0.50)),
+                                    millis(h.getValueAtPercentile(0.95)),
+                                    millis(h.getValueAtPercentile(0.99)),
+                                    millis(h.getMax()),
+                                    e.late.getCount(),
+                                    e.timeouts.getCount()))
+              .append(NL);
+        }
+
+        // the timeouts first, as they waited longest
+        List<Entry> worst = list.stream()
+                                .filter(e -> e.late.getCount() > 0 || e.timeouts.getCount() > 0)
+                                .sorted(Comparator.comparing((Entry e) -> e.timeouts.getCount())
+                                                  .thenComparing(e -> e.histogram.getMax())
+                                                  .reversed())
+                                .limit(WORST)
+                                .collect(Collectors.toList());
+        sb.append(NL).append("Worst against J1939-21 timing").append(NL);
+        if (worst.isEmpty()) {
+            sb.append("    None").append(NL);
+        }
+        for (Entry e : worst) {
+            sb.append(String.format("    %s from %s for PGN %d: ",
+                                    e.key.kind,
+                                    Lookup.getAddressName(e.key.source),
+                                    e.key.pgn));
+            if (e.late.getCount() > 0) {
+                sb.append(String.format("max %.1f ms > %d ms in %d of %d",
+                                        millis(e.histogram.getMax()),
+                                        e.key.kind.limitMillis,
+                                        e.late.getCount(),
+                                        e.histogram.getCount()));
+            }
+            if (e.timeouts.getCount() > 0) {
+                sb.append(e.late.getCount() > 0 ? ", " : "")
+                  .append(String.format("no frame in %d ms %d times", e.key.kind.limitMillis, e.timeouts.getCount()));
+            }
+            sb.append(NL);
+        }
+        return sb.toString();
+    }
+
+    private static final class Key {
+        private final Kind kind;
+        private final int source;
+        private final int pgn;
+
+        private Key(Kind kind, int source, int pgn) {
+            this.kind = kind;
+            this.source = source;
+            this.pgn = pgn;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return kind == that.kind && source == that.source && pgn == that.pgn;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, source, pgn);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %02X %04X", kind, source, pgn);
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final Histogram histogram;
+        private final Counter late;
+        private final Counter timeouts;
+        private final long limitNanos;
+
+        private Entry(Key key, Histogram histogram, Counter late, Counter timeouts) {
+            this.key = key;
+            this.histogram = histogram;
+            this.late = late;
+            this.timeouts = timeouts;
+            limitNanos = TimeUnit.MILLISECONDS.toNanos(key.kind.limitMillis);
+        }
+
+        private void record(long nanos) {
+            histogram.record(nanos);
+            if (limitNanos > 0 && nanos > limitNanos) {
+                late.increment();
+            }
+        }
+    }
+}
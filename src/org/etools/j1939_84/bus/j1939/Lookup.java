@@ -15,6 +15,7 @@ import java.util.logging.Level;
 import org.etools.j1939_84.J1939_84;
 import org.etools.j1939_84.model.Outcome;
 import org.etools.j1939_84.resources.Resources;
+import org.etools.j1939_84.utils.Lazy;
 
 import com.opencsv.CSVReader;
 
@@ -29,42 +30,37 @@ public class Lookup {
     /**
      * The Map that holds the values for the Source Addresses
      */
-    private static final Map<Integer, String> addresses = loadMap("addresses.csv");
+    private static final Lazy<Map<Integer, String>> addresses = lazyMap("addresses.csv");
 
     /**
      * The Map that holds the values for the Failure Mode Indicators
      */
-    private static final Map<Integer, String> fmis = loadMap("fmis.csv");
+    private static final Lazy<Map<Integer, String>> fmis = lazyMap("fmis.csv");
 
     /**
      * The Map that holds the values for the Manufacturers
      */
-    private static final Map<Integer, String> manufacturers = loadMap("manufacturers.csv");
+    private static final Lazy<Map<Integer, String>> manufacturers = lazyMap("manufacturers.csv");
 
     /**
      * The Map that holds the values for the Test Parts
      */
-    private static final Map<Integer, String> parts = loadMap("parts.csv");
+    private static final Lazy<Map<Integer, String>> parts = lazyMap("parts.csv");
 
-    private static final List<Map<Integer, String>> steps = new ArrayList<>();
+    /**
+     * The Maps that hold the names of the steps of each part; only those of
+     * the parts that are run are read
+     */
+    private static final List<Lazy<Map<Integer, String>>> steps = new ArrayList<>();
 
-    private static final Map<Integer, String> duplicateSpnOutcomes = loadMap("outcomeForDuplicateSpns.csv");
+    private static final Lazy<Map<Integer, String>> duplicateSpnOutcomes = lazyMap("outcomeForDuplicateSpns.csv");
 
-    private static final Map<Integer, String> nonObdSpnOutcomes = loadMap("outcomeForNonObd.csv");
+    private static final Lazy<Map<Integer, String>> nonObdSpnOutcomes = lazyMap("outcomeForNonObd.csv");
 
     static {
-        steps.add(loadMap("part01Steps.csv"));
-        steps.add(loadMap("part02Steps.csv"));
-        steps.add(loadMap("part03Steps.csv"));
-        steps.add(loadMap("part04Steps.csv"));
-        steps.add(loadMap("part05Steps.csv"));
-        steps.add(loadMap("part06Steps.csv"));
-        steps.add(loadMap("part07Steps.csv"));
-        steps.add(loadMap("part08Steps.csv"));
-        steps.add(loadMap("part09Steps.csv"));
-        steps.add(loadMap("part10Steps.csv"));
-        steps.add(loadMap("part11Steps.csv"));
-        steps.add(loadMap("part12Steps.csv"));
+        for (int part = 1; part <= 12; part++) {
+            steps.add(lazyMap(String.format("part%02dSteps.csv", part)));
+        }
     }
 
     /**
@@ -84,8 +80,8 @@ public class Lookup {
      * @return     the value from the map or "Unknown" if the key does not have a
      *             value in the map
      */
-    private static String find(Map<Integer, String> map, int key) {
-        String name = map != null ? map.get(key) : null;
+    private static String find(Lazy<Map<Integer, String>> map, int key) {
+        String name = map != null ? map.get().get(key) : null;
         return name != null ? name : "Unknown";
     }
 
@@ -147,7 +143,7 @@ public class Lookup {
         return J1939DaRepository.getInstance().findSpnDefinition(spn).getLabel();
     }
 
-    private static Map<Integer, String> getStepMap(int partNumber) {
+    private static Lazy<Map<Integer, String>> getStepMap(int partNumber) {
         if (steps.size() >= partNumber && partNumber > 0) {
             return steps.get(partNumber - 1);
         }
@@ -174,6 +170,22 @@ public class Lookup {
         }
     }
 
+    /**
+     * Starts reading the tables every run uses, each on a thread of its own.
+     * The first to use one before it is read waits for it; the names of the
+     * steps and the outcomes are read when they are first used.
+     */
+    public static void preload() {
+        addresses.start();
+        fmis.start();
+        manufacturers.start();
+        parts.start();
+    }
+
+    private static Lazy<Map<Integer, String>> lazyMap(String fileName) {
+        return new Lazy<>(fileName, () -> loadMap(fileName));
+    }
+
     /**
      * Reads the given file and returns a map populated the values. It's assumed
      * the file is a Comma Separated Values file with the first column being an
@@ -12,7 +12,7 @@ import org.etools.j1939_84.bus.j1939.J1939;
 public class AcknowledgmentPacket extends GenericPacket {
 
     public static final int PGN = 59392; // 0xE800
-    private Response response;
+    private volatile Response response;
 
     public AcknowledgmentPacket(Packet packet) {
         super(packet);
@@ -67,8 +67,10 @@ public class AcknowledgmentPacket extends GenericPacket {
     }
 
     public Response getResponse() {
+        Response response = this.response;
         if (response == null) {
             response = Response.find(getPacket().get(0));
+            this.response = response;
         }
         return response;
     }
@@ -6,11 +6,14 @@ package org.etools.j1939_84.bus.j1939.packets;
 import static org.etools.j1939_84.J1939_84.NL;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.etools.j1939_84.bus.Packet;
 import org.etools.j1939_84.bus.j1939.Lookup;
+import org.etools.j1939_84.utils.Lazy;
 
 /**
  * Parses the Address Claim Packet
@@ -28,6 +31,11 @@ public class AddressClaimPacket extends GenericPacket {
      * The cache of Industry Group/Vehicle System/Functional Names
      */
     private static Set<Name> names;
+    /**
+     * The {@link Name}s by id, built on a thread of their own at startup
+     */
+    private static final Lazy<Map<Integer, Name>> namesById = new Lazy<>("Address Claim Names",
+                                                                         AddressClaimPacket::loadNames);
     /**
      * The ID of the Function
      */
@@ -90,11 +98,9 @@ public class AddressClaimPacket extends GenericPacket {
      *                         System and Function
      */
     private static Name findName(int industryGroupId, int vehicleSystemId, int functionId) {
-        int id = Name.getId(industryGroupId, vehicleSystemId, functionId);
-        for (Name name : getNames()) {
-            if (name.id == id) {
-                return name;
-            }
+        Name name = namesById.get().get(Name.getId(industryGroupId, vehicleSystemId, functionId));
+        if (name != null) {
+            return name;
         }
         return new Name(industryGroupId,
                         vehicleSystemId,
@@ -103,6 +109,25 @@ public class AddressClaimPacket extends GenericPacket {
                         "Unknown Function (" + functionId + ")");
     }
 
+    /**
+     * Starts building the {@link Name}s on a thread of their own
+     */
+    public static void preload() {
+        namesById.start();
+    }
+
+    /**
+     * Indexes the {@link Name}s by their id; where two have the same id, the
+     * first is kept
+     *
+     * @return the Names by id
+     */
+    private static Map<Integer, Name> loadNames() {
+        Map<Integer, Name> byId = new HashMap<>();
+        getNames().forEach(n -> byId.putIfAbsent(n.id, n));
+        return byId;
+    }
+
     /**
      * Method to cache and return the {@link Collection} of {@link Name}s
      *
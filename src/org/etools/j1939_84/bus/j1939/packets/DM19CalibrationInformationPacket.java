@@ -33,7 +33,7 @@ public class DM19CalibrationInformationPacket extends GenericPacket {
         return new DM19CalibrationInformationPacket(Packet.create(PGN | destination, address, data));
     }
 
-    private List<CalibrationInformation> info;
+    private volatile List<CalibrationInformation> info;
 
     public DM19CalibrationInformationPacket(Packet packet) {
         super(packet);
@@ -45,8 +45,10 @@ public class DM19CalibrationInformationPacket extends GenericPacket {
      * @return List of {@link CalibrationInformation}
      */
     public List<CalibrationInformation> getCalibrationInformation() {
+        List<CalibrationInformation> info = this.info;
         if (info == null) {
             info = parseAllInformation();
+            this.info = info;
         }
         return info;
     }
@@ -21,7 +21,7 @@ import org.etools.j1939_84.bus.Packet;
 public class DM20MonitorPerformanceRatioPacket extends GenericPacket {
 
     public static final int PGN = 49664; // 0xC200
-    private List<PerformanceRatio> ratios;
+    private volatile List<PerformanceRatio> ratios;
 
     public DM20MonitorPerformanceRatioPacket(Packet packet) {
         super(packet);
@@ -129,8 +129,10 @@ public class DM20MonitorPerformanceRatioPacket extends GenericPacket {
      * @return {@link List}
      */
     public List<PerformanceRatio> getRatios() {
+        List<PerformanceRatio> ratios = this.ratios;
         if (ratios == null) {
             ratios = parsePacket();
+            this.ratios = ratios;
         }
         return ratios;
     }
@@ -21,8 +21,8 @@ import org.etools.j1939_84.bus.j1939.Lookup;
 public class DM24SPNSupportPacket extends GenericPacket {
 
     public static final int PGN = 64950; // 0xFDB6
-    private List<SupportedSPN> spns;
-    private List<SupportedSPN> freezeFrameSPNs;
+    private volatile List<SupportedSPN> spns;
+    private volatile List<SupportedSPN> freezeFrameSPNs;
 
     public DM24SPNSupportPacket(Packet packet) {
         super(packet);
@@ -105,15 +105,17 @@ public class DM24SPNSupportPacket extends GenericPacket {
      * @return {@link List}
      */
     public List<SupportedSPN> getSupportedSpns() {
+        List<SupportedSPN> spns = this.spns;
         if (spns == null) {
-            spns = new ArrayList<>();
-            parsePacket();
+            spns = parsePacket();
             spns.sort(Comparator.comparingInt(SupportedSPN::getSpn));
+            this.spns = spns;
         }
         return spns;
     }
 
     public List<SupportedSPN> getFreezeFrameSPNsInOrder() {
+        List<SupportedSPN> freezeFrameSPNs = this.freezeFrameSPNs;
         if (freezeFrameSPNs == null) {
             freezeFrameSPNs = new ArrayList<>();
             int length = getPacket().getLength();
@@ -123,6 +125,7 @@ public class DM24SPNSupportPacket extends GenericPacket {
                     freezeFrameSPNs.add(parsedSpn);
                 }
             }
+            this.freezeFrameSPNs = freezeFrameSPNs;
         }
         return freezeFrameSPNs;
     }
@@ -147,7 +150,8 @@ public class DM24SPNSupportPacket extends GenericPacket {
     /**
      * Parses the packet to populate all the {@link SupportedSPN}s
      */
-    private void parsePacket() {
+    private List<SupportedSPN> parsePacket() {
+        List<SupportedSPN> spns = new ArrayList<>();
         int length = getPacket().getLength();
         for (int i = 0; i + 3 < length; i = i + 4) {
             SupportedSPN parsedSpn = parseSpn(i);
@@ -155,6 +159,7 @@ public class DM24SPNSupportPacket extends GenericPacket {
                 spns.add(parsedSpn);
             }
         }
+        return spns;
     }
 
     /**
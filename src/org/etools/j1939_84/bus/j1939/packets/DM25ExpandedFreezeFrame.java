@@ -19,7 +19,7 @@ import org.etools.j1939_84.utils.CollectionUtils;
  */
 public class DM25ExpandedFreezeFrame extends GenericPacket {
     public static final int PGN = 64951; // 0xFDB7
-    private List<FreezeFrame> freezeFrames;
+    private volatile List<FreezeFrame> freezeFrames;
 
     public DM25ExpandedFreezeFrame(Packet packet) {
         super(packet);
@@ -45,8 +45,10 @@ public class DM25ExpandedFreezeFrame extends GenericPacket {
      * @return {@link List}
      */
     public List<FreezeFrame> getFreezeFrames() {
+        List<FreezeFrame> freezeFrames = this.freezeFrames;
         if (freezeFrames == null) {
-            parsePacket();
+            freezeFrames = parsePacket();
+            this.freezeFrames = freezeFrames;
         }
         return freezeFrames;
     }
@@ -86,7 +88,7 @@ public class DM25ExpandedFreezeFrame extends GenericPacket {
         return sb.toString();
     }
 
-    private void parseChunk(int chunkLength) {
+    private void parseChunk(int chunkLength, List<FreezeFrame> freezeFrames) {
         int index = 0;
         boolean done = false;
         while (!done) {
@@ -113,19 +115,20 @@ public class DM25ExpandedFreezeFrame extends GenericPacket {
     /**
      * Parses the packet to populate all the {@link FreezeFrame}s
      */
-    private void parsePacket() {
-        freezeFrames = new ArrayList<>();
+    private List<FreezeFrame> parsePacket() {
+        List<FreezeFrame> freezeFrames = new ArrayList<>();
         int chunkLength = getPacket().get(0);
         if (chunkLength == 0) {
             int[] spnBytes = getPacket().getData(0, 5);
             int[] dataBytes = getPacket().getData(5, 8);
             if (Arrays.equals(spnBytes, new int[] { 0, 0, 0, 0, 0 })
                     && Arrays.equals(dataBytes, new int[] { 0xFF, 0xFF, 0xFF })) {
-                return;
+                return freezeFrames;
             }
             chunkLength = 8; // The data doesn't match spec
         }
-        parseChunk(chunkLength);
+        parseChunk(chunkLength, freezeFrames);
+        return freezeFrames;
     }
 
 }
@@ -20,11 +20,11 @@ import org.etools.j1939_84.bus.Packet;
  */
 public class DM29DtcCounts extends GenericPacket {
     public static final int PGN = 40448; // 9E00
-    private int allPendingDTCCount = -1;
-    private int emissionRelatedMILOnDTCCount = -1;
-    private int emissionRelatedPendingDTCCount = -1;
-    private int emissionRelatedPermanentDTCCount = -1;
-    private int emissionRelatedPreviouslyMILOnDTCCount = -1;
+    private volatile int allPendingDTCCount = -1;
+    private volatile int emissionRelatedMILOnDTCCount = -1;
+    private volatile int emissionRelatedPendingDTCCount = -1;
+    private volatile int emissionRelatedPermanentDTCCount = -1;
+    private volatile int emissionRelatedPreviouslyMILOnDTCCount = -1;
 
     public DM29DtcCounts(Packet packet) {
         super(packet);
@@ -19,7 +19,7 @@ import org.etools.j1939_84.bus.Packet;
 public class DM30ScaledTestResultsPacket extends GenericPacket {
 
     public static final int PGN = 41984;
-    private List<ScaledTestResult> testResults;
+    private volatile List<ScaledTestResult> testResults;
 
     public DM30ScaledTestResultsPacket(Packet packet) {
         super(packet);
@@ -76,12 +76,14 @@ public class DM30ScaledTestResultsPacket extends GenericPacket {
      * @return a {@link List} of {@link ScaledTestResult}s
      */
     public List<ScaledTestResult> getTestResults() {
+        List<ScaledTestResult> testResults = this.testResults;
         if (testResults == null) {
             testResults = new ArrayList<>();
             int length = getPacket().getLength();
             for (int i = 0; i + 11 < length; i = i + 12) {
                 testResults.add(parseTestResult(i));
             }
+            this.testResults = testResults;
         }
         return testResults;
     }
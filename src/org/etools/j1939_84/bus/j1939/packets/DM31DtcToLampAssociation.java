@@ -21,7 +21,7 @@ import org.etools.j1939_84.bus.Packet;
  */
 public class DM31DtcToLampAssociation extends GenericPacket {
     public static final int PGN = 41728; // 0xA300
-    private List<DTCLampStatus> dtcLampStatuses;
+    private volatile List<DTCLampStatus> dtcLampStatuses;
 
     public DM31DtcToLampAssociation(Packet packet) {
         super(packet);
@@ -43,8 +43,10 @@ public class DM31DtcToLampAssociation extends GenericPacket {
      * @return the dtcLampStatuses
      */
     public List<DTCLampStatus> getDtcLampStatuses() {
+        List<DTCLampStatus> dtcLampStatuses = this.dtcLampStatuses;
         if (dtcLampStatuses == null) {
-            parsePacket();
+            dtcLampStatuses = parsePacket();
+            this.dtcLampStatuses = dtcLampStatuses;
         }
         return dtcLampStatuses;
     }
@@ -89,14 +91,15 @@ public class DM31DtcToLampAssociation extends GenericPacket {
     /**
      * Parses the packet to populate all the member variables
      */
-    private void parsePacket() {
+    private List<DTCLampStatus> parsePacket() {
         int length = getPacket().getLength();
-        dtcLampStatuses = new ArrayList<>();
+        List<DTCLampStatus> dtcLampStatuses = new ArrayList<>();
         for (int i = 0; i + 6 <= length; i = i + 6) {
             if (getPacket().get32(0) != 0) {
                 dtcLampStatuses.add(new DTCLampStatus(getPacket().getData(i, i + 6)));
             }
         }
+        return dtcLampStatuses;
     }
 
 }
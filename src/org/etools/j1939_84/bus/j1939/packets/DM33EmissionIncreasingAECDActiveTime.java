@@ -21,7 +21,7 @@ import org.etools.j1939_84.utils.CollectionUtils;
  */
 public class DM33EmissionIncreasingAECDActiveTime extends GenericPacket {
     public static final int PGN = 41216; // 0xA100
-    private List<EngineHoursTimer> eiAecdEngineHoursTimers;
+    private volatile List<EngineHoursTimer> eiAecdEngineHoursTimers;
 
     public DM33EmissionIncreasingAECDActiveTime(Packet packet) {
         super(packet);
@@ -42,8 +42,10 @@ public class DM33EmissionIncreasingAECDActiveTime extends GenericPacket {
     }
 
     public List<EngineHoursTimer> getEiAecdEngineHoursTimers() {
+        List<EngineHoursTimer> eiAecdEngineHoursTimers = this.eiAecdEngineHoursTimers;
         if (eiAecdEngineHoursTimers == null) {
-            parsePacket();
+            eiAecdEngineHoursTimers = parsePacket();
+            this.eiAecdEngineHoursTimers = eiAecdEngineHoursTimers;
         }
         return eiAecdEngineHoursTimers;
     }
@@ -71,13 +73,14 @@ public class DM33EmissionIncreasingAECDActiveTime extends GenericPacket {
         return sb.toString();
     }
 
-    private void parsePacket() {
-        eiAecdEngineHoursTimers = new ArrayList<>();
+    private List<EngineHoursTimer> parsePacket() {
+        List<EngineHoursTimer> eiAecdEngineHoursTimers = new ArrayList<>();
         int length = getPacket().getLength();
         for (int i = 0; i + 8 < length; i = i + 9) {
             int[] copyOfRange = getPacket().getData(i, i + 9);
             eiAecdEngineHoursTimers.add(new EngineHoursTimer(copyOfRange));
         }
+        return eiAecdEngineHoursTimers;
     }
 
 }
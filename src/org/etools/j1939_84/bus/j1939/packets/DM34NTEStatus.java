@@ -13,12 +13,12 @@ import org.etools.j1939_84.bus.Packet;
 public class DM34NTEStatus extends GenericPacket {
 
     public static final int PGN = 40960; // 0xA000
-    private AreaStatus noxNTEControlAreaStatus;
-    private AreaStatus noxNTECarveOutAreaStatus;
-    private AreaStatus noxNTEDeficiencyAreaStatus;
-    private AreaStatus pmNTEControlAreaStatus;
-    private AreaStatus pmNTECarveOutAreaStatus;
-    private AreaStatus pmNTEDeficiencyAreaStatus;
+    private volatile AreaStatus noxNTEControlAreaStatus;
+    private volatile AreaStatus noxNTECarveOutAreaStatus;
+    private volatile AreaStatus noxNTEDeficiencyAreaStatus;
+    private volatile AreaStatus pmNTEControlAreaStatus;
+    private volatile AreaStatus pmNTECarveOutAreaStatus;
+    private volatile AreaStatus pmNTEDeficiencyAreaStatus;
 
     public DM34NTEStatus(Packet packet) {
         super(packet);
@@ -22,9 +22,9 @@ public class DM56EngineFamilyPacket extends GenericPacket {
         return new DM56EngineFamilyPacket(Packet.create(PGN, address, data));
     }
 
-    private String familyName = null;
+    private volatile String familyName;
 
-    private String modelYear = null;
+    private volatile String modelYear;
 
     public DM56EngineFamilyPacket(Packet packet) {
         super(packet);
@@ -35,10 +35,12 @@ public class DM56EngineFamilyPacket extends GenericPacket {
     }
 
     public String getFamilyName() {
+        String familyName = this.familyName;
         if (familyName == null) {
             byte[] bytes = getPacket().getBytes();
             byte[] data = Arrays.copyOfRange(bytes, 8, bytes.length);
             familyName = parseField(data, false);
+            this.familyName = familyName;
         }
         return familyName;
     }
@@ -59,8 +61,10 @@ public class DM56EngineFamilyPacket extends GenericPacket {
      *
      */
     public String getModelYearField() {
+        String modelYear = this.modelYear;
         if (modelYear == null) {
             modelYear = format(Arrays.copyOf(getPacket().getBytes(), 8)).trim();
+            this.modelYear = modelYear;
         }
         return modelYear;
     }
@@ -16,11 +16,11 @@ import org.etools.j1939_84.bus.Packet;
 public class DTCLampStatus {
 
     private final int[] data;
-    private LampStatus awlStatus;
-    private DiagnosticTroubleCode dtc;
-    private LampStatus milStatus;
-    private LampStatus plStatus;
-    private LampStatus rslStatus;
+    private volatile LampStatus awlStatus;
+    private volatile DiagnosticTroubleCode dtc;
+    private volatile LampStatus milStatus;
+    private volatile LampStatus plStatus;
+    private volatile LampStatus rslStatus;
 
     /**
      * Constructor
@@ -61,8 +61,10 @@ public class DTCLampStatus {
      * @return {@link LampStatus}
      */
     public LampStatus getAmberWarningLampStatus() {
+        LampStatus awlStatus = this.awlStatus;
         if (awlStatus == null) {
             awlStatus = getLampStatus(0x0C, 2);
+            this.awlStatus = awlStatus;
         }
         return awlStatus;
     }
@@ -92,8 +94,10 @@ public class DTCLampStatus {
      * @return DTC
      */
     public DiagnosticTroubleCode getDtc() {
+        DiagnosticTroubleCode dtc = this.dtc;
         if (dtc == null) {
             dtc = parseDTC();
+            this.dtc = dtc;
         }
         return dtc;
     }
@@ -119,8 +123,10 @@ public class DTCLampStatus {
      * @return {@link LampStatus}
      */
     public LampStatus getMalfunctionIndicatorLampStatus() {
+        LampStatus milStatus = this.milStatus;
         if (milStatus == null) {
             milStatus = getLampStatus(0xC0, 6);
+            this.milStatus = milStatus;
         }
         return milStatus;
     }
@@ -131,8 +137,10 @@ public class DTCLampStatus {
      * @return {@link LampStatus}
      */
     public LampStatus getProtectLampStatus() {
+        LampStatus plStatus = this.plStatus;
         if (plStatus == null) {
             plStatus = getLampStatus(0x03, 0);
+            this.plStatus = plStatus;
         }
         return plStatus;
     }
@@ -143,8 +151,10 @@ public class DTCLampStatus {
      * @return {@link LampStatus}
      */
     public LampStatus getRedStopLampStatus() {
+        LampStatus rslStatus = this.rslStatus;
         if (rslStatus == null) {
             rslStatus = getLampStatus(0x30, 4);
+            this.rslStatus = rslStatus;
         }
         return rslStatus;
     }
@@ -21,11 +21,11 @@ import org.etools.j1939_84.bus.Packet;
  */
 public class DiagnosticTroubleCodePacket extends GenericPacket {
 
-    private LampStatus awlStatus;
-    private List<DiagnosticTroubleCode> dtcs;
-    private LampStatus milStatus;
-    private LampStatus plStatus;
-    private LampStatus rslStatus;
+    private volatile LampStatus awlStatus;
+    private volatile List<DiagnosticTroubleCode> dtcs;
+    private volatile LampStatus milStatus;
+    private volatile LampStatus plStatus;
+    private volatile LampStatus rslStatus;
 
     /**
      * Constructor
@@ -75,8 +75,10 @@ public class DiagnosticTroubleCodePacket extends GenericPacket {
      * @return {@link LampStatus}
      */
     public LampStatus getAmberWarningLampStatus() {
+        LampStatus awlStatus = this.awlStatus;
         if (awlStatus == null) {
             awlStatus = getLampStatus(0x0C, 2);
+            this.awlStatus = awlStatus;
         }
         return awlStatus;
     }
@@ -88,8 +90,10 @@ public class DiagnosticTroubleCodePacket extends GenericPacket {
      * @return List of DTCs
      */
     public List<DiagnosticTroubleCode> getDtcs() {
+        List<DiagnosticTroubleCode> dtcs = this.dtcs;
         if (dtcs == null) {
             dtcs = parseDTCs();
+            this.dtcs = dtcs;
         }
         return Collections.unmodifiableList(dtcs);
     }
@@ -119,8 +123,10 @@ public class DiagnosticTroubleCodePacket extends GenericPacket {
      * @return {@link LampStatus}
      */
     public LampStatus getMalfunctionIndicatorLampStatus() {
+        LampStatus milStatus = this.milStatus;
         if (milStatus == null) {
             milStatus = getLampStatus(0xC0, 6);
+            this.milStatus = milStatus;
         }
         return milStatus;
     }
@@ -152,8 +158,10 @@ public class DiagnosticTroubleCodePacket extends GenericPacket {
      * @return {@link LampStatus}
      */
     public LampStatus getProtectLampStatus() {
+        LampStatus plStatus = this.plStatus;
         if (plStatus == null) {
             plStatus = getLampStatus(0x03, 0);
+            this.plStatus = plStatus;
         }
         return plStatus;
     }
@@ -164,8 +172,10 @@ public class DiagnosticTroubleCodePacket extends GenericPacket {
      * @return {@link LampStatus}
      */
     public LampStatus getRedStopLampStatus() {
+        LampStatus rslStatus = this.rslStatus;
         if (rslStatus == null) {
             rslStatus = getLampStatus(0x30, 4);
+            this.rslStatus = rslStatus;
         }
         return rslStatus;
     }
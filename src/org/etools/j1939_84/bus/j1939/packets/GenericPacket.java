@@ -22,12 +22,11 @@ import org.etools.j1939_84.bus.j1939.packets.model.SpnDefinition;
 public class GenericPacket extends ParsedPacket {
 
     private final SpnDataParser parser;
-    private final PgnDefinition pgnDefinition;
-    private List<Spn> spns;
+    private volatile PgnDefinition pgnDefinition;
+    private volatile List<Spn> spns;
 
     public GenericPacket(Packet packet) {
         super(packet);
-        pgnDefinition = getJ1939DaRepository().findPgnDefinition(packet.getPgn());
         parser = new SpnDataParser();
     }
 
@@ -69,6 +68,13 @@ public class GenericPacket extends ParsedPacket {
     }
 
     public PgnDefinition getPgnDefinition() {
+        // looked up when first used, so packets that are only sent or passed
+        // on do not need the J1939DA to be read
+        PgnDefinition pgnDefinition = this.pgnDefinition;
+        if (pgnDefinition == null) {
+            pgnDefinition = getJ1939DaRepository().findPgnDefinition(getPacket().getPgn());
+            this.pgnDefinition = pgnDefinition;
+        }
         return pgnDefinition;
     }
 
@@ -86,6 +92,8 @@ public class GenericPacket extends ParsedPacket {
     }
 
     public List<Spn> getSpns() {
+        // a complete list is published, as the report may be written on another thread
+        List<Spn> spns = this.spns;
         if (spns == null) {
             spns = new ArrayList<>();
 
@@ -98,6 +106,7 @@ public class GenericPacket extends ParsedPacket {
                     spns.add(new Spn(definition.getSpnId(), definition.getLabel(), slot, data));
                 }
             }
+            this.spns = spns;
         }
         return spns;
     }
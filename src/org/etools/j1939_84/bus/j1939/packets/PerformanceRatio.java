@@ -26,8 +26,8 @@ public class PerformanceRatio implements Comparable<PerformanceRatio> {
     private final int numerator;
     private final int sourceAddress;
     private final int spn;
-    private String name;
-    private String source;
+    private volatile String name;
+    private volatile String source;
 
     /**
      * Constructor
@@ -81,8 +81,10 @@ public class PerformanceRatio implements Comparable<PerformanceRatio> {
      * @return {@link String}
      */
     public String getName() {
+        String name = this.name;
         if (name == null) {
             name = "SPN " + String.format("%1$4s", getSpn()) + " " + Lookup.getSpnName(getSpn());
+            this.name = name;
         }
         return name;
     }
@@ -102,8 +104,10 @@ public class PerformanceRatio implements Comparable<PerformanceRatio> {
      * @return String
      */
     public String getSource() {
+        String source = this.source;
         if (source == null) {
             source = Lookup.getAddressName(sourceAddress);
+            this.source = source;
         }
         return source;
     }
@@ -26,7 +26,7 @@ public class ScaledTestResult implements Comparable<ScaledTestResult> {
     private final int testMaximum;
     private final int testMinimum;
     private final int testValue;
-    private Slot slot;
+    private volatile Slot slot;
 
     /**
      * Constructor
@@ -113,8 +113,10 @@ public class ScaledTestResult implements Comparable<ScaledTestResult> {
      * @return {@link Slot}
      */
     public Slot getSlot() {
+        Slot slot = this.slot;
         if (slot == null) {
             slot = J1939DaRepository.findSlot(slotNumber, spn);
+            this.slot = slot;
         }
         return slot;
     }
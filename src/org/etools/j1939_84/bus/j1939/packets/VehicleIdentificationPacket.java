@@ -19,7 +19,7 @@ public class VehicleIdentificationPacket extends GenericPacket {
 
     public static final int PGN = 65260;
 
-    private String vin = null;
+    private volatile String vin;
 
     public VehicleIdentificationPacket(Packet packet) {
         super(packet);
@@ -64,8 +64,10 @@ public class VehicleIdentificationPacket extends GenericPacket {
      *
      */
     public String getVin() {
+        String vin = this.vin;
         if (vin == null) {
             vin = parseField(getPacket().getBytes());
+            this.vin = vin;
         }
         return vin;
     }
@@ -75,10 +75,15 @@ public class Spn implements Comparable<Spn> {
 
     @Override
     public String toString() {
-        return String.format("SPN %1$5s, %2$s: %3$s",
-                             id,
-                             label,
-                             slot.asString(data));
+        // "SPN %5s, %s: %s" without String.format, which is called for each SPN of each packet reported
+        String idString = Integer.toString(id);
+        String value = slot.asString(data);
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("SPN ");
+        for (int i = idString.length(); i < 5; i++) {
+            sb.append(' ');
+        }
+        return sb.append(idString).append(", ").append(label).append(": ").append(value).toString();
     }
 
     @Override
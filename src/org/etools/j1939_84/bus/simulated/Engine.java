@@ -172,28 +172,28 @@ public class Engine implements AutoCloseable {
         });
 
         // Listeners for key state change
-        sim.response(p -> isRequestFor(0x1FFFF, p), p -> {
+        sim.response(0x1FFFF, ADDR, p -> {
             setKeyState(KEY_ON_ENGINE_RUNNING);
             return Packet.create(0x1FFFF, ADDR, getKeyStateAsBytes());
         });
 
-        sim.response(p -> isRequestFor(0x1FFFE, p), () -> {
+        sim.response(0x1FFFE, ADDR, () -> {
             setKeyState(KeyState.KEY_ON_ENGINE_OFF);
             return Packet.create(0x1FFFE, ADDR, getKeyStateAsBytes());
         });
 
-        sim.response(p -> isRequestFor(0x1FFFC, p), () -> {
+        sim.response(0x1FFFC, ADDR, () -> {
             setKeyState(KEY_OFF);
             return Packet.create(0x1FFFC, ADDR, getKeyStateAsBytes());
         });
 
         // Listeners to implant faults
-        sim.response(p -> isRequestFor(0x1FFFA, p), () -> {
+        sim.response(0x1FFFA, ADDR, () -> {
             nextFault = DiagnosticTroubleCode.create(0xFA, 0x0A, 0, 1);
             return Packet.create(0x1FFFA, ADDR, NA8);
         });
 
-        sim.response(p -> isRequestFor(0x1FFFB, p), () -> {
+        sim.response(0x1FFFB, ADDR, () -> {
             nextFault = DiagnosticTroubleCode.create(0xFB, 0x0B, 0, 1);
             return Packet.create(0x1FFFB, ADDR, NA8);
         });
@@ -226,16 +226,16 @@ public class Engine implements AutoCloseable {
 
         sim.schedule(100, MILLISECONDS, () -> Packet.create(65248, ADDR, combine(NA4, DISTANCE)));
 
-        sim.response(p -> isRequestFor(65259, p), () -> Packet.create(65259, ADDR, COMPONENT_ID));
+        sim.response(65259, ADDR, () -> Packet.create(65259, ADDR, COMPONENT_ID));
 
-        sim.response(p -> isRequestFor(EngineHoursPacket.PGN, p),
+        sim.response(EngineHoursPacket.PGN, ADDR,
                      EngineHoursPacket.create(ADDR, secondsRunning)::getPacket);
 
         // Address Claim
-        sim.response(p -> isRequestFor(0xEE00, p),
+        sim.response(0xEE00, ADDR,
                      p -> Packet.create(0xEEFF, ADDR, 0x00, 0x00, 0x40, 0x05, 0x00, 0x00, 0x65, 0x14));
 
-        sim.response(p -> isRequestFor(VehicleIdentificationPacket.PGN, p),
+        sim.response(VehicleIdentificationPacket.PGN, ADDR,
                      p -> Packet.create(VehicleIdentificationPacket.PGN, ADDR, VIN));
 
         // DM1
@@ -250,7 +250,7 @@ public class Engine implements AutoCloseable {
                                               .getPacket());
 
         // DM2
-        sim.response(p -> isRequestFor(DM2PreviouslyActiveDTC.PGN, p),
+        sim.response(DM2PreviouslyActiveDTC.PGN, ADDR,
                      p -> DM2PreviouslyActiveDTC.create(ADDR,
                                                         getMilStatus(),
                                                         OFF,
@@ -260,7 +260,7 @@ public class Engine implements AutoCloseable {
                                                 .getPacket());
 
         // DM3
-        sim.response(p -> isRequestFor(DM3DiagnosticDataClearPacket.PGN, p),
+        sim.response(DM3DiagnosticDataClearPacket.PGN, ADDR,
                      p -> AcknowledgmentPacket.create(ADDR,
                                                       NACK,
                                                       0,
@@ -269,7 +269,7 @@ public class Engine implements AutoCloseable {
                                               .getPacket());
 
         // DM5
-        sim.response(p -> isRequestFor(DM5DiagnosticReadinessPacket.PGN, p),
+        sim.response(DM5DiagnosticReadinessPacket.PGN, ADDR,
                      p -> DM5DiagnosticReadinessPacket.create(ADDR,
                                                               activeDTCs.size(),
                                                               previousDTCs.size(),
@@ -279,7 +279,7 @@ public class Engine implements AutoCloseable {
                                                       .getPacket());
 
         // DM6
-        sim.response(p -> isRequestFor(DM6PendingEmissionDTCPacket.PGN, p),
+        sim.response(DM6PendingEmissionDTCPacket.PGN, ADDR,
                      p -> DM6PendingEmissionDTCPacket.create(ADDR,
                                                              getMilStatus(),
                                                              OFF,
@@ -306,7 +306,7 @@ public class Engine implements AutoCloseable {
                                               .getPacket());
 
         // DM12
-        sim.response(p -> isRequestFor(DM12MILOnEmissionDTCPacket.PGN, p),
+        sim.response(DM12MILOnEmissionDTCPacket.PGN, ADDR,
                      p -> DM12MILOnEmissionDTCPacket.create(ADDR,
                                                             getMilStatus(),
                                                             OFF,
@@ -316,13 +316,13 @@ public class Engine implements AutoCloseable {
                                                     .getPacket());
 
         // DM19
-        sim.response(p -> isRequestFor(DM19CalibrationInformationPacket.PGN, p),
+        sim.response(DM19CalibrationInformationPacket.PGN, ADDR,
                      p -> Packet.create(DM19CalibrationInformationPacket.PGN | p.getSource(),
                                         ADDR,
                                         combine(ENGINE_CVN1, ENGINE_CAL_ID1)));
 
         // DM 20
-        sim.response(p -> isRequestFor(DM20MonitorPerformanceRatioPacket.PGN, p),
+        sim.response(DM20MonitorPerformanceRatioPacket.PGN, ADDR,
                      p -> DM20MonitorPerformanceRatioPacket.create(ADDR,
                                                                    p.getSource(),
                                                                    ignitionCycles,
@@ -358,7 +358,7 @@ public class Engine implements AutoCloseable {
                                                            .getPacket());
 
         // DM21
-        sim.response(p -> isRequestFor(DM21DiagnosticReadinessPacket.PGN, p),
+        sim.response(DM21DiagnosticReadinessPacket.PGN, ADDR,
                      p -> DM21DiagnosticReadinessPacket.create(ADDR,
                                                                p.getSource(),
                                                                0,
@@ -386,7 +386,7 @@ public class Engine implements AutoCloseable {
                                                          .getPacket();
                      });
         // DM23
-        sim.response(p -> isRequestFor(DM23PreviouslyMILOnEmissionDTCPacket.PGN, p),
+        sim.response(DM23PreviouslyMILOnEmissionDTCPacket.PGN, ADDR,
                      p -> DM23PreviouslyMILOnEmissionDTCPacket.create(ADDR,
                                                                       getMilStatus(),
                                                                       OFF,
@@ -396,7 +396,7 @@ public class Engine implements AutoCloseable {
                                                               .getPacket());
 
         // DM24 supported SPNs
-        sim.response(p -> isRequestFor(DM24SPNSupportPacket.PGN, p),
+        sim.response(DM24SPNSupportPacket.PGN, ADDR,
                      p -> DM24SPNSupportPacket.create(ADDR,
                                                       SupportedSPN.create(27, false, true, false, 1),
                                                       SupportedSPN.create(84, false, true, false, 1),
@@ -455,7 +455,7 @@ public class Engine implements AutoCloseable {
                                               .getPacket());
 
         // DM25
-        sim.response(p -> isRequestFor(DM25ExpandedFreezeFrame.PGN, p),
+        sim.response(DM25ExpandedFreezeFrame.PGN, ADDR,
                      p -> {
                          var dtcs = new HashSet<DiagnosticTroubleCode>();
 
@@ -483,7 +483,7 @@ public class Engine implements AutoCloseable {
                      });
 
         // DM26
-        sim.response(p -> isRequestFor(DM26TripDiagnosticReadinessPacket.PGN, p),
+        sim.response(DM26TripDiagnosticReadinessPacket.PGN, ADDR,
                      p -> DM26TripDiagnosticReadinessPacket.create(ADDR,
                                                                    secondsSCC,
                                                                    warmUpsSCC,
@@ -492,7 +492,7 @@ public class Engine implements AutoCloseable {
                                                            .getPacket());
 
         // DM27
-        sim.response(p -> isRequestFor(DM27AllPendingDTCsPacket.PGN, p),
+        sim.response(DM27AllPendingDTCsPacket.PGN, ADDR,
                      p -> DM27AllPendingDTCsPacket.create(ADDR,
                                                           getMilStatus(),
                                                           OFF,
@@ -502,7 +502,7 @@ public class Engine implements AutoCloseable {
                                                   .getPacket());
 
         // DM28
-        sim.response(p -> isRequestFor(DM28PermanentEmissionDTCPacket.PGN, p),
+        sim.response(DM28PermanentEmissionDTCPacket.PGN, ADDR,
                      p -> DM28PermanentEmissionDTCPacket.create(ADDR,
                                                                 getMilStatus(),
                                                                 OFF,
@@ -512,7 +512,7 @@ public class Engine implements AutoCloseable {
                                                         .getPacket());
 
         // DM29
-        sim.response(p -> isRequestFor(DM29DtcCounts.PGN, p),
+        sim.response(DM29DtcCounts.PGN, ADDR,
                      p -> DM29DtcCounts.create(ADDR,
                                                p.getSource(),
                                                pendingDTCs.size(),
@@ -582,7 +582,7 @@ public class Engine implements AutoCloseable {
         });
 
         // DM31
-        sim.response(p -> isRequestFor(DM31DtcToLampAssociation.PGN, p),
+        sim.response(DM31DtcToLampAssociation.PGN, ADDR,
                      p -> {
                          List<DTCLampStatus> lampStatuses = new ArrayList<>();
 
@@ -602,7 +602,7 @@ public class Engine implements AutoCloseable {
 
         // @formatter:off
         // DM33
-        sim.response(p -> isRequestFor(DM33EmissionIncreasingAECDActiveTime.PGN, p),
+        sim.response(DM33EmissionIncreasingAECDActiveTime.PGN, ADDR,
                      p -> Packet.create(DM33EmissionIncreasingAECDActiveTime.PGN | p.getSource(),
                                      ADDR,
                                      0x01, //Number
@@ -639,7 +639,7 @@ public class Engine implements AutoCloseable {
                              ));
         // @formatter:on
 
-        sim.response(p -> isRequestFor(DM34NTEStatus.PGN, p),
+        sim.response(DM34NTEStatus.PGN, ADDR,
                      p -> DM34NTEStatus.create(ADDR,
                                                p.getSource(),
                                                OUTSIDE,
@@ -651,11 +651,11 @@ public class Engine implements AutoCloseable {
                                        .getPacket());
 
         // DM56 Engine Model Year
-        sim.response(p -> isRequestFor(DM56EngineFamilyPacket.PGN, p),
+        sim.response(DM56EngineFamilyPacket.PGN, ADDR,
                      DM56EngineFamilyPacket.create(ADDR, 2015, true, "US HD OBD    ")::getPacket);
 
         // Req PGN 64587 from Engine #1 (0) with SPNs 6895, 7333
-        sim.response(p -> isRequestFor(64587, p),
+        sim.response(64587, ADDR,
                      () -> Packet.create(64587,
                                          ADDR,
                                          0,
@@ -668,35 +668,35 @@ public class Engine implements AutoCloseable {
                                          0));
 
         // Req PGN 64891 from Engine #1 (0) with SPNs 5466
-        sim.response(p -> isRequestFor(64891, p),
+        sim.response(64891, ADDR,
                      () -> Packet.create(64891, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // Req PGN 64920 from Engine #1 (0) with SPNs 5827
-        sim.response(p -> isRequestFor(64920, p),
+        sim.response(64920, ADDR,
                      () -> Packet.create(64920, ADDR, new int[40]));
 
         // Req PGN 64962 from Engine #1 (0) with SPNs 5829, 5837
-        sim.response(p -> isRequestFor(64962, p),
+        sim.response(64962, ADDR,
                      () -> Packet.create(64962, ADDR, 0, 0, 0, 0, 0, 0, 0x04, 0));
 
         // Req PGN 64981 from Engine #1 (0) with SPNs 2791
-        sim.response(p -> isRequestFor(64981, p),
+        sim.response(64981, ADDR,
                      () -> Packet.create(64981, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // Req PGN 65154 from Engine #1 (0) with SPNs 1413
-        sim.response(p -> isRequestFor(65154, p),
+        sim.response(65154, ADDR,
                      () -> Packet.create(65154, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // Req PGN 65244 from Engine #1 (0) with SPNs 235
-        sim.response(p -> isRequestFor(65244, p),
+        sim.response(65244, ADDR,
                      () -> Packet.create(65244, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // Req PGN 65253 from Engine #1 (0) with SPNs 247
-        sim.response(p -> isRequestFor(65253, p),
+        sim.response(65253, ADDR,
                      () -> Packet.create(65253, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // Req PGN 65255 from Engine #1 (0) with SPNs 248
-        sim.response(p -> isRequestFor(65255, p),
+        sim.response(65255, ADDR,
                      () -> Packet.create(65255, ADDR, 0, 0, 0, 0, 0, 0, 0, 0));
 
         // BCT PGN 61443 from Engine #1 (0) with SPNs 91, 92
@@ -826,11 +826,6 @@ public class Engine implements AutoCloseable {
         return packet.getPgn() == 0xE300;
     }
 
-    private static boolean isRequestFor(int pgn, Packet packet) {
-        return (packet.getId(0xFFFF) == (0xEA00 | Engine.ADDR) || packet.getId(0xFFFF) == 0xEAFF)
-                && packet.get24(0) == pgn;
-    }
-
     @Override
     public void close() {
         sim.close();
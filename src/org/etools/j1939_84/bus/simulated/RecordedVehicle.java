@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.simulated;
+
+import static org.etools.j1939_84.bus.j1939.J1939.GLOBAL_ADDR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.Bus;
+import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.CaptureReader;
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+
+/**
+ * Simulates every module seen in a capture file.
+ *
+ * For each source address in the capture, the PGNs it broadcast are sent at
+ * their recorded average period with the last recorded data, and the
+ * responses it gave to requests and commands from the tool are sent when the
+ * same request or command is received. When a request was recorded more than
+ * once, the recorded responses are used in turn. Messages sent with the
+ * transport protocol are reassembled when learned and each module sends them
+ * with a {@link J1939TP} of its own address, so they go out as BAM or RTS/CTS
+ * the way the module sent them. The tool must read the bus through a
+ * {@link J1939TP} too, to answer the RTS with CTS and EOM.
+ *
+ * All of the modules share one {@link Sim}.
+ */
+public class RecordedVehicle implements AutoCloseable {
+
+    /**
+     * The connection string that simulates a capture file rather than
+     * replaying it.
+     */
+    public static final String CONNECTION_STRING = "Simulate";
+
+    private static final int REQUEST = 0xEA00;
+
+    private static final int ACK = 0xE800;
+
+    /** How long after a request the responses are expected. */
+    private static final long RESPONSE_NANOS = TimeUnit.MILLISECONDS.toNanos(J1939TP.T2);
+
+    /** The number of times a PGN must be broadcast to be sent periodically. */
+    private static final int MIN_BROADCASTS = 3;
+
+    /** The shortest period a broadcast is sent at. */
+    private static final int MIN_PERIOD = 10;
+
+    /** A PGN broadcast by a module. */
+    static class Broadcast {
+        private long firstNanos;
+        private long lastNanos;
+        private int count;
+        private Packet last;
+
+        void add(Packet packet, long nanos) {
+            if (count++ == 0) {
+                firstNanos = nanos;
+            }
+            lastNanos = nanos;
+            last = packet;
+        }
+
+        /** @return the average period in milliseconds or -1 if it is not periodic */
+        int getPeriod() {
+            if (count < MIN_BROADCASTS) {
+                return -1;
+            }
+            long period = TimeUnit.NANOSECONDS.toMillis((lastNanos - firstNanos) / (count - 1));
+            return (int) Math.max(MIN_PERIOD, period);
+        }
+    }
+
+    /** The recorded responses to one request, used in turn. */
+    static class Responses {
+        private final List<Packet> packets = new ArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        Packet next() {
+            return copy(packets.get(next.getAndIncrement() % packets.size()));
+        }
+    }
+
+    /** What was learned about one source address. */
+    static class Ecu {
+        final Map<Integer, Broadcast> broadcasts = new TreeMap<>();
+        final Map<Integer, Responses> responses = new TreeMap<>();
+    }
+
+    /** A request or command from the tool that may still be answered. */
+    private static class Request {
+        final Packet packet;
+        final long nanos;
+        final int pgn;
+        final String key;
+        /** modules that have already answered */
+        final Set<Integer> answered = new TreeSet<>();
+
+        Request(Packet packet, long nanos) {
+            this.packet = packet;
+            this.nanos = nanos;
+            pgn = packet.getPgn() == REQUEST ? packet.get24(0) : -1;
+            key = key(packet);
+        }
+    }
+
+    /** A TP message being reassembled. */
+    private static class Session {
+        final Packet cm;
+        final long nanos;
+        final byte[] data;
+        final int packets;
+        final BitSet received = new BitSet();
+
+        Session(Packet cm, long nanos) {
+            this.cm = cm;
+            this.nanos = nanos;
+            data = new byte[cm.get16(1)];
+            packets = cm.get(3);
+        }
+
+        /** @return the message if the packet completed it */
+        Packet add(Packet dt) {
+            int sequence = dt.get(0);
+            int offset = (sequence - 1) * 7;
+            if (sequence == 0 || offset >= data.length) {
+                return null;
+            }
+            System.arraycopy(dt.getBytes(), 1, data, offset, Math.min(7, data.length - offset));
+            received.set(sequence);
+            if (received.cardinality() < packets) {
+                return null;
+            }
+            int pgn = cm.get24(5);
+            int id = pgn < 0xF000 ? pgn | cm.getDestination() : pgn;
+            return Packet.create(cm.getTimestamp(), cm.getPriority(), id, cm.getSource(), false, data);
+        }
+    }
+
+    /**
+     * The bus the modules share. Messages longer than a frame are sent with
+     * the {@link J1939TP} of their source. Closing it leaves the bus open, as
+     * the bus belongs to the caller.
+     */
+    private class ModuleBus implements Bus {
+        private final Bus bus;
+
+        ModuleBus(Bus bus) {
+            this.bus = bus;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Stream<Packet> duplicate(Stream<Packet> stream, int time, TimeUnit unit) {
+            return bus.duplicate(stream, time, unit);
+        }
+
+        @Override
+        public int getAddress() {
+            return bus.getAddress();
+        }
+
+        @Override
+        public int getConnectionSpeed() throws BusException {
+            return bus.getConnectionSpeed();
+        }
+
+        @Override
+        public Stream<Packet> read(long timeout, TimeUnit unit) throws BusException {
+            return bus.read(timeout, unit);
+        }
+
+        @Override
+        public void resetTimeout(Stream<Packet> stream, int time, TimeUnit unit) {
+            bus.resetTimeout(stream, time, unit);
+        }
+
+        @Override
+        public Packet send(Packet packet) throws BusException {
+            J1939TP transport = transports.get(packet.getSource());
+            return packet.getLength() > 8 && transport != null ? transport.send(packet) : bus.send(packet);
+        }
+
+        @Override
+        public boolean imposterDetected() {
+            return bus.imposterDetected();
+        }
+    }
+
+    private final Sim sim;
+
+    /** The transport protocol of each module, by address. */
+    private final Map<Integer, J1939TP> transports = new TreeMap<>();
+
+    private final Map<Integer, Ecu> ecus = new TreeMap<>();
+
+    /** The responses to commands other than requests, by command. */
+    private final Map<String, Responses> commandResponses = new HashMap<>();
+
+    /** The ids of the commands, to avoid building the key for every packet. */
+    private final Set<Integer> commandIds = new TreeSet<>();
+
+    /**
+     * Learns the modules in the capture file and starts simulating them.
+     *
+     * @param  bus
+     *                          the {@link Bus} to simulate the modules on
+     * @param  file
+     *                          the capture file
+     * @throws IOException
+     *                          if the capture file cannot be read
+     * @throws BusException
+     *                          if the bus cannot be read
+     */
+    public RecordedVehicle(Bus bus, File file) throws IOException, BusException {
+        try (CaptureReader reader = new CaptureReader(file)) {
+            learn(reader);
+        }
+        J1939_84.getLogger()
+                .log(Level.INFO, "Simulating modules " + getAddresses() + " from " + file.getAbsolutePath());
+        ModuleBus moduleBus = new ModuleBus(bus);
+        // the sessions of the modules are not the tool's, so they are counted
+        // apart
+        MetricsRegistry metrics = new MetricsRegistry();
+        for (int address : ecus.keySet()) {
+            transports.put(address, new J1939TP(moduleBus, address, metrics));
+        }
+        sim = new Sim(moduleBus);
+        start();
+    }
+
+    private static String key(Packet packet) {
+        return Integer.toHexString(packet.getId(0x3FFFF)) + Arrays.toString(packet.getBytes());
+    }
+
+    private static Packet copy(Packet packet) {
+        return Packet.create(packet.getPriority(),
+                             packet.getId(0x3FFFF),
+                             packet.getSource(),
+                             false,
+                             packet.getBytes());
+    }
+
+    /**
+     * @return the source addresses of the simulated modules
+     */
+    public Set<Integer> getAddresses() {
+        return Collections.unmodifiableSet(ecus.keySet());
+    }
+
+    @Override
+    public void close() {
+        sim.close();
+        transports.values().forEach(J1939TP::close);
+    }
+
+    private Ecu getEcu(int address) {
+        return ecus.computeIfAbsent(address, a -> new Ecu());
+    }
+
+    private void learn(CaptureReader reader) {
+        List<Request> requests = new ArrayList<>();
+        Map<Integer, Session> sessions = new HashMap<>();
+        try (Stream<Packet> stream = reader.read()) {
+            for (Iterator<Packet> it = stream.iterator(); it.hasNext();) {
+                Packet packet = it.next();
+                long nanos = CaptureWriter.toEpochNanos(packet.getTimestamp());
+                requests.removeIf(r -> nanos - r.nanos > RESPONSE_NANOS);
+
+                int pgn = packet.getPgn();
+                if (packet.isTransmitted()) {
+                    if (pgn != J1939TP.CM && pgn != J1939TP.DT) {
+                        requests.add(new Request(packet, nanos));
+                    }
+                    continue;
+                }
+                int sessionKey = packet.getSource() << 8 | packet.getDestination();
+                if (pgn == J1939TP.CM) {
+                    int control = packet.get(0);
+                    if (control == J1939TP.CM_BAM || control == J1939TP.CM_RTS) {
+                        sessions.put(sessionKey, new Session(packet, nanos));
+                    } else if (control == J1939TP.CM_ConnAbort) {
+                        sessions.remove(sessionKey);
+                    }
+                } else if (pgn == J1939TP.DT) {
+                    Session session = sessions.get(sessionKey);
+                    Packet message = session == null ? null : session.add(packet);
+                    if (message != null) {
+                        sessions.remove(sessionKey);
+                        learn(message, session.nanos, requests);
+                    }
+                } else {
+                    learn(packet, nanos, requests);
+                }
+            }
+        }
+    }
+
+    /** Records a complete message as a response or a broadcast. */
+    private void learn(Packet message, long nanos, List<Request> requests) {
+        int source = message.getSource();
+        int pgn = message.getPgn();
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            Request request = requests.get(i);
+            int destination = request.packet.getDestination();
+            if (nanos - request.nanos > RESPONSE_NANOS
+                    || (destination != GLOBAL_ADDR && destination != source)
+                    || request.answered.contains(source)) {
+                continue;
+            }
+            if (request.pgn >= 0) {
+                if (pgn == request.pgn || (pgn == ACK && message.get24(5) == request.pgn)) {
+                    request.answered.add(source);
+                    getEcu(source).responses.computeIfAbsent(request.pgn, k -> new Responses()).packets.add(message);
+                    return;
+                }
+            } else if (message.getDestination() == request.packet.getSource()) {
+                request.answered.add(source);
+                commandResponses.computeIfAbsent(request.key, k -> new Responses()).packets.add(message);
+                commandIds.add(request.packet.getId(0x3FFFF));
+                getEcu(source);
+                return;
+            }
+        }
+        if (message.getDestination() == GLOBAL_ADDR) {
+            getEcu(source).broadcasts.computeIfAbsent(pgn, k -> new Broadcast()).add(message, nanos);
+        }
+    }
+
+    private void start() {
+        for (var entry : ecus.entrySet()) {
+            int address = entry.getKey();
+            Ecu ecu = entry.getValue();
+            ecu.responses.forEach((pgn, responses) -> sim.response(pgn, address, p -> responses.next()));
+            for (Broadcast broadcast : ecu.broadcasts.values()) {
+                int period = broadcast.getPeriod();
+                if (period > 0) {
+                    sim.schedule(period, TimeUnit.MILLISECONDS, () -> copy(broadcast.last));
+                }
+            }
+        }
+        if (!commandResponses.isEmpty()) {
+            sim.response(p -> commandIds.contains(p.getId(0x3FFFF)) && commandResponses.containsKey(key(p)),
+                         p -> commandResponses.get(key(p)).next());
+        }
+    }
+}
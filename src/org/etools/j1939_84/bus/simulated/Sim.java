@@ -3,10 +3,17 @@
  */
 package org.etools.j1939_84.bus.simulated;
 
+import static org.etools.j1939_84.bus.j1939.J1939.GLOBAL_ADDR;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -18,6 +25,8 @@ import org.etools.j1939_84.J1939_84;
 import org.etools.j1939_84.bus.Bus;
 import org.etools.j1939_84.bus.BusException;
 import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.VirtualClock;
 
 /**
  * Used to simulate responses from vehicle modules
@@ -27,11 +36,24 @@ import org.etools.j1939_84.bus.Packet;
  */
 public class Sim implements AutoCloseable {
 
+    private static final int REQUEST_PGN = 0xEA00;
+
+    /**
+     * The collection of responses that are not indexed by requested PGN. If the
+     * response returns true, then don't try other responses.
+     */
+    public final Collection<Function<Packet, Boolean>> responses = new CopyOnWriteArrayList<>();
+
     /**
-     * The collection of responses. If the response returns true, then don't try
-     * other responses.
+     * The responses to requests, by requested PGN and destination address. These
+     * are tried before the other responses.
      */
-    public final Collection<Function<Packet, Boolean>> responses = new ArrayList<>();
+    private final Map<Integer, List<Function<Packet, Boolean>>> requestResponses = new ConcurrentHashMap<>();
+
+    /**
+     * The threads of all of the simulators
+     */
+    private static final ThreadFactory THREADS = Threads.factory("Sim Thread", false);
 
     /**
      * The communications bus
@@ -41,13 +63,18 @@ public class Sim implements AutoCloseable {
     /**
      * The executor
      */
-    private final ScheduledExecutorService exec = new ScheduledThreadPoolExecutor(2, r -> new Thread(() -> {
+    private final ScheduledExecutorService exec = new ScheduledThreadPoolExecutor(2, r -> THREADS.newThread(() -> {
         try {
             r.run();
         } catch (Throwable t) {
             t.printStackTrace();
         }
-    }, "Sim Thread"));
+    }));
+
+    /**
+     * The tasks scheduled in virtual time
+     */
+    private final Collection<VirtualClock.Task> tasks = new ArrayList<>();
 
     public Sim(Bus bus) throws BusException {
         this(bus, false);
@@ -63,18 +90,39 @@ public class Sim implements AutoCloseable {
                                            J1939_84.getLogger().log(Level.FINE, p.toTimeString());
                                        }
                                    });
-        exec.submit(() -> stream.parallel().forEach(packet -> {
-            for (var r : responses) {
-                if (r.apply(packet)) {
-                    return;
+        // packets are processed one at a time, so responses are sent in the
+        // order of the requests
+        exec.submit(() -> stream.forEach(this::process));
+    }
+
+    private static int key(int pgn, int address) {
+        return pgn << 8 | address;
+    }
+
+    private void process(Packet packet) {
+        if (packet.getPgn() == REQUEST_PGN) {
+            var indexed = requestResponses.get(key(packet.get24(0), packet.getDestination()));
+            if (indexed != null) {
+                for (var r : indexed) {
+                    if (r.apply(packet)) {
+                        return;
+                    }
                 }
             }
-        }));
+        }
+        for (var r : responses) {
+            if (r.apply(packet)) {
+                return;
+            }
+        }
     }
 
     @Override
     public void close() {
         exec.shutdown();
+        synchronized (tasks) {
+            tasks.forEach(VirtualClock.Task::cancel);
+        }
     }
 
     /**
@@ -88,21 +136,55 @@ public class Sim implements AutoCloseable {
      * @return           this
      */
     public Sim response(Predicate<Packet> predicate, Function<Packet, Packet> supplier) {
-        responses.add(request -> {
+        responses.add(respond(predicate, supplier));
+        return this;
+    }
+
+    /**
+     * Sends a response to every request for the PGN that is sent to the address
+     * or to global. These are looked up by PGN rather than tested one at a
+     * time.
+     *
+     * @param  pgn
+     *                      the requested PGN
+     * @param  address
+     *                      the address of the simulated module
+     * @param  supplier
+     *                      the {@link Function} that creates the response from the
+     *                      request
+     * @return          this
+     */
+    public Sim response(int pgn, int address, Function<Packet, Packet> supplier) {
+        var response = respond(p -> true, supplier);
+        for (int destination : new int[] { address, GLOBAL_ADDR }) {
+            requestResponses.computeIfAbsent(key(pgn, destination), k -> new CopyOnWriteArrayList<>()).add(response);
+        }
+        return this;
+    }
+
+    /**
+     * Same as response(int, int, Function), but ignore the request when
+     * constructing the response.
+     */
+    public Sim response(int pgn, int address, Supplier<Packet> supplier) {
+        return response(pgn, address, p -> supplier.get());
+    }
+
+    private Function<Packet, Boolean> respond(Predicate<Packet> predicate, Function<Packet, Packet> supplier) {
+        return request -> {
             try {
                 if (predicate.test(request)) {
                     Packet response = supplier.apply(request);
                     send(response);
                     // if request is not to broadcast, only accept first
                     // response
-                    return response.getPgn() < 0xF000 && request.getDestination() != 0xFF;
+                    return response.getPgn() < 0xF000 && request.getDestination() != GLOBAL_ADDR;
                 }
             } catch (Throwable t) {
                 J1939_84.getLogger().log(Level.SEVERE, "Error in Response", t);
             }
             return false;
-        });
-        return this;
+        };
     }
 
     /**
@@ -125,7 +207,13 @@ public class Sim implements AutoCloseable {
      * @return        this
      */
     public Sim schedule(int period, TimeUnit unit, Runnable run) {
-        exec.scheduleWithFixedDelay(run, period, period, unit);
+        if (VirtualClock.isEnabled()) {
+            synchronized (tasks) {
+                tasks.add(VirtualClock.schedule(run, period, unit));
+            }
+        } else {
+            exec.scheduleWithFixedDelay(run, period, period, unit);
+        }
         return this;
     }
 
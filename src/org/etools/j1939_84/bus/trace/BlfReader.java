@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.trace;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.TextLogReader.FrameVisitor;
+
+/**
+ * Reads the CAN frames of a Vector BLF file.
+ *
+ * A BLF file is a header and a list of containers, each usually holding about
+ * 128 kB of objects compressed with zlib. An object may continue in the next
+ * container, so the objects are read in order, but the containers are
+ * inflated on other threads while the objects of the one before are read.
+ * Only a few containers are read ahead, so the memory used does not depend on
+ * the size of the file.
+ *
+ * The CAN_MESSAGE and CAN_MESSAGE2 objects with 29 bit ids are read; the
+ * other objects, like CAN FD messages and errors, are skipped.
+ */
+public class BlfReader implements AutoCloseable {
+
+    static final byte[] FILE_SIGNATURE = "LOGG".getBytes(StandardCharsets.US_ASCII);
+
+    static final byte[] OBJECT_SIGNATURE = "LOBJ".getBytes(StandardCharsets.US_ASCII);
+
+    static final int FILE_HEADER_LENGTH = 144;
+
+    /** signature (4), header length (2), header version (2), size (4), type (4) */
+    static final int OBJECT_HEADER_LENGTH = 16;
+
+    /** compression (2), reserved (6), uncompressed size (4), reserved (4) */
+    static final int CONTAINER_HEADER_LENGTH = 16;
+
+    static final int CAN_MESSAGE = 1;
+
+    static final int LOG_CONTAINER = 10;
+
+    static final int CAN_MESSAGE2 = 86;
+
+    static final int NO_COMPRESSION = 0;
+
+    static final int ZLIB_DEFLATE = 2;
+
+    /** The object flag for times in 10 microseconds; otherwise nanoseconds */
+    static final int TIME_TEN_MICS = 1;
+
+    static final int DIRECTION_TX = 1;
+
+    static final int EXTENDED_ID = 0x80000000;
+
+    /** The largest container that is read, to stop on a corrupt size */
+    private static final int MAX_CONTAINER = 64 << 20;
+
+    private final FileChannel channel;
+
+    private final long startNanos;
+
+    private final int window;
+
+    private int selectedChannel;
+
+    private final byte[] data = new byte[8];
+
+    /** The objects not read yet, which continue in the next container */
+    private byte[] tail = new byte[0];
+
+    private long frames;
+
+    /**
+     * Opens a BLF file.
+     *
+     * @param  file
+     *                         the file
+     * @throws IOException
+     *                         if the file cannot be read or is not a BLF file
+     */
+    public BlfReader(File file) throws IOException {
+        this(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Opens a BLF file.
+     *
+     * @param  file
+     *                         the file
+     * @param  window
+     *                         the number of containers inflated at once
+     * @throws IOException
+     *                         if the file cannot be read or is not a BLF file
+     */
+    public BlfReader(File file, int window) throws IOException {
+        this.window = Math.max(1, window);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(72);
+            for (int i = 0; i < FILE_SIGNATURE.length; i++) {
+                if (header.get(i) != FILE_SIGNATURE[i]) {
+                    throw new IOException(file + " is not a BLF file.");
+                }
+            }
+            int headerLength = header.getInt(4);
+            // the start of the measurement is a SYSTEMTIME
+            header.position(40);
+            int year = header.getShort();
+            int month = header.getShort();
+            header.getShort(); // day of the week
+            int day = header.getShort();
+            int hour = header.getShort();
+            int minute = header.getShort();
+            int second = header.getShort();
+            int millis = header.getShort();
+            startNanos = CaptureWriter.toEpochNanos(LocalDateTime.of(year,
+                                                                     month,
+                                                                     day,
+                                                                     hour,
+                                                                     minute,
+                                                                     second,
+                                                                     millis * 1000000));
+            channel.position(headerLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException(file + " is not a BLF file.", e);
+        }
+    }
+
+    /**
+     * Selects the channel to read.
+     *
+     * @param channel
+     *                    the channel number, starting with 1, or 0 for all
+     */
+    public void setChannel(int channel) {
+        selectedChannel = channel;
+    }
+
+    /**
+     * @return the time of the start of the measurement in nanoseconds since
+     *         the epoch
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Reads the bytes at the position of the channel, or throws EOFException */
+    private ByteBuffer read(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Reads the frames of the file, in file order.
+     *
+     * @param  visitor
+     *                         receives each frame
+     * @return             the number of frames read
+     * @throws IOException
+     *                         if the file cannot be read
+     */
+    public long read(FrameVisitor visitor) throws IOException {
+        ExecutorService exec = Executors.newFixedThreadPool(window, Threads.factory("BLF Reader", true));
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            while (channel.position() + OBJECT_HEADER_LENGTH <= channel.size()) {
+                ByteBuffer header = read(OBJECT_HEADER_LENGTH);
+                if (!isObject(header, 0)) {
+                    throw new IOException("No object at " + (channel.position() - OBJECT_HEADER_LENGTH));
+                }
+                int size = header.getInt(8);
+                int type = header.getInt(12);
+                if (size < OBJECT_HEADER_LENGTH || size > MAX_CONTAINER) {
+                    throw new IOException("Object of " + size + " bytes at "
+                            + (channel.position() - OBJECT_HEADER_LENGTH));
+                }
+                long next = channel.position() - OBJECT_HEADER_LENGTH + size + size % 4;
+                if (type == LOG_CONTAINER) {
+                    ByteBuffer container = read(size - OBJECT_HEADER_LENGTH);
+                    pending.add(exec.submit(() -> inflate(container)));
+                    if (pending.size() >= window) {
+                        parse(take(pending), visitor);
+                    }
+                }
+                channel.position(next);
+            }
+            while (!pending.isEmpty()) {
+                parse(take(pending), visitor);
+            }
+        } catch (EOFException e) {
+            // the last container was not finished
+            while (!pending.isEmpty()) {
+                parse(take(pending), visitor);
+            }
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+            exec.shutdownNow();
+        }
+        return frames;
+    }
+
+    private static byte[] take(Deque<Future<byte[]>> pending) throws IOException {
+        try {
+            return pending.removeFirst().get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted reading BLF", e);
+        }
+    }
+
+    /** Returns the objects of a container */
+    static byte[] inflate(ByteBuffer container) throws IOException {
+        int compression = container.getShort(0) & 0xFFFF;
+        int length = container.getInt(8);
+        byte[] bytes = new byte[container.remaining() - CONTAINER_HEADER_LENGTH];
+        container.position(CONTAINER_HEADER_LENGTH);
+        container.get(bytes);
+        if (compression == NO_COMPRESSION) {
+            return bytes;
+        }
+        if (compression != ZLIB_DEFLATE || length < 0 || length > MAX_CONTAINER) {
+            throw new IOException("Unsupported BLF container compression " + compression);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            byte[] result = new byte[length];
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int n = inflater.inflate(result, inflated, length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            return inflated == length ? result : Arrays.copyOf(result, inflated);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BLF container", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean isObject(ByteBuffer buffer, int position) {
+        for (int i = 0; i < OBJECT_SIGNATURE.length; i++) {
+            if (buffer.get(position + i) != OBJECT_SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads the objects of the next container, after the tail of the last */
+    private void parse(byte[] objects, FrameVisitor visitor) throws IOException {
+        byte[] bytes = objects;
+        if (tail.length > 0) {
+            bytes = Arrays.copyOf(tail, tail.length + objects.length);
+            System.arraycopy(objects, 0, bytes, tail.length, objects.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int position = 0;
+        while (true) {
+            // objects are padded to 4 bytes, but not always
+            int object = position;
+            while (object + OBJECT_HEADER_LENGTH <= bytes.length && object < position + 4
+                    && !isObject(buffer, object)) {
+                object++;
+            }
+            if (object + OBJECT_HEADER_LENGTH > bytes.length) {
+                break;
+            }
+            if (!isObject(buffer, object)) {
+                throw new IOException("No object in container");
+            }
+            int headerLength = buffer.getShort(object + 4) & 0xFFFF;
+            int headerVersion = buffer.getShort(object + 6) & 0xFFFF;
+            int size = buffer.getInt(object + 8);
+            int type = buffer.getInt(object + 12);
+            if (size < OBJECT_HEADER_LENGTH) {
+                throw new IOException("Object of " + size + " bytes in container");
+            }
+            if (object + size > bytes.length) {
+                // it continues in the next container
+                position = object;
+                break;
+            }
+            if (type == CAN_MESSAGE || type == CAN_MESSAGE2) {
+                readMessage(buffer, object, headerLength, headerVersion, visitor);
+            }
+            position = object + size;
+        }
+        tail = Arrays.copyOfRange(bytes, Math.min(position, bytes.length), bytes.length);
+    }
+
+    /**
+     * Reads a CAN message: after the header, channel (2), flags (1), DLC (1),
+     * id (4) and data (8).
+     */
+    private void readMessage(ByteBuffer buffer, int object, int headerLength, int headerVersion,
+                             FrameVisitor visitor) {
+        // flags (4), then version 1: client (2), version (2), time (8);
+        // version 2: time status (1), reserved (1), version (2), time (8)
+        int flags = buffer.getInt(object + OBJECT_HEADER_LENGTH);
+        long time = buffer.getLong(object + OBJECT_HEADER_LENGTH + 8);
+        int message = object + (headerLength > 0 ? headerLength : headerVersion == 2 ? 40 : 32);
+        int channelNumber = buffer.getShort(message) & 0xFFFF;
+        int direction = buffer.get(message + 2);
+        int dlc = buffer.get(message + 3) & 0x0F;
+        int id = buffer.getInt(message + 4);
+        if ((id & EXTENDED_ID) == 0 || dlc == 0 || (selectedChannel != 0 && channelNumber != selectedChannel)) {
+            return;
+        }
+        int length = Math.min(dlc, 8);
+        buffer.position(message + 8);
+        buffer.get(data, 0, length);
+        long nanos = startNanos + ((flags & TIME_TEN_MICS) != 0 ? time * 10000 : time);
+        visitor.onFrame(nanos, id & 0x1FFFFFFF, (direction & DIRECTION_TX) != 0, data, length);
+        frames++;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.bus.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.ReplayBus;
+import org.etools.j1939_84.bus.TextLogReader;
+import org.etools.j1939_84.bus.TextLogReader.FrameVisitor;
+
+/**
+ * Imports the CAN traces of other tools, so they can be replayed with the
+ * {@link ReplayBus} or read as {@link Packet}s.
+ *
+ * Vector BLF files are read by the {@link BlfReader}. Vector ASC, PEAK TRC,
+ * Linux candump logs and the tool's own logs are read by the
+ * {@link TextLogReader}. The files are streamed, so a trace of many GB is
+ * imported in a few MB of memory.
+ *
+ * The times are in nanoseconds since the epoch: the times of a trace that are
+ * from the start of the measurement are added to the start in its header, or
+ * to the start given when it has none.
+ */
+public class TraceImporter {
+
+    /** The extensions of the traces that are offered for replay */
+    public static final List<String> EXTENSIONS = List.of(".asc", ".blf", ".trc");
+
+    /** The most captures kept in the cache of imported traces */
+    private static final int CACHE_FILES = 20;
+
+    private static final long GIGA = 1000000000;
+
+    private final File file;
+
+    private String channel;
+
+    private LocalDateTime start;
+
+    /**
+     * Constructor
+     *
+     * @param file
+     *                 the trace
+     */
+    public TraceImporter(File file) {
+        this.file = file;
+        start = LocalDateTime.ofInstant(Instant.ofEpochMilli(file.lastModified()), ZoneId.systemDefault());
+    }
+
+    /**
+     * Imports a trace to a capture file, see {@link #getCaptureFile(File)},
+     * unless it was already imported.
+     *
+     * @param  trace
+     *                         the trace
+     * @return             the capture file
+     * @throws IOException
+     *                         if the trace cannot be read or the capture file
+     *                         cannot be written
+     */
+    public static File toCapture(File trace) throws IOException {
+        File capture = getCaptureFile(trace);
+        if (!capture.exists() || capture.lastModified() < trace.lastModified()) {
+            File directory = capture.getParentFile();
+            if (directory.equals(getCacheDirectory())) {
+                Files.createDirectories(directory.toPath());
+                CaptureWriter.deleteOldest(directory,
+                                           name -> name.endsWith(CaptureWriter.EXTENSION),
+                                           CACHE_FILES - 1,
+                                           Long.MAX_VALUE);
+            }
+            File partial = new File(capture.getParentFile(), capture.getName() + ".part");
+            long frames = new TraceImporter(trace).importTo(partial);
+            Files.move(partial.toPath(), capture.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            J1939_84.getLogger().log(Level.INFO, "Imported " + frames + " frames from " + trace + " to " + capture);
+        }
+        return capture;
+    }
+
+    /**
+     * @param  trace
+     *                   a trace
+     * @return       the capture file it is imported to: next to the trace, or
+     *               in the cache of imported traces if that directory cannot
+     *               be written
+     */
+    public static File getCaptureFile(File trace) {
+        File directory = trace.getAbsoluteFile().getParentFile();
+        if (directory != null && Files.isWritable(directory.toPath())) {
+            return new File(directory, trace.getName() + CaptureWriter.EXTENSION);
+        }
+        // traces of the same name in other directories are not the same trace
+        String name = trace.getName() + "-" + Integer.toHexString(trace.getAbsolutePath().hashCode());
+        return new File(getCacheDirectory(), name + CaptureWriter.EXTENSION);
+    }
+
+    /**
+     * @return the directory of the captures of traces in directories that
+     *         cannot be written; the most recent {@value #CACHE_FILES} are kept
+     */
+    static File getCacheDirectory() {
+        return new File(new File(System.getProperty("user.home"), ".j1939_84"), "imports");
+    }
+
+    /**
+     * @param  file
+     *                  a file
+     * @return      true if the file is a trace that is offered for replay: an
+     *              ASC, BLF or TRC file, or a candump log
+     */
+    public static boolean isTrace(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return EXTENSIONS.stream().anyMatch(name::endsWith) || (name.startsWith("candump") && name.endsWith(".log"));
+    }
+
+    /**
+     * Imports a trace to a capture file.
+     *
+     * <pre>
+     * TraceImporter trace [capture [channel]]
+     * </pre>
+     *
+     * @param  args
+     *                         the trace, the capture file, which defaults to the
+     *                         trace with the capture extension, and the channel
+     * @throws IOException
+     *                         if the trace cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceImporter trace [capture [channel]]");
+            System.exit(1);
+        }
+        File trace = new File(args[0]);
+        File capture = args.length > 1 ? new File(args[1]) : new File(args[0] + CaptureWriter.EXTENSION);
+        long frames = new TraceImporter(trace).setChannel(args.length > 2 ? args[2] : null).importTo(capture);
+        System.out.println("Imported " + frames + " frames to " + capture.getAbsolutePath());
+    }
+
+    /**
+     * Selects the channel to import.
+     *
+     * @param  channel
+     *                     the channel number, like "1", or the candump
+     *                     interface, like "can0"; null imports them all
+     * @return         this
+     */
+    public TraceImporter setChannel(String channel) {
+        this.channel = channel;
+        return this;
+    }
+
+    /**
+     * Sets the start of a trace without one in its header. It defaults to the
+     * time the trace was last changed.
+     *
+     * @param  start
+     *                   the start
+     * @return       this
+     */
+    public TraceImporter setStart(LocalDateTime start) {
+        this.start = start;
+        return this;
+    }
+
+    private boolean isBlf() throws IOException {
+        byte[] signature = new byte[BlfReader.FILE_SIGNATURE.length];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return in.readNBytes(signature, 0, signature.length) == signature.length
+                    && Arrays.equals(signature, BlfReader.FILE_SIGNATURE);
+        }
+    }
+
+    /**
+     * Reads the frames of the trace, in file order.
+     *
+     * @param  visitor
+     *                         receives each frame; the data is reused
+     * @return             the number of frames read
+     * @throws IOException
+     *                         if the trace cannot be read
+     */
+    public long read(FrameVisitor visitor) throws IOException {
+        if (isBlf()) {
+            try (BlfReader reader = new BlfReader(file)) {
+                if (channel != null) {
+                    try {
+                        reader.setChannel(Integer.parseInt(channel));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The channel of a BLF file is a number: " + channel);
+                    }
+                }
+                return reader.read(visitor);
+            }
+        }
+        try (TextLogReader reader = new TextLogReader(file, start)) {
+            reader.setChannel(channel);
+            return reader.read(visitor);
+        }
+    }
+
+    /**
+     * Reads the frames of the trace as packets. Frames with less than 3 bytes
+     * of data, which a {@link Packet} cannot have, are skipped.
+     *
+     * @param  consumer
+     *                         receives each packet
+     * @return             the number of packets read
+     * @throws IOException
+     *                         if the trace cannot be read
+     */
+    public long readPackets(Consumer<Packet> consumer) throws IOException {
+        long[] packets = new long[1];
+        read((epochNanos, canId, transmitted, data, length) -> {
+            if (length >= 3) {
+                LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochNanos / GIGA,
+                                                                                   epochNanos % GIGA),
+                                                             ZoneId.systemDefault());
+                consumer.accept(Packet.create(time,
+                                              (canId >> 26) & 0x07,
+                                              (canId >> 8) & 0x3FFFF,
+                                              canId & 0xFF,
+                                              transmitted,
+                                              Arrays.copyOf(data, length)));
+                packets[0]++;
+            }
+        });
+        return packets[0];
+    }
+
+    /**
+     * Imports the trace to a capture file.
+     *
+     * @param  capture
+     *                         the capture file, which is replaced
+     * @return             the number of frames imported
+     * @throws IOException
+     *                         if the trace cannot be read or the capture file
+     *                         cannot be written
+     */
+    public long importTo(File capture) throws IOException {
+        try (CaptureWriter writer = new CaptureWriter(capture)) {
+            return read(writer::write);
+        }
+    }
+}
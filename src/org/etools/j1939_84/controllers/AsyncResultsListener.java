@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.metrics.Counter;
+import org.etools.j1939_84.metrics.Histogram;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.model.Outcome;
+import org.etools.j1939_84.model.VehicleInformation;
+import org.etools.j1939_84.model.VehicleInformationListener;
+
+/**
+ * Passes the results of a {@link Controller} to a {@link ResultsListener} on
+ * a thread of its own, so a slow listener, like a report file being flushed or
+ * a busy user interface, does not hold up the requests on the bus.
+ *
+ * The calls are kept in a ring in the order they were made and are made on
+ * the listener in that order, by one thread that waits on the ring for the
+ * next call. The thread is started by the first call of a run and ends when
+ * the run has ended and there are no calls left to make.
+ *
+ * When the ring is full, progress messages are dropped, because the next one
+ * replaces them, and the other calls wait for room. The calls that show the
+ * user something to answer, and {@link #onComplete(boolean)}, wait for the
+ * calls before them and are made on the caller's thread, because the caller
+ * waits for the answer or for the end.
+ *
+ * The calls are only made on the thread while a {@link Controller} is running,
+ * between {@link #begin()} and {@link #end()}, which waits until the listener
+ * has caught up, so the result of a step is not recorded before its report.
+ * Calls made after, like the user answering a question after the step was
+ * stopped, are made on the caller's thread.
+ *
+ * The ring is guarded by a lock rather than the monitor of the listener, so
+ * virtual threads waiting for room or for the listener to catch up do not pin
+ * their carrier threads.
+ */
+public class AsyncResultsListener implements ResultsListener {
+
+    /** The most calls waiting to be made */
+    static final int CAPACITY = 1 << 12;
+
+    private final Counter dropped = MetricsRegistry.getInstance().counter("results.dropped");
+
+    private final Histogram blocked = MetricsRegistry.getInstance().histogram("results.blocked");
+
+    private final ResultsListener listener;
+
+    private final String name;
+
+    /** The session the calls are made in */
+    private final SessionContext session = SessionContext.current();
+
+    private final Runnable[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when a call is added or a controller ends */
+    private final Condition callAdded = lock.newCondition();
+
+    /** Signalled when a call is made or the thread ends */
+    private final Condition callMade = lock.newCondition();
+
+    /** The number of calls added to the ring */
+    private long added;
+
+    /** The number of calls made */
+    private long made;
+
+    /** The thread making the calls, or null if no run has made any */
+    private Thread thread;
+
+    /** The number of controllers running */
+    private int running;
+
+    /**
+     * Constructor
+     *
+     * @param listener
+     *                     the listener the calls are made on
+     */
+    public AsyncResultsListener(ResultsListener listener) {
+        this(listener, CAPACITY);
+    }
+
+    AsyncResultsListener(ResultsListener listener, int capacity) {
+        this.listener = listener;
+        name = "Results " + listener.getClass().getSimpleName();
+        ring = new Runnable[capacity];
+    }
+
+    /**
+     * @return the listener the calls are made on
+     */
+    public ResultsListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Adds a call to the ring.
+     *
+     * @param call
+     *                      the call
+     * @param droppable
+     *                      true if the call is dropped when the ring is full
+     */
+    private void add(Runnable call, boolean droppable) {
+        if (Thread.currentThread() == getThread()) {
+            // the listener is calling back; waiting for room would never end
+            call.run();
+        } else if (!enqueue(call, droppable)) {
+            call(call);
+        }
+    }
+
+    /** Adds the call to the ring; returns false if no controller is running. */
+    private boolean enqueue(Runnable call, boolean droppable) {
+        lock.lock();
+        try {
+            if (running == 0) {
+                return false;
+            }
+            if (added - made == ring.length) {
+                if (droppable) {
+                    dropped.increment();
+                    return true;
+                }
+                long start = System.nanoTime();
+                while (added - made == ring.length) {
+                    if (!await(callMade)) {
+                        // stopped; make the call rather than lose it
+                        return false;
+                    }
+                }
+                blocked.record(System.nanoTime() - start);
+            }
+            ring[(int) (added++ % ring.length)] = call;
+            if (thread == null) {
+                thread = Threads.start(name, true, SessionContext.wrap(session, this::makeCalls));
+            } else {
+                callAdded.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Thread getThread() {
+        lock.lock();
+        try {
+            return thread;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the condition, with the lock held; returns false if the caller
+     * was interrupted
+     */
+    private static boolean await(Condition condition) {
+        try {
+            condition.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Makes the calls in the ring as they are added, until the run ends. */
+    private void makeCalls() {
+        while (true) {
+            Runnable call;
+            lock.lock();
+            try {
+                while (made == added) {
+                    if (running == 0 || !await(callAdded)) {
+                        thread = null;
+                        callMade.signalAll();
+                        return;
+                    }
+                }
+                call = ring[(int) (made % ring.length)];
+            } finally {
+                lock.unlock();
+            }
+            try {
+                call.run();
+            } catch (Throwable t) {
+                J1939_84.getLogger().log(Level.SEVERE, "Error reporting results", t);
+            }
+            lock.lock();
+            try {
+                ring[(int) (made++ % ring.length)] = null;
+                callMade.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Starts making the calls on the thread, for a controller that is starting
+     * to run.
+     */
+    public void begin() {
+        lock.lock();
+        try {
+            running++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the listener has caught up, for a controller that has
+     * finished running.
+     */
+    public void end() {
+        lock.lock();
+        try {
+            running--;
+            // the thread ends once it has made the calls
+            callAdded.signal();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    /**
+     * Waits until the calls made before have been made on the listener. If
+     * the caller is interrupted, it returns without waiting and the interrupt
+     * is kept.
+     */
+    public void flush() {
+        if (Thread.currentThread() == getThread()) {
+            return;
+        }
+        lock.lock();
+        try {
+            long end = added;
+            while (made < end) {
+                if (!await(callMade)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Makes the call on this thread after the calls before it. */
+    private void call(Runnable call) {
+        flush();
+        call.run();
+    }
+
+    @Override
+    public void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
+        add(() -> listener.addOutcome(partNumber, stepNumber, outcome, message), false);
+    }
+
+    @Override
+    public void onComplete(boolean success) {
+        call(() -> listener.onComplete(success));
+    }
+
+    @Override
+    public void onMessage(String message, String title, MessageType type) {
+        add(() -> listener.onMessage(message, title, type), false);
+    }
+
+    @Override
+    public void onProgress(int currentStep, int totalSteps, String message) {
+        add(() -> listener.onProgress(currentStep, totalSteps, message), true);
+    }
+
+    @Override
+    public void onProgress(String message) {
+        add(() -> listener.onProgress(message), true);
+    }
+
+    @Override
+    public void onResult(List<String> results) {
+        // the caller may change the list
+        List<String> copy = new ArrayList<>(results);
+        add(() -> listener.onResult(copy), false);
+    }
+
+    @Override
+    public void onResult(String result) {
+        add(() -> listener.onResult(result), false);
+    }
+
+    @Override
+    public void onResult(DeferredResult result) {
+        add(() -> listener.onResult(result), false);
+    }
+
+    @Override
+    public void onUrgentMessage(String message, String title, MessageType type) {
+        call(() -> listener.onUrgentMessage(message, title, type));
+    }
+
+    @Override
+    public void onUrgentMessage(String message, String title, MessageType type, QuestionListener questionListener) {
+        call(() -> listener.onUrgentMessage(message, title, type, questionListener));
+    }
+
+    @Override
+    public void onVehicleInformationNeeded(VehicleInformationListener vehicleInformationListener) {
+        call(() -> listener.onVehicleInformationNeeded(vehicleInformationListener));
+    }
+
+    @Override
+    public void onVehicleInformationReceived(VehicleInformation vehicleInformation) {
+        add(() -> listener.onVehicleInformationReceived(vehicleInformation), false);
+    }
+}
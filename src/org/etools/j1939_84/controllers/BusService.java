@@ -15,11 +15,14 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.Threads;
 import org.etools.j1939_84.bus.j1939.J1939;
 import org.etools.j1939_84.bus.j1939.J1939DaRepository;
 import org.etools.j1939_84.bus.j1939.Lookup;
 import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
 import org.etools.j1939_84.bus.j1939.packets.model.PgnDefinition;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.metrics.StepProfiler.Category;
 import org.etools.j1939_84.model.RequestResult;
 import org.etools.j1939_84.modules.DateTimeModule;
 
@@ -163,7 +166,7 @@ public class BusService {
         String message = NL + "Step " + step + " - Reading bus for %1$d seconds" + NL;
         listener.onResult(String.format(message, seconds));
         long stopTime = dateTimeModule.getTimeAsLong() + seconds * 1000L;
-        new Thread(() -> {
+        Threads.start("Read Bus Progress", false, SessionContext.wrap(SessionContext.current(), () -> {
             long secondsToGo = seconds;
             while (secondsToGo > 0) {
                 try {
@@ -175,11 +178,12 @@ public class BusService {
                     secondsToGo = 0;
                 }
             }
-        }).start();
+        }));
 
-        return j1939.read(GenericPacket.class, seconds, TimeUnit.SECONDS)
-                    .flatMap(e -> e.left.stream())
-                    .filter(filter);
+        Stream<GenericPacket> stream = j1939.read(GenericPacket.class, seconds, TimeUnit.SECONDS)
+                                            .flatMap(e -> e.left.stream())
+                                            .filter(filter);
+        return StepProfiler.getInstance().time(Category.BUS_READ, stream);
     }
 
     /**
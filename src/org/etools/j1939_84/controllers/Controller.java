@@ -25,8 +25,6 @@ import org.etools.j1939_84.modules.EngineSpeedModule;
 import org.etools.j1939_84.modules.ReportFileModule;
 import org.etools.j1939_84.modules.VehicleInformationModule;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 /**
  * The super class for the controllers that collect information from the vehicle
  * and generates the report
@@ -39,9 +37,8 @@ public abstract class Controller {
                                                                       Ending.ABORTED,
                                                                       Ending.FAILED,
                                                                       Ending.COMPLETED);
-    private static int currentStep;
-    private static Ending ending;
-    private static int maxSteps;
+    /** The state of the run when no {@link SessionContext} is used */
+    private static final RunState processState = new RunState();
     private final BannerModule bannerModule;
     private final EngineSpeedModule engineSpeedModule;
     private final Executor executor;
@@ -50,6 +47,8 @@ public abstract class Controller {
     private final DateTimeModule dateTimeModule;
     private final DiagnosticMessageModule diagnosticMessageModule;
     private final DataRepository dataRepository;
+    /** The state of the run of the session the controller was created in */
+    private final RunState runState = state();
     private CompositeResultsListener compositeListener;
     private J1939 j1939;
 
@@ -88,6 +87,46 @@ public abstract class Controller {
         this.dataRepository = dataRepository;
     }
 
+    /**
+     * @return the state of the run of the {@link SessionContext} of the
+     *         current thread, or of the process. A controller keeps the state
+     *         of the session it was created in, so it can be stopped from any
+     *         thread.
+     */
+    private static RunState state() {
+        SessionContext session = SessionContext.current();
+        return session == null ? processState : session.getRunState();
+    }
+
+    static int getCurrentStep() {
+        return state().currentStep;
+    }
+
+    static int getMaxSteps() {
+        return state().maxSteps;
+    }
+
+    static String getProgressMessage() {
+        return state().progressMessage;
+    }
+
+    static String getRunningPart() {
+        return state().runningPart;
+    }
+
+    static String getRunningStep() {
+        return state().runningStep;
+    }
+
+    /**
+     * Records the part and step being run, for monitoring
+     */
+    static void setRunning(String part, String step) {
+        RunState state = state();
+        state.runningPart = part;
+        state.runningStep = step;
+    }
+
     /**
      * Checks the Ending value and will throw an {@link InterruptedException} if
      * the value has been set to Stopped or Aborted
@@ -96,8 +135,13 @@ public abstract class Controller {
      *                                  if the ending has been set
      */
     public static void checkEnding() throws InterruptedException {
-        if (getEnding() != null && INTERUPPTABLE_ENDINGS.contains(getEnding())) {
-            throw new InterruptedException(getEnding().toString());
+        checkEnding(state());
+    }
+
+    private static void checkEnding(RunState state) throws InterruptedException {
+        Ending ending = state.ending;
+        if (ending != null && INTERUPPTABLE_ENDINGS.contains(ending)) {
+            throw new InterruptedException(ending.toString());
         }
     }
 
@@ -105,7 +149,7 @@ public abstract class Controller {
      * @return the ending
      */
     protected static Ending getEnding() {
-        return ending;
+        return state().ending;
     }
 
     /**
@@ -114,10 +158,9 @@ public abstract class Controller {
      * @throws InterruptedException
      *                                  if the ending was set to ABORTED or STOPPED
      */
-    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "Artifact of bad design")
     protected void setEnding(Ending ending) throws InterruptedException {
-        Controller.ending = ending;
-        checkEnding();
+        runState.ending = ending;
+        checkEnding(runState);
     }
 
     /**
@@ -151,11 +194,12 @@ public abstract class Controller {
     protected void finished() {
         addBlankLineToReport();
 
-        if (ending == null) {
-            ending = Ending.ABORTED;
+        RunState state = runState;
+        if (state.ending == null) {
+            state.ending = Ending.ABORTED;
         }
 
-        switch (ending) {
+        switch (state.ending) {
             case ABORTED:
                 getBannerModule().reportAborted(getListener());
                 break;
@@ -172,10 +216,11 @@ public abstract class Controller {
 
         addBlankLineToReport();
 
-        String message = getEnding().toString();
-        getListener().onProgress(maxSteps, maxSteps, message);
+        String message = state.ending.toString();
+        state.progressMessage = message;
+        getListener().onProgress(state.maxSteps, state.maxSteps, message);
 
-        getListener().onComplete(getEnding() == Ending.COMPLETED);
+        getListener().onComplete(state.ending == Ending.COMPLETED);
     }
 
     /**
@@ -245,6 +290,14 @@ public abstract class Controller {
         return compositeListener;
     }
 
+    /**
+     * Waits until the results reported before have been passed to the
+     * listeners.
+     */
+    protected void flushListeners() {
+        compositeListener.flush();
+    }
+
     /**
      * Returns the {@link Logger} used to write to the log file
      *
@@ -265,29 +318,39 @@ public abstract class Controller {
      */
     private Runnable getRunnable() {
         return () -> {
+            compositeListener.begin();
             try {
-                run();
-            } catch (Throwable e) {
-                getLogger().log(Level.SEVERE, "Error", e);
-                if (e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
-                    if (this instanceof StepController) {
-                        int partNumber = ((StepController) this).getPartNumber();
-                        int stepNumber = ((StepController) this).getStepNumber();
-                        if (getOutcome(partNumber, stepNumber) != ABORT) {
-                            String message = "User cancelled testing at Part " + partNumber + " Step " + stepNumber;
-                            getListener().addOutcome(partNumber, stepNumber, ABORT, message);
-                        }
+                runAndReport();
+            } finally {
+                // the step is not over until the listeners have caught up
+                compositeListener.end();
+            }
+        };
+    }
+
+    private void runAndReport() {
+        try {
+            run();
+        } catch (Throwable e) {
+            getLogger().log(Level.SEVERE, "Error", e);
+            if (e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
+                if (this instanceof StepController) {
+                    int partNumber = ((StepController) this).getPartNumber();
+                    int stepNumber = ((StepController) this).getStepNumber();
+                    if (getOutcome(partNumber, stepNumber) != ABORT) {
+                        String message = "User cancelled testing at Part " + partNumber + " Step " + stepNumber;
+                        getListener().addOutcome(partNumber, stepNumber, ABORT, message);
                     }
-                    return;
                 }
+                return;
+            }
 
-                String message = e.getMessage();
-                if (message == null) {
-                    message = "An Error Occurred";
-                }
-                getListener().onMessage(message, "Error", MessageType.ERROR);
+            String message = e.getMessage();
+            if (message == null) {
+                message = "An Error Occurred";
             }
-        };
+            getListener().onMessage(message, "Error", MessageType.ERROR);
+        }
     }
 
     private Outcome getOutcome(int partNumber, int stepNumber) {
@@ -324,8 +387,10 @@ public abstract class Controller {
      *                                  if the operation has been Stopped
      */
     protected void incrementProgress(String message) throws InterruptedException {
-        checkEnding();
-        getListener().onProgress(++currentStep, maxSteps, message);
+        RunState state = runState;
+        checkEnding(state);
+        state.progressMessage = message;
+        getListener().onProgress(++state.currentStep, state.maxSteps, message);
     }
 
     /**
@@ -334,7 +399,7 @@ public abstract class Controller {
      * @return boolean
      */
     public boolean isActive() {
-        return ending == null;
+        return runState.ending == null;
     }
 
     /**
@@ -358,11 +423,12 @@ public abstract class Controller {
      * @param maxSteps
      *                     the maximum number of steps in the operation
      */
-    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "Artifact of bad design")
     protected void setupProgress(int maxSteps) {
-        Controller.currentStep = 0;
-        Controller.maxSteps = maxSteps;
-        getListener().onProgress(currentStep, maxSteps, "");
+        RunState state = runState;
+        state.currentStep = 0;
+        state.maxSteps = maxSteps;
+        state.progressMessage = "";
+        getListener().onProgress(0, maxSteps, "");
     }
 
     private void setupRun(ResultsListener listener, J1939 j1939, ReportFileModule reportFileModule) {
@@ -370,17 +436,28 @@ public abstract class Controller {
         if (listener instanceof CompositeResultsListener) {
             compositeListener = (CompositeResultsListener) listener;
         } else {
-            compositeListener = new CompositeResultsListener(listener, reportFileModule, partResultRepository);
+            compositeListener = new CompositeResultsListener(async(listener),
+                                                             async(reportFileModule),
+                                                             partResultRepository);
         }
-        ending = null;
+        runState.ending = null;
+    }
+
+    /**
+     * Returns a listener that is called on a thread of its own. The
+     * {@link PartResultRepository} is not, because the controllers read the
+     * outcomes from it. Without a listener, as without a report file, the
+     * results are dropped.
+     */
+    private static ResultsListener async(ResultsListener listener) {
+        return listener == null ? ResultsListener.NOOP : new AsyncResultsListener(listener);
     }
 
     /**
      * Interrupts and ends the execution of the controller
      */
-    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "Artifact of bad design")
     public void stop() {
-        ending = Ending.STOPPED;
+        runState.ending = Ending.STOPPED;
     }
 
     /**
@@ -393,8 +470,24 @@ public abstract class Controller {
      *                                  if the operation has been Stopped
      */
     protected void updateProgress(String message) throws InterruptedException {
-        checkEnding();
-        getListener().onProgress(currentStep, maxSteps, message);
+        RunState state = runState;
+        checkEnding(state);
+        state.progressMessage = message;
+        getListener().onProgress(state.currentStep, state.maxSteps, message);
+    }
+
+    /**
+     * The progress and ending of a run, which all the controllers of the run
+     * share
+     */
+    static class RunState {
+        int currentStep;
+        // set by stop() on other threads
+        volatile Ending ending;
+        int maxSteps;
+        volatile String progressMessage = "";
+        volatile String runningPart = "";
+        volatile String runningStep = "";
     }
 
     public enum Ending {
@@ -423,6 +516,38 @@ public abstract class Controller {
             this.listeners = listeners;
         }
 
+        private void begin() {
+            for (ResultsListener listener : listeners) {
+                if (listener instanceof AsyncResultsListener) {
+                    ((AsyncResultsListener) listener).begin();
+                }
+            }
+        }
+
+        /**
+         * Waits until the listeners that are called on threads of their own
+         * have caught up.
+         */
+        private void end() {
+            for (ResultsListener listener : listeners) {
+                if (listener instanceof AsyncResultsListener) {
+                    ((AsyncResultsListener) listener).end();
+                }
+            }
+        }
+
+        /**
+         * Waits until the listeners that are called on threads of their own
+         * have made the calls before.
+         */
+        private void flush() {
+            for (ResultsListener listener : listeners) {
+                if (listener instanceof AsyncResultsListener) {
+                    ((AsyncResultsListener) listener).flush();
+                }
+            }
+        }
+
         @Override
         public void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
             Arrays.stream(listeners).forEach(l -> {
@@ -472,6 +597,13 @@ public abstract class Controller {
             });
         }
 
+        @Override
+        public void onResult(DeferredResult result) {
+            Arrays.stream(listeners).forEach(l -> {
+                l.onResult(result);
+            });
+        }
+
         @Override
         public void onUrgentMessage(String message, String title, MessageType type) {
             Arrays.stream(listeners).forEach(l -> {
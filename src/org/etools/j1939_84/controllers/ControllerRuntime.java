@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+
+/**
+ * The threads the {@link Controller}s run on.
+ *
+ * Rather than each controller creating an executor, and a thread that lives
+ * as long as the application once it is used, the controllers borrow a view
+ * of the shared daemon threads with {@link #borrow()}. Shutting down the
+ * borrowed executor returns it by cancelling only the tasks it scheduled; the
+ * threads are never shut down. Idle threads end after a while, so the runtime
+ * costs nothing between runs.
+ *
+ * The tasks given to {@link ScheduledExecutorService#execute(Runnable)} and
+ * the submit methods, which run the controllers and read the bus, block for
+ * the length of a step and may wait for each other, so each runs on a thread
+ * of its own, reused once it is done. There are at most {@link #MAX_THREADS}
+ * of them; a task given when they are all busy is rejected with a
+ * {@link RejectedExecutionException} rather than queued, as a queued task
+ * could wait forever for one of the busy tasks it is meant to release. The
+ * timers share a pool of {@link #TIMER_THREADS}; a scheduled task must not
+ * block, nor wait for another task.
+ *
+ * Each {@link SessionContext} has a pool of its own, whose threads are bound
+ * to it, so the sessions run at once do not wait for each other's threads.
+ */
+public class ControllerRuntime {
+
+    /** The most threads the timers of the controllers use at once. */
+    static final int TIMER_THREADS = 2;
+
+    /**
+     * The most tasks running at once. A run uses at most 8, the controller
+     * and the bus readers of the step, so more is a leak.
+     */
+    static final int MAX_THREADS = 32;
+
+    /** How long an idle thread waits for work before ending. */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ControllerRuntime instance = new ControllerRuntime(TIMER_THREADS, MAX_THREADS);
+
+    static {
+        MetricsRegistry.getApplicationInstance().gauge("controller.threads", () -> instance.getThreadCount());
+    }
+
+    private final ThreadPoolExecutor runner;
+
+    private final ScheduledThreadPoolExecutor timers;
+
+    ControllerRuntime(int timerThreads, int maxThreads) {
+        this(timerThreads, maxThreads, null);
+    }
+
+    ControllerRuntime(int timerThreads, int maxThreads, SessionContext session) {
+        String name = session == null ? "Controller" : "Controller " + session.getName();
+        runner = new ThreadPoolExecutor(0,
+                                        maxThreads,
+                                        KEEP_ALIVE_SECONDS,
+                                        TimeUnit.SECONDS,
+                                        new SynchronousQueue<>(),
+                                        factory(name, session),
+                                        new ThreadPoolExecutor.AbortPolicy());
+        timers = new ScheduledThreadPoolExecutor(timerThreads, factory(name + " Timer", session));
+        timers.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        timers.allowCoreThreadTimeOut(true);
+        timers.setRemoveOnCancelPolicy(true);
+    }
+
+    private static ThreadFactory factory(String name, SessionContext session) {
+        ThreadFactory factory = Threads.factory(name, true);
+        return session == null ? factory : r -> factory.newThread(session.wrap(r));
+    }
+
+    /**
+     * @return the runtime of the session of the current thread, or of the
+     *         process
+     */
+    public static ControllerRuntime getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getControllerRuntime();
+    }
+
+    /**
+     * Returns an executor that runs its tasks on the shared threads, each
+     * task on a thread of its own and the timers on their pool. Calling
+     * {@link ScheduledExecutorService#shutdownNow()} cancels the tasks it
+     * scheduled and nothing else.
+     *
+     * @return a new executor for one controller
+     */
+    public ScheduledExecutorService borrow() {
+        return new Lease();
+    }
+
+    /**
+     * @return the number of threads running tasks and timers now
+     */
+    public int getThreadCount() {
+        return runner.getPoolSize() + timers.getPoolSize();
+    }
+
+    /**
+     * @return the most threads there have been in the pool of the timers at
+     *         once
+     */
+    public int getLargestTimerCount() {
+        return timers.getLargestPoolSize();
+    }
+
+    /**
+     * Ends the threads of the runtime of a session, interrupting the tasks
+     * still running.
+     */
+    void shutdown() {
+        runner.shutdownNow();
+        timers.shutdownNow();
+    }
+
+    /**
+     * The borrowed view of the threads. The futures of the tasks scheduled
+     * through it are kept until they are done, so they can be cancelled when
+     * it is returned.
+     */
+    private class Lease extends AbstractExecutorService implements ScheduledExecutorService {
+
+        private final Set<Future<?>> futures = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean shutdown;
+
+        private <F extends Future<?>> F track(F future) {
+            futures.removeIf(Future::isDone);
+            futures.add(future);
+            // shut down while the task was being scheduled
+            if (shutdown) {
+                future.cancel(true);
+            }
+            return future;
+        }
+
+        private void checkShutdown() {
+            if (shutdown) {
+                throw new RejectedExecutionException("The executor has been returned");
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            checkShutdown();
+            track(runner.submit(command));
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            checkShutdown();
+            return track(timers.schedule(command, delay, unit));
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            checkShutdown();
+            return track(timers.schedule(callable, delay, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                      TimeUnit unit) {
+            checkShutdown();
+            return track(timers.scheduleAtFixedRate(command, initialDelay, period, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            checkShutdown();
+            return track(timers.scheduleWithFixedDelay(command, initialDelay, delay, unit));
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            futures.forEach(f -> f.cancel(true));
+            futures.clear();
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && futures.stream().allMatch(Future::isDone);
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | CancellationException e) {
+                    // it is done
+                } catch (TimeoutException e) {
+                    return false;
+                }
+            }
+            return isTerminated();
+        }
+    }
+}
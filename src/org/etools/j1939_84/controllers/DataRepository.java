@@ -26,14 +26,22 @@ public class DataRepository {
     private VehicleInformation vehicleInformation;
     private long part11StartTime;
 
-    private DataRepository() {
+    DataRepository() {
     }
 
     public static void clearInstance() {
         instance = null;
     }
 
+    /**
+     * @return the repository of the {@link SessionContext} of the current
+     *         thread, or of the process
+     */
     public static DataRepository getInstance() {
+        SessionContext session = SessionContext.current();
+        if (session != null) {
+            return session.getDataRepository();
+        }
         if (instance == null) {
             instance = new DataRepository();
         }
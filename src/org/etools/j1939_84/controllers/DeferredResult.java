@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import java.util.function.Supplier;
+
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.j1939.packets.DM25ExpandedFreezeFrame;
+import org.etools.j1939_84.bus.j1939.packets.ParsedPacket;
+
+/**
+ * A result that is written as text when a listener needs it, not when it is
+ * reported. The listeners that are called on threads of their own, see
+ * {@link AsyncResultsListener}, do that work off of the thread making the
+ * requests. The text is made once and shared by all of the listeners.
+ */
+public class DeferredResult implements Supplier<String> {
+
+    private Supplier<String> renderer;
+
+    private volatile String text;
+
+    /**
+     * Constructor
+     *
+     * @param renderer
+     *                     makes the text; it is called once, on any thread
+     */
+    public DeferredResult(Supplier<String> renderer) {
+        this.renderer = renderer;
+    }
+
+    private DeferredResult(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Returns the result of a packet with the time it was received, as
+     * {@link Packet#toTimeString()}. The packet must be complete.
+     *
+     * @param  packet
+     *                    the packet
+     * @return        the result
+     */
+    public static DeferredResult of(Packet packet) {
+        return new DeferredResult(packet::toTimeString);
+    }
+
+    /**
+     * Returns the result of a parsed packet, as {@link ParsedPacket#toString()}.
+     *
+     * The parsed packets publish the values they parse through volatile
+     * fields, so they can be written later on another thread. A
+     * {@link DM25ExpandedFreezeFrame} is written now, as the steps change the
+     * SPNs of its freeze frames after it is reported.
+     *
+     * @param  packet
+     *                    the packet
+     * @return        the result
+     */
+    public static DeferredResult of(ParsedPacket packet) {
+        if (packet instanceof DM25ExpandedFreezeFrame) {
+            return new DeferredResult(packet.toString());
+        }
+        return new DeferredResult(packet::toString);
+    }
+
+    /**
+     * @return the text, made the first time it is needed
+     */
+    @Override
+    public String get() {
+        String result = text;
+        if (result == null) {
+            synchronized (this) {
+                result = text;
+                if (result == null) {
+                    result = renderer.get();
+                    text = result;
+                    renderer = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+}
@@ -8,7 +8,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import org.etools.j1939_84.controllers.part01.Part01Controller;
 import org.etools.j1939_84.controllers.part02.Part02Controller;
@@ -22,6 +21,7 @@ import org.etools.j1939_84.controllers.part09.Part09Controller;
 import org.etools.j1939_84.controllers.part10.Part10Controller;
 import org.etools.j1939_84.controllers.part11.Part11Controller;
 import org.etools.j1939_84.controllers.part12.Part12Controller;
+import org.etools.j1939_84.metrics.StepProfiler;
 import org.etools.j1939_84.modules.BannerModule;
 import org.etools.j1939_84.modules.DateTimeModule;
 import org.etools.j1939_84.modules.DiagnosticMessageModule;
@@ -37,13 +37,14 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class OverallController extends Controller {
     private final List<PartController> partControllers = new ArrayList<>();
     private PartController activeController;
+    private StepSelection selection = StepSelection.ALL;
 
     public OverallController() {
         this(DataRepository.getInstance());
     }
 
     private OverallController(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new BannerModule(),
              DateTimeModule.getInstance(),
              dataRepository,
@@ -87,12 +88,27 @@ public class OverallController extends Controller {
         return "Overall Controller";
     }
 
+    /**
+     * Selects the parts and steps that are run. All are run by default.
+     *
+     * @param selection
+     *                      the parts and steps
+     */
+    public void setSelection(StepSelection selection) {
+        this.selection = selection;
+        partControllers.forEach(c -> c.setSelection(selection));
+    }
+
     @Override
     protected void run() throws Throwable {
         try {
+            StepProfiler.getInstance().reset();
             getBannerModule().reportHeader(getListener());
 
             for (PartController controller : partControllers) {
+                if (!selection.includes(controller.getPartNumber())) {
+                    continue;
+                }
                 activeController = controller;
                 activeController.run(getListener(), getJ1939());
                 activeController = null;
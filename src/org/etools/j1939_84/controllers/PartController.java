@@ -8,7 +8,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.metrics.StepProfiler;
 import org.etools.j1939_84.model.ActionOutcome;
 import org.etools.j1939_84.model.Outcome;
 import org.etools.j1939_84.model.PartResult;
@@ -21,8 +24,10 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 
 public abstract class PartController extends Controller {
 
-    private final List<StepController> stepControllers = new ArrayList<>();
+    private final Supplier<List<StepController>> stepControllerFactory;
     private final int partNumber;
+    private List<StepController> stepControllers;
+    private StepSelection selection = StepSelection.ALL;
 
     protected PartController(Executor executor,
                              BannerModule bannerModule,
@@ -33,6 +38,32 @@ public abstract class PartController extends Controller {
                              DiagnosticMessageModule diagnosticMessageModule,
                              int partNumber,
                              StepController... stepControllers) {
+        this(executor,
+             bannerModule,
+             dateTimeModule,
+             dataRepository,
+             engineSpeedModule,
+             vehicleInformationModule,
+             diagnosticMessageModule,
+             partNumber,
+             () -> Arrays.asList(stepControllers));
+    }
+
+    /**
+     * @param stepControllerFactory
+     *                                  creates the {@link StepController}s when
+     *                                  the part is run, so the steps of the
+     *                                  parts that are not running are not held
+     */
+    protected PartController(Executor executor,
+                             BannerModule bannerModule,
+                             DateTimeModule dateTimeModule,
+                             DataRepository dataRepository,
+                             EngineSpeedModule engineSpeedModule,
+                             VehicleInformationModule vehicleInformationModule,
+                             DiagnosticMessageModule diagnosticMessageModule,
+                             int partNumber,
+                             Supplier<List<StepController>> stepControllerFactory) {
         super(executor,
               bannerModule,
               dateTimeModule,
@@ -41,7 +72,7 @@ public abstract class PartController extends Controller {
               vehicleInformationModule,
               diagnosticMessageModule);
         this.partNumber = partNumber;
-        this.stepControllers.addAll(Arrays.asList(stepControllers));
+        this.stepControllerFactory = stepControllerFactory;
     }
 
     @Override
@@ -49,9 +80,35 @@ public abstract class PartController extends Controller {
         return "Part " + partNumber + " Test";
     }
 
+    public int getPartNumber() {
+        return partNumber;
+    }
+
     @Override
     protected void run() throws Throwable {
-        List<StepController> stepControllers = getStepControllers();
+        try {
+            runSteps();
+        } finally {
+            // the next run starts with new steps
+            stepControllers = null;
+        }
+    }
+
+    /**
+     * Selects the steps that are run.
+     *
+     * @param selection
+     *                      the steps, of this part and others
+     */
+    public void setSelection(StepSelection selection) {
+        this.selection = selection;
+    }
+
+    private void runSteps() throws Throwable {
+        List<StepController> stepControllers = new ArrayList<>(getStepControllers());
+        if (selection != StepSelection.ALL) {
+            stepControllers.removeIf(c -> !selection.includes(partNumber, c.getStepNumber()));
+        }
         int totalSteps = stepControllers.stream()
                                         .mapToInt(StepController::getTotalSteps)
                                         .sum()
@@ -63,21 +120,30 @@ public abstract class PartController extends Controller {
         getListener().onResult("Start " + partResult);
         getListener().onResult("");
 
-        for (StepController controller : getStepControllers()) {
+        for (StepController controller : stepControllers) {
             checkEnding();
 
             StepResult stepResult = getPartResult().getStepResult(controller.getStepNumber());
 
             getListener().onResult("Start " + stepResult);
+            setRunning(partResult.toString(), stepResult.toString());
 
             incrementProgress(stepResult.toString());
-            controller.run(getListener(), getJ1939());
+            StepProfiler.getInstance().startStep(stepResult.toString());
+            try {
+                controller.run(getListener(), getJ1939());
+            } finally {
+                StepProfiler.getInstance().endStep();
+            }
 
             getListener().onResult("");
             getListener().onResult("End " + stepResult);
             getListener().onResult("");
 
+            // the step's report, to its end, is written before its result
+            flushListeners();
             recordStepResult(stepResult);
+            MetricsRegistry.getInstance().dump(stepResult.toString());
         }
         getListener().onResult("");
         getListener().onResult("End " + partResult);
@@ -94,7 +160,13 @@ public abstract class PartController extends Controller {
         return getPartResult(partNumber);
     }
 
+    /**
+     * @return the steps of this run of the part, created on first use
+     */
     protected List<StepController> getStepControllers() {
+        if (stepControllers == null) {
+            stepControllers = new ArrayList<>(stepControllerFactory.get());
+        }
         return stepControllers;
     }
 
@@ -24,11 +24,19 @@ public class PartResultRepository implements ResultsListener {
     private final Map<Integer, PartResult> partResultsMap = new HashMap<>();
     private final PartResultFactory partResultFactory;
 
-    private PartResultRepository() {
+    PartResultRepository() {
         partResultFactory = new PartResultFactory();
     }
 
+    /**
+     * @return the repository of the {@link SessionContext} of the current
+     *         thread, or of the process
+     */
     public static PartResultRepository getInstance() {
+        SessionContext session = SessionContext.current();
+        if (session != null) {
+            return session.getPartResultRepository();
+        }
         if (instance == null) {
             instance = new PartResultRepository();
         }
@@ -77,4 +85,9 @@ public class PartResultRepository implements ResultsListener {
             J1939_84.getLogger().log(Level.INFO, actionOutcome.toString());
         }
     }
+
+    @Override
+    public void onResult(DeferredResult result) {
+        // only the outcomes are kept, so the result is not written
+    }
 }
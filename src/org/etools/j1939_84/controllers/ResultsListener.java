@@ -19,6 +19,10 @@ import org.etools.j1939_84.model.VehicleInformationListener;
  */
 public interface ResultsListener {
     ResultsListener NOOP = new ResultsListener() {
+        @Override
+        public void onResult(DeferredResult result) {
+            // there is no need to write it
+        }
     };
 
     default void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
@@ -88,6 +92,17 @@ public interface ResultsListener {
     default void onResult(String result) {
     }
 
+    /**
+     * Called when the {@link Controller} has a result to report that is
+     * written as text when it is needed
+     *
+     * @param result
+     *                   the result
+     */
+    default void onResult(DeferredResult result) {
+        onResult(result.get());
+    }
+
     /**
      * Called when a dialog needs to be displayed to the user that will force
      * the application to pause until the user responds.
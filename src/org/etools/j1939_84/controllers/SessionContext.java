@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import java.util.concurrent.Callable;
+
+import org.etools.j1939_84.bus.BusMonitor;
+import org.etools.j1939_84.bus.FlightRecorder;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.bus.j1939.BroadcastCache;
+import org.etools.j1939_84.bus.j1939.LatencyProfile;
+import org.etools.j1939_84.metrics.MetricsRegistry;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.modules.DateTimeModule;
+
+/**
+ * The state of one run of the controllers against one vehicle: the
+ * {@link DataRepository}, {@link DateTimeModule},
+ * {@link PartResultRepository} and {@link StepProfiler}, the progress and
+ * ending of the {@link Controller}s and the {@link ControllerRuntime} they run
+ * on, and what is kept of its bus: the {@link MetricsRegistry},
+ * {@link BusMonitor}, {@link FlightRecorder}, {@link BroadcastCache} and
+ * {@link LatencyProfile}. The J1939DA tables and the other lookup tables are
+ * read only, so all the sessions share them.
+ *
+ * The application runs one vehicle at a time without a session, using the
+ * instances of the process. To run several at once in one process, each is run
+ * on a thread bound to a context of its own with {@link #call(Callable)}.
+ * While a thread is bound, the getInstance() methods return the instances of
+ * its context. The threads of its {@link ControllerRuntime}, and those the
+ * controllers start, are bound to it too, so the controllers created on a
+ * bound thread only see the state of their session. The controllers and
+ * modules keep the session they were created in, so a run is stopped from any
+ * thread. An RP1210 adapter is connected on a bound thread too, so its clock
+ * sets the {@link DateTimeModule} of its session and its traffic is watched
+ * and counted by the monitors of its session; several adapters then drive
+ * several vehicles at once. A bus and the J1939 on it keep the monitors of the
+ * thread they were created on, as the threads reading the bus are not bound.
+ *
+ * A session may run on a {@link VirtualClock} of its own, such as against a
+ * {@link org.etools.j1939_84.bus.ReplayBus}. The bound threads, and the
+ * threads they start, which include those reading a bus created on a bound
+ * thread, then wait in virtual time, so the pauses of the steps take no time
+ * and the sessions do not wait on each other.
+ */
+public class SessionContext implements AutoCloseable {
+
+    private static final ThreadLocal<SessionContext> current = new ThreadLocal<>();
+
+    private final String name;
+
+    private final DataRepository dataRepository = new DataRepository();
+
+    private final DateTimeModule dateTimeModule;
+
+    private final PartResultRepository partResultRepository = new PartResultRepository();
+
+    private final StepProfiler stepProfiler = new StepProfiler();
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    private final FlightRecorder flightRecorder = new FlightRecorder();
+
+    private final BusMonitor busMonitor = new BusMonitor(flightRecorder, metricsRegistry);
+
+    private final BroadcastCache broadcastCache = new BroadcastCache();
+
+    private final LatencyProfile latencyProfile = new LatencyProfile(metricsRegistry);
+
+    private final Controller.RunState runState = new Controller.RunState();
+
+    private final ControllerRuntime controllerRuntime;
+
+    /** The clock of the session, or null to use that of the application */
+    private final VirtualClock clock;
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *                 the name of the session, used to name its threads
+     */
+    public SessionContext(String name) {
+        this(name, new DateTimeModule());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *                           the name of the session, used to name its
+     *                           threads
+     * @param dateTimeModule
+     *                           the {@link DateTimeModule} of the session
+     */
+    public SessionContext(String name, DateTimeModule dateTimeModule) {
+        this(name, dateTimeModule, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *                        the name of the session, used to name its threads
+     * @param virtualTime
+     *                        true to run the session on a {@link VirtualClock}
+     *                        of its own, which only a simulated or replayed
+     *                        vehicle may be used with
+     */
+    public SessionContext(String name, boolean virtualTime) {
+        this(name, new DateTimeModule(), virtualTime);
+    }
+
+    private SessionContext(String name, DateTimeModule dateTimeModule, boolean virtualTime) {
+        this.name = name;
+        this.dateTimeModule = dateTimeModule;
+        clock = virtualTime ? new VirtualClock() : null;
+        controllerRuntime = new ControllerRuntime(ControllerRuntime.TIMER_THREADS,
+                                                  ControllerRuntime.MAX_THREADS,
+                                                  this);
+        metricsRegistry.gauge("controller.threads", controllerRuntime::getThreadCount);
+    }
+
+    /**
+     * @return the context the current thread is bound to, or null if it uses
+     *         the instances of the process
+     */
+    public static SessionContext current() {
+        return current.get();
+    }
+
+    /**
+     * Returns a runnable that runs bound to a context.
+     *
+     * @param  session
+     *                      the context, or null to run unchanged
+     * @param  runnable
+     *                      what to run
+     * @return          the bound runnable
+     */
+    public static Runnable wrap(SessionContext session, Runnable runnable) {
+        return session == null ? runnable : session.wrap(runnable);
+    }
+
+    /**
+     * Calls the callable with the current thread bound to this context.
+     *
+     * @param  <T>
+     *                       the type of the result
+     * @param  callable
+     *                       what to call
+     * @return           the result of the callable
+     * @throws Exception
+     *                       if the callable throws it
+     */
+    public <T> T call(Callable<T> callable) throws Exception {
+        SessionContext previous = current.get();
+        current.set(this);
+        VirtualClock previousClock = VirtualClock.bind(clock);
+        try {
+            return callable.call();
+        } finally {
+            restore(previous);
+            VirtualClock.bind(previousClock);
+        }
+    }
+
+    /**
+     * Returns a runnable that runs bound to this context.
+     *
+     * @param  runnable
+     *                      what to run
+     * @return          the bound runnable
+     */
+    public Runnable wrap(Runnable runnable) {
+        return () -> {
+            SessionContext previous = current.get();
+            current.set(this);
+            VirtualClock previousClock = VirtualClock.bind(clock);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+                VirtualClock.bind(previousClock);
+            }
+        };
+    }
+
+    private static void restore(SessionContext previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataRepository getDataRepository() {
+        return dataRepository;
+    }
+
+    public DateTimeModule getDateTimeModule() {
+        return dateTimeModule;
+    }
+
+    public PartResultRepository getPartResultRepository() {
+        return partResultRepository;
+    }
+
+    public StepProfiler getStepProfiler() {
+        return stepProfiler;
+    }
+
+    public ControllerRuntime getControllerRuntime() {
+        return controllerRuntime;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public BusMonitor getBusMonitor() {
+        return busMonitor;
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    public BroadcastCache getBroadcastCache() {
+        return broadcastCache;
+    }
+
+    public LatencyProfile getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    /**
+     * @return true if the session runs on a {@link VirtualClock} of its own
+     */
+    public boolean isVirtualTime() {
+        return clock != null;
+    }
+
+    /**
+     * @return how the last run of the controllers of the session ended, or
+     *         null if it has not
+     */
+    public Controller.Ending getEnding() {
+        return runState.ending;
+    }
+
+    Controller.RunState getRunState() {
+        return runState;
+    }
+
+    /**
+     * Ends the threads of the session. Controllers still running are
+     * interrupted, and its clock, if it has one, is stopped.
+     */
+    @Override
+    public void close() {
+        controllerRuntime.shutdown();
+        broadcastCache.stop();
+        if (clock != null) {
+            clock.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
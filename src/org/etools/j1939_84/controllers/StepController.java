@@ -27,6 +27,7 @@ import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+import org.etools.j1939_84.bus.j1939.BroadcastCache;
 import org.etools.j1939_84.bus.j1939.BusResult;
 import org.etools.j1939_84.bus.j1939.Lookup;
 import org.etools.j1939_84.bus.j1939.packets.AcknowledgmentPacket;
@@ -39,6 +40,8 @@ import org.etools.j1939_84.bus.j1939.packets.LampStatus;
 import org.etools.j1939_84.bus.j1939.packets.MonitoredSystem;
 import org.etools.j1939_84.bus.j1939.packets.ParsedPacket;
 import org.etools.j1939_84.controllers.ResultsListener.MessageType;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.metrics.StepProfiler.Category;
 import org.etools.j1939_84.model.FuelType;
 import org.etools.j1939_84.model.KeyState;
 import org.etools.j1939_84.model.OBDModuleInformation;
@@ -136,6 +139,16 @@ public abstract class StepController extends Controller {
     protected void ensureKeyStateIs(KeyState requestedKeyState, String section) throws InterruptedException {
         getListener().onResult("Initial Engine Speed = " + getEngineSpeedAsString());
 
+        long start = StepProfiler.getInstance().begin();
+        try {
+            waitForKeyState(requestedKeyState, section);
+        } finally {
+            StepProfiler.getInstance().end(Category.OPERATOR, start);
+        }
+        getListener().onResult("Final Engine Speed = " + getEngineSpeedAsString());
+    }
+
+    private void waitForKeyState(KeyState requestedKeyState, String section) throws InterruptedException {
         if (getCurrentKeyState() != requestedKeyState) {
             updateProgress("Step " + section + " - " + getWaitingKeyStateAsString(requestedKeyState));
             if (!isDevEnv()) {
@@ -151,8 +164,9 @@ public abstract class StepController extends Controller {
                     getVehicleInformationModule().changeKeyState(getListener(), requestedKeyState);
                 }
             }
+            // the broadcasts from before the key state changed are stale
+            BroadcastCache.getInstance().reset();
         }
-        getListener().onResult("Final Engine Speed = " + getEngineSpeedAsString());
     }
 
     private static String getWaitingKeyStateAsString(KeyState keyState) {
@@ -317,7 +331,12 @@ public abstract class StepController extends Controller {
 
     protected void displayInstructionAndWait(String message, String boxTitle, MessageType messageType) {
         if (!isDevEnv()) {
-            getListener().onUrgentMessage(message, boxTitle, messageType, getQuestionListener());
+            long start = StepProfiler.getInstance().begin();
+            try {
+                getListener().onUrgentMessage(message, boxTitle, messageType, getQuestionListener());
+            } finally {
+                StepProfiler.getInstance().end(Category.OPERATOR, start);
+            }
         }
     }
 
@@ -340,6 +359,15 @@ public abstract class StepController extends Controller {
     }
 
     protected void pause(String message, long secondsToSleep) {
+        long start = StepProfiler.getInstance().begin();
+        try {
+            waitFor(message, secondsToSleep);
+        } finally {
+            StepProfiler.getInstance().end(Category.PAUSE, start);
+        }
+    }
+
+    private void waitFor(String message, long secondsToSleep) {
         long stopTime = getDateTimeModule().getTimeAsLong() + (secondsToSleep * 1000L);
         long secondsToGo;
         while (true) {
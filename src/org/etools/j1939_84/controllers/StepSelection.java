@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts and steps of a run, such as "1,2.3-2.7,3.9-5".
+ *
+ * Each item of the comma separated list is a part, like "1", a step, like
+ * "1.3", or a range of either, like "2-4" or "1.3-1.7". A range that ends with
+ * a part includes all the steps of that part. The steps of the earlier parts
+ * record what the later steps check, so a run of later steps on their own may
+ * fail for the lack of it.
+ */
+public class StepSelection {
+
+    /** Every step of every part */
+    public static final StepSelection ALL = new StepSelection(List.of(new long[] { 0, Long.MAX_VALUE }), "all");
+
+    /** More than the number of steps of any part */
+    private static final long STEPS = 1000;
+
+    /** The inclusive ranges of part * STEPS + step */
+    private final List<long[]> ranges;
+
+    private final String text;
+
+    private StepSelection(List<long[]> ranges, String text) {
+        this.ranges = ranges;
+        this.text = text;
+    }
+
+    /**
+     * @param  text
+     *                                      the selection, like "1,2.3-2.7"
+     * @return                          the selection
+     * @throws IllegalArgumentException
+     *                                      if the text is not a selection
+     */
+    public static StepSelection parse(String text) {
+        List<long[]> ranges = new ArrayList<>();
+        for (String item : text.split(",")) {
+            String[] ends = item.trim().split("-", -1);
+            if (ends.length > 2) {
+                throw new IllegalArgumentException("Not a part or step: " + item);
+            }
+            long from = key(ends[0], false);
+            long to = key(ends[ends.length - 1], true);
+            if (from > to) {
+                throw new IllegalArgumentException("The range ends before it starts: " + item);
+            }
+            ranges.add(new long[] { from, to });
+        }
+        return new StepSelection(ranges, text);
+    }
+
+    /** Returns the first or last key of a part or step */
+    private static long key(String text, boolean last) {
+        String[] numbers = text.trim().split("\\.", -1);
+        try {
+            if (numbers.length == 1) {
+                long part = Integer.parseInt(numbers[0]);
+                return part * STEPS + (last ? STEPS - 1 : 0);
+            } else if (numbers.length == 2) {
+                int step = Integer.parseInt(numbers[1]);
+                if (step < STEPS) {
+                    return Integer.parseInt(numbers[0]) * STEPS + step;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Not a part or step: " + text);
+    }
+
+    /**
+     * @param  partNumber
+     *                        the part
+     * @return            true if any step of the part is selected
+     */
+    public boolean includes(int partNumber) {
+        long first = partNumber * STEPS;
+        long last = first + STEPS - 1;
+        return ranges.stream().anyMatch(r -> r[0] <= last && first <= r[1]);
+    }
+
+    /**
+     * @param  partNumber
+     *                        the part
+     * @param  stepNumber
+     *                        the step of the part
+     * @return            true if the step is selected
+     */
+    public boolean includes(int partNumber, int stepNumber) {
+        long key = partNumber * STEPS + stepNumber;
+        return ranges.stream().anyMatch(r -> r[0] <= key && key <= r[1]);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
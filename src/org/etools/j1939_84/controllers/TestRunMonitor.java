@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+import org.etools.j1939_84.metrics.Management;
+
+/**
+ * Reports the state kept by the {@link Controller}s for the
+ * {@link TestRunMonitorMBean}.
+ */
+public class TestRunMonitor implements TestRunMonitorMBean {
+
+    /**
+     * Registers the MBean with the platform MBean server.
+     */
+    public static void register() {
+        Management.register("TestRun", new TestRunMonitor());
+    }
+
+    @Override
+    public String getPart() {
+        return Controller.getRunningPart();
+    }
+
+    @Override
+    public String getStep() {
+        return Controller.getRunningStep();
+    }
+
+    @Override
+    public String getProgress() {
+        return Controller.getCurrentStep() + "/" + Controller.getMaxSteps();
+    }
+
+    @Override
+    public String getMessage() {
+        return Controller.getProgressMessage();
+    }
+
+    @Override
+    public String getEnding() {
+        Controller.Ending ending = Controller.getEnding();
+        if (ending != null) {
+            return ending.toString();
+        }
+        return Controller.getMaxSteps() == 0 ? "Not Started" : "Running";
+    }
+}
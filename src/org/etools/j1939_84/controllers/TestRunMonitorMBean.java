@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.controllers;
+
+/**
+ * The JMX view of the test run in progress.
+ */
+public interface TestRunMonitorMBean {
+
+    /** @return the part being run or that was run last */
+    String getPart();
+
+    /** @return the step being run or that was run last */
+    String getStep();
+
+    /** @return the progress as "current/maximum" */
+    String getProgress();
+
+    /** @return the last progress message */
+    String getMessage();
+
+    /** @return how the run ended, "Running" or "Not Started" */
+    String getEnding();
+}
@@ -8,8 +8,8 @@ import static org.etools.j1939_84.controllers.ResultsListener.MessageType.WARNIN
 import static org.etools.j1939_84.model.KeyState.KEY_ON_ENGINE_OFF;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.ResultsListener;
 import org.etools.j1939_84.controllers.StepController;
@@ -30,7 +30,7 @@ public class Part01Step01Controller extends StepController {
     private static final int TOTAL_STEPS = 3;
 
     Part01Step01Controller() {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
@@ -7,11 +7,11 @@ import static org.etools.j1939_84.modules.DiagnosticMessageModule.getCompositeSy
 
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import org.etools.j1939_84.bus.j1939.packets.AcknowledgmentPacket.Response;
 import org.etools.j1939_84.bus.j1939.packets.AddressClaimPacket;
 import org.etools.j1939_84.bus.j1939.packets.DM5DiagnosticReadinessPacket;
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.model.OBDModuleInformation;
@@ -31,7 +31,7 @@ public class Part01Step03Controller extends StepController {
     private static final int TOTAL_STEPS = 0;
 
     Part01Step03Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
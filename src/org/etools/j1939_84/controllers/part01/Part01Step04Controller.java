@@ -8,7 +8,6 @@ import static org.etools.j1939_84.bus.j1939.packets.AcknowledgmentPacket.Respons
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.etools.j1939_84.bus.j1939.BusResult;
@@ -16,6 +15,7 @@ import org.etools.j1939_84.bus.j1939.Lookup;
 import org.etools.j1939_84.bus.j1939.packets.DM24SPNSupportPacket;
 import org.etools.j1939_84.bus.j1939.packets.ParsedPacket;
 import org.etools.j1939_84.bus.j1939.packets.SupportedSPN;
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.model.OBDModuleInformation;
@@ -38,7 +38,7 @@ public class Part01Step04Controller extends StepController {
     private final SupportedSpnModule supportedSpnModule;
 
     Part01Step04Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
@@ -2,10 +2,10 @@ package org.etools.j1939_84.controllers.part01;
 
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import org.etools.j1939_84.bus.j1939.packets.ParsedPacket;
 import org.etools.j1939_84.bus.j1939.packets.VehicleIdentificationPacket;
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.model.VehicleInformation;
@@ -28,7 +28,7 @@ public class Part01Step05Controller extends StepController {
     private final VinDecoder vinDecoder;
 
     Part01Step05Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
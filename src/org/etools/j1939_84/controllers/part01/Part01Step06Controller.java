@@ -5,9 +5,9 @@ package org.etools.j1939_84.controllers.part01;
 
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import org.etools.j1939_84.bus.j1939.packets.DM56EngineFamilyPacket;
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.modules.BannerModule;
@@ -26,7 +26,7 @@ public class Part01Step06Controller extends StepController {
     private static final int TOTAL_STEPS = 0;
 
     Part01Step06Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
@@ -9,8 +9,8 @@ import static org.etools.j1939_84.model.KeyState.KEY_ON_ENGINE_RUNNING;
 import static org.etools.j1939_84.model.Outcome.FAIL;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.modules.BannerModule;
@@ -31,7 +31,7 @@ public class Part01Step27Controller extends StepController {
     private static final int TOTAL_STEPS = 3;
 
     Part01Step27Controller() {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new EngineSpeedModule(),
              new BannerModule(),
              new VehicleInformationModule(),
@@ -6,8 +6,8 @@ package org.etools.j1939_84.controllers.part02;
 import static org.etools.j1939_84.model.KeyState.KEY_ON_ENGINE_RUNNING;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.StepController;
 import org.etools.j1939_84.modules.BannerModule;
@@ -26,7 +26,7 @@ public class Part02Step01Controller extends StepController {
     private static final int TOTAL_STEPS = 0;
 
     Part02Step01Controller() {
-        this(Executors.newSingleThreadScheduledExecutor(),
+        this(ControllerRuntime.getInstance().borrow(),
              new BannerModule(),
              DateTimeModule.getInstance(),
              DataRepository.getInstance(),
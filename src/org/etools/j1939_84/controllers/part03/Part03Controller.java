@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part03;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,29 +22,30 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part03Controller extends PartController {
 
     public Part03Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part03Step01Controller(),
-             new Part03Step02Controller(),
-             new Part03Step03Controller(),
-             new Part03Step04Controller(),
-             new Part03Step05Controller(),
-             new Part03Step06Controller(),
-             new Part03Step07Controller(),
-             new Part03Step08Controller(),
-             new Part03Step09Controller(),
-             new Part03Step10Controller(),
-             new Part03Step11Controller(),
-             new Part03Step12Controller(),
-             new Part03Step13Controller(),
-             new Part03Step14Controller(),
-             new Part03Step15Controller(),
-             new Part03Step16Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              3,
+              () -> List.of(new Part03Step01Controller(),
+                            new Part03Step02Controller(),
+                            new Part03Step03Controller(),
+                            new Part03Step04Controller(),
+                            new Part03Step05Controller(),
+                            new Part03Step06Controller(),
+                            new Part03Step07Controller(),
+                            new Part03Step08Controller(),
+                            new Part03Step09Controller(),
+                            new Part03Step10Controller(),
+                            new Part03Step11Controller(),
+                            new Part03Step12Controller(),
+                            new Part03Step13Controller(),
+                            new Part03Step14Controller(),
+                            new Part03Step15Controller(),
+                            new Part03Step16Controller()));
     }
 
     /**
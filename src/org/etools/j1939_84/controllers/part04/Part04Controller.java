@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part04;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,28 +22,29 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part04Controller extends PartController {
 
     public Part04Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part04Step01Controller(),
-             new Part04Step02Controller(),
-             new Part04Step03Controller(),
-             new Part04Step04Controller(),
-             new Part04Step05Controller(),
-             new Part04Step06Controller(),
-             new Part04Step07Controller(),
-             new Part04Step08Controller(),
-             new Part04Step09Controller(),
-             new Part04Step10Controller(),
-             new Part04Step11Controller(),
-             new Part04Step12Controller(),
-             new Part04Step13Controller(),
-             new Part04Step14Controller(),
-             new Part04Step15Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              4,
+              () -> List.of(new Part04Step01Controller(),
+                            new Part04Step02Controller(),
+                            new Part04Step03Controller(),
+                            new Part04Step04Controller(),
+                            new Part04Step05Controller(),
+                            new Part04Step06Controller(),
+                            new Part04Step07Controller(),
+                            new Part04Step08Controller(),
+                            new Part04Step09Controller(),
+                            new Part04Step10Controller(),
+                            new Part04Step11Controller(),
+                            new Part04Step12Controller(),
+                            new Part04Step13Controller(),
+                            new Part04Step14Controller(),
+                            new Part04Step15Controller()));
     }
 
     /**
@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part05;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,20 +22,21 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part05Controller extends PartController {
 
     public Part05Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part05Step01Controller(),
-             new Part05Step02Controller(),
-             new Part05Step03Controller(),
-             new Part05Step04Controller(),
-             new Part05Step05Controller(),
-             new Part05Step06Controller(),
-             new Part05Step07Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              5,
+              () -> List.of(new Part05Step01Controller(),
+                            new Part05Step02Controller(),
+                            new Part05Step03Controller(),
+                            new Part05Step04Controller(),
+                            new Part05Step05Controller(),
+                            new Part05Step06Controller(),
+                            new Part05Step07Controller()));
     }
 
     /**
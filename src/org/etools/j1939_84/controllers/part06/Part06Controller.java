@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part06;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,24 +22,25 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part06Controller extends PartController {
 
     public Part06Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part06Step01Controller(),
-             new Part06Step02Controller(),
-             new Part06Step03Controller(),
-             new Part06Step04Controller(),
-             new Part06Step05Controller(),
-             new Part06Step06Controller(),
-             new Part06Step07Controller(),
-             new Part06Step08Controller(),
-             new Part06Step09Controller(),
-             new Part06Step10Controller(),
-             new Part06Step11Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              6,
+              () -> List.of(new Part06Step01Controller(),
+                            new Part06Step02Controller(),
+                            new Part06Step03Controller(),
+                            new Part06Step04Controller(),
+                            new Part06Step05Controller(),
+                            new Part06Step06Controller(),
+                            new Part06Step07Controller(),
+                            new Part06Step08Controller(),
+                            new Part06Step09Controller(),
+                            new Part06Step10Controller(),
+                            new Part06Step11Controller()));
     }
 
     /**
@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part07;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,31 +22,32 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part07Controller extends PartController {
 
     public Part07Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part07Step01Controller(),
-             new Part07Step02Controller(),
-             new Part07Step03Controller(),
-             new Part07Step04Controller(),
-             new Part07Step05Controller(),
-             new Part07Step06Controller(),
-             new Part07Step07Controller(),
-             new Part07Step08Controller(),
-             new Part07Step09Controller(),
-             new Part07Step10Controller(),
-             new Part07Step11Controller(),
-             new Part07Step12Controller(),
-             new Part07Step13Controller(),
-             new Part07Step14Controller(),
-             new Part07Step15Controller(),
-             new Part07Step16Controller(),
-             new Part07Step17Controller(),
-             new Part07Step18Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              7,
+              () -> List.of(new Part07Step01Controller(),
+                            new Part07Step02Controller(),
+                            new Part07Step03Controller(),
+                            new Part07Step04Controller(),
+                            new Part07Step05Controller(),
+                            new Part07Step06Controller(),
+                            new Part07Step07Controller(),
+                            new Part07Step08Controller(),
+                            new Part07Step09Controller(),
+                            new Part07Step10Controller(),
+                            new Part07Step11Controller(),
+                            new Part07Step12Controller(),
+                            new Part07Step13Controller(),
+                            new Part07Step14Controller(),
+                            new Part07Step15Controller(),
+                            new Part07Step16Controller(),
+                            new Part07Step17Controller(),
+                            new Part07Step18Controller()));
     }
 
     /**
@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part08;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,29 +22,30 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part08Controller extends PartController {
 
     public Part08Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part08Step01Controller(),
-             new Part08Step02Controller(),
-             new Part08Step03Controller(),
-             new Part08Step04Controller(),
-             new Part08Step05Controller(),
-             new Part08Step06Controller(),
-             new Part08Step07Controller(),
-             new Part08Step08Controller(),
-             new Part08Step09Controller(),
-             new Part08Step10Controller(),
-             new Part08Step11Controller(),
-             new Part08Step12Controller(),
-             new Part08Step13Controller(),
-             new Part08Step14Controller(),
-             new Part08Step15Controller(),
-             new Part08Step16Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              8,
+              () -> List.of(new Part08Step01Controller(),
+                            new Part08Step02Controller(),
+                            new Part08Step03Controller(),
+                            new Part08Step04Controller(),
+                            new Part08Step05Controller(),
+                            new Part08Step06Controller(),
+                            new Part08Step07Controller(),
+                            new Part08Step08Controller(),
+                            new Part08Step09Controller(),
+                            new Part08Step10Controller(),
+                            new Part08Step11Controller(),
+                            new Part08Step12Controller(),
+                            new Part08Step13Controller(),
+                            new Part08Step14Controller(),
+                            new Part08Step15Controller(),
+                            new Part08Step16Controller()));
     }
 
     /**
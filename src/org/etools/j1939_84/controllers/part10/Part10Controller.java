@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part10;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,18 +22,19 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part10Controller extends PartController {
 
     public Part10Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part10Step01Controller(),
-             new Part10Step02Controller(),
-             new Part10Step03Controller(),
-             new Part10Step04Controller(),
-             new Part10Step05Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              10,
+              () -> List.of(new Part10Step01Controller(),
+                            new Part10Step02Controller(),
+                            new Part10Step03Controller(),
+                            new Part10Step04Controller(),
+                            new Part10Step05Controller()));
     }
 
     /**
@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part11;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,26 +22,27 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part11Controller extends PartController {
 
     public Part11Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part11Step01Controller(),
-             new Part11Step02Controller(),
-             new Part11Step03Controller(),
-             new Part11Step04Controller(),
-             new Part11Step05Controller(),
-             new Part11Step06Controller(),
-             new Part11Step07Controller(),
-             new Part11Step08Controller(),
-             new Part11Step09Controller(),
-             new Part11Step10Controller(),
-             new Part11Step11Controller(),
-             new Part11Step12Controller(),
-             new Part11Step13Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              11,
+              () -> List.of(new Part11Step01Controller(),
+                            new Part11Step02Controller(),
+                            new Part11Step03Controller(),
+                            new Part11Step04Controller(),
+                            new Part11Step05Controller(),
+                            new Part11Step06Controller(),
+                            new Part11Step07Controller(),
+                            new Part11Step08Controller(),
+                            new Part11Step09Controller(),
+                            new Part11Step10Controller(),
+                            new Part11Step11Controller(),
+                            new Part11Step12Controller(),
+                            new Part11Step13Controller()));
     }
 
     /**
@@ -3,9 +3,10 @@
  */
 package org.etools.j1939_84.controllers.part12;
 
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+import org.etools.j1939_84.controllers.ControllerRuntime;
 import org.etools.j1939_84.controllers.DataRepository;
 import org.etools.j1939_84.controllers.PartController;
 import org.etools.j1939_84.controllers.StepController;
@@ -21,23 +22,24 @@ import org.etools.j1939_84.modules.VehicleInformationModule;
 public class Part12Controller extends PartController {
 
     public Part12Controller(DataRepository dataRepository) {
-        this(Executors.newSingleThreadScheduledExecutor(),
-             new BannerModule(),
-             DateTimeModule.getInstance(),
-             dataRepository,
-             new EngineSpeedModule(),
-             new VehicleInformationModule(),
-             new DiagnosticMessageModule(),
-             new Part12Step01Controller(),
-             new Part12Step02Controller(),
-             new Part12Step03Controller(),
-             new Part12Step04Controller(),
-             new Part12Step05Controller(),
-             new Part12Step06Controller(),
-             new Part12Step07Controller(),
-             new Part12Step08Controller(),
-             new Part12Step09Controller(),
-             new Part12Step10Controller());
+        super(ControllerRuntime.getInstance().borrow(),
+              new BannerModule(),
+              DateTimeModule.getInstance(),
+              dataRepository,
+              new EngineSpeedModule(),
+              new VehicleInformationModule(),
+              new DiagnosticMessageModule(),
+              12,
+              () -> List.of(new Part12Step01Controller(),
+                            new Part12Step02Controller(),
+                            new Part12Step03Controller(),
+                            new Part12Step04Controller(),
+                            new Part12Step05Controller(),
+                            new Part12Step06Controller(),
+                            new Part12Step07Controller(),
+                            new Part12Step08Controller(),
+                            new Part12Step09Controller(),
+                            new Part12Step10Controller()));
     }
 
     /**
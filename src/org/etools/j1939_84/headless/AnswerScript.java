@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.etools.j1939_84.controllers.QuestionListener;
+import org.etools.j1939_84.controllers.QuestionListener.AnswerType;
+
+/**
+ * The answers to the questions the controllers ask the operator, given to a
+ * {@link QuestionListener} in place of the operator.
+ *
+ * Each line of a script is text and an answer, like
+ *
+ * <pre>
+ * # the key is turned by the test cell
+ * Turn the Key to the OFF position = YES
+ * Do you wish to continue = NO
+ * * = YES
+ * </pre>
+ *
+ * The answer of the first line whose text is in the title or the message of
+ * the question, ignoring case, is given; * is in all of them. Questions that
+ * are in no line are answered YES. Blank lines and lines starting with # are
+ * skipped.
+ */
+public class AnswerScript {
+
+    /** Answers every question YES */
+    public static final AnswerScript YES = new AnswerScript(List.of());
+
+    private static class Rule {
+        private final String text;
+        private final AnswerType answer;
+
+        private Rule(String text, AnswerType answer) {
+            this.text = text;
+            this.answer = answer;
+        }
+    }
+
+    private final List<Rule> rules;
+
+    private AnswerScript(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param  file
+     *                         the script
+     * @return             the answers of the script
+     * @throws IOException
+     *                         if the file cannot be read or a line is not an
+     *                         answer
+     */
+    public static AnswerScript read(File file) throws IOException {
+        try {
+            return parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param  lines
+     *                                      the lines of a script
+     * @return                          the answers of the script
+     * @throws IllegalArgumentException
+     *                                      if a line is not an answer
+     */
+    public static AnswerScript parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.lastIndexOf('=');
+            String text = equals < 0 ? "" : line.substring(0, equals).trim();
+            String answer = equals < 0 ? "" : line.substring(equals + 1).trim().toUpperCase(Locale.ROOT);
+            try {
+                if (text.isEmpty()) {
+                    throw new IllegalArgumentException();
+                }
+                rules.add(new Rule(text.toLowerCase(Locale.ROOT), AnswerType.valueOf(answer)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " is not text = YES, NO or CANCEL: " + line);
+            }
+        }
+        return new AnswerScript(rules);
+    }
+
+    /**
+     * @param  title
+     *                     the title of the question
+     * @param  message
+     *                     the question
+     * @return         the answer to the question
+     */
+    public AnswerType answer(String title, String message) {
+        String question = (title + "\n" + message).toLowerCase(Locale.ROOT);
+        return rules.stream()
+                    .filter(r -> r.text.equals("*") || question.contains(r.text))
+                    .map(r -> r.answer)
+                    .findFirst()
+                    .orElse(AnswerType.YES);
+    }
+}
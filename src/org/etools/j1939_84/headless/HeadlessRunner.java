@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.Adapter;
+import org.etools.j1939_84.bus.Bus;
+import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.Packet;
+import org.etools.j1939_84.bus.RP1210;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.VirtualClock;
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.controllers.Controller.Ending;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.controllers.StepSelection;
+
+/**
+ * Runs the tests from the command line, without the user interface, so they
+ * can be automated and run without a display.
+ *
+ * <pre>
+ * J1939_84 HEADLESS -a adapter [-c connection] [-v vehicle.json] [-p parts] [-q answers] [-r report]
+ *                   [-t minutes] [-x] [-l]
+ * </pre>
+ *
+ * The adapter is the name of an RP1210 adapter, or the start of one, "sim" for
+ * the simulated engine, or a capture file or trace to replay. The connection
+ * string defaults to the first of the adapter. The vehicle information is read
+ * from the JSON file, or from the vehicle (see {@link SessionRunner}). The
+ * parts and steps are a {@link StepSelection}, all by default, and the
+ * questions are answered by an {@link AnswerScript}, yes by default. The
+ * report is written to the file, or to a new file in the current directory.
+ * With the simulated engine the tests turn its key themselves, as in test
+ * mode, and with -x it runs in virtual time; -l lists the adapters.
+ *
+ * The user interface classes are not loaded, and the time from the start of
+ * the JVM to the connection of the adapter and to its first frame is printed.
+ * The exit status is 0 if the tests completed without a failure, 1 if not and
+ * 2 if the arguments are not valid.
+ */
+public class HeadlessRunner {
+
+    /** Selects the simulated engine */
+    public static final String SIMULATOR = "sim";
+
+    /** The address of the tool, as the user interface uses */
+    private static final int TOOL_ADDRESS = 0xF9;
+
+    private static final String USAGE = "Usage: J1939_84 HEADLESS -a adapter [-c connection] [-v vehicle.json]"
+            + " [-p parts] [-q answers] [-r report] [-t minutes] [-x] [-l]";
+
+    private String adapterName;
+
+    private String connectionString;
+
+    private File vehicleFile;
+
+    private StepSelection selection = StepSelection.ALL;
+
+    private File answerFile;
+
+    private File reportFile;
+
+    private long timeoutMinutes = 24 * 60;
+
+    private boolean virtualTime;
+
+    private boolean list;
+
+    /**
+     * @param args
+     *                 the arguments
+     */
+    public static void main(String[] args) {
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        int status;
+        try {
+            status = runner.run(System.out);
+        } catch (Exception e) {
+            J1939_84.getLogger().log(Level.SEVERE, "Unable to run the tests", e);
+            System.err.println(e.getMessage());
+            status = 1;
+        }
+        // the bus and the simulated engine have threads of their own
+        System.exit(status);
+    }
+
+    /**
+     * Reads the arguments.
+     *
+     * @param  args
+     *                                      the arguments
+     * @throws IllegalArgumentException
+     *                                      if they are not valid
+     */
+    void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("-x")) {
+                virtualTime = true;
+                continue;
+            } else if (option.equals("-l")) {
+                list = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing the value of " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "-a":
+                    adapterName = value;
+                    break;
+                case "-c":
+                    connectionString = value;
+                    break;
+                case "-v":
+                    vehicleFile = new File(value);
+                    break;
+                case "-p":
+                    selection = StepSelection.parse(value);
+                    break;
+                case "-q":
+                    answerFile = new File(value);
+                    break;
+                case "-r":
+                    reportFile = new File(value);
+                    break;
+                case "-t":
+                    try {
+                        timeoutMinutes = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Not a number of minutes: " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (adapterName == null && !list) {
+            throw new IllegalArgumentException("Missing the adapter");
+        }
+    }
+
+    /**
+     * @param  rp1210
+     *                          the adapters
+     * @param  name
+     *                          the name of an adapter, or the start of one,
+     *                          {@value #SIMULATOR} or a capture file or trace
+     * @return              the adapter
+     * @throws BusException
+     *                          if the adapters cannot be read or there is no
+     *                          such adapter
+     */
+    static Adapter findAdapter(RP1210 rp1210, String name) throws BusException {
+        if (name.equalsIgnoreCase(SIMULATOR)) {
+            return RP1210.getLoopBackAdapter();
+        }
+        File file = new File(name);
+        if (file.isFile()) {
+            return RP1210.getReplayAdapter(file);
+        }
+        List<Adapter> adapters = rp1210.getAdapters();
+        String prefix = name.toLowerCase(Locale.ROOT);
+        List<Adapter> matches = adapters.stream()
+                                        .filter(a -> a.getName().equalsIgnoreCase(name))
+                                        .collect(Collectors.toList());
+        if (matches.isEmpty()) {
+            matches = adapters.stream()
+                              .filter(a -> a.getName().toLowerCase(Locale.ROOT).startsWith(prefix))
+                              .collect(Collectors.toList());
+        }
+        if (matches.size() != 1) {
+            throw new BusException((matches.isEmpty() ? "No adapter is named " : "More than one adapter is named ")
+                    + name + "; the adapters are " + adapters.stream()
+                                                             .map(Adapter::getName)
+                                                             .collect(Collectors.joining(", ")));
+        }
+        return matches.get(0);
+    }
+
+    private static long millisSince(Instant start) {
+        return Duration.between(start, Instant.now()).toMillis();
+    }
+
+    /**
+     * Runs the tests.
+     *
+     * @param  out
+     *                       receives the progress, the outcomes and the startup
+     *                       times
+     * @return           the exit status
+     * @throws Exception
+     *                       if the adapter cannot be used or the files cannot
+     *                       be read or written
+     */
+    int run(PrintStream out) throws Exception {
+        Instant start = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        long mainMillis = millisSince(start);
+        RP1210 rp1210 = new RP1210();
+        if (list) {
+            rp1210.getAdapters().forEach(a -> out.println(a.getName() + " " + a.getConnectionStrings()));
+            return 0;
+        }
+
+        Adapter adapter = findAdapter(rp1210, adapterName);
+        String connection = connectionString;
+        if (connection == null && !adapter.getConnectionStrings().isEmpty()) {
+            connection = adapter.getConnectionStrings().get(0);
+        }
+        boolean simulated = adapter == RP1210.getLoopBackAdapter();
+        if (virtualTime && !simulated) {
+            throw new IllegalArgumentException("Virtual time can only be used with the simulated engine");
+        }
+        if (reportFile == null) {
+            String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+            reportFile = new File("j1939-84-" + time + ".j1939-84");
+        }
+
+        boolean testing = J1939_84.isTesting();
+        if (simulated) {
+            // nobody is at the simulated engine to turn the key, so the tests
+            // turn it, as they do in test mode
+            J1939_84.setTesting(true);
+        }
+        if (virtualTime) {
+            VirtualClock.enable();
+        }
+        try (SessionContext session = new SessionContext("Headless")) {
+            String finalConnection = connection;
+            // connected in the session, so the adapter sets its clock
+            Bus bus = session.call(() -> rp1210.setAdapter(adapter, finalConnection, TOOL_ADDRESS));
+            try {
+                long connectedMillis = millisSince(start);
+                reportFirstFrame(bus, start, mainMillis, connectedMillis, out);
+                if (bus.imposterDetected()) {
+                    throw new IOException("Unexpected Service Tool Message from SA 0xF9 observed. Please disconnect"
+                            + " the other ECU using SA 0xF9.");
+                }
+
+                SessionRunner runner = new SessionRunner(session, session.call(() -> new J1939(bus)));
+                runner.setSelection(selection);
+                runner.setOutput(out);
+                runner.setReportFile(reportFile);
+                if (vehicleFile != null) {
+                    runner.setVehicleInformation(SessionRunner.readVehicleInformation(vehicleFile));
+                }
+                if (answerFile != null) {
+                    runner.setAnswers(AnswerScript.read(answerFile));
+                }
+                Ending ending = runner.run(timeoutMinutes, TimeUnit.MINUTES);
+                out.println("Ending: " + (ending == null ? "timed out" : ending));
+                out.println("Report: " + reportFile.getAbsolutePath());
+                boolean failed = runner.getOutcomes().stream().anyMatch(o -> o.contains(" FAIL: "));
+                return ending == Ending.COMPLETED && !failed ? 0 : 1;
+            } finally {
+                bus.close();
+            }
+        } finally {
+            if (virtualTime) {
+                VirtualClock.disable();
+            }
+            J1939_84.setTesting(testing);
+        }
+    }
+
+    /**
+     * Prints the startup times, with that of the first frame read from the
+     * bus, when there is one.
+     */
+    private static void reportFirstFrame(Bus bus, Instant start, long mainMillis, long connectedMillis,
+                                         PrintStream out) throws BusException {
+        Stream<Packet> stream = bus.read(1, TimeUnit.MINUTES);
+        Threads.start("First Frame", true, () -> {
+            try (stream) {
+                String first = stream.findFirst()
+                                     .map(p -> ", first frame at " + millisSince(start) + " ms")
+                                     .orElse(", no frame in a minute");
+                out.println("Startup: main at " + mainMillis + " ms, adapter connected at " + connectedMillis
+                        + " ms" + first);
+            }
+        });
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.CaptureWriter;
+import org.etools.j1939_84.bus.ReplayBus;
+import org.etools.j1939_84.bus.Threads;
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.bus.j1939.J1939TP;
+import org.etools.j1939_84.bus.trace.TraceImporter;
+import org.etools.j1939_84.controllers.Controller.Ending;
+import org.etools.j1939_84.controllers.SessionContext;
+
+/**
+ * Replays each of a directory of recorded sessions through the controllers and
+ * compares the outcomes with those of an earlier run, to find the verdicts a
+ * new build changes.
+ *
+ * <pre>
+ * RegressionRunner sessions [-o output] [-b baseline] [-j threads] [-s speed] [-t minutes] [-w] [-r]
+ * </pre>
+ *
+ * The sessions are the capture files and traces in the directory. The vehicle
+ * information of a session is read from the JSON file with the same name, like
+ * truck1.json for truck1.j1939cap, or from the vehicle if there is none (see
+ * {@link SessionRunner}).
+ *
+ * The sessions are run at once, each on a {@link ReplayBus} and in a
+ * {@link SessionContext} of its own, on as many threads as there are
+ * processors. Each runs on a {@link org.etools.j1939_84.bus.VirtualClock} of
+ * its own, so the pauses of the steps and the waits for responses take no
+ * time and a session takes as long as its work. Parts 1 to 12 against the
+ * simulated engine spend 25 minutes of virtual time in 21 s on one processor.
+ * With -w they run on the system clock instead, as against a vehicle, and
+ * each session takes those minutes of real time, more for a replay that
+ * leaves requests unanswered or is not at full speed; one that has not ended
+ * in the timeout, 120 minutes unless set with -t, is stopped and its verdicts
+ * are those of the steps it ran. The timeout starts when the session does,
+ * not when it is queued for a thread. The sorted outcomes of each are written
+ * to name.outcomes.txt in the output directory, which is the baseline of the
+ * next run, and the differences with the baseline to diff.txt. With -r, the
+ * report of each is written too. The exit status is 1 if any outcome changed
+ * or a session could not be run.
+ */
+public class RegressionRunner {
+
+    /** The result of one session */
+    public static class SessionResult {
+        private final String name;
+        private final List<String> changes;
+        private final boolean baseline;
+        private final String error;
+
+        SessionResult(String name, List<String> changes, boolean baseline, String error) {
+            this.name = name;
+            this.changes = changes;
+            this.baseline = baseline;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the outcomes that are no longer reported, starting with "- ",
+         *         and the new ones, starting with "+ "
+         */
+        public List<String> getChanges() {
+            return changes;
+        }
+
+        /**
+         * @return false if there were no outcomes in the baseline to compare
+         */
+        public boolean hasBaseline() {
+            return baseline;
+        }
+
+        /**
+         * @return why the session could not be run, or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            String result;
+            if (error != null) {
+                result = name + ": error: " + error;
+            } else if (!baseline) {
+                result = name + ": no baseline";
+            } else if (changes.isEmpty()) {
+                result = name + ": unchanged";
+            } else {
+                result = name + ": changed";
+            }
+            StringBuilder sb = new StringBuilder(result);
+            changes.forEach(c -> sb.append(J1939_84.NL).append("    ").append(c));
+            return sb.toString();
+        }
+    }
+
+    /** The suffix of the file of the outcomes of a session */
+    public static final String OUTCOMES = ".outcomes.txt";
+
+    /** The address of the tool, as the user interface uses */
+    private static final int TOOL_ADDRESS = 0xF9;
+
+    /** The suffix of the report of a session */
+    private static final String REPORT = ".j1939-84";
+
+    private final File directory;
+
+    private File output;
+
+    private File baseline;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private double speed = ReplayBus.MAX_SPEED;
+
+    private long timeoutMinutes = 120;
+
+    private boolean reports;
+
+    private boolean virtualTime = true;
+
+    /**
+     * Constructor
+     *
+     * @param directory
+     *                      the directory of sessions
+     */
+    public RegressionRunner(File directory) {
+        this.directory = directory;
+        output = new File(directory, "outcomes");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            usage();
+        }
+        RegressionRunner runner = new RegressionRunner(new File(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-o":
+                    runner.setOutput(new File(value));
+                    i++;
+                    break;
+                case "-b":
+                    runner.setBaseline(new File(value));
+                    i++;
+                    break;
+                case "-j":
+                    runner.setThreads(Integer.parseInt(value));
+                    i++;
+                    break;
+                case "-s":
+                    runner.setSpeed(ReplayBus.parseSpeed("Speed=" + value));
+                    i++;
+                    break;
+                case "-t":
+                    runner.setTimeoutMinutes(Long.parseLong(value));
+                    i++;
+                    break;
+                case "-w":
+                    runner.setVirtualTime(false);
+                    break;
+                case "-r":
+                    runner.setReports(true);
+                    break;
+                default:
+                    usage();
+            }
+        }
+        List<SessionResult> results = runner.run(System.out);
+        boolean failed = results.stream().anyMatch(r -> r.getError() != null || !r.getChanges().isEmpty());
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: RegressionRunner sessions [-o output] [-b baseline] [-j threads] [-s speed]"
+                + " [-t minutes] [-w] [-r]");
+        System.exit(2);
+    }
+
+    /**
+     * @param  directory
+     *                       a directory
+     * @return           the capture files and traces in the directory, by name,
+     *                   without the captures the traces were imported to
+     */
+    public static List<File> findSessions(File directory) {
+        File[] files = directory.listFiles(f -> f.isFile()
+                && (f.getName().endsWith(CaptureWriter.EXTENSION) ? !isImport(f) : TraceImporter.isTrace(f)));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /** Returns true if the capture was imported from a trace next to it */
+    private static boolean isImport(File capture) {
+        String name = capture.getName();
+        File trace = new File(capture.getParentFile(),
+                              name.substring(0, name.length() - CaptureWriter.EXTENSION.length()));
+        return TraceImporter.isTrace(trace) && trace.isFile();
+    }
+
+    /**
+     * @param  session
+     *                     the file of a session
+     * @return         the name of the session, which is the name of the file
+     *                 without its extension
+     */
+    public static String getName(File session) {
+        String name = session.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Compares outcomes, as a multiset, ignoring their order.
+     *
+     * @param  before
+     *                    the outcomes of the baseline
+     * @param  after
+     *                    the outcomes now
+     * @return        the outcomes only before, starting with "- ", then those
+     *                only after, starting with "+ ", each sorted
+     */
+    public static List<String> diff(List<String> before, List<String> after) {
+        Map<String, Integer> counts = new HashMap<>();
+        before.forEach(o -> counts.merge(o, 1, Integer::sum));
+        List<String> added = new ArrayList<>();
+        for (String outcome : after) {
+            if (counts.merge(outcome, -1, Integer::sum) < 0) {
+                counts.put(outcome, 0);
+                added.add("+ " + outcome);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        counts.forEach((outcome, count) -> Collections.nCopies(count, "- " + outcome).forEach(removed::add));
+        Collections.sort(removed);
+        Collections.sort(added);
+        removed.addAll(added);
+        return removed;
+    }
+
+    public void setOutput(File output) {
+        this.output = output;
+    }
+
+    /**
+     * @param baseline
+     *                     the output directory of an earlier run, or null to
+     *                     compare with the outcomes already in the output
+     *                     directory
+     */
+    public void setBaseline(File baseline) {
+        this.baseline = baseline;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    public void setTimeoutMinutes(long timeoutMinutes) {
+        this.timeoutMinutes = timeoutMinutes;
+    }
+
+    public void setReports(boolean reports) {
+        this.reports = reports;
+    }
+
+    /**
+     * @param virtualTime
+     *                        true to run each session on a clock of its own,
+     *                        false to run them on the system clock
+     */
+    public void setVirtualTime(boolean virtualTime) {
+        this.virtualTime = virtualTime;
+    }
+
+    /**
+     * Runs the sessions and compares their outcomes with the baseline.
+     *
+     * @param  out
+     *                                  receives the result of each session as
+     *                                  it is known, and a summary
+     * @return                      the results of the sessions, by name
+     * @throws IOException
+     *                                  if the output directory cannot be
+     *                                  written
+     * @throws InterruptedException
+     *                                  if interrupted while waiting for the
+     *                                  sessions
+     */
+    public List<SessionResult> run(PrintStream out) throws IOException, InterruptedException {
+        List<File> sessions = findSessions(directory);
+        Files.createDirectories(output.toPath());
+        File baselineDirectory = baseline == null ? output : baseline;
+        // the baseline is read before the outcomes of this run replace it
+        Map<String, List<String>> baselines = new HashMap<>();
+        for (File session : sessions) {
+            File file = new File(baselineDirectory, getName(session) + OUTCOMES);
+            if (file.exists()) {
+                baselines.put(getName(session), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+            }
+        }
+
+        long start = System.nanoTime();
+        ExecutorService exec = Executors.newFixedThreadPool(threads, Threads.factory("Regression", false));
+        List<SessionResult> results = new ArrayList<>();
+        try {
+            List<Future<SessionResult>> futures = new ArrayList<>();
+            for (File session : sessions) {
+                futures.add(exec.submit(() -> run(session, baselines.get(getName(session)))));
+            }
+            for (Future<SessionResult> future : futures) {
+                SessionResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+                results.add(result);
+                out.println(result);
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        String summary = String.format("%d sessions, %d changed, %d without a baseline, %d errors in %d s on %d"
+                + " threads",
+                                       results.size(),
+                                       results.stream().filter(r -> !r.getChanges().isEmpty()).count(),
+                                       results.stream().filter(r -> r.getError() == null && !r.hasBaseline()).count(),
+                                       results.stream().filter(r -> r.getError() != null).count(),
+                                       seconds,
+                                       threads);
+        out.println(summary);
+        List<String> lines = results.stream().map(SessionResult::toString).collect(Collectors.toList());
+        lines.add(summary);
+        Files.write(new File(output, "diff.txt").toPath(), lines, StandardCharsets.UTF_8);
+        return results;
+    }
+
+    /** Runs one session; the errors are returned in the result */
+    private SessionResult run(File file, List<String> before) {
+        String name = getName(file);
+        try {
+            File capture = TraceImporter.isTrace(file) ? TraceImporter.toCapture(file) : file;
+            List<String> outcomes;
+            try (SessionContext session = new SessionContext(name, virtualTime);
+                 J1939TP bus = session.call(() -> new J1939TP(new ReplayBus(capture, TOOL_ADDRESS, speed)))) {
+                SessionRunner runner = new SessionRunner(session, session.call(() -> new J1939(bus)));
+                File vehicle = new File(file.getParentFile(), name + ".json");
+                if (vehicle.exists()) {
+                    runner.setVehicleInformation(SessionRunner.readVehicleInformation(vehicle));
+                }
+                if (reports) {
+                    runner.setReportFile(new File(output, name + REPORT));
+                }
+                Ending ending = runner.run(timeoutMinutes, TimeUnit.MINUTES);
+                outcomes = runner.getOutcomes();
+                Collections.sort(outcomes);
+                outcomes.add("Ending: " + (ending == null ? "timed out" : ending));
+            }
+            Files.write(new File(output, name + OUTCOMES).toPath(), outcomes, StandardCharsets.UTF_8);
+            return new SessionResult(name,
+                                     before == null ? Collections.emptyList() : diff(before, outcomes),
+                                     before != null,
+                                     null);
+        } catch (Exception e) {
+            J1939_84.getLogger().log(Level.SEVERE, "Unable to run " + file, e);
+            return new SessionResult(name, Collections.emptyList(), before != null, String.valueOf(e));
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.headless;
+
+import static org.etools.j1939_84.controllers.ResultsListener.NOOP;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.j1939.J1939;
+import org.etools.j1939_84.controllers.Controller.Ending;
+import org.etools.j1939_84.controllers.OverallController;
+import org.etools.j1939_84.controllers.QuestionListener;
+import org.etools.j1939_84.controllers.QuestionListener.AnswerType;
+import org.etools.j1939_84.controllers.ResultsListener;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.controllers.StepSelection;
+import org.etools.j1939_84.model.ActionOutcome;
+import org.etools.j1939_84.model.FuelType;
+import org.etools.j1939_84.model.Outcome;
+import org.etools.j1939_84.model.RequestResult;
+import org.etools.j1939_84.model.VehicleInformation;
+import org.etools.j1939_84.model.VehicleInformationListener;
+import org.etools.j1939_84.modules.ReportFileModule;
+import org.etools.j1939_84.modules.VehicleInformationModule;
+import org.etools.j1939_84.utils.VinDecoder;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+/**
+ * Runs the {@link OverallController} against one vehicle without a user
+ * interface, in a {@link SessionContext} of its own, so several can run in one
+ * process at once.
+ *
+ * The questions the controllers ask are answered by an {@link AnswerScript},
+ * yes unless it says otherwise. The vehicle information
+ * is read from a JSON file, if one is given, with the fields of
+ * {@link VehicleInformation}, like
+ *
+ * <pre>
+ * { "vin": "...", "vehicleModelYear": 2021, "engineModelYear": 2021, "fuelType": "DSL",
+ *   "emissionUnits": 2, "calIds": 3, "certificationIntent": "US", "numberOfTripsForFaultBImplant": 1 }
+ * </pre>
+ *
+ * Otherwise it is read from the vehicle as the vehicle information dialog
+ * does. The address claim is always read from the vehicle.
+ */
+public class SessionRunner {
+
+    /** Reads the fields that are entered by the user, not read from the vehicle */
+    private static final Gson GSON = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaredClass() == RequestResult.class || f.getDeclaredClass() == List.class;
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }).create();
+
+    private final SessionContext session;
+
+    private final J1939 j1939;
+
+    private final List<String> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+    private VehicleInformation vehicleInformation;
+
+    private File reportFile;
+
+    private StepSelection selection = StepSelection.ALL;
+
+    private AnswerScript answers = AnswerScript.YES;
+
+    private PrintStream out;
+
+    /**
+     * Constructor
+     *
+     * @param session
+     *                    the session the controllers run in
+     * @param j1939
+     *                    the vehicle, created in the session so its
+     *                    metrics are those of the session
+     */
+    public SessionRunner(SessionContext session, J1939 j1939) {
+        this.session = session;
+        this.j1939 = j1939;
+    }
+
+    /**
+     * Reads vehicle information from a JSON file.
+     *
+     * @param  file
+     *                         the file
+     * @return             the vehicle information, without the address claim
+     * @throws IOException
+     *                         if the file cannot be read or is not vehicle
+     *                         information
+     */
+    public static VehicleInformation readVehicleInformation(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            VehicleInformation vehicleInformation = GSON.fromJson(reader, VehicleInformation.class);
+            if (vehicleInformation == null) {
+                throw new IOException(file + " is empty.");
+            }
+            return vehicleInformation;
+        } catch (JsonParseException e) {
+            throw new IOException(file + " is not vehicle information: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sets the vehicle information entered for the vehicle.
+     *
+     * @param vehicleInformation
+     *                               the vehicle information, or null to read
+     *                               it from the vehicle
+     */
+    public void setVehicleInformation(VehicleInformation vehicleInformation) {
+        this.vehicleInformation = vehicleInformation;
+    }
+
+    /**
+     * Sets the report file, which is written as the user interface writes it.
+     *
+     * @param reportFile
+     *                       the report file, or null for none
+     */
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Selects the parts and steps that are run.
+     *
+     * @param selection
+     *                      the parts and steps
+     */
+    public void setSelection(StepSelection selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * Sets the answers to the questions of the controllers.
+     *
+     * @param answers
+     *                    the answers
+     */
+    public void setAnswers(AnswerScript answers) {
+        this.answers = answers;
+    }
+
+    /**
+     * Sets where the progress, messages, questions and outcomes are printed as
+     * they are reported.
+     *
+     * @param out
+     *                the stream, or null to print nothing
+     */
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    private void print(String text) {
+        if (out != null) {
+            out.println(text);
+        }
+    }
+
+    /**
+     * @return the outcomes of the steps, as "part.step OUTCOME: message", in
+     *         the order they were reported
+     */
+    public List<String> getOutcomes() {
+        synchronized (outcomes) {
+            return new ArrayList<>(outcomes);
+        }
+    }
+
+    /**
+     * Runs the controllers and waits for them to end. If they have not ended
+     * in time, they are stopped.
+     *
+     * @param  timeout
+     *                       how long the controllers may run
+     * @param  unit
+     *                       the unit of the timeout
+     * @return           how the controllers ended, or null if they were stopped
+     *                   and did not end
+     * @throws Exception
+     *                       if the report file cannot be written or the
+     *                       thread was interrupted
+     */
+    public Ending run(long timeout, TimeUnit unit) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        CountDownLatch reported = new CountDownLatch(1);
+        return session.call(() -> {
+            // created in the session, so they use its repositories
+            OverallController controller = new OverallController();
+            controller.setSelection(selection);
+            ReportFileModule reportFileModule = null;
+            if (reportFile != null) {
+                Files.write(reportFile.toPath(), new byte[0]);
+                // the final report, which copies the log, is written on a
+                // thread of its own once the log is ended
+                reportFileModule = new ReportFileModule() {
+                    @Override
+                    public void onComplete(boolean success) {
+                        onProgramExit();
+                        super.onComplete(success);
+                        reported.countDown();
+                    }
+                };
+                reportFileModule.setReportFile(reportFile);
+                reportFileModule.setJ1939(j1939);
+            }
+            controller.execute(new Listener(done), j1939, reportFileModule);
+            if (!done.await(timeout, unit)) {
+                J1939_84.getLogger().log(Level.WARNING, session + " did not end in " + timeout + " " + unit);
+                controller.stop();
+                done.await(1, TimeUnit.MINUTES);
+            }
+            if (reportFileModule != null && !reported.await(1, TimeUnit.MINUTES)) {
+                reportFileModule.onProgramExit();
+            }
+            return session.getEnding();
+        });
+    }
+
+    /** Reads the vehicle information from the vehicle */
+    private VehicleInformation readVehicleInformation(VehicleInformationModule module) {
+        VehicleInformation info = new VehicleInformation();
+        info.setFuelType(FuelType.DSL);
+        info.setNumberOfTripsForFaultBImplant(1);
+        try {
+            info.setVin(module.getVin());
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.INFO, "Error reading VIN", e);
+        }
+        VinDecoder vinDecoder = new VinDecoder();
+        int modelYear = vinDecoder.getModelYear(info.getVin());
+        if (!vinDecoder.isModelYearValid(modelYear)) {
+            modelYear = session.getDateTimeModule().getYear();
+        }
+        info.setVehicleModelYear(modelYear);
+        try {
+            info.setEngineModelYear(module.getEngineModelYear());
+        } catch (IOException e) {
+            info.setEngineModelYear(modelYear);
+        }
+        try {
+            info.setCertificationIntent(module.getEngineFamilyName());
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.INFO, "Error reading engine family", e);
+        }
+        info.setEmissionUnits(module.getOBDModules(NOOP).size());
+        info.setCalIdsFound(module.requestDM19(NOOP));
+        info.setCalIds(info.getCalIdsFound().stream().mapToInt(p -> p.getCalibrationInformation().size()).sum());
+        return info;
+    }
+
+    /** Records the outcomes and plays the part of the user */
+    private class Listener implements ResultsListener {
+
+        private final CountDownLatch done;
+
+        private String lastProgress = "";
+
+        Listener(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
+            String text = partNumber + "." + stepNumber + " " + new ActionOutcome(outcome, message);
+            outcomes.add(text);
+            print(text);
+        }
+
+        @Override
+        public void onComplete(boolean success) {
+            done.countDown();
+        }
+
+        @Override
+        public void onMessage(String message, String title, MessageType type) {
+            print(type + ": " + title + ": " + message);
+        }
+
+        @Override
+        public void onProgress(int currentStep, int totalSteps, String message) {
+            if (!message.equals(lastProgress)) {
+                lastProgress = message;
+                print("[" + currentStep + "/" + totalSteps + "] " + message);
+            }
+        }
+
+        @Override
+        public void onProgress(String message) {
+        }
+
+        @Override
+        public void onResult(List<String> results) {
+        }
+
+        @Override
+        public void onResult(String result) {
+        }
+
+        @Override
+        public void onUrgentMessage(String message, String title, MessageType type) {
+            onMessage(message, title, type);
+        }
+
+        @Override
+        public void onUrgentMessage(String message, String title, MessageType type, QuestionListener listener) {
+            AnswerType answer = answers.answer(title, message);
+            print(type + ": " + title + ": " + message + " -> " + answer);
+            listener.answered(answer);
+        }
+
+        @Override
+        public void onVehicleInformationNeeded(VehicleInformationListener listener) {
+            VehicleInformationModule module = new VehicleInformationModule();
+            module.setJ1939(j1939);
+            VehicleInformation info = vehicleInformation == null ? readVehicleInformation(module)
+                    : vehicleInformation.clone();
+            info.setAddressClaim(module.reportAddressClaim(listener.getResultsListener()));
+            listener.onResult(info);
+        }
+    }
+}
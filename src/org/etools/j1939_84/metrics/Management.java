@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * Publishes MBeans on the platform MBean server so a running tool can be
+ * watched with JConsole or a JMX collector.
+ */
+public class Management {
+
+    /** The domain of the object names */
+    public static final String DOMAIN = "org.etools.j1939_84";
+
+    private Management() {
+    }
+
+    /**
+     * Registers the MBean as {@value #DOMAIN}:type=<i>type</i>, replacing any
+     * MBean already registered with that name. Failures are logged and
+     * otherwise ignored, since monitoring must not stop a test.
+     *
+     * @param type
+     *                  the type key of the object name
+     * @param mbean
+     *                  the standard MBean
+     */
+    public static void register(String type, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN, "type", type);
+            synchronized (Management.class) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            J1939_84.getLogger().log(Level.WARNING, "Unable to register MBean " + type, e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.controllers.SessionContext;
+
+import com.google.gson.Gson;
+
+/**
+ * The counters, gauges and histograms of the communication stack.
+ *
+ * Metrics are created on first use by name and live for the life of the
+ * application, so callers keep the returned {@link Counter} or
+ * {@link Histogram} in a field and updating it costs a few atomic operations.
+ * Names are dotted, starting with the component, e.g. "tp.bam.completed".
+ *
+ * Histograms of times are recorded in nanoseconds.
+ *
+ * {@link #dump(String)} appends a snapshot as one line of JSON to the dump
+ * file, if one has been set, with the counter rates since the previous dump.
+ * {@link #snapshot()} reads the same values, with the rates since the reset,
+ * and changes nothing; the Bus MBean shows it as its Metrics attribute.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /** When the counters were reset. */
+    private long resetNanos = System.nanoTime();
+
+    /** The counts at the last dump, to find the rates since. */
+    private final Map<String, Long> dumpCounts = new ConcurrentHashMap<>();
+
+    private long dumpNanos = resetNanos;
+
+    private File file;
+
+    /**
+     * Creates a registry of its own, apart from the one of the application,
+     * such as for a test.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * @return the registry of the {@link SessionContext} of the current
+     *         thread, or of the application
+     */
+    public static MetricsRegistry getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getMetricsRegistry();
+    }
+
+    /**
+     * @return the registry of the application, whatever thread asks, for the
+     *         metrics that are not of one session
+     */
+    public static MetricsRegistry getApplicationInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the counter with the name, created if needed
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * @return the histogram with the name, created if needed
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Registers a value that is read when a snapshot is taken. A gauge with
+     * the same name is replaced.
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Sets the file snapshots are appended to by {@link #dump(String)}.
+     *
+     * @param file
+     *                 the file or null to not dump
+     */
+    public synchronized void setFile(File file) {
+        this.file = file;
+    }
+
+    public synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * Clears the counters and histograms, such as at the start of a session.
+     * The gauges are kept.
+     */
+    public synchronized void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+        dumpCounts.clear();
+        resetNanos = System.nanoTime();
+        dumpNanos = resetNanos;
+    }
+
+    /**
+     * Returns the current values, by name. Counters have their count and the
+     * rate per second since the reset; histograms have their count, mean, p50,
+     * p95, p99 and max. Nothing is changed by reading them.
+     *
+     * @return the values in name order
+     */
+    public synchronized Map<String, Map<String, Number>> snapshot() {
+        return snapshot(Map.of(), resetNanos, System.nanoTime());
+    }
+
+    private Map<String, Map<String, Number>> snapshot(Map<String, Long> lastCounts, long lastNanos, long now) {
+        double seconds = Math.max(1, now - lastNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        Map<String, Map<String, Number>> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> {
+            long count = counter.getCount();
+            long last = lastCounts.getOrDefault(name, 0L);
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put("count", count);
+            values.put("rate", (count - last) / seconds);
+            snapshot.put(name, values);
+        });
+        gauges.forEach((name, gauge) -> snapshot.put(name, Map.of("value", gauge.getAsLong())));
+        histograms.forEach((name, histogram) -> {
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put("count", histogram.getCount());
+            values.put("mean", histogram.getMean());
+            values.put("p50", histogram.getValueAtPercentile(0.50));
+            values.put("p95", histogram.getValueAtPercentile(0.95));
+            values.put("p99", histogram.getValueAtPercentile(0.99));
+            values.put("max", histogram.getMax());
+            snapshot.put(name, values);
+        });
+        return snapshot;
+    }
+
+    /**
+     * Appends a snapshot to the dump file as one line of JSON. The counter
+     * rates are since the previous dump.
+     *
+     * @param label
+     *                  what the snapshot is for, such as the step that just
+     *                  ended
+     */
+    public synchronized void dump(String label) {
+        if (file == null) {
+            return;
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("time", LocalDateTime.now().toString());
+        line.put("label", label);
+        long now = System.nanoTime();
+        Map<String, Map<String, Number>> snapshot = snapshot(dumpCounts, dumpNanos, now);
+        line.put("metrics", snapshot);
+        dumpNanos = now;
+        // the counts in the line, not the counts now, which may have moved
+        snapshot.forEach((name, values) -> {
+            if (counters.containsKey(name)) {
+                dumpCounts.put(name, values.get("count").longValue());
+            }
+        });
+        try (Writer writer = new FileWriter(file, StandardCharsets.UTF_8, true)) {
+            writer.write(new Gson().toJson(line));
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            J1939_84.getLogger().log(Level.WARNING, "Unable to write metrics to " + file, e);
+        }
+    }
+}
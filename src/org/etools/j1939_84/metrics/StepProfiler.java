@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.metrics;
+
+import static org.etools.j1939_84.J1939_84.NL;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.etools.j1939_84.controllers.SessionContext;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Where the wall time of each step goes: bus requests, pauses, waiting for
+ * the operator and reading the bus. The rest of the step is the processing
+ * of the results.
+ *
+ * Only the thread running the step is timed, and time in a nested category
+ * counts for the outer one, e.g. the pauses while waiting for the operator to
+ * change the key state are operator time.
+ *
+ * <pre>
+ * long start = StepProfiler.getInstance().begin();
+ * try {
+ *     ...
+ * } finally {
+ *     StepProfiler.getInstance().end(Category.PAUSE, start);
+ * }
+ * </pre>
+ */
+public class StepProfiler {
+
+    /** What the time was spent on */
+    public enum Category {
+        DS("DS"), GLOBAL("Global"), TP("TP"), PAUSE("Pause"), OPERATOR("Operator"), BUS_READ("Bus Read");
+
+        private final String label;
+
+        Category(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** The times of one step */
+    public static class StepTime {
+        private final String step;
+        private long total;
+        private final long[] times = new long[Category.values().length];
+
+        private StepTime(String step) {
+            this.step = step;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        /** @return the wall time of the step in nanoseconds */
+        public long getTotal() {
+            return total;
+        }
+
+        /** @return the time spent on the category in nanoseconds */
+        public long getTime(Category category) {
+            return times[category.ordinal()];
+        }
+
+        /** @return the time not in any category in nanoseconds */
+        public long getOther() {
+            long other = total;
+            for (long time : times) {
+                other -= time;
+            }
+            return Math.max(0, other);
+        }
+    }
+
+    /** Returned by {@link #begin()} when the time is not being recorded */
+    private static final long NOT_TIMED = -1;
+
+    /** Returned by {@link #begin()} when inside another category */
+    private static final long NESTED = -2;
+
+    private static final StepProfiler instance = new StepProfiler();
+
+    private final List<StepTime> steps = new ArrayList<>();
+
+    private StepTime current;
+
+    private long stepStart;
+
+    private Thread stepThread;
+
+    /** How many categories the step thread is in */
+    private int depth;
+
+    /**
+     * Constructor, for the profiler of a {@link SessionContext}
+     */
+    public StepProfiler() {
+    }
+
+    /**
+     * @return the profiler of the {@link SessionContext} of the current
+     *         thread, or of the process
+     */
+    public static StepProfiler getInstance() {
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getStepProfiler();
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Forgets the steps, such as at the start of a run.
+     */
+    public synchronized void reset() {
+        steps.clear();
+        current = null;
+        stepThread = null;
+        depth = 0;
+    }
+
+    /**
+     * Starts timing a step on this thread.
+     *
+     * @param step
+     *                 the name of the step
+     */
+    public synchronized void startStep(String step) {
+        current = new StepTime(step);
+        steps.add(current);
+        stepThread = Thread.currentThread();
+        depth = 0;
+        stepStart = System.nanoTime();
+    }
+
+    /**
+     * Ends timing the step started with {@link #startStep(String)}.
+     */
+    public synchronized void endStep() {
+        if (current != null) {
+            current.total = System.nanoTime() - stepStart;
+            current = null;
+            stepThread = null;
+        }
+    }
+
+    /**
+     * Marks the start of some time to record. Every call must be followed by
+     * a call to one of the end methods with the value returned.
+     *
+     * @return the start
+     */
+    public synchronized long begin() {
+        if (current == null || stepThread != Thread.currentThread()) {
+            return NOT_TIMED;
+        }
+        return depth++ == 0 ? System.nanoTime() : NESTED;
+    }
+
+    /**
+     * Records the time since {@link #begin()}.
+     *
+     * @param category
+     *                     what the time was spent on
+     * @param start
+     *                     the value returned by {@link #begin()}
+     */
+    public void end(Category category, long start) {
+        end(category, start, category, NOT_TIMED);
+    }
+
+    /**
+     * Records the time since {@link #begin()} split into two categories, such
+     * as a request and then waiting for the TP response to complete.
+     *
+     * @param category
+     *                      what the time until split was spent on
+     * @param start
+     *                      the value returned by {@link #begin()}
+     * @param rest
+     *                      what the time after split was spent on
+     * @param split
+     *                      the {@link System#nanoTime()} the second category
+     *                      started or a negative number for none
+     */
+    public synchronized void end(Category category, long start, Category rest, long split) {
+        if (start == NOT_TIMED || current == null || stepThread != Thread.currentThread()) {
+            return;
+        }
+        depth--;
+        if (start != NESTED) {
+            long now = System.nanoTime();
+            if (split < start) {
+                split = now;
+            }
+            current.times[category.ordinal()] += split - start;
+            current.times[rest.ordinal()] += now - split;
+        }
+    }
+
+    /**
+     * Times the reading of a stream, from when the first item is requested to
+     * when it is exhausted or closed. The stream must be read on the step
+     * thread.
+     */
+    public <T> Stream<T> time(Category category, Stream<T> stream) {
+        TimedSpliterator<T> spliterator = new TimedSpliterator<>(category, stream.spliterator());
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            spliterator.finish();
+            stream.close();
+        });
+    }
+
+    private class TimedSpliterator<T> implements Spliterator<T> {
+        private final Category category;
+        private final Spliterator<T> spliterator;
+        private long start = NOT_TIMED;
+        private boolean started;
+
+        private TimedSpliterator(Category category, Spliterator<T> spliterator) {
+            this.category = category;
+            this.spliterator = spliterator;
+        }
+
+        private void finish() {
+            if (start != NOT_TIMED) {
+                end(category, start);
+                start = NOT_TIMED;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!started) {
+                started = true;
+                start = begin();
+            }
+            boolean advanced = spliterator.tryAdvance(action);
+            if (!advanced) {
+                finish();
+            }
+            return advanced;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics() & ~SIZED & ~SUBSIZED;
+        }
+    }
+
+    /**
+     * @return the steps that have ended, in order
+     */
+    public synchronized List<StepTime> getSteps() {
+        List<StepTime> result = new ArrayList<>(steps);
+        result.remove(current);
+        return result;
+    }
+
+    /**
+     * @return the table of step times for the final report
+     */
+    public String generateReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("STEP TIMES (s)").append(NL);
+        List<StepTime> steps = getSteps();
+        if (steps.isEmpty()) {
+            sb.append("No steps were timed").append(NL);
+            return sb.toString();
+        }
+        sb.append(String.format("%-6s %9s", "Step", "Total"));
+        for (Category category : Category.values()) {
+            sb.append(String.format(" %9s", category));
+        }
+        sb.append(String.format(" %9s", "Other")).append(NL);
+
+        StepTime sum = new StepTime("Total");
+        for (StepTime step : steps) {
+            sb.append(format(step)).append(NL);
+            sum.total += step.total;
+            for (int i = 0; i < sum.times.length; i++) {
+                sum.times[i] += step.times[i];
+            }
+        }
+        sb.append(format(sum)).append(NL);
+        return sb.toString();
+    }
+
+    private static String format(StepTime step) {
+        // the step is "Test 1.2 - Name"; only the number fits in the table
+        String name = step.step.replaceFirst("^Test (\\S+).*", "$1");
+        StringBuilder sb = new StringBuilder(String.format("%-6s %9.1f", name, seconds(step.total)));
+        for (long time : step.times) {
+            sb.append(String.format(" %9.1f", seconds(time)));
+        }
+        sb.append(String.format(" %9.1f", seconds(step.getOther())));
+        return sb.toString();
+    }
+
+    /**
+     * Writes the step times in milliseconds as JSON.
+     *
+     * @param  file
+     *                         the file to write
+     * @throws IOException
+     *                         if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (StepTime step : getSteps()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("step", step.step);
+            map.put("total", TimeUnit.NANOSECONDS.toMillis(step.total));
+            for (Category category : Category.values()) {
+                map.put(category.name().toLowerCase(), TimeUnit.NANOSECONDS.toMillis(step.getTime(category)));
+            }
+            map.put("other", TimeUnit.NANOSECONDS.toMillis(step.getOther()));
+            list.add(map);
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(list, writer);
+        }
+    }
+}
@@ -18,7 +18,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.VirtualClock;
 import org.etools.j1939_84.controllers.Controller;
+import org.etools.j1939_84.controllers.SessionContext;
+import org.etools.j1939_84.metrics.StepProfiler;
+import org.etools.j1939_84.metrics.StepProfiler.Category;
 
 /**
  * The Module responsible for the Date/Time
@@ -30,13 +34,19 @@ public class DateTimeModule {
     private static DateTimeModule instance = new DateTimeModule();
     private DateTimeFormatter timeFormatter;
     private long nanoOffset = 0;
-    private Instant last = Instant.now();
+    private Instant last = VirtualClock.instant();
+    private int clockGeneration = VirtualClock.getGeneration();
 
-    protected DateTimeModule() {
+    public DateTimeModule() {
     }
 
+    /**
+     * @return the module of the {@link SessionContext} of the current thread,
+     *         or of the process
+     */
     public static DateTimeModule getInstance() {
-        return instance;
+        SessionContext session = SessionContext.current();
+        return session == null ? instance : session.getDateTimeModule();
     }
 
     /** Only used by tests. */
@@ -97,7 +107,8 @@ public class DateTimeModule {
      * @return {@link LocalDateTime}
      */
     protected LocalDateTime now() {
-        Instant now = Instant.now().plusNanos(nanoOffset);
+        checkClock();
+        Instant now = VirtualClock.instant().plusNanos(nanoOffset);
         if (now.isBefore(last)) {
             now = last;
             J1939_84.getLogger().log(Level.INFO, "Reusing now: " + now);
@@ -108,18 +119,36 @@ public class DateTimeModule {
     }
 
     public void pauseFor(long milliseconds) {
+        long start = StepProfiler.getInstance().begin();
         try {
             Controller.checkEnding();
-            Thread.sleep(milliseconds);
+            VirtualClock.sleep(milliseconds);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
+        } finally {
+            StepProfiler.getInstance().end(Category.PAUSE, start);
         }
     }
 
     private static final long GIGA = 1000000000;
 
+    /**
+     * Forgets the last time and the offset when virtual time was enabled or
+     * disabled since they were read, as they are from the other clock.
+     */
+    private void checkClock() {
+        int generation = VirtualClock.getGeneration();
+        if (generation != clockGeneration) {
+            clockGeneration = generation;
+            nanoOffset = 0;
+            last = VirtualClock.instant();
+        }
+    }
+
     public void setNanoTime(long nanoTime) {
-        nanoOffset = Instant.now().until(Instant.ofEpochSecond(nanoTime / GIGA, nanoTime % GIGA), ChronoUnit.NANOS);
+        checkClock();
+        nanoOffset = VirtualClock.instant()
+                                 .until(Instant.ofEpochSecond(nanoTime / GIGA, nanoTime % GIGA), ChronoUnit.NANOS);
     }
 
 }
@@ -88,7 +88,9 @@ public class DiagnosticMessageModule extends FunctionalModule {
         listener.onResult(getTime() + title);
 
         Collection<DM1ActiveDTCsPacket> allPackets = getJ1939()
-                                                               .read(DM1ActiveDTCsPacket.class, 3, TimeUnit.SECONDS)
+                                                               .readBroadcast(DM1ActiveDTCsPacket.class,
+                                                                              3,
+                                                                              TimeUnit.SECONDS)
                                                                .flatMap(r -> r.left.stream())
                                                                .collect(Collectors.toMap(ParsedPacket::getSourceAddress,
                                                                                          p -> p,
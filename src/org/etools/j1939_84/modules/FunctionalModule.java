@@ -7,6 +7,7 @@ import org.etools.j1939_84.bus.j1939.J1939;
 import org.etools.j1939_84.bus.j1939.Lookup;
 import org.etools.j1939_84.bus.j1939.packets.GenericPacket;
 import org.etools.j1939_84.controllers.ResultsListener;
+import org.etools.j1939_84.controllers.SessionContext;
 import org.etools.j1939_84.model.RequestResult;
 
 /**
@@ -16,6 +17,9 @@ import org.etools.j1939_84.model.RequestResult;
  */
 public abstract class FunctionalModule {
 
+    /** The session the module was created in, or null */
+    private final SessionContext session = SessionContext.current();
+
     private J1939 j1939;
 
     protected J1939 getJ1939() {
@@ -34,8 +38,12 @@ public abstract class FunctionalModule {
         return getDateTimeModule().getTime();
     }
 
+    /**
+     * @return the {@link DateTimeModule} of the session the module was created
+     *         in, whichever thread calls it
+     */
     protected DateTimeModule getDateTimeModule() {
-        return DateTimeModule.getInstance();
+        return session == null ? DateTimeModule.getInstance() : session.getDateTimeModule();
     }
 
     protected <T extends GenericPacket> RequestResult<T> requestDMPackets(String dmName,
@@ -21,7 +21,10 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.FlightRecorder;
+import org.etools.j1939_84.bus.j1939.LatencyProfile;
 import org.etools.j1939_84.controllers.ResultsListener;
+import org.etools.j1939_84.metrics.StepProfiler;
 import org.etools.j1939_84.model.ActionOutcome;
 import org.etools.j1939_84.model.Outcome;
 import org.etools.j1939_84.model.VehicleInformation;
@@ -37,6 +40,12 @@ public class ReportFileModule extends FunctionalModule implements ResultsListene
 
     private final BannerModule bannerModule;
 
+    /** The recorder of the session the module was created in */
+    private final FlightRecorder flightRecorder = FlightRecorder.getInstance();
+
+    /** The profile of the session the module was created in */
+    private final LatencyProfile latencyProfile = LatencyProfile.getInstance();
+
     private final Logger logger;
     private final SummaryModule summaryModule;
     private File reportFile;
@@ -76,6 +85,10 @@ public class ReportFileModule extends FunctionalModule implements ResultsListene
     @Override
     public void addOutcome(int partNumber, int stepNumber, Outcome outcome, String message) {
         onResult(new ActionOutcome(outcome, message).toString());
+        if (outcome == Outcome.FAIL) {
+            // keep the traffic that led up to the failure
+            flightRecorder.trigger("FAIL in Part " + partNumber + " Step " + stepNumber);
+        }
     }
 
     @Override
@@ -199,6 +212,12 @@ public class ReportFileModule extends FunctionalModule implements ResultsListene
             } else {
                 tempWriter.write("Error: No addresses were claimed" + NL);
             }
+            tempWriter.write(NL);
+
+            tempWriter.write(latencyProfile.generateReport());
+            tempWriter.write(NL);
+            tempWriter.write(StepProfiler.getInstance().generateReport());
+            writeStepTimes();
 
             tempWriter.write(PAGE_BREAK);
             tempWriter.write(pageHeader + NL);
@@ -237,6 +256,18 @@ public class ReportFileModule extends FunctionalModule implements ResultsListene
         }
     }
 
+    /**
+     * Writes the step times next to the report for comparing runs
+     */
+    private void writeStepTimes() {
+        File file = new File(reportFile + ".timing.json");
+        try {
+            StepProfiler.getInstance().write(file);
+        } catch (IOException e) {
+            logger.log(SEVERE, "Unable to write step times to " + file, e);
+        }
+    }
+
     private String getAddressClaimReport() {
         return vehicleInformation.getAddressClaim()
                                  .getPackets()
@@ -89,6 +89,11 @@ public interface UserInterfaceContract {
          */
         void onReadVehicleInfoButtonClicked();
 
+        /**
+         * Called when the Save Traffic Button has been clicked
+         */
+        void onSaveTrafficButtonClicked();
+
         /**
          * Called when the Select File Button has been clicked
          */
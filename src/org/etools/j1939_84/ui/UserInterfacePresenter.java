@@ -23,6 +23,7 @@ import org.etools.j1939_84.J1939_84;
 import org.etools.j1939_84.bus.Adapter;
 import org.etools.j1939_84.bus.Bus;
 import org.etools.j1939_84.bus.BusException;
+import org.etools.j1939_84.bus.FlightRecorder;
 import org.etools.j1939_84.bus.RP1210;
 import org.etools.j1939_84.bus.RP1210Bus;
 import org.etools.j1939_84.bus.j1939.J1939;
@@ -315,6 +316,25 @@ public class UserInterfacePresenter implements UserInterfaceContract.Presenter {
         });
     }
 
+    @Override
+    public void onSaveTrafficButtonClicked() {
+        executor.execute(() -> {
+            try {
+                File file = FlightRecorder.getInstance().dump();
+                String message = file == null ? "No bus traffic has been recorded."
+                        : "The recent bus traffic was saved to" + NL + file.getAbsolutePath();
+                getView().displayDialog(message, "Bus Traffic", JOptionPane.INFORMATION_MESSAGE, false);
+            } catch (IOException e) {
+                String message = "Unable to save the recent bus traffic.";
+                getLogger().log(Level.SEVERE, message, e);
+                if (e.getMessage() != null) {
+                    message += NL + e.getMessage();
+                }
+                getView().displayDialog(message, "Bus Traffic", JOptionPane.ERROR_MESSAGE, false);
+            }
+        });
+    }
+
     /*
      * (non-Javadoc)
      *
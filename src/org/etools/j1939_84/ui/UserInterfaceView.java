@@ -7,7 +7,7 @@ import static org.etools.j1939_84.J1939_84.isAutoMode;
 
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Font;
+import java.awt.EventQueue;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
@@ -38,20 +38,22 @@ import javax.swing.JTextField;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
 import javax.swing.WindowConstants;
 import javax.swing.border.LineBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.text.DefaultCaret;
 
 import org.etools.j1939_84.BuildNumber;
 import org.etools.j1939_84.J1939_84;
 import org.etools.j1939_84.bus.Adapter;
+import org.etools.j1939_84.bus.RP1210;
+import org.etools.j1939_84.bus.trace.TraceImporter;
 import org.etools.j1939_84.bus.j1939.J1939;
 import org.etools.j1939_84.controllers.QuestionListener;
 import org.etools.j1939_84.model.VehicleInformationListener;
 import org.etools.j1939_84.resources.Resources;
 import org.etools.j1939_84.ui.UserInterfaceContract.Presenter;
-import org.etools.j1939_84.ui.widgets.SmartScroller;
+import org.etools.j1939_84.ui.widgets.ReportView;
 
 /**
  * The View for the User Interface.
@@ -63,6 +65,13 @@ import org.etools.j1939_84.ui.widgets.SmartScroller;
 public class UserInterfaceView implements UserInterfaceContract.View {
 
     private static final String SELECT_FILE = "Select File...";
+
+    /** The last item of the adapters, which replays a file the user chooses */
+    private static final Adapter REPLAY_FILE_ADAPTER = new Adapter("Replay a File...", "", RP1210.REPLAY_DEV_ID);
+
+    /** The preference with the directory of the last file replayed */
+    private static final String REPLAY_DIRECTORY_KEY = "replayDirectory";
+
     private final BuildNumber buildNumber;
     /**
      * The controller for the behavior of this view
@@ -82,9 +91,9 @@ public class UserInterfaceView implements UserInterfaceContract.View {
     private JProgressBar progressBar;
     private JButton readVehicleInfoButton;
     private JPanel reportControlPanel;
-    private JScrollPane reportScrollPane;
     private JPanel reportSetupPanel;
-    private JTextArea reportTextArea;
+    private ReportView reportView;
+    private JButton saveTrafficButton;
     private JButton selectFileButton;
     private JSplitPane splitPane;
     private JButton startButton;
@@ -98,6 +107,28 @@ public class UserInterfaceView implements UserInterfaceContract.View {
 
     private File file = null; // For the auto mode
 
+    /**
+     * Shows the user interface. This is kept out of the main class, so the
+     * Swing classes are not loaded when the tests are run from the command
+     * line.
+     */
+    public static void show() {
+        try {
+            // Set System L&F
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            J1939_84.getLogger().log(Level.INFO, "Unable to set Look and Feel");
+        }
+
+        EventQueue.invokeLater(() -> {
+            try {
+                new UserInterfaceView().getFrame().setVisible(true);
+            } catch (Exception e) {
+                J1939_84.getLogger().log(Level.SEVERE, "Error showing frame", e);
+            }
+        });
+    }
+
     /**
      * Default Constructor
      *
@@ -136,7 +167,7 @@ public class UserInterfaceView implements UserInterfaceContract.View {
      */
     @Override
     public void appendResults(String result) {
-        refreshUI(() -> getReportTextArea().append(result));
+        getReportView().append(result);
     }
 
     @Override
@@ -349,6 +380,7 @@ public class UserInterfaceView implements UserInterfaceContract.View {
             for (Adapter adapter : getController().getAdapters()) {
                 adapterComboBox.addItem(adapter);
             }
+            adapterComboBox.addItem(REPLAY_FILE_ADAPTER);
             adapterComboBox.setToolTipText("RP1210 Communications Adapter");
             adapterComboBox.setSelectedIndex(-1);
             if (isAutoMode()) {
@@ -357,7 +389,12 @@ public class UserInterfaceView implements UserInterfaceContract.View {
                                                               getSpeedComboBox().getItemAt(getSpeedComboBox().getSelectedIndex()));
             }
             adapterComboBox.addItemListener(e -> {
-                if (e.getStateChange() == ItemEvent.SELECTED) {
+                if (e.getItem() == REPLAY_FILE_ADAPTER) {
+                    if (e.getStateChange() == ItemEvent.SELECTED) {
+                        // the selection is changed again once this event is done
+                        SwingUtilities.invokeLater(this::chooseReplayFile);
+                    }
+                } else if (e.getStateChange() == ItemEvent.SELECTED) {
                     getSpeedComboBox().removeAllItems();
                     ((Adapter) e.getItem()).getConnectionStrings().forEach(s -> getSpeedComboBox().addItem(s));
                     getSpeedComboBox().setSelectedItem("J1939:Baud=Auto");
@@ -367,6 +404,32 @@ public class UserInterfaceView implements UserInterfaceContract.View {
         return adapterComboBox;
     }
 
+    /**
+     * Asks the user for a capture file or a trace of another tool, see
+     * {@link TraceImporter}, and selects the adapter that replays it.
+     */
+    private void chooseReplayFile() {
+        Preferences preferences = Preferences.userNodeForPackage(getClass());
+        JFileChooser chooser = new JFileChooser(preferences.get(REPLAY_DIRECTORY_KEY, ""));
+        chooser.setFileFilter(new FileNameExtensionFilter("Captures and Traces",
+                                                          "j1939cap",
+                                                          "asc",
+                                                          "blf",
+                                                          "trc",
+                                                          "log"));
+        chooser.setDialogTitle("Replay a File");
+        JComboBox<Adapter> comboBox = getAdapterComboBox();
+        if (chooser.showOpenDialog(getFrame()) == JFileChooser.APPROVE_OPTION) {
+            File file = chooser.getSelectedFile();
+            preferences.put(REPLAY_DIRECTORY_KEY, file.getParent());
+            Adapter adapter = RP1210.getReplayAdapter(file);
+            comboBox.insertItemAt(adapter, comboBox.getItemCount() - 1);
+            comboBox.setSelectedItem(adapter);
+        } else {
+            comboBox.setSelectedIndex(-1);
+        }
+    }
+
     /**
      * Returns the {@link BuildNumber} that reads the version number
      *
@@ -527,9 +590,9 @@ public class UserInterfaceView implements UserInterfaceContract.View {
             reportControlPanel.setBorder(new LineBorder(new Color(0, 0, 0)));
 
             GridBagLayout layout = new GridBagLayout();
-            layout.columnWidths = new int[] { 0, 0 };
+            layout.columnWidths = new int[] { 0, 0, 0 };
             layout.rowHeights = new int[] { 0, 0 };
-            layout.columnWeights = new double[] { 1.0, 1.0 };
+            layout.columnWeights = new double[] { 1.0, 1.0, 1.0 };
             layout.rowWeights = new double[] { 1.0, 1.0 };
             reportControlPanel.setLayout(layout);
 
@@ -546,26 +609,15 @@ public class UserInterfaceView implements UserInterfaceContract.View {
             gbc2.gridx = 1;
             gbc2.gridy = 0;
             reportControlPanel.add(getStopButton(), gbc2);
-        }
-        return reportControlPanel;
-    }
 
-    /**
-     * Creates, caches and returns the scroll pane that contains the Report Text
-     * Area
-     *
-     * @return JScrollPane
-     */
-    private JScrollPane getReportScrollPane() {
-        if (reportScrollPane == null) {
-            reportScrollPane = new JScrollPane(getReportTextArea());
-            reportScrollPane.setMinimumSize(new Dimension(500, 100));
-            reportScrollPane.setPreferredSize(new Dimension(500, 100));
-            new SmartScroller(reportScrollPane, SmartScroller.VERTICAL, SmartScroller.END);
-            reportScrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
-            reportScrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+            GridBagConstraints gbc3 = new GridBagConstraints();
+            gbc3.insets = new Insets(5, 0, 5, 5);
+            gbc3.fill = GridBagConstraints.BOTH;
+            gbc3.gridx = 2;
+            gbc3.gridy = 0;
+            reportControlPanel.add(getSaveTrafficButton(), gbc3);
         }
-        return reportScrollPane;
+        return reportControlPanel;
     }
 
     /**
@@ -635,20 +687,17 @@ public class UserInterfaceView implements UserInterfaceContract.View {
     }
 
     /**
-     * Creates, caches and returns the Text Area that displays the report
+     * Creates, caches and returns the View that displays the report
      *
-     * @return JTextArea
+     * @return ReportView
      */
-    JTextArea getReportTextArea() {
-        if (reportTextArea == null) {
-            reportTextArea = new JTextArea(0, 80);
-            reportTextArea.setFont(new Font("Courier", Font.PLAIN, reportTextArea.getFont().getSize()));
-            reportTextArea.setEditable(false);
-            reportTextArea.setLineWrap(false);
-            DefaultCaret caret = (DefaultCaret) reportTextArea.getCaret();
-            caret.setUpdatePolicy(DefaultCaret.UPDATE_WHEN_ON_EDT);
+    ReportView getReportView() {
+        if (reportView == null) {
+            reportView = new ReportView(swingExecutor);
+            reportView.setMinimumSize(new Dimension(500, 100));
+            reportView.setPreferredSize(new Dimension(500, 100));
         }
-        return reportTextArea;
+        return reportView;
     }
 
     /**
@@ -684,12 +733,27 @@ public class UserInterfaceView implements UserInterfaceContract.View {
             splitPane.setContinuousLayout(true);
             splitPane.setOrientation(JSplitPane.VERTICAL_SPLIT);
             splitPane.setTopComponent(getTopPanel());
-            splitPane.setBottomComponent(getReportScrollPane());
+            splitPane.setBottomComponent(getReportView());
             splitPane.setBorder(BorderFactory.createEmptyBorder());
         }
         return splitPane;
     }
 
+    /**
+     * Creates, caches and returns the Save Traffic Button, which saves the
+     * recent bus traffic
+     *
+     * @return JButton
+     */
+    JButton getSaveTrafficButton() {
+        if (saveTrafficButton == null) {
+            saveTrafficButton = new JButton("Save Traffic");
+            saveTrafficButton.setToolTipText("Save the last few minutes of bus traffic to a capture file");
+            saveTrafficButton.addActionListener(e -> getController().onSaveTrafficButtonClicked());
+        }
+        return saveTrafficButton;
+    }
+
     /**
      * Creates, caches and returns the Start Button
      *
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps lines of text compactly: the UTF-8 bytes of the lines are packed into
+ * large chunks and each line costs 12 bytes more for where it is. Only the
+ * chunk being filled is kept in the heap; a full chunk is written to a
+ * {@link SpillFile} and its lines are read back from the file when they are
+ * shown, so a long report costs 12 bytes a line in memory.
+ *
+ * It is not thread safe; the {@link ReportView} uses it on the event dispatch
+ * thread.
+ */
+public class LineStore {
+
+    /** The size of a chunk; a longer line gets a chunk of its own. */
+    static final int CHUNK_BYTES = 1 << 16;
+
+    /** The chunks, or null for a chunk in the file */
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    /** Where each chunk in the file starts */
+    private long[] chunkPositions = new long[16];
+
+    private final SpillFile file = new SpillFile("report lines");
+
+    /** The number of bytes used in the last chunk */
+    private int used = CHUNK_BYTES;
+
+    /** The chunk of each line in the high int and the offset in the low int */
+    private long[] positions = new long[1024];
+
+    private int[] lengths = new int[1024];
+
+    private int size;
+
+    /**
+     * Adds a line.
+     *
+     * @param line
+     *                 the line, without the line separator
+     */
+    public void add(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        byte[] chunk;
+        if (CHUNK_BYTES - used >= bytes.length) {
+            chunk = chunks.get(chunks.size() - 1);
+        } else {
+            spill();
+            chunk = new byte[Math.max(CHUNK_BYTES, bytes.length)];
+            chunks.add(chunk);
+            used = 0;
+        }
+        System.arraycopy(bytes, 0, chunk, used, bytes.length);
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        positions[size] = (long) (chunks.size() - 1) << 32 | used;
+        lengths[size] = bytes.length;
+        size++;
+        used += bytes.length;
+    }
+
+    /** Writes the last chunk to the file, unless the file cannot be written. */
+    private void spill() {
+        int last = chunks.size() - 1;
+        if (last < 0) {
+            return;
+        }
+        long position = file.append(chunks.get(last), 0, used);
+        if (position >= 0) {
+            if (last == chunkPositions.length) {
+                chunkPositions = Arrays.copyOf(chunkPositions, last * 2);
+            }
+            chunkPositions[last] = position;
+            chunks.set(last, null);
+        }
+    }
+
+    /**
+     * @param  index
+     *                   the index of the line
+     * @return       the line
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + size);
+        }
+        long position = positions[index];
+        int chunk = (int) (position >>> 32);
+        int length = lengths[index];
+        byte[] bytes = chunks.get(chunk);
+        if (bytes != null) {
+            return new String(bytes, (int) position, length, StandardCharsets.UTF_8);
+        }
+        bytes = new byte[length];
+        file.read(chunkPositions[chunk] + (int) position, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.etools.j1939_84.model.Outcome;
+
+/**
+ * Indexes the lines of the report as they are added, so the lines of a part
+ * or step, with an outcome, from a source address, with a PGN or with some
+ * words can be found without reading the report again.
+ *
+ * Each line is filed by:
+ * <ul>
+ * <li>the part and step it is in, from the "Start Part" and "Start Test"
+ * lines</li>
+ * <li>the outcome, for the lines that start with one, like "FAIL: "</li>
+ * <li>the source address of a packet, and of a module named like "Engine #1
+ * (0)"</li>
+ * <li>the PGN of a packet, and a number after "PGN"</li>
+ * <li>the words of the line, except for the data of packets and the
+ * numbers</li>
+ * </ul>
+ *
+ * The numbers, like the times and values, are not words; nearly each one is
+ * different, so a key for each would cost more than the lines. The fields for
+ * the source address and PGN find those numbers.
+ *
+ * The lines of each key are kept in order in blocks of ints, so a query walks
+ * the shortest list and looks up the lines in the others. The full blocks are
+ * written to a {@link SpillFile}, as the lines are by the {@link LineStore},
+ * so a key costs at most a block and 12 bytes for each block in the file,
+ * however often it is found.
+ *
+ * It is not thread safe; the {@link ReportView} uses it on the event dispatch
+ * thread.
+ */
+public class ReportIndex {
+
+    /**
+     * The lines to find. The criteria that are set must all match.
+     */
+    public static class Query {
+
+        private Outcome outcome;
+
+        private Integer part;
+
+        private Integer pgn;
+
+        private Integer source;
+
+        private Integer step;
+
+        private String text;
+
+        public Query setOutcome(Outcome outcome) {
+            this.outcome = outcome;
+            return this;
+        }
+
+        public Query setPart(Integer part) {
+            this.part = part;
+            return this;
+        }
+
+        public Query setPgn(Integer pgn) {
+            this.pgn = pgn;
+            return this;
+        }
+
+        public Query setSource(Integer source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * @param  step
+         *                  the step in the part, which must also be set
+         * @return      this
+         */
+        public Query setStep(Integer step) {
+            this.step = step;
+            return this;
+        }
+
+        /**
+         * @param  text
+         *                  the words that are all in the line, in any order;
+         *                  the numbers in it are ignored
+         * @return      this
+         */
+        public Query setText(String text) {
+            this.text = text;
+            return this;
+        }
+    }
+
+    /**
+     * The lines of a key, in order. The lines are kept in blocks of
+     * {@link #BLOCK}; the full blocks are written to the file of the index,
+     * unless there is none, and the last one read is kept.
+     */
+    static class Postings {
+
+        /** The number of lines in a block */
+        static final int BLOCK = 1024;
+
+        private final SpillFile file;
+
+        /** The first line of each block in the file */
+        private int[] firsts = new int[4];
+
+        /** Where each block is in the file */
+        private long[] positions = new long[4];
+
+        private int blocks;
+
+        /** The lines after the blocks in the file */
+        private int[] lines = new int[4];
+
+        private int tail;
+
+        private int size;
+
+        private int last = -1;
+
+        /** The block last read from the file */
+        private int[] cached;
+
+        private int cachedBlock = -1;
+
+        /**
+         * @param file
+         *                 the file the full blocks are written to, or null to
+         *                 keep them all in memory
+         */
+        Postings(SpillFile file) {
+            this.file = file;
+        }
+
+        private static int search(int[] lines, int size, int line) {
+            int i = Arrays.binarySearch(lines, 0, size, line);
+            return i < 0 ? -i - 1 : i;
+        }
+
+        void add(int line) {
+            if (size > 0 && last == line) {
+                return;
+            }
+            if (tail == lines.length && !(tail == BLOCK && spill())) {
+                lines = Arrays.copyOf(lines, tail * 2);
+            }
+            lines[tail++] = line;
+            size++;
+            last = line;
+        }
+
+        /** Writes the lines in memory to the file as a block. */
+        private boolean spill() {
+            if (file == null) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK * Integer.BYTES);
+            buffer.asIntBuffer().put(lines, 0, BLOCK);
+            long position = file.append(buffer.array(), 0, buffer.capacity());
+            if (position < 0) {
+                return false;
+            }
+            if (blocks == firsts.length) {
+                firsts = Arrays.copyOf(firsts, blocks * 2);
+                positions = Arrays.copyOf(positions, blocks * 2);
+            }
+            firsts[blocks] = lines[0];
+            positions[blocks] = position;
+            blocks++;
+            tail = 0;
+            return true;
+        }
+
+        private int[] block(int block) {
+            if (block != cachedBlock) {
+                byte[] bytes = new byte[BLOCK * Integer.BYTES];
+                file.read(positions[block], bytes, 0, bytes.length);
+                cached = new int[BLOCK];
+                ByteBuffer.wrap(bytes).asIntBuffer().get(cached);
+                cachedBlock = block;
+            }
+            return cached;
+        }
+
+        boolean contains(int line) {
+            int i = indexOf(line);
+            return i < size && get(i) == line;
+        }
+
+        int get(int index) {
+            int inFile = blocks * BLOCK;
+            return index < inFile ? block(index / BLOCK)[index % BLOCK] : lines[index - inFile];
+        }
+
+        /** Returns the index of the first line at or after the line */
+        int indexOf(int line) {
+            // the block that would hold the line
+            int b = Arrays.binarySearch(firsts, 0, blocks, line);
+            if (b < 0) {
+                b = -b - 2;
+            }
+            if (b >= 0) {
+                int i = search(block(b), BLOCK, line);
+                if (i < BLOCK) {
+                    return b * BLOCK + i;
+                }
+            } else if (blocks > 0) {
+                return 0;
+            }
+            return b + 1 < blocks ? (b + 1) * BLOCK : blocks * BLOCK + search(lines, tail, line);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = get(i);
+            }
+            return result;
+        }
+    }
+
+    private static final String PART_START = "Start Part ";
+
+    private static final String STEP_START = "Start Test ";
+
+    private static final Postings EMPTY = new Postings(null);
+
+    /** Where the full blocks of the postings are kept */
+    private final SpillFile file = new SpillFile("report index");
+
+    /** The first line of each part and step */
+    private final Postings sections = new Postings(file);
+
+    /** The part and step of each section, as part &lt;&lt; 16 | step */
+    private final List<Integer> sectionKeys = new ArrayList<>();
+
+    private final Map<Outcome, Postings> outcomes = new EnumMap<>(Outcome.class);
+
+    private final Map<Integer, Postings> sources = new HashMap<>();
+
+    private final Map<Integer, Postings> pgns = new HashMap<>();
+
+    private final Map<String, Postings> words = new HashMap<>();
+
+    private int size;
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '#';
+    }
+
+    /** Returns true if the word is only digits and dots, like a time or value */
+    static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the number at the start of the text, or -1 */
+    private static int parseNumber(String text, int start, int end) {
+        int value = -1;
+        for (int i = start; i < end && i < start + 9; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = (value < 0 ? 0 : value * 10) + (c - '0');
+        }
+        return value;
+    }
+
+    /** Splits the text into lower case words, without leading or trailing dots */
+    static List<String> split(String text) {
+        List<String> result = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isWordChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            while (start < end && text.charAt(start) == '.') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) == '.') {
+                end--;
+            }
+            if (end > start) {
+                result.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+            }
+        }
+        return result;
+    }
+
+    private void add(Map<Integer, Postings> map, int key, int line) {
+        map.computeIfAbsent(key, k -> new Postings(file)).add(line);
+    }
+
+    /**
+     * Adds the next line of the report.
+     *
+     * @param line
+     *                 the line, without the line separator
+     */
+    public void add(String line) {
+        int index = size++;
+
+        if (line.startsWith(PART_START)) {
+            addSection(index, parseNumber(line, PART_START.length(), line.length()), 0);
+        } else if (line.startsWith(STEP_START)) {
+            int part = parseNumber(line, STEP_START.length(), line.length());
+            int dot = line.indexOf('.', STEP_START.length());
+            if (part >= 0 && dot > 0) {
+                addSection(index, part, parseNumber(line, dot + 1, line.length()));
+            }
+        } else {
+            int colon = line.indexOf(": ");
+            if (colon > 0 && colon <= "INCOMPLETE".length()) {
+                for (Outcome outcome : Outcome.values()) {
+                    if (line.startsWith(outcome.toString()) && colon == outcome.toString().length()) {
+                        outcomes.computeIfAbsent(outcome, o -> new Postings(file)).add(index);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (addPacket(line, index)) {
+            // the words of a packet are its data
+            return;
+        }
+
+        int length = line.length();
+        for (int open = line.indexOf(" ("); open >= 0; open = line.indexOf(" (", open + 2)) {
+            int close = line.indexOf(')', open);
+            int source = parseNumber(line, open + 2, length);
+            if (source >= 0 && source <= 0xFF && close == open + 2 + Integer.toString(source).length()) {
+                add(sources, source, index);
+            }
+        }
+
+        String previous = null;
+        for (String word : split(line)) {
+            if (!isNumber(word)) {
+                words.computeIfAbsent(word, w -> new Postings(file)).add(index);
+            }
+            if ("pgn".equals(previous)) {
+                int pgn = parseNumber(word, 0, word.length());
+                if (pgn >= 0 && Integer.toString(pgn).length() == word.length()) {
+                    add(pgns, pgn, index);
+                }
+            }
+            previous = word;
+        }
+    }
+
+    private void addSection(int index, int part, int step) {
+        if (part >= 0 && step >= 0) {
+            sections.add(index);
+            sectionKeys.add(part << 16 | step);
+        }
+    }
+
+    /**
+     * Files a packet line, like "10:15:30.1234 18FECA00 [8] 00 FF ...", by its
+     * source address and PGN.
+     */
+    private boolean addPacket(String line, int index) {
+        int bracket = line.indexOf(" [");
+        if (bracket < 8 || (bracket > 8 && line.charAt(bracket - 9) != ' ')) {
+            return false;
+        }
+        int id = 0;
+        for (int i = bracket - 8; i < bracket; i++) {
+            char c = line.charAt(i);
+            if (!isHex(c)) {
+                return false;
+            }
+            id = id << 4 | Character.digit(c, 16);
+        }
+        add(sources, id & 0xFF, index);
+        int pgn = id >> 8 & 0x3FFFF;
+        add(pgns, pgn < 0xF000 ? pgn & 0xFF00 : pgn, index);
+        return true;
+    }
+
+    /**
+     * @return the number of different words indexed
+     */
+    int getWordCount() {
+        return words.size();
+    }
+
+    /**
+     * @return the number of lines added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the lines that match the query.
+     *
+     * @param  query
+     *                   the criteria
+     * @return       the indexes of the lines, in order
+     */
+    public int[] search(Query query) {
+        return search(query, 0);
+    }
+
+    /**
+     * Finds the lines at or after a line that match the query.
+     *
+     * @param  query
+     *                   the criteria
+     * @param  from
+     *                   the first line to search
+     * @return       the indexes of the lines, in order
+     */
+    public int[] search(Query query, int from) {
+        List<Postings> lists = new ArrayList<>();
+        if (query.outcome != null) {
+            lists.add(outcomes.getOrDefault(query.outcome, EMPTY));
+        }
+        if (query.source != null) {
+            lists.add(sources.getOrDefault(query.source, EMPTY));
+        }
+        if (query.pgn != null) {
+            lists.add(pgns.getOrDefault(query.pgn, EMPTY));
+        }
+        if (query.text != null) {
+            int count = lists.size();
+            for (String word : split(query.text)) {
+                if (!isNumber(word)) {
+                    lists.add(words.getOrDefault(word, EMPTY));
+                }
+            }
+            if (lists.size() == count) {
+                // only numbers, which are not indexed
+                lists.add(EMPTY);
+            }
+        }
+
+        Postings result = new Postings(null);
+        if (lists.isEmpty()) {
+            if (query.part == null) {
+                for (int line = from; line < size; line++) {
+                    result.add(line);
+                }
+            } else {
+                // all of the lines of the sections
+                for (int s = 0; s < sections.size(); s++) {
+                    if (isMatch(query, s)) {
+                        int end = s + 1 < sections.size() ? sections.get(s + 1) : size;
+                        for (int line = Math.max(from, sections.get(s)); line < end; line++) {
+                            result.add(line);
+                        }
+                    }
+                }
+            }
+            return result.toArray();
+        }
+
+        lists.sort(Comparator.comparingInt(Postings::size));
+        Postings first = lists.get(0);
+        lines: for (int i = first.indexOf(from); i < first.size(); i++) {
+            int line = first.get(i);
+            for (int l = 1; l < lists.size(); l++) {
+                if (!lists.get(l).contains(line)) {
+                    continue lines;
+                }
+            }
+            if (query.part == null || isMatch(query, sections.indexOf(line + 1) - 1)) {
+                result.add(line);
+            }
+        }
+        return result.toArray();
+    }
+
+    private boolean isMatch(Query query, int section) {
+        if (section < 0) {
+            return false;
+        }
+        int key = sectionKeys.get(section);
+        return key >> 16 == query.part && (query.step == null || (key & 0xFFFF) == query.step);
+    }
+
+    /**
+     * Finds the next line with the outcome.
+     *
+     * @param  outcome
+     *                     the outcome
+     * @param  after
+     *                     the line to start after
+     * @return         the index of the line, or -1 if there is none
+     */
+    public int next(Outcome outcome, int after) {
+        Postings lines = outcomes.getOrDefault(outcome, EMPTY);
+        int i = lines.indexOf(after + 1);
+        return i < lines.size() ? lines.get(i) : -1;
+    }
+
+    /**
+     * Finds the previous line with the outcome.
+     *
+     * @param  outcome
+     *                     the outcome
+     * @param  before
+     *                     the line to start before
+     * @return         the index of the line, or -1 if there is none
+     */
+    public int previous(Outcome outcome, int before) {
+        Postings lines = outcomes.getOrDefault(outcome, EMPTY);
+        int i = lines.indexOf(before) - 1;
+        return i >= 0 ? lines.get(i) : -1;
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import org.etools.j1939_84.model.Outcome;
+
+/**
+ * Shows the report as it is written, however long it gets.
+ *
+ * The lines are kept in a {@link LineStore} and shown by a list that only
+ * renders the rows that can be seen. Text appended from any thread is
+ * collected and added to the list at most once a frame, so a busy test adds
+ * one task to the event dispatch thread for many lines, not one for each.
+ *
+ * The lines are indexed by a {@link ReportIndex}, so the user can go to a step
+ * or to the next or previous outcome of a kind, and can show only the lines
+ * of a part or step, with an outcome, from a module, with a PGN or with some
+ * words. A double click on a line that was found shows it among the others.
+ */
+public class ReportView extends JPanel {
+
+    private static final long serialVersionUID = -2960012818316102227L;
+
+    /** The least time between updates of the list */
+    static final int FRAME_MILLIS = 40;
+
+    private static final String STEP_START = "Start Test ";
+
+    /** The list model over the lines */
+    private class Model extends AbstractListModel<String> {
+
+        private static final long serialVersionUID = 3906361342014440421L;
+
+        @Override
+        public String getElementAt(int row) {
+            if (found != null) {
+                return lines.get(found[row]);
+            }
+            return row == lines.size() ? partial.toString() : lines.get(row);
+        }
+
+        @Override
+        public int getSize() {
+            if (found != null) {
+                return foundCount;
+            }
+            return lines.size() + (partial.length() > 0 ? 1 : 0);
+        }
+
+        private void added(int oldSize, int oldLines) {
+            if (found == null && oldSize > oldLines) {
+                // the partial line was changed or completed
+                fireContentsChanged(this, oldLines, oldLines);
+            }
+            int size = getSize();
+            if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            }
+        }
+
+        private void replaced(int oldSize) {
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            int size = getSize();
+            if (size > 0) {
+                fireIntervalAdded(this, 0, size - 1);
+            }
+        }
+    }
+
+    private final transient Executor swingExecutor;
+
+    private final int frameMillis;
+
+    private final transient LineStore lines = new LineStore();
+
+    private final transient ReportIndex index = new ReportIndex();
+
+    /** The query of the lines shown, or null if all of the lines are shown */
+    private transient ReportIndex.Query query;
+
+    /** The lines found by the query */
+    private int[] found;
+
+    private int foundCount;
+
+    /** The end of the last line, until its line separator is appended */
+    private final StringBuilder partial = new StringBuilder();
+
+    /** The text appended since the last update; guards scheduled */
+    private final StringBuilder pending = new StringBuilder();
+
+    private boolean scheduled;
+
+    private long lastUpdate;
+
+    private final Timer timer;
+
+    private final Model model = new Model();
+
+    private final JList<String> list = new JList<>(model);
+
+    private final JComboBox<String> stepComboBox = new JComboBox<>();
+
+    private final List<Integer> stepLines = new ArrayList<>();
+
+    private final JComboBox<Outcome> outcomeComboBox = new JComboBox<>(Outcome.values());
+
+    private final JTextField stepField = new JTextField(4);
+
+    private final JComboBox<String> filterOutcomeComboBox = new JComboBox<>();
+
+    private final JTextField sourceField = new JTextField(4);
+
+    private final JTextField pgnField = new JTextField(6);
+
+    private final JTextField textField = new JTextField(16);
+
+    private final JLabel foundLabel = new JLabel();
+
+    /** True while steps are added to the combo box */
+    private boolean updating;
+
+    private int maxLength;
+
+    private final int charWidth;
+
+    /**
+     * Constructor
+     */
+    public ReportView() {
+        this(SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param swingExecutor
+     *                          runs tasks on the event dispatch thread
+     */
+    public ReportView(Executor swingExecutor) {
+        this(swingExecutor, FRAME_MILLIS);
+    }
+
+    /**
+     * Constructor exposed for testing
+     *
+     * @param swingExecutor
+     *                          runs tasks on the event dispatch thread
+     * @param frameMillis
+     *                          the least time between updates of the list
+     */
+    ReportView(Executor swingExecutor, int frameMillis) {
+        super(new BorderLayout());
+        this.swingExecutor = swingExecutor;
+        this.frameMillis = frameMillis;
+        timer = new Timer(frameMillis, e -> update());
+        timer.setRepeats(false);
+
+        list.setFont(new Font("Courier", Font.PLAIN, list.getFont().getSize()));
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        FontMetrics metrics = list.getFontMetrics(list.getFont());
+        charWidth = metrics.charWidth('W');
+        // fixed sizes so the list does not measure every row
+        list.setFixedCellHeight(metrics.getHeight());
+        list.setFixedCellWidth(80 * charWidth);
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = list.locationToIndex(e.getPoint());
+                if (e.getClickCount() == 2 && found != null && row >= 0) {
+                    show(found[row]);
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        new SmartScroller(scrollPane, SmartScroller.VERTICAL, SmartScroller.END);
+        add(scrollPane, BorderLayout.CENTER);
+
+        stepComboBox.setPrototypeDisplayValue("Test 12.12 - Part 12 Key On Engine Running Data Collection");
+        stepComboBox.setToolTipText("Go to the start of a step");
+        stepComboBox.addActionListener(e -> {
+            int selected = stepComboBox.getSelectedIndex();
+            if (!updating && selected >= 0) {
+                show(stepLines.get(selected));
+            }
+        });
+        outcomeComboBox.setSelectedItem(Outcome.FAIL);
+        JButton previousButton = new JButton("Previous");
+        previousButton.setToolTipText("Go to the previous outcome of the kind selected");
+        previousButton.addActionListener(e -> previous((Outcome) outcomeComboBox.getSelectedItem()));
+        JButton nextButton = new JButton("Next");
+        nextButton.setToolTipText("Go to the next outcome of the kind selected");
+        nextButton.addActionListener(e -> next((Outcome) outcomeComboBox.getSelectedItem()));
+
+        JPanel navigationPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        navigationPanel.add(new JLabel("Step:"));
+        navigationPanel.add(stepComboBox);
+        navigationPanel.add(new JLabel("Outcome:"));
+        navigationPanel.add(outcomeComboBox);
+        navigationPanel.add(previousButton);
+        navigationPanel.add(nextButton);
+
+        filterOutcomeComboBox.addItem("");
+        for (Outcome outcome : Outcome.values()) {
+            filterOutcomeComboBox.addItem(outcome.toString());
+        }
+        stepField.setToolTipText("The part, like 9, or step, like 9.2");
+        sourceField.setToolTipText("The source address of the module, like 0x3D or 61");
+        pgnField.setToolTipText("The PGN, like 65226 or 0xFECA");
+        textField.setToolTipText("Words that are all in the line");
+        textField.addActionListener(e -> find());
+        JButton findButton = new JButton("Find");
+        findButton.setToolTipText("Show only the lines that match all of the criteria given");
+        findButton.addActionListener(e -> find());
+        JButton clearButton = new JButton("Show All");
+        clearButton.setToolTipText("Show all of the lines");
+        clearButton.addActionListener(e -> clearQuery());
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        filterPanel.add(new JLabel("Part/Step:"));
+        filterPanel.add(stepField);
+        filterPanel.add(new JLabel("Outcome:"));
+        filterPanel.add(filterOutcomeComboBox);
+        filterPanel.add(new JLabel("Source:"));
+        filterPanel.add(sourceField);
+        filterPanel.add(new JLabel("PGN:"));
+        filterPanel.add(pgnField);
+        filterPanel.add(new JLabel("Text:"));
+        filterPanel.add(textField);
+        filterPanel.add(findButton);
+        filterPanel.add(clearButton);
+        filterPanel.add(foundLabel);
+
+        JPanel toolPanel = new JPanel(new GridLayout(2, 1));
+        toolPanel.add(navigationPanel);
+        toolPanel.add(filterPanel);
+        add(toolPanel, BorderLayout.NORTH);
+    }
+
+    /** Returns the number in the field, in decimal or in hex with 0x, or null if it is empty */
+    private static Integer parseField(JTextField field) {
+        String text = field.getText().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        if (text.startsWith("0x") || text.startsWith("0X")) {
+            return Integer.parseInt(text.substring(2), 16);
+        }
+        return Integer.parseInt(text);
+    }
+
+    /** Shows the lines that match the criteria in the fields. */
+    void find() {
+        ReportIndex.Query newQuery = new ReportIndex.Query();
+        try {
+            String step = stepField.getText().trim();
+            int dot = step.indexOf('.');
+            if (dot > 0) {
+                newQuery.setPart(Integer.parseInt(step.substring(0, dot)));
+                newQuery.setStep(Integer.parseInt(step.substring(dot + 1)));
+            } else if (!step.isEmpty()) {
+                newQuery.setPart(Integer.parseInt(step));
+            }
+            newQuery.setSource(parseField(sourceField));
+            newQuery.setPgn(parseField(pgnField));
+        } catch (NumberFormatException e) {
+            foundLabel.setText("Not a number: " + e.getMessage());
+            return;
+        }
+        String outcome = (String) filterOutcomeComboBox.getSelectedItem();
+        if (outcome != null && !outcome.isEmpty()) {
+            newQuery.setOutcome(Outcome.valueOf(outcome));
+        }
+        String text = textField.getText().trim();
+        if (!text.isEmpty()) {
+            newQuery.setText(text);
+        }
+        setQuery(newQuery);
+    }
+
+    /**
+     * Shows only the lines that match the query, including the lines appended
+     * later.
+     *
+     * @param  newQuery
+     *                      the query
+     * @return          the number of lines found
+     */
+    public int setQuery(ReportIndex.Query newQuery) {
+        int oldSize = model.getSize();
+        query = newQuery;
+        found = index.search(newQuery);
+        foundCount = found.length;
+        model.replaced(oldSize);
+        updateFoundLabel();
+        return foundCount;
+    }
+
+    /**
+     * Shows all of the lines.
+     */
+    public void clearQuery() {
+        if (query != null) {
+            int oldSize = model.getSize();
+            query = null;
+            found = null;
+            model.replaced(oldSize);
+            foundLabel.setText("");
+        }
+    }
+
+    private void updateFoundLabel() {
+        foundLabel.setText(foundCount + " of " + lines.size() + " lines");
+    }
+
+    /**
+     * Appends text to the report. It may be called from any thread.
+     *
+     * @param text
+     *                 the text, with line separators between the lines
+     */
+    public void append(String text) {
+        synchronized (pending) {
+            pending.append(text);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        swingExecutor.execute(this::update);
+    }
+
+    /** Adds the pending text to the list, if the last update was long enough ago. */
+    private void update() {
+        long wait = lastUpdate + frameMillis - System.currentTimeMillis();
+        if (wait > 0) {
+            timer.setInitialDelay((int) wait);
+            timer.restart();
+            return;
+        }
+        String text;
+        synchronized (pending) {
+            text = pending.toString();
+            pending.setLength(0);
+            scheduled = false;
+        }
+        lastUpdate = System.currentTimeMillis();
+        add(text);
+    }
+
+    private void add(String text) {
+        int oldSize = model.getSize();
+        int oldLines = lines.size();
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; end = text.indexOf('\n', start)) {
+            partial.append(text, start, end > start && text.charAt(end - 1) == '\r' ? end - 1 : end);
+            addLine(partial.toString());
+            partial.setLength(0);
+            start = end + 1;
+        }
+        partial.append(text, start, text.length());
+        if (query != null) {
+            int[] more = index.search(query, oldLines);
+            if (foundCount + more.length > found.length) {
+                found = Arrays.copyOf(found, Math.max(found.length * 2, foundCount + more.length));
+            }
+            System.arraycopy(more, 0, found, foundCount, more.length);
+            foundCount += more.length;
+            updateFoundLabel();
+        }
+        model.added(oldSize, oldLines);
+    }
+
+    private void addLine(String line) {
+        int lineIndex = lines.size();
+        lines.add(line);
+        index.add(line);
+        if (line.length() > maxLength) {
+            maxLength = line.length();
+            list.setFixedCellWidth((maxLength + 2) * charWidth);
+        }
+        if (line.startsWith(STEP_START)) {
+            stepLines.add(lineIndex);
+            updating = true;
+            try {
+                stepComboBox.addItem(line.substring(STEP_START.length() - "Test ".length()));
+                stepComboBox.setSelectedIndex(-1);
+            } finally {
+                updating = false;
+            }
+        }
+    }
+
+    /**
+     * Shows all of the lines, then selects the line and scrolls to it.
+     *
+     * @param line
+     *                 the index of the line
+     */
+    public void show(int line) {
+        clearQuery();
+        list.setSelectedIndex(line);
+        list.ensureIndexIsVisible(line);
+    }
+
+    /** Returns the index of the line selected, or -1 */
+    private int getSelectedLine() {
+        int row = list.getSelectedIndex();
+        return found != null && row >= 0 ? found[row] : row;
+    }
+
+    /**
+     * Shows the next line with the outcome after the selected line.
+     *
+     * @param  outcome
+     *                     the kind of outcome
+     * @return         the index of the line, or -1 if there is none
+     */
+    public int next(Outcome outcome) {
+        int line = index.next(outcome, getSelectedLine());
+        return line >= 0 ? showLine(line) : -1;
+    }
+
+    /**
+     * Shows the previous line with the outcome before the selected line.
+     *
+     * @param  outcome
+     *                     the kind of outcome
+     * @return         the index of the line, or -1 if there is none
+     */
+    public int previous(Outcome outcome) {
+        int selected = getSelectedLine();
+        int line = index.previous(outcome, selected < 0 ? lines.size() : selected);
+        return line >= 0 ? showLine(line) : -1;
+    }
+
+    private int showLine(int line) {
+        show(line);
+        return line;
+    }
+
+    /**
+     * @return the number of lines shown, including a last line without a line
+     *         separator
+     */
+    public int getLineCount() {
+        return model.getSize();
+    }
+
+    /**
+     * @param  row
+     *                 the index of the line among the lines shown
+     * @return     the line
+     */
+    public String getLine(int row) {
+        return model.getElementAt(row);
+    }
+
+    JList<String> getList() {
+        return list;
+    }
+
+    JComboBox<String> getStepComboBox() {
+        return stepComboBox;
+    }
+
+    JTextField getStepField() {
+        return stepField;
+    }
+
+    JComboBox<String> getFilterOutcomeComboBox() {
+        return filterOutcomeComboBox;
+    }
+
+    JTextField getSourceField() {
+        return sourceField;
+    }
+
+    JTextField getPgnField() {
+        return pgnField;
+    }
+
+    JTextField getTextField() {
+        return textField;
+    }
+
+    JLabel getFoundLabel() {
+        return foundLabel;
+    }
+}
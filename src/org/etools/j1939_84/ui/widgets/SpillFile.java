@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.ui.widgets;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+
+/**
+ * A temporary file that blocks of bytes are appended to and read back from, so
+ * the report widgets can keep what is seldom read out of the heap. The file is
+ * created by the first append and deleted when the application ends; on most
+ * systems it is never seen in the directory.
+ *
+ * If the file cannot be created or written, a warning is logged once and
+ * {@link #append(byte[], int, int)} returns -1 from then on, so the caller
+ * keeps its blocks in memory.
+ */
+class SpillFile {
+
+    private final String name;
+
+    private FileChannel channel;
+
+    private long size;
+
+    private boolean failed;
+
+    /**
+     * @param name
+     *                 what the file holds, for its name and the log
+     */
+    SpillFile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Appends a block of bytes.
+     *
+     * @param  bytes
+     *                    the bytes
+     * @param  offset
+     *                    the first byte of the block
+     * @param  length
+     *                    the length of the block
+     * @return        the position of the block in the file, or -1 if it was
+     *                not written
+     */
+    long append(byte[] bytes, int offset, int length) {
+        if (failed) {
+            return -1;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(Files.createTempFile("j1939_84-" + name.replace(' ', '-') + "-", ".tmp"),
+                                           StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE,
+                                           StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            long position = size;
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position() - offset);
+            }
+            size += length;
+            return position;
+        } catch (IOException e) {
+            J1939_84.getLogger()
+                    .log(Level.WARNING, "Unable to write the " + name + " to a file; keeping them in memory.", e);
+            failed = true;
+            return -1;
+        }
+    }
+
+    /**
+     * Reads back bytes that were appended.
+     *
+     * @param  position
+     *                                  the position in the file
+     * @param  bytes
+     *                                  the array to read into
+     * @param  offset
+     *                                  where the bytes are read to in the array
+     * @param  length
+     *                                  the number of bytes to read
+     * @throws UncheckedIOException
+     *                                  if the file cannot be read
+     */
+    void read(long position, byte[] bytes, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position() - offset) < 0) {
+                    throw new IOException("The end of the file was reached at " + (position + length));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the " + name, e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021. Equipment & Tool Institute
+ */
+package org.etools.j1939_84.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.etools.j1939_84.J1939_84;
+import org.etools.j1939_84.bus.Threads;
+
+/**
+ * A value that is loaded once, either on a thread of its own when
+ * {@link #start()} is called, or by the first caller of {@link #get()}. A
+ * caller that arrives while it is loading waits for it, so a table started at
+ * startup is read once whether the loader or its first user gets there first.
+ *
+ * @param <T>
+ *            the type of the value
+ */
+public class Lazy<T> implements Supplier<T> {
+
+    private final String name;
+
+    private final FutureTask<T> task;
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *                   the name of the value, for the log and the thread
+     * @param loader
+     *                   loads the value
+     */
+    public Lazy(String name, Callable<T> loader) {
+        this.name = name;
+        task = new FutureTask<>(() -> {
+            long start = System.nanoTime();
+            T value = loader.call();
+            J1939_84.getLogger()
+                    .log(Level.FINE,
+                         () -> "Loaded " + name + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                                 + " ms on " + Thread.currentThread().getName());
+            return value;
+        });
+    }
+
+    /**
+     * Loads the value on a daemon thread of its own, unless it is loading or
+     * loaded.
+     *
+     * @return this
+     */
+    public Lazy<T> start() {
+        if (!task.isDone()) {
+            Threads.start("Load " + name, true, task);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the value, loading it on this thread if it has not started, or
+     * waiting for it if it has.
+     *
+     * @return                       the value
+     * @throws IllegalStateException
+     *                                   if the loader threw a checked exception,
+     *                                   which is its cause; unchecked ones are
+     *                                   thrown as they are
+     */
+    @Override
+    public T get() {
+        // does nothing if already run or running
+        task.run();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // the value is needed, so wait and interrupt again after
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("Unable to load " + name, cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the load of the value, which is not started by this
+     */
+    public Future<T> getFuture() {
+        return task;
+    }
+
+    /**
+     * @return true if the value is loaded, or failed to load
+     */
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}